@@ -0,0 +1,26 @@
+package ehe_server.config.core;
+
+import ehe_server.service.intf.simulator.ExchangeSimulatorInterface;
+import ehe_server.service.simulator.SimulatedClock;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Clock;
+
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    @Profile("!simulator")
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+
+    // Ingestion lag is measured against the time of the exchange the candles come from
+    @Bean
+    @Profile("simulator")
+    public Clock simulatedClock(ExchangeSimulatorInterface exchangeSimulator) {
+        return new SimulatedClock(exchangeSimulator);
+    }
+}
@@ -0,0 +1,17 @@
+package ehe_server.config.core;
+
+import ehe_server.properties.IngestionMetricsProperties;
+import ehe_server.service.metrics.SymbolTagLimitFilter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Applied by Spring Boot to the registry before any meter is registered
+    @Bean
+    public MeterFilter symbolTagLimitFilter(IngestionMetricsProperties metricsProperties) {
+        return new SymbolTagLimitFilter(metricsProperties.getMaxSymbolSeries());
+    }
+}
@@ -32,7 +32,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> {
                     auth.requestMatchers("/api/auth/**", "/api/home/**", "/error").permitAll()
                             .requestMatchers(HttpMethod.POST, "/api/session").permitAll()
-                            .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                            .requestMatchers("/api/admin/**", "/actuator/**").hasRole("ADMIN")
                             .requestMatchers(HttpMethod.GET, "/api/user/platforms").authenticated()
                             .requestMatchers(HttpMethod.GET, "/api/user/platforms/*/stocks").authenticated()
                             .requestMatchers("/api/user/**", "/ws/**").hasRole("USER")
@@ -2,24 +2,27 @@ package ehe_server.config.external;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.netty.http.client.HttpClient;
 
 @Configuration
 public class AlpacaConfig {
 
     /**
-     * Provides a configured RestTemplate for making HTTP requests to Alpaca API.
+     * Provides a WebClient for making non-blocking HTTP requests to Alpaca API,
+     * on top of the pooled exchange HTTP client.
      */
-    @Bean(name = "alpacaRestTemplate")
-    public RestTemplate alpacaRestTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-
+    @Bean(name = "alpacaWebClient")
+    public WebClient alpacaWebClient(HttpClient exchangeHttpClient) {
         // Configure proper URL encoding for Alpaca API
         DefaultUriBuilderFactory uriFactory = new DefaultUriBuilderFactory();
         uriFactory.setEncodingMode(DefaultUriBuilderFactory.EncodingMode.VALUES_ONLY);
-        restTemplate.setUriTemplateHandler(uriFactory);
 
-        return restTemplate;
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(exchangeHttpClient))
+                .uriBuilderFactory(uriFactory)
+                .build();
     }
-}
\ No newline at end of file
+}
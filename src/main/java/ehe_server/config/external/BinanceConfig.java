@@ -2,24 +2,27 @@ package ehe_server.config.external;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.netty.http.client.HttpClient;
 
 @Configuration
 public class BinanceConfig {
 
     /**
-     * Provides a configured RestTemplate for making HTTP requests to Binance API.
+     * Provides a WebClient for making non-blocking HTTP requests to Binance API,
+     * on top of the pooled exchange HTTP client.
      */
-    @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-
+    @Bean(name = "binanceWebClient")
+    public WebClient binanceWebClient(HttpClient exchangeHttpClient) {
         // Configure proper URL encoding for Binance API
         DefaultUriBuilderFactory uriFactory = new DefaultUriBuilderFactory();
         uriFactory.setEncodingMode(DefaultUriBuilderFactory.EncodingMode.VALUES_ONLY);
-        restTemplate.setUriTemplateHandler(uriFactory);
 
-        return restTemplate;
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(exchangeHttpClient))
+                .uriBuilderFactory(uriFactory)
+                .build();
     }
 }
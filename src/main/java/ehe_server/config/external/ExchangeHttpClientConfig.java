@@ -0,0 +1,55 @@
+package ehe_server.config.external;
+
+import ehe_server.properties.ExchangeHttpClientProperties;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExchangeHttpClientConfig {
+
+    /**
+     * Connection pool shared by the exchange clients. Reactor Netty keeps a separate pool
+     * per remote host, so every exchange host gets its own connection limit.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider exchangeConnectionProvider(ExchangeHttpClientProperties properties) {
+        return ConnectionProvider.builder("exchange")
+                .maxConnections(properties.getMaxConnectionsPerHost())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(properties.getPendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(properties.getMaxIdleTimeMs()))
+                .maxLifeTime(Duration.ofMillis(properties.getMaxLifeTimeMs()))
+                .evictInBackground(Duration.ofMillis(properties.getMaxIdleTimeMs()))
+                .build();
+    }
+
+    /**
+     * Non-blocking HTTP client with keep-alive and timeouts, used by every exchange WebClient
+     */
+    @Bean
+    public HttpClient exchangeHttpClient(ConnectionProvider exchangeConnectionProvider,
+                                         ExchangeHttpClientProperties properties) {
+        HttpClient httpClient = HttpClient.create(exchangeConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeoutMs())
+                .option(ChannelOption.SO_KEEPALIVE, properties.isKeepAlive())
+                .keepAlive(properties.isKeepAlive())
+                .responseTimeout(Duration.ofMillis(properties.getResponseTimeoutMs()))
+                .doOnConnected(connection -> connection.addHandlerLast(
+                        new ReadTimeoutHandler(properties.getReadTimeoutMs(), TimeUnit.MILLISECONDS)));
+
+        // HTTP/2 is negotiated over TLS, hosts without it stay on HTTP/1.1
+        if (properties.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return httpClient;
+    }
+}
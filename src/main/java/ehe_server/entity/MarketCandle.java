@@ -13,17 +13,19 @@ import java.time.LocalDateTime;
 public class MarketCandle {
 
     public enum Timeframe {
-        M1("1m"),
-        M5("5m"),
-        M15("15m"),
-        H1("1h"),
-        H4("4h"),
-        D1("1d");
+        M1("1m", 1),
+        M5("5m", 5),
+        M15("15m", 15),
+        H1("1h", 60),
+        H4("4h", 240),
+        D1("1d", 1440);
 
         private final String value;
+        private final int minutes;
 
-        Timeframe(String value) {
+        Timeframe(String value, int minutes) {
             this.value = value;
+            this.minutes = minutes;
         }
 
         @JsonValue
@@ -31,6 +33,10 @@ public class MarketCandle {
             return value;
         }
 
+        public int getMinutes() {
+            return minutes;
+        }
+
         @JsonCreator
         public static Timeframe fromValue(String value) {
             for (Timeframe tf : Timeframe.values()) {
@@ -0,0 +1,43 @@
+package ehe_server.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "platform_stock_sync_state")
+public class PlatformStockSyncState {
+
+    @Id
+    @Column(name = "platform_stock_id")
+    private Integer platformStockId;
+
+    @Column(name = "earliest_data_timestamp")
+    private LocalDateTime earliestDataTimestamp;
+
+    @Column(name = "gap_verified_until")
+    private LocalDateTime gapVerifiedUntil;
+
+    public Integer getPlatformStockId() {
+        return platformStockId;
+    }
+
+    public void setPlatformStockId(Integer platformStockId) {
+        this.platformStockId = platformStockId;
+    }
+
+    public LocalDateTime getEarliestDataTimestamp() {
+        return earliestDataTimestamp;
+    }
+
+    public void setEarliestDataTimestamp(LocalDateTime earliestDataTimestamp) {
+        this.earliestDataTimestamp = earliestDataTimestamp;
+    }
+
+    public LocalDateTime getGapVerifiedUntil() {
+        return gapVerifiedUntil;
+    }
+
+    public void setGapVerifiedUntil(LocalDateTime gapVerifiedUntil) {
+        this.gapVerifiedUntil = gapVerifiedUntil;
+    }
+}
@@ -0,0 +1,46 @@
+package ehe_server.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "spring.binance")
+public class BinanceProperties {
+
+    private String resturl = "https://api.binance.com";
+    private String websocketurl = "wss://stream.binance.com:9443";
+    private int streamShards = 4;
+    private int maxStreamsPerConnection = 1024;
+
+    public String getResturl() {
+        return resturl;
+    }
+
+    public void setResturl(String resturl) {
+        this.resturl = resturl;
+    }
+
+    public String getWebsocketurl() {
+        return websocketurl;
+    }
+
+    public void setWebsocketurl(String websocketurl) {
+        this.websocketurl = websocketurl;
+    }
+
+    public int getStreamShards() {
+        return streamShards;
+    }
+
+    public void setStreamShards(int streamShards) {
+        this.streamShards = streamShards;
+    }
+
+    public int getMaxStreamsPerConnection() {
+        return maxStreamsPerConnection;
+    }
+
+    public void setMaxStreamsPerConnection(int maxStreamsPerConnection) {
+        this.maxStreamsPerConnection = maxStreamsPerConnection;
+    }
+}
@@ -0,0 +1,469 @@
+package ehe_server.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.candle")
+public class CandleIngestionProperties {
+
+    private WriterConfig writer = new WriterConfig();
+    private BulkLoadConfig bulkLoad = new BulkLoadConfig();
+    private BackfillConfig backfill = new BackfillConfig();
+    private RealtimeConfig realtime = new RealtimeConfig();
+    private GapScanConfig gapScan = new GapScanConfig();
+    private JournalConfig journal = new JournalConfig();
+    private HotCacheConfig hotCache = new HotCacheConfig();
+    private PartitionConfig partitions = new PartitionConfig();
+    private PackingConfig packing = new PackingConfig();
+
+    public WriterConfig getWriter() {
+        return writer;
+    }
+
+    public void setWriter(WriterConfig writer) {
+        this.writer = writer;
+    }
+
+    public BulkLoadConfig getBulkLoad() {
+        return bulkLoad;
+    }
+
+    public void setBulkLoad(BulkLoadConfig bulkLoad) {
+        this.bulkLoad = bulkLoad;
+    }
+
+    public BackfillConfig getBackfill() {
+        return backfill;
+    }
+
+    public void setBackfill(BackfillConfig backfill) {
+        this.backfill = backfill;
+    }
+
+    public RealtimeConfig getRealtime() {
+        return realtime;
+    }
+
+    public void setRealtime(RealtimeConfig realtime) {
+        this.realtime = realtime;
+    }
+
+    public GapScanConfig getGapScan() {
+        return gapScan;
+    }
+
+    public void setGapScan(GapScanConfig gapScan) {
+        this.gapScan = gapScan;
+    }
+
+    public JournalConfig getJournal() {
+        return journal;
+    }
+
+    public void setJournal(JournalConfig journal) {
+        this.journal = journal;
+    }
+
+    public HotCacheConfig getHotCache() {
+        return hotCache;
+    }
+
+    public void setHotCache(HotCacheConfig hotCache) {
+        this.hotCache = hotCache;
+    }
+
+    public PartitionConfig getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(PartitionConfig partitions) {
+        this.partitions = partitions;
+    }
+
+    public PackingConfig getPacking() {
+        return packing;
+    }
+
+    public void setPacking(PackingConfig packing) {
+        this.packing = packing;
+    }
+
+    public static class WriterConfig {
+        private int chunkSize = 1000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class BulkLoadConfig {
+        private boolean enabled = true;
+        private int mergeWindowDays = 31;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMergeWindowDays() {
+            return mergeWindowDays;
+        }
+
+        public void setMergeWindowDays(int mergeWindowDays) {
+            this.mergeWindowDays = mergeWindowDays;
+        }
+    }
+
+    public static class BackfillConfig {
+        private int workerThreads = 4;
+        private boolean rangeSplit = true;
+        private int rangeParallelism = 4;
+        // Pages fetched ahead while earlier ones are still being persisted
+        private int prefetchPages = 2;
+        // Symbols per multi-symbol catch-up request
+        private int catchUpBatchSymbols = 100;
+        // Symbols share a catch-up request only if their latest candles are this close, the rest is refetched
+        private int catchUpMaxSpreadMinutes = 60;
+
+        public int getWorkerThreads() {
+            return workerThreads;
+        }
+
+        public void setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+        }
+
+        public boolean isRangeSplit() {
+            return rangeSplit;
+        }
+
+        public void setRangeSplit(boolean rangeSplit) {
+            this.rangeSplit = rangeSplit;
+        }
+
+        public int getRangeParallelism() {
+            return rangeParallelism;
+        }
+
+        public void setRangeParallelism(int rangeParallelism) {
+            this.rangeParallelism = rangeParallelism;
+        }
+
+        public int getPrefetchPages() {
+            return prefetchPages;
+        }
+
+        public void setPrefetchPages(int prefetchPages) {
+            this.prefetchPages = prefetchPages;
+        }
+
+        public int getCatchUpBatchSymbols() {
+            return catchUpBatchSymbols;
+        }
+
+        public void setCatchUpBatchSymbols(int catchUpBatchSymbols) {
+            this.catchUpBatchSymbols = catchUpBatchSymbols;
+        }
+
+        public int getCatchUpMaxSpreadMinutes() {
+            return catchUpMaxSpreadMinutes;
+        }
+
+        public void setCatchUpMaxSpreadMinutes(int catchUpMaxSpreadMinutes) {
+            this.catchUpMaxSpreadMinutes = catchUpMaxSpreadMinutes;
+        }
+    }
+
+    public static class RealtimeConfig {
+        private int workerThreads = 2;
+        private int queueCapacity = 10000;
+        private int batchSize = 500;
+        private long batchWindowMs = 50;
+        private DropPolicy dropPolicy = DropPolicy.DROP_OLDEST;
+        private long lagWarningMs = 5000;
+        private long openCandleWriteIntervalMs = 10000;
+
+        public int getWorkerThreads() {
+            return workerThreads;
+        }
+
+        public void setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getBatchWindowMs() {
+            return batchWindowMs;
+        }
+
+        public void setBatchWindowMs(long batchWindowMs) {
+            this.batchWindowMs = batchWindowMs;
+        }
+
+        public DropPolicy getDropPolicy() {
+            return dropPolicy;
+        }
+
+        public void setDropPolicy(DropPolicy dropPolicy) {
+            this.dropPolicy = dropPolicy;
+        }
+
+        public long getLagWarningMs() {
+            return lagWarningMs;
+        }
+
+        public void setLagWarningMs(long lagWarningMs) {
+            this.lagWarningMs = lagWarningMs;
+        }
+
+        public long getOpenCandleWriteIntervalMs() {
+            return openCandleWriteIntervalMs;
+        }
+
+        public void setOpenCandleWriteIntervalMs(long openCandleWriteIntervalMs) {
+            this.openCandleWriteIntervalMs = openCandleWriteIntervalMs;
+        }
+    }
+
+    public static class GapScanConfig {
+        private boolean enabled = true;
+        // Gaps closer than this are refetched as one range
+        private int mergeMinutes = 5;
+        private int maxGapsPerRun = 200;
+        // Recent minutes are left to the live stream and scanned on the next run
+        private int settleMinutes = 60;
+        // Regular session of stock symbols, minutes outside of it are never gaps
+        private String sessionZone = "America/New_York";
+        private String sessionOpen = "09:30";
+        private String sessionClose = "16:00";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMergeMinutes() {
+            return mergeMinutes;
+        }
+
+        public void setMergeMinutes(int mergeMinutes) {
+            this.mergeMinutes = mergeMinutes;
+        }
+
+        public int getMaxGapsPerRun() {
+            return maxGapsPerRun;
+        }
+
+        public void setMaxGapsPerRun(int maxGapsPerRun) {
+            this.maxGapsPerRun = maxGapsPerRun;
+        }
+
+        public int getSettleMinutes() {
+            return settleMinutes;
+        }
+
+        public void setSettleMinutes(int settleMinutes) {
+            this.settleMinutes = settleMinutes;
+        }
+
+        public String getSessionZone() {
+            return sessionZone;
+        }
+
+        public void setSessionZone(String sessionZone) {
+            this.sessionZone = sessionZone;
+        }
+
+        public String getSessionOpen() {
+            return sessionOpen;
+        }
+
+        public void setSessionOpen(String sessionOpen) {
+            this.sessionOpen = sessionOpen;
+        }
+
+        public String getSessionClose() {
+            return sessionClose;
+        }
+
+        public void setSessionClose(String sessionClose) {
+            this.sessionClose = sessionClose;
+        }
+    }
+
+    public static class JournalConfig {
+        private boolean enabled = true;
+        private String directory = "data/journal";
+        private int segmentSizeMb = 64;
+        private long commitIntervalMs = 1000;
+        private long readIntervalMs = 5;
+        // How long the reader holds back a frame whose symbols have no handler before it skips the frame
+        private long holdTimeoutMs = 60000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getSegmentSizeMb() {
+            return segmentSizeMb;
+        }
+
+        public void setSegmentSizeMb(int segmentSizeMb) {
+            this.segmentSizeMb = segmentSizeMb;
+        }
+
+        public long getCommitIntervalMs() {
+            return commitIntervalMs;
+        }
+
+        public void setCommitIntervalMs(long commitIntervalMs) {
+            this.commitIntervalMs = commitIntervalMs;
+        }
+
+        public long getReadIntervalMs() {
+            return readIntervalMs;
+        }
+
+        public void setReadIntervalMs(long readIntervalMs) {
+            this.readIntervalMs = readIntervalMs;
+        }
+
+        public long getHoldTimeoutMs() {
+            return holdTimeoutMs;
+        }
+
+        public void setHoldTimeoutMs(long holdTimeoutMs) {
+            this.holdTimeoutMs = holdTimeoutMs;
+        }
+    }
+
+    public static class HotCacheConfig {
+        private boolean enabled = true;
+        // Newest candles kept per platform stock and timeframe
+        private int capacity = 240;
+        private boolean warmOnStartup = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public boolean isWarmOnStartup() {
+            return warmOnStartup;
+        }
+
+        public void setWarmOnStartup(boolean warmOnStartup) {
+            this.warmOnStartup = warmOnStartup;
+        }
+    }
+
+    public static class PartitionConfig {
+        // Months of empty market_candle partitions kept ready ahead of now
+        private int monthsAhead = 3;
+        // Minute partitions older than this many whole months are dropped, 0 keeps every minute
+        private int minuteRetentionMonths = 0;
+
+        public int getMonthsAhead() {
+            return monthsAhead;
+        }
+
+        public void setMonthsAhead(int monthsAhead) {
+            this.monthsAhead = monthsAhead;
+        }
+
+        public int getMinuteRetentionMonths() {
+            return minuteRetentionMonths;
+        }
+
+        public void setMinuteRetentionMonths(int minuteRetentionMonths) {
+            this.minuteRetentionMonths = minuteRetentionMonths;
+        }
+    }
+
+    public static class PackingConfig {
+        private boolean enabled = true;
+        // Minute days younger than this stay as rows, late corrections rarely reach further back
+        private int settleDays = 7;
+        // Days packed per transaction, the first run over a long history takes several
+        private int maxDaysPerTransaction = 31;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getSettleDays() {
+            return settleDays;
+        }
+
+        public void setSettleDays(int settleDays) {
+            this.settleDays = settleDays;
+        }
+
+        public int getMaxDaysPerTransaction() {
+            return maxDaysPerTransaction;
+        }
+
+        public void setMaxDaysPerTransaction(int maxDaysPerTransaction) {
+            this.maxDaysPerTransaction = maxDaysPerTransaction;
+        }
+    }
+
+    // What a full realtime queue does with a new bar, the socket thread never waits
+    public enum DropPolicy {
+        DROP_OLDEST,
+        DROP_NEWEST
+    }
+}
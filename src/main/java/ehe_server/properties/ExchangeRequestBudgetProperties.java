@@ -0,0 +1,70 @@
+package ehe_server.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.exchange.request-budget")
+public class ExchangeRequestBudgetProperties {
+
+    // Budget per minute keyed by lower-case platform name, kept below the exchange limits by at least the burst.
+    // Shared by the data requests, account calls made with a user's own Alpaca key get the same limit per key
+    private Map<String, Integer> perMinute = new HashMap<>(Map.of(
+            "alpaca", 180,
+            "binance", 1080
+    ));
+
+    // Order placements per minute and account, platforms without an entry have no separate order limit
+    private Map<String, Integer> ordersPerMinute = new HashMap<>(Map.of(
+            "binance", 240
+    ));
+
+    // Tokens a bucket can save up, as seconds of its per-minute rate
+    private int burstSeconds = 5;
+
+    // Share of the burst that background requests leave free for interactive ones
+    private int interactiveReservePercent = 25;
+
+    public Map<String, Integer> getPerMinute() {
+        return perMinute;
+    }
+
+    public void setPerMinute(Map<String, Integer> perMinute) {
+        this.perMinute = perMinute;
+    }
+
+    public int getPerMinute(String platformName) {
+        return perMinute.getOrDefault(platformName.toLowerCase(), Integer.MAX_VALUE);
+    }
+
+    public Map<String, Integer> getOrdersPerMinute() {
+        return ordersPerMinute;
+    }
+
+    public void setOrdersPerMinute(Map<String, Integer> ordersPerMinute) {
+        this.ordersPerMinute = ordersPerMinute;
+    }
+
+    public int getOrdersPerMinute(String platformName) {
+        return ordersPerMinute.getOrDefault(platformName.toLowerCase(), Integer.MAX_VALUE);
+    }
+
+    public int getBurstSeconds() {
+        return burstSeconds;
+    }
+
+    public void setBurstSeconds(int burstSeconds) {
+        this.burstSeconds = burstSeconds;
+    }
+
+    public int getInteractiveReservePercent() {
+        return interactiveReservePercent;
+    }
+
+    public void setInteractiveReservePercent(int interactiveReservePercent) {
+        this.interactiveReservePercent = interactiveReservePercent;
+    }
+}
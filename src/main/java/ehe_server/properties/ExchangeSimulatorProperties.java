@@ -0,0 +1,87 @@
+package ehe_server.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.simulator")
+public class ExchangeSimulatorProperties {
+
+    private String host = "localhost";
+    private int port = 8099;
+    // Simulated minutes per real minute until the simulated clock has caught up with the wall clock
+    private int timeCompression = 1;
+    // The simulated clock starts this far behind the wall clock, it never runs ahead of it
+    private int replayHours = 24;
+    // History the REST endpoints serve before the simulated start
+    private int historyDays = 30;
+    // Pushes of the open kline per simulated minute, Binance sends one about every two seconds
+    private int klineUpdatesPerMinute = 30;
+    // Optional CSV of recorded bars: symbol,openTimeMillis,open,high,low,close,volume
+    private String recordingFile = "";
+    private boolean marketOpen = true;
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getTimeCompression() {
+        return timeCompression;
+    }
+
+    public void setTimeCompression(int timeCompression) {
+        this.timeCompression = timeCompression;
+    }
+
+    public int getReplayHours() {
+        return replayHours;
+    }
+
+    public void setReplayHours(int replayHours) {
+        this.replayHours = replayHours;
+    }
+
+    public int getHistoryDays() {
+        return historyDays;
+    }
+
+    public void setHistoryDays(int historyDays) {
+        this.historyDays = historyDays;
+    }
+
+    public int getKlineUpdatesPerMinute() {
+        return klineUpdatesPerMinute;
+    }
+
+    public void setKlineUpdatesPerMinute(int klineUpdatesPerMinute) {
+        this.klineUpdatesPerMinute = klineUpdatesPerMinute;
+    }
+
+    public String getRecordingFile() {
+        return recordingFile;
+    }
+
+    public void setRecordingFile(String recordingFile) {
+        this.recordingFile = recordingFile;
+    }
+
+    public boolean isMarketOpen() {
+        return marketOpen;
+    }
+
+    public void setMarketOpen(boolean marketOpen) {
+        this.marketOpen = marketOpen;
+    }
+}
@@ -0,0 +1,20 @@
+package ehe_server.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.metrics")
+public class IngestionMetricsProperties {
+
+    // Symbols that get their own bar rate series, later symbols are counted as "other"
+    private int maxSymbolSeries = 500;
+
+    public int getMaxSymbolSeries() {
+        return maxSymbolSeries;
+    }
+
+    public void setMaxSymbolSeries(int maxSymbolSeries) {
+        this.maxSymbolSeries = maxSymbolSeries;
+    }
+}
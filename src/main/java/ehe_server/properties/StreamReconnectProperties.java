@@ -0,0 +1,47 @@
+package ehe_server.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.stream.reconnect")
+public class StreamReconnectProperties {
+
+    // First backoff step, doubled on every failed attempt up to the maximum
+    private long initialDelayMs = 1000;
+    private long maxDelayMs = 60000;
+    private long connectTimeoutMs = 15000;
+    private int gapFillThreads = 2;
+
+    public long getInitialDelayMs() {
+        return initialDelayMs;
+    }
+
+    public void setInitialDelayMs(long initialDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+    }
+
+    public long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    public void setMaxDelayMs(long maxDelayMs) {
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(long connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public int getGapFillThreads() {
+        return gapFillThreads;
+    }
+
+    public void setGapFillThreads(int gapFillThreads) {
+        this.gapFillThreads = gapFillThreads;
+    }
+}
@@ -3,29 +3,21 @@ package ehe_server.repository;
 import ehe_server.entity.MarketCandle;
 import ehe_server.entity.MarketCandle.Timeframe;
 import ehe_server.entity.PlatformStock;
+import ehe_server.service.candle.CandleGapInterface;
 import ehe_server.service.stock.CandleWithSequenceInterface;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MarketCandleRepository extends JpaRepository<MarketCandle, Integer> {
 
-    List<MarketCandle> findByPlatformStockAndTimeframeAndTimestampBetween(
-            PlatformStock platformStock,
-            MarketCandle.Timeframe timeframe,
-            LocalDateTime startTime,
-            LocalDateTime endTime
-    );
-
     /**
      * Fetches the single latest candle for each provided stock within the given timeframe.
      */
@@ -43,24 +35,39 @@ public interface MarketCandleRepository extends JpaRepository<MarketCandle, Inte
             @Param("timeframe") MarketCandle.Timeframe timeframe
     );
 
+    /**
+     * The sequence column is maintained by the market_candle triggers, 1 is the oldest candle of the series.
+     * Minute candles of packed days come from their buckets, without a market candle ID.
+     */
     @Query(value = """
-        SELECT * FROM (
-            SELECT mc.market_candle_id as marketCandleId,
-                   mc.timestamp,
-                   mc.open_price as openPrice,
-                   mc.close_price as closePrice,
-                   mc.high_price as highPrice,
-                   mc.low_price as lowPrice,
-                   mc.volume,
-                   ROW_NUMBER() OVER (
-                       ORDER BY mc.timestamp
-                   ) as sequence
-            FROM market_candle mc
-            WHERE mc.platform_stock_id = :stockId
-            AND mc.timeframe = :#{#timeframe.value}
-        ) as sequenced_data
-        WHERE sequenced_data.timestamp BETWEEN :startDate AND :endDate
-        ORDER BY sequenced_data.timestamp
+        SELECT mc.market_candle_id as marketCandleId,
+               mc.timestamp,
+               mc.open_price as openPrice,
+               mc.close_price as closePrice,
+               mc.high_price as highPrice,
+               mc.low_price as lowPrice,
+               mc.volume,
+               mc.sequence
+        FROM market_candle mc
+        WHERE mc.platform_stock_id = :stockId
+        AND mc.timeframe = :#{#timeframe.value}
+        AND mc.timestamp BETWEEN :startDate AND :endDate
+        UNION ALL
+        SELECT NULL,
+               pm.timestamp,
+               pm.open_price,
+               pm.close_price,
+               pm.high_price,
+               pm.low_price,
+               pm.volume,
+               pm.sequence
+        FROM market_candle_packed_minute pm
+        WHERE :#{#timeframe.value} = '1m'
+        AND pm.platform_stock_id = :stockId
+        AND pm.bucket_start > CAST(:startDate AS TIMESTAMP) - INTERVAL '1 day'
+        AND pm.bucket_start <= :endDate
+        AND pm.timestamp BETWEEN :startDate AND :endDate
+        ORDER BY timestamp
         """, nativeQuery = true)
     List<CandleWithSequenceInterface> findCandlesByDateRangeWithSequence(
             @Param("stockId") Integer stockId,
@@ -72,28 +79,68 @@ public interface MarketCandleRepository extends JpaRepository<MarketCandle, Inte
             PlatformStock platformStock,
             Timeframe timeframe);
 
-    Optional<MarketCandle> findByPlatformStockAndTimeframeAndTimestampEquals(
+    MarketCandle findTopByPlatformStockAndTimeframeAndTimestampLessThanOrderByTimestampDesc(
             PlatformStock platformStock,
-            MarketCandle.Timeframe timeframe,
-            LocalDateTime timestamp);
+            Timeframe timeframe,
+            LocalDateTime before);
 
+    /**
+     * Finds the holes between consecutive minute candles of a range. With sessionOnly, only minutes
+     * inside the daily session count and the previous candle is looked up within the same session day,
+     * so nights, weekends and holidays are not reported.
+     */
     @Query(value = """
-        SELECT * FROM (
-            SELECT mc.market_candle_id as marketCandleId,
-                   mc.timestamp,
-                   mc.open_price as openPrice,
-                   mc.close_price as closePrice,
-                   mc.high_price as highPrice,
-                   mc.low_price as lowPrice,
-                   mc.volume,
-                   ROW_NUMBER() OVER (
-                       ORDER BY mc.timestamp
-                   ) as sequence
-            FROM market_candle mc
-            WHERE mc.platform_stock_id = :stockId
-            AND mc.timeframe = :#{#timeframe.value}
-        ) as sequenced_data
-        ORDER BY sequenced_data.timestamp DESC
+        SELECT gaps.gap_start as gapStart,
+               gaps.gap_end as gapEnd
+        FROM (
+            SELECT LAG(candles.timestamp) OVER (
+                       PARTITION BY candles.session_day
+                       ORDER BY candles.timestamp
+                   ) + INTERVAL '1 minute' as gap_start,
+                   candles.timestamp as gap_end
+            FROM (
+                SELECT mc.timestamp,
+                       CASE WHEN :sessionOnly
+                            THEN CAST((mc.timestamp AT TIME ZONE 'UTC') AT TIME ZONE :sessionZone AS DATE)
+                       END as session_day
+                FROM market_candle mc
+                WHERE mc.platform_stock_id = :stockId
+                AND mc.timeframe = '1m'
+                AND mc.timestamp >= :fromTime
+                AND mc.timestamp < :toTime
+                AND (NOT :sessionOnly OR (
+                    CAST((mc.timestamp AT TIME ZONE 'UTC') AT TIME ZONE :sessionZone AS TIME) >= :sessionOpen
+                    AND CAST((mc.timestamp AT TIME ZONE 'UTC') AT TIME ZONE :sessionZone AS TIME) < :sessionClose))
+            ) as candles
+        ) as gaps
+        WHERE gaps.gap_start < gaps.gap_end
+        ORDER BY gaps.gap_start
+        """, nativeQuery = true)
+    List<CandleGapInterface> findMinuteGaps(
+            @Param("stockId") Integer stockId,
+            @Param("fromTime") LocalDateTime fromTime,
+            @Param("toTime") LocalDateTime toTime,
+            @Param("sessionOnly") boolean sessionOnly,
+            @Param("sessionZone") String sessionZone,
+            @Param("sessionOpen") LocalTime sessionOpen,
+            @Param("sessionClose") LocalTime sessionClose);
+
+    /**
+     * Rows only, the day of the newest minute candle is never packed.
+     */
+    @Query(value = """
+        SELECT mc.market_candle_id as marketCandleId,
+               mc.timestamp,
+               mc.open_price as openPrice,
+               mc.close_price as closePrice,
+               mc.high_price as highPrice,
+               mc.low_price as lowPrice,
+               mc.volume,
+               mc.sequence
+        FROM market_candle mc
+        WHERE mc.platform_stock_id = :stockId
+        AND mc.timeframe = :#{#timeframe.value}
+        ORDER BY mc.timestamp DESC
         LIMIT 1
         """, nativeQuery = true)
     Optional<CandleWithSequenceInterface> findLatestCandleWithSequence(
@@ -101,35 +148,104 @@ public interface MarketCandleRepository extends JpaRepository<MarketCandle, Inte
             @Param("timeframe") Timeframe timeframe);
 
     @Query(value = """
-        SELECT * FROM (
-            SELECT mc.market_candle_id as marketCandleId,
-                   mc.timestamp,
-                   mc.open_price as openPrice,
-                   mc.close_price as closePrice,
-                   mc.high_price as highPrice,
-                   mc.low_price as lowPrice,
-                   mc.volume,
-                   ROW_NUMBER() OVER (
-                       ORDER BY mc.timestamp
-                   ) as sequence
-            FROM market_candle mc
-            WHERE mc.platform_stock_id = :stockId
-            AND mc.timeframe = :#{#timeframe.value}
-        ) as sequenced_data
-        WHERE sequenced_data.timestamp = :timestamp
+        SELECT mc.market_candle_id as marketCandleId,
+               mc.timestamp,
+               mc.open_price as openPrice,
+               mc.close_price as closePrice,
+               mc.high_price as highPrice,
+               mc.low_price as lowPrice,
+               mc.volume,
+               mc.sequence
+        FROM market_candle mc
+        WHERE mc.platform_stock_id = :stockId
+        AND mc.timeframe = :#{#timeframe.value}
+        AND mc.timestamp = :timestamp
+        UNION ALL
+        SELECT NULL,
+               pm.timestamp,
+               pm.open_price,
+               pm.close_price,
+               pm.high_price,
+               pm.low_price,
+               pm.volume,
+               pm.sequence
+        FROM market_candle_packed_minute pm
+        WHERE :#{#timeframe.value} = '1m'
+        AND pm.platform_stock_id = :stockId
+        AND pm.bucket_start = date_trunc('day', CAST(:timestamp AS TIMESTAMP))
+        AND pm.timestamp = :timestamp
         """, nativeQuery = true)
     Optional<CandleWithSequenceInterface> findCandleWithSequenceByTimestamp(
             @Param("stockId") Integer stockId,
             @Param("timeframe") Timeframe timeframe,
             @Param("timestamp") LocalDateTime timestamp);
 
+    /**
+     * Newest candles of a series, newest first. Packed minute days are only unnested as far back
+     * as the limit can reach.
+     */
+    @Query(value = """
+        SELECT candles.* FROM (
+        (
+        SELECT mc.market_candle_id as marketCandleId,
+               mc.timestamp,
+               mc.open_price as openPrice,
+               mc.close_price as closePrice,
+               mc.high_price as highPrice,
+               mc.low_price as lowPrice,
+               mc.volume,
+               mc.sequence
+        FROM market_candle mc
+        WHERE mc.platform_stock_id = :stockId
+        AND mc.timeframe = :#{#timeframe.value}
+        ORDER BY mc.timestamp DESC
+        LIMIT :limit
+        )
+        UNION ALL
+        SELECT NULL,
+               pm.timestamp,
+               pm.open_price,
+               pm.close_price,
+               pm.high_price,
+               pm.low_price,
+               pm.volume,
+               pm.sequence
+        FROM market_candle_packed_minute pm
+        WHERE :#{#timeframe.value} = '1m'
+        AND pm.platform_stock_id = :stockId
+        AND pm.bucket_start >= COALESCE((
+            SELECT newest.bucket_start
+            FROM (
+                SELECT b.bucket_start,
+                       SUM(b.candle_count) OVER (ORDER BY b.bucket_start DESC) as newer_candles
+                FROM market_candle_minute_bucket b
+                WHERE b.platform_stock_id = :stockId
+            ) newest
+            WHERE newest.newer_candles >= :limit
+            ORDER BY newest.bucket_start DESC
+            LIMIT 1
+        ), '-infinity')
+        ) candles
+        ORDER BY candles.timestamp DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<CandleWithSequenceInterface> findLatestCandlesWithSequence(
+            @Param("stockId") Integer stockId,
+            @Param("timeframe") Timeframe timeframe,
+            @Param("limit") int limit);
+
+    /**
+     * Today as a plain range on the timestamp, so only the current partition of the daily candles is scanned
+     * and the unique index can be used.
+     */
     @Query(value = """
     SELECT mc.* FROM market_candle mc
     INNER JOIN platform_stock ps ON mc.platform_stock_id = ps.platform_stock_id
     INNER JOIN platform p ON ps.platform_id = p.platform_id
     INNER JOIN stock s ON ps.stock_id = s.stock_id
-    WHERE mc.timeframe = '1d' AND CAST(mc.timestamp AS date) = CURRENT_DATE
-    AND mc.open_price > 0 
+    WHERE mc.timeframe = '1d'
+    AND mc.timestamp >= CURRENT_DATE AND mc.timestamp < CURRENT_DATE + 1
+    AND mc.open_price > 0
     ORDER BY (mc.close_price - mc.open_price) / mc.open_price DESC 
     LIMIT 10
     """, nativeQuery = true)
@@ -142,30 +258,46 @@ public interface MarketCandleRepository extends JpaRepository<MarketCandle, Inte
     INNER JOIN platform_stock ps ON mc.platform_stock_id = ps.platform_stock_id
     INNER JOIN platform p ON ps.platform_id = p.platform_id
     INNER JOIN stock s ON ps.stock_id = s.stock_id
-    WHERE mc.timeframe = '1d' AND CAST(mc.timestamp AS date) = CURRENT_DATE AND mc.open_price > 0
+    WHERE mc.timeframe = '1d'
+    AND mc.timestamp >= CURRENT_DATE AND mc.timestamp < CURRENT_DATE + 1
+    AND mc.open_price > 0
     ORDER BY (mc.close_price - mc.open_price) / mc.open_price
     LIMIT 10
     """, nativeQuery = true)
     List<MarketCandle> findBottomTenDailyCandlesByPercentageChange();
 
+    /**
+     * A packed day holds at most 1440 minutes, only buckets starting that close before the range can reach into it.
+     */
     @Query(value = """
-        SELECT * FROM (
-            SELECT mc.market_candle_id as marketCandleId,
-                   mc.timestamp,
-                   mc.open_price as openPrice,
-                   mc.close_price as closePrice,
-                   mc.high_price as highPrice,
-                   mc.low_price as lowPrice,
-                   mc.volume,
-                   ROW_NUMBER() OVER (
-                       ORDER BY mc.timestamp
-                   ) as sequence
-            FROM market_candle mc
-            WHERE mc.platform_stock_id = :stockId
-            AND mc.timeframe = :#{#timeframe.value}
-        ) as sequenced_data
-        WHERE sequenced_data.sequence BETWEEN :fromSequence AND :toSequence
-        ORDER BY sequenced_data.timestamp
+        SELECT mc.market_candle_id as marketCandleId,
+               mc.timestamp,
+               mc.open_price as openPrice,
+               mc.close_price as closePrice,
+               mc.high_price as highPrice,
+               mc.low_price as lowPrice,
+               mc.volume,
+               mc.sequence
+        FROM market_candle mc
+        WHERE mc.platform_stock_id = :stockId
+        AND mc.timeframe = :#{#timeframe.value}
+        AND mc.sequence BETWEEN :fromSequence AND :toSequence
+        UNION ALL
+        SELECT NULL,
+               pm.timestamp,
+               pm.open_price,
+               pm.close_price,
+               pm.high_price,
+               pm.low_price,
+               pm.volume,
+               pm.sequence
+        FROM market_candle_packed_minute pm
+        WHERE :#{#timeframe.value} = '1m'
+        AND pm.platform_stock_id = :stockId
+        AND pm.first_sequence <= :toSequence
+        AND pm.first_sequence > :fromSequence - 1440
+        AND pm.sequence BETWEEN :fromSequence AND :toSequence
+        ORDER BY sequence
         """, nativeQuery = true)
     List<CandleWithSequenceInterface> findByStockAndTimeframeAndSequenceRange(
             @Param("stockId") Integer stockId,
@@ -176,35 +308,4 @@ public interface MarketCandleRepository extends JpaRepository<MarketCandle, Inte
 
     List<MarketCandle> findByPlatformStockAndTimeframeAndTimestampBetweenOrderByTimestampAsc(PlatformStock platformStock, Timeframe timeframe, LocalDateTime startTime, LocalDateTime endTime);
 
-    List<MarketCandle> findByPlatformStockAndTimeframeAndTimestampIn(
-            PlatformStock platformStock,
-            MarketCandle.Timeframe timeframe,
-            List<LocalDateTime> timestamps
-    );
-
-    @Modifying
-    @Transactional
-    @Query(value = """
-    INSERT INTO market_candle 
-        (platform_stock_id, timeframe, timestamp, open_price, high_price, low_price, close_price, volume)
-    VALUES 
-        (:platformStockId, :timeframe, :timestamp, :openPrice, :highPrice, :lowPrice, :closePrice, :volume)
-    ON CONFLICT (platform_stock_id, timeframe, timestamp)
-    DO UPDATE SET 
-        open_price = EXCLUDED.open_price,
-        high_price = EXCLUDED.high_price,
-        low_price = EXCLUDED.low_price,
-        close_price = EXCLUDED.close_price,
-        volume = EXCLUDED.volume
-    """, nativeQuery = true)
-    void upsertCandle(
-            @Param("platformStockId") Integer platformStockId,
-            @Param("timeframe") String timeframe,
-            @Param("timestamp") LocalDateTime timestamp,
-            @Param("openPrice") BigDecimal openPrice,
-            @Param("highPrice") BigDecimal highPrice,
-            @Param("lowPrice") BigDecimal lowPrice,
-            @Param("closePrice") BigDecimal closePrice,
-            @Param("volume") BigDecimal volume);
-
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package ehe_server.repository;
+
+import ehe_server.entity.PlatformStockSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PlatformStockSyncStateRepository extends JpaRepository<PlatformStockSyncState, Integer> {
+}
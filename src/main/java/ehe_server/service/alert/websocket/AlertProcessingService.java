@@ -5,16 +5,16 @@ import ehe_server.entity.MarketCandle;
 import ehe_server.entity.MarketCandle.Timeframe;
 import ehe_server.entity.PlatformStock;
 import ehe_server.repository.AlertRepository;
-import ehe_server.repository.MarketCandleRepository;
+import ehe_server.service.candle.CandleSeries;
+import ehe_server.service.candle.FixedPoint;
 import ehe_server.service.intf.alert.websocket.AlertProcessingServiceInterface;
 import ehe_server.service.intf.alert.websocket.TimeframeNavigatorInterface;
+import ehe_server.service.intf.candle.HotCandleCacheInterface;
 import ehe_server.service.intf.log.LoggingServiceInterface;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -22,24 +22,27 @@ import java.util.Optional;
 public class AlertProcessingService implements AlertProcessingServiceInterface {
 
     private final AlertRepository alertRepository;
-    private final MarketCandleRepository marketCandleRepository;
+    private final HotCandleCacheInterface hotCandleCache;
     private final TimeframeNavigatorInterface timeframeNavigator;
     private final LoggingServiceInterface loggingService;
 
     public AlertProcessingService(
             AlertRepository alertRepository,
-            MarketCandleRepository marketCandleRepository,
+            HotCandleCacheInterface hotCandleCache,
             TimeframeNavigatorInterface timeframeNavigator,
             LoggingServiceInterface loggingService) {
         this.alertRepository = alertRepository;
-        this.marketCandleRepository = marketCandleRepository;
+        this.hotCandleCache = hotCandleCache;
         this.timeframeNavigator = timeframeNavigator;
         this.loggingService = loggingService;
     }
 
     @Override
     public Optional<MarketCandle> checkAlertAgainstCandle(Alert alert, MarketCandle candle) {
-        if (isConditionMet(alert, candle)) {
+        CandleSeries single = new CandleSeries(1);
+        single.append(candle);
+
+        if (findTriggeringCandle(alert, single) >= 0) {
             loggingService.logAction("Alert #" + alert.getAlertId() + " condition met at " + candle.getTimestamp());
             return Optional.of(candle);
         }
@@ -58,9 +61,8 @@ public class AlertProcessingService implements AlertProcessingServiceInterface {
         loggingService.logAction(String.format("Checking %s candles for alert #%d from %s to %s",
                 timeframe, alert.getAlertId(), startTime, endTime));
 
-        List<MarketCandle> candles = marketCandleRepository
-                .findByPlatformStockAndTimeframeAndTimestampBetweenOrderByTimestampAsc(
-                        platformStock, timeframe, startTime, endTime);
+        CandleSeries candles = hotCandleCache
+                .getSeries(platformStock.getPlatformStockId(), timeframe, startTime, endTime);
 
         if (candles.isEmpty()) {
             loggingService.logAction("No " + timeframe + " candles found for the specified period");
@@ -69,12 +71,12 @@ public class AlertProcessingService implements AlertProcessingServiceInterface {
 
         loggingService.logAction("Found " + candles.size() + " " + timeframe + " candles to check");
 
-        // Check each candle for alert condition
-        for (MarketCandle candle : candles) {
-            Optional<MarketCandle> result = checkAlertAgainstCandle(alert, candle);
-            if (result.isPresent()) {
-                return result;
-            }
+        // Only the triggering candle leaves the fixed point series
+        int triggeringIndex = findTriggeringCandle(alert, candles);
+        if (triggeringIndex >= 0) {
+            MarketCandle candle = candles.toMarketCandle(triggeringIndex, platformStock, timeframe);
+            loggingService.logAction("Alert #" + alert.getAlertId() + " condition met at " + candle.getTimestamp());
+            return Optional.of(candle);
         }
 
         // Try escalating to higher timeframe if at boundary
@@ -83,9 +85,9 @@ public class AlertProcessingService implements AlertProcessingServiceInterface {
 
     @Override
     public Optional<MarketCandle> getLatestMinuteCandle(Alert alert) {
-        return Optional.ofNullable(
-                marketCandleRepository.findTopByPlatformStockAndTimeframeOrderByTimestampDesc(
-                        alert.getPlatformStock(), Timeframe.M1));
+        PlatformStock platformStock = alert.getPlatformStock();
+        return hotCandleCache.getLatest(platformStock.getPlatformStockId(), Timeframe.M1)
+                .map(candle -> candle.toMarketCandle(platformStock));
     }
 
     @Override
@@ -94,26 +96,19 @@ public class AlertProcessingService implements AlertProcessingServiceInterface {
         loggingService.logAction("Alert #" + alert.getAlertId() + " deleted after triggering");
     }
 
-    private boolean isConditionMet(Alert alert, MarketCandle candle) {
-        BigDecimal priceToCheck = getRelevantPrice(alert, candle);
-        BigDecimal threshold = alert.getThresholdValue();
-
-        return switch (alert.getConditionType()) {
-            case PRICE_ABOVE -> priceToCheck.compareTo(threshold) > 0;
-            case PRICE_BELOW -> priceToCheck.compareTo(threshold) < 0;
-        };
-    }
+    // Index of the first candle that meets the condition, -1 if none does
+    private int findTriggeringCandle(Alert alert, CandleSeries candles) {
+        long threshold = FixedPoint.fromBigDecimal(alert.getThresholdValue());
 
-    private BigDecimal getRelevantPrice(Alert alert, MarketCandle candle) {
         return switch (alert.getConditionType()) {
-            case PRICE_ABOVE -> candle.getHighPrice();
-            case PRICE_BELOW -> candle.getLowPrice();
+            case PRICE_ABOVE -> candles.firstHighAbove(threshold, 0);
+            case PRICE_BELOW -> candles.firstLowBelow(threshold, 0);
         };
     }
 
     private Optional<MarketCandle> tryEscalateTimeframe(
             Alert alert,
-            List<MarketCandle> candles,
+            CandleSeries candles,
             Timeframe currentTimeframe,
             LocalDateTime endTime) {
 
@@ -121,7 +116,7 @@ public class AlertProcessingService implements AlertProcessingServiceInterface {
             return Optional.empty();
         }
 
-        LocalDateTime lastCandleTime = candles.getLast().getTimestamp();
+        LocalDateTime lastCandleTime = candles.timestampAt(candles.size() - 1);
 
         if (!timeframeNavigator.isAtBoundary(lastCandleTime, currentTimeframe)) {
             return Optional.empty();
@@ -3,91 +3,93 @@ package ehe_server.service.alpaca;
 import ehe_server.entity.AutomatedTradeRule;
 import ehe_server.service.intf.alpaca.AlpacaAccountServiceInterface;
 import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.Lane;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.LimitClass;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class AlpacaAccountService implements AlpacaAccountServiceInterface {
 
-    private final RestTemplate restTemplate;
+    private final WebClient webClient;
     private final LoggingServiceInterface loggingService;
+    private final ExchangeRequestBudgetInterface requestBudget;
 
+    private static final String PLATFORM_NAME = "Alpaca";
     private static final String ALPACA_API_URL = "https://paper-api.alpaca.markets";
     private static final String ACCOUNT_ENDPOINT = "/v2/account";
     private static final String POSITIONS_ENDPOINT = "/v2/positions";
     private static final String ORDERS_ENDPOINT = "/v2/orders";
     private static final String TIME_IN_FORCE_STOCk = "day";
     private static final String TIME_IN_FORCE_CRYPTO = "gtc";
+    private static final ParameterizedTypeReference<Map<String, Object>> OBJECT_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> LIST_TYPE =
+            new ParameterizedTypeReference<>() {};
 
     public AlpacaAccountService(
-            @Qualifier("alpacaRestTemplate") RestTemplate restTemplate,
-            LoggingServiceInterface loggingService) {
-        this.restTemplate = restTemplate;
+            @Qualifier("alpacaWebClient") WebClient webClient,
+            LoggingServiceInterface loggingService,
+            ExchangeRequestBudgetInterface requestBudget) {
+        this.webClient = webClient;
         this.loggingService = loggingService;
+        this.requestBudget = requestBudget;
     }
 
     /**
      * Fetches both Account Data (Cash) and Positions (Holdings)
-     * and merges them into a single Map.
+     * and merges them into a single Map. Both requests are in flight at the same time.
      */
     @Override
-    public Map<String, Object> getAccountInfo(String apiKey, String secretKey) {
+    public CompletableFuture<Map<String, Object>> getAccountInfo(String apiKey, String secretKey) {
         try {
             HttpHeaders headers = createAuthHeaders(apiKey, secretKey);
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-            String accountUrl = ALPACA_API_URL + ACCOUNT_ENDPOINT;
-            ResponseEntity<Map> accountResponse = restTemplate.exchange(
-                    accountUrl,
-                    HttpMethod.GET,
-                    requestEntity,
-                    Map.class
-            );
-            Map<String, Object> accountData = accountResponse.getBody();
-
-            String positionsUrl = ALPACA_API_URL + POSITIONS_ENDPOINT;
-            ResponseEntity<List<Map<String, Object>>> positionsResponse = restTemplate.exchange(
-                    positionsUrl,
-                    HttpMethod.GET,
-                    requestEntity,
-                    new ParameterizedTypeReference<List<Map<String, Object>>>() {}
-            );
-            List<Map<String, Object>> positionsData = positionsResponse.getBody();
-
-            Map<String, Object> mergedResult = new HashMap<>();
-            if (accountData != null) {
-                mergedResult.putAll(accountData);
-            }
-
-            if (positionsData != null) {
-                mergedResult.put("positions", positionsData);
-            }
 
-            return mergedResult;
+            Mono<Map<String, Object>> account = webClient.get()
+                    .uri(ALPACA_API_URL + ACCOUNT_ENDPOINT)
+                    .headers(requestHeaders -> requestHeaders.addAll(headers))
+                    .retrieve()
+                    .bodyToMono(OBJECT_TYPE)
+                    .defaultIfEmpty(Map.of());
+
+            Mono<List<Map<String, Object>>> positions = webClient.get()
+                    .uri(ALPACA_API_URL + POSITIONS_ENDPOINT)
+                    .headers(requestHeaders -> requestHeaders.addAll(headers))
+                    .retrieve()
+                    .bodyToMono(LIST_TYPE)
+                    .defaultIfEmpty(List.of());
+
+            // Alpaca limits each API key on its own, the user's key is not the server's data key
+            return requestBudget.acquireForAccount(PLATFORM_NAME, apiKey, LimitClass.REQUEST_WEIGHT, 2, Lane.INTERACTIVE)
+                    .thenCompose(_ -> Mono.zip(account, positions)
+                            .map(results -> {
+                                Map<String, Object> mergedResult = new HashMap<>(results.getT1());
+                                mergedResult.put("positions", results.getT2());
+                                return mergedResult;
+                            })
+                            .toFuture())
+                    .exceptionally(e -> accountInfoError(unwrap(e)));
 
         } catch (Exception e) {
-            loggingService.logError("Error getting full account info from Alpaca: " + e.getMessage(), e);
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("success", false);
-            errorResult.put("message", "Failed to connect to Alpaca API: " + e.getMessage());
-            return errorResult;
+            return CompletableFuture.completedFuture(accountInfoError(e));
         }
     }
 
     @Override
-    public Map<String, Object> placeMarketOrder(
+    public CompletableFuture<Map<String, Object>> placeMarketOrder(
             String apiKey,
             String secretKey,
             String symbol,
@@ -111,47 +113,57 @@ public class AlpacaAccountService implements AlpacaAccountServiceInterface {
             }
 
             HttpHeaders headers = createAuthHeaders(apiKey, secretKey);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Map<String, Object>> postRequestEntity = new HttpEntity<>(orderRequest, headers);
-
-            // Execute POST (Place Order)
-            ResponseEntity<Map> postResponse = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    postRequestEntity,
-                    Map.class
-            );
-
-            Map<String, Object> initialOrderData = postResponse.getBody();
-
-            //  Check on the order (GET) using the ID
-            if (initialOrderData != null && initialOrderData.containsKey("id")) {
-                String orderId = (String) initialOrderData.get("id");
-
-                String getOrderUrl = ALPACA_API_URL + ORDERS_ENDPOINT + "/" + orderId;
 
-                HttpEntity<Void> getRequestEntity = new HttpEntity<>(headers);
+            // Execute POST (Place Order), the follow-up lookup is paid for up front
+            Mono<Map<String, Object>> order = webClient.post()
+                    .uri(url)
+                    .headers(requestHeaders -> requestHeaders.addAll(headers))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(orderRequest)
+                    .retrieve()
+                    .bodyToMono(OBJECT_TYPE)
+                    .flatMap(initialOrderData -> {
+                        //  Check on the order (GET) using the ID
+                        if (!initialOrderData.containsKey("id")) {
+                            return Mono.just(initialOrderData);
+                        }
+
+                        String orderId = (String) initialOrderData.get("id");
+
+                        return webClient.get()
+                                .uri(url + "/" + orderId)
+                                .headers(requestHeaders -> requestHeaders.addAll(headers))
+                                .retrieve()
+                                .bodyToMono(OBJECT_TYPE);
+                    });
+
+            return requestBudget.acquireForAccount(PLATFORM_NAME, apiKey, LimitClass.REQUEST_WEIGHT, 2, Lane.INTERACTIVE)
+                    .thenCompose(_ -> order.toFuture())
+                    .exceptionally(e -> orderError(unwrap(e)));
 
-                ResponseEntity<Map> getResponse = restTemplate.exchange(
-                        getOrderUrl,
-                        HttpMethod.GET,
-                        getRequestEntity,
-                        Map.class
-                );
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(orderError(e));
+        }
+    }
 
-                return getResponse.getBody();
-            }
+    private Map<String, Object> accountInfoError(Throwable e) {
+        loggingService.logError("Error getting full account info from Alpaca: " + e.getMessage(), e);
+        Map<String, Object> errorResult = new HashMap<>();
+        errorResult.put("success", false);
+        errorResult.put("message", "Failed to connect to Alpaca API: " + e.getMessage());
+        return errorResult;
+    }
 
-            return initialOrderData;
+    private Map<String, Object> orderError(Throwable e) {
+        loggingService.logError("Error placing/checking order on Alpaca: " + e.getMessage(), e);
+        Map<String, Object> errorResult = new HashMap<>();
+        errorResult.put("success", false);
+        errorResult.put("message", "Failed to place order via Alpaca API: " + e.getMessage());
+        return errorResult;
+    }
 
-        } catch (Exception e) {
-            loggingService.logError("Error placing/checking order on Alpaca: " + e.getMessage(), e);
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("success", false);
-            errorResult.put("message", "Failed to place order via Alpaca API: " + e.getMessage());
-            return errorResult;
-        }
+    private Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 
     private HttpHeaders createAuthHeaders(String apiKey, String secretKey) {
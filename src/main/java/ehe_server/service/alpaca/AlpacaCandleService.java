@@ -2,59 +2,82 @@ package ehe_server.service.alpaca;
 
 import ehe_server.entity.MarketCandle;
 import ehe_server.entity.PlatformStock;
+import ehe_server.properties.CandleIngestionProperties;
 import ehe_server.repository.MarketCandleRepository;
 import ehe_server.repository.PlatformStockRepository;
 import ehe_server.service.intf.alpaca.AlpacaCandleServiceInterface;
 import ehe_server.service.intf.alpaca.AlpacaDataApiClientInterface;
+import ehe_server.service.candle.FixedPoint;
+import ehe_server.service.candle.PagePrefetcher;
 import ehe_server.service.intf.audit.UserContextServiceInterface;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.Bar;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.BarPage;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.MultiBarPage;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.StreamMessage;
+import ehe_server.service.intf.candle.CandleAggregationServiceInterface;
+import ehe_server.service.intf.candle.CandleBulkLoaderInterface;
+import ehe_server.service.intf.candle.CandleBulkLoaderInterface.BulkLoadResult;
+import ehe_server.service.intf.candle.EarliestDataLocatorInterface;
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface;
+import ehe_server.service.intf.candle.RangeSplitBackfillServiceInterface;
+import ehe_server.service.intf.candle.RealtimeCandlePipelineInterface;
+import ehe_server.service.intf.candle.RangeSplitBackfillServiceInterface.RangePage;
+import ehe_server.service.intf.candle.MarketCandleWriterInterface;
+import ehe_server.service.intf.candle.MarketCandleWriterInterface.UpsertResult;
 import ehe_server.service.intf.log.LoggingServiceInterface;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 public class AlpacaCandleService implements AlpacaCandleServiceInterface {
 
     private static final String PLATFORM_NAME = "Alpaca";
-    private static final int WEEK_IN_MINUTES = 7 * 24 * 60;
-    private static final int HALF_WEEK_IN_MINUTES = WEEK_IN_MINUTES / 2;
-    private static final int DECIMAL_SCALE = 8;
 
     private final AlpacaDataApiClientInterface alpacaDataApiClient;
     private final MarketCandleRepository marketCandleRepository;
     private final PlatformStockRepository platformStockRepository;
-    private final ObjectMapper objectMapper;
     private final LoggingServiceInterface loggingService;
     private final UserContextServiceInterface userContextService;
+    private final CandleAggregationServiceInterface candleAggregationService;
+    private final MarketCandleWriterInterface marketCandleWriter;
+    private final CandleBulkLoaderInterface candleBulkLoader;
+    private final CandleIngestionProperties candleIngestionProperties;
+    private final HistoricalBackfillSchedulerInterface backfillScheduler;
+    private final RangeSplitBackfillServiceInterface rangeSplitBackfillService;
+    private final EarliestDataLocatorInterface earliestDataLocator;
+    private final RealtimeCandlePipelineInterface realtimeCandlePipeline;
 
     public AlpacaCandleService(
             AlpacaDataApiClientInterface alpacaDataApiClient,
             MarketCandleRepository marketCandleRepository,
             PlatformStockRepository platformStockRepository,
-            ObjectMapper objectMapper,
             LoggingServiceInterface loggingService,
-            UserContextServiceInterface userContextService) {
+            UserContextServiceInterface userContextService,
+            CandleAggregationServiceInterface candleAggregationService,
+            MarketCandleWriterInterface marketCandleWriter,
+            CandleBulkLoaderInterface candleBulkLoader,
+            CandleIngestionProperties candleIngestionProperties,
+            HistoricalBackfillSchedulerInterface backfillScheduler,
+            RangeSplitBackfillServiceInterface rangeSplitBackfillService,
+            EarliestDataLocatorInterface earliestDataLocator,
+            RealtimeCandlePipelineInterface realtimeCandlePipeline) {
         this.alpacaDataApiClient = alpacaDataApiClient;
         this.marketCandleRepository = marketCandleRepository;
         this.platformStockRepository = platformStockRepository;
-        this.objectMapper = objectMapper;
         this.loggingService = loggingService;
         this.userContextService = userContextService;
-    }
-
-    // Rounds BigDecimal to 8 decimal places for database compatibility
-    private BigDecimal scaleDecimal(BigDecimal value) {
-        if (value == null) {
-            return BigDecimal.ZERO;
-        }
-        return value.setScale(DECIMAL_SCALE, RoundingMode.HALF_UP);
+        this.candleAggregationService = candleAggregationService;
+        this.marketCandleWriter = marketCandleWriter;
+        this.candleBulkLoader = candleBulkLoader;
+        this.candleIngestionProperties = candleIngestionProperties;
+        this.backfillScheduler = backfillScheduler;
+        this.rangeSplitBackfillService = rangeSplitBackfillService;
+        this.earliestDataLocator = earliestDataLocator;
+        this.realtimeCandlePipeline = realtimeCandlePipeline;
     }
 
     // Syncs all available historical data for a symbol from earliest point to now
@@ -80,121 +103,215 @@ public class AlpacaCandleService implements AlpacaCandleServiceInterface {
             // Search backwards to find earliest available data
             loggingService.logAction("No existing candles for " + symbol +
                     ". Searching for earliest available data...");
-            Optional<ZonedDateTime> earliest = findEarliestAvailableData(symbol, initialEnd);
+            Optional<Instant> earliest = earliestDataLocator.findEarliestAvailableData(stock, initialEnd.toInstant(),
+                    (from, to) -> findFirstBar(stock, symbol, from, to));
             if (earliest.isEmpty()) {
                 loggingService.logAction("No historical data available for " + symbol);
                 return;
             }
-            startTime = earliest.get();
+            startTime = earliest.get().atZone(ZoneOffset.UTC);
         }
 
-        // Main sync pass
+        // Main sync pass, a first-time backfill goes through the COPY bulk loader
         loggingService.logAction("Starting main sync for " + symbol);
-        ZonedDateTime firstSyncEnd = fetchCandlesInRange(stock, symbol, startTime, initialEnd);
+        ZonedDateTime firstSyncEnd;
+        if (latestCandle == null && candleIngestionProperties.getBulkLoad().isEnabled()) {
+            firstSyncEnd = bulkLoadCandlesInRange(stock, symbol, startTime, initialEnd);
+        } else {
+            firstSyncEnd = fetchCandlesInRange(stock, symbol, startTime, initialEnd,
+                    candles -> saveCandleBatch(stock, candles));
+        }
 
         // Catch-up sync for data generated during main sync
         loggingService.logAction("Running catch-up sync for " + symbol);
         ZonedDateTime finalEnd = ZonedDateTime.now(ZoneOffset.UTC);
-        fetchCandlesInRange(stock, symbol, firstSyncEnd, finalEnd);
+        fetchCandlesInRange(stock, symbol, firstSyncEnd, finalEnd,
+                candles -> saveCandleBatch(stock, candles));
 
         loggingService.logAction("Sync complete for " + symbol);
     }
 
-    // Searches backward week-by-week to find the earliest available data point
-    private Optional<ZonedDateTime> findEarliestAvailableData(String symbol, ZonedDateTime firstCheckpoint) {
-        ZonedDateTime checkPoint = firstCheckpoint;
-        ZonedDateTime lastDataPoint = null;
-        boolean foundGap = false;
+    // Catches up symbols with stored candles in multi-symbol requests, one page serves many symbols
+    @Override
+    public List<String> catchUpSymbols(List<String> symbols) {
+        userContextService.setUser("SYSTEM", "SYSTEM");
 
-        while (!foundGap) {
-            checkPoint = checkPoint.minusMinutes(WEEK_IN_MINUTES);
+        List<String> needFullSync = new ArrayList<>();
+        List<CatchUpSymbol> stockSymbols = new ArrayList<>();
+        List<CatchUpSymbol> cryptoSymbols = new ArrayList<>();
 
-            boolean hasCandles = checkForCandles(symbol, checkPoint,
-                    checkPoint.plusMinutes(WEEK_IN_MINUTES));
+        for (String symbol : symbols) {
+            List<PlatformStock> stocks = platformStockRepository.findByPlatformPlatformNameAndStockStockSymbol(PLATFORM_NAME, symbol);
+            if (stocks.isEmpty()) {
+                continue;
+            }
 
-            if (hasCandles) {
-                lastDataPoint = checkPoint;
-            } else {
-                // Expand search range to confirm gap is real
-                ZonedDateTime expandedStart = checkPoint.minusMinutes(HALF_WEEK_IN_MINUTES);
-                ZonedDateTime expandedEnd = checkPoint.plusMinutes(WEEK_IN_MINUTES + HALF_WEEK_IN_MINUTES);
+            PlatformStock stock = stocks.getFirst();
+            MarketCandle latestCandle = marketCandleRepository
+                    .findTopByPlatformStockAndTimeframeOrderByTimestampDesc(stock, MarketCandle.Timeframe.M1);
+            if (latestCandle == null) {
+                needFullSync.add(symbol);
+                continue;
+            }
+
+            // Stocks and crypto pairs are served by different endpoints
+            (symbol.contains("/") ? cryptoSymbols : stockSymbols)
+                    .add(new CatchUpSymbol(symbol, stock, latestCandle.getTimestamp().atZone(ZoneOffset.UTC)));
+        }
+
+        ZonedDateTime endTime = ZonedDateTime.now(ZoneOffset.UTC);
+        for (List<CatchUpSymbol> group : groupForCatchUp(stockSymbols)) {
+            needFullSync.addAll(catchUpGroup(group, endTime));
+        }
+        for (List<CatchUpSymbol> group : groupForCatchUp(cryptoSymbols)) {
+            needFullSync.addAll(catchUpGroup(group, endTime));
+        }
+
+        return needFullSync;
+    }
+
+    // Groups symbols of one kind by latest candle, a group starts at its oldest one
+    private List<List<CatchUpSymbol>> groupForCatchUp(List<CatchUpSymbol> symbols) {
+        int batchSymbols = Math.max(1, candleIngestionProperties.getBackfill().getCatchUpBatchSymbols());
+        long maxSpreadMinutes = Math.max(0, candleIngestionProperties.getBackfill().getCatchUpMaxSpreadMinutes());
+
+        List<CatchUpSymbol> sorted = new ArrayList<>(symbols);
+        sorted.sort(Comparator.comparing(CatchUpSymbol::latestCandle));
+
+        List<List<CatchUpSymbol>> groups = new ArrayList<>();
+        List<CatchUpSymbol> group = new ArrayList<>();
+        for (CatchUpSymbol symbol : sorted) {
+            if (!group.isEmpty() && (group.size() >= batchSymbols ||
+                    Duration.between(group.getFirst().latestCandle(), symbol.latestCandle()).toMinutes() > maxSpreadMinutes)) {
+                groups.add(group);
+                group = new ArrayList<>();
+            }
+            group.add(symbol);
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
 
-                boolean hasExpandedCandles = checkForCandles(symbol, expandedStart, expandedEnd);
+    /**
+     * Pages through one multi-symbol request and hands the bars of each symbol to its own stock
+     *
+     * @return Symbols of the group if the request failed, otherwise none
+     */
+    private List<String> catchUpGroup(List<CatchUpSymbol> group, ZonedDateTime endTime) {
+        ZonedDateTime startTime = group.getFirst().latestCandle();
+        List<String> symbols = group.stream().map(CatchUpSymbol::symbol).toList();
 
-                if (hasExpandedCandles) {
-                    lastDataPoint = expandedStart;
-                } else {
-                    foundGap = true;
+        Map<String, PlatformStock> stocksBySymbol = new HashMap<>();
+        group.forEach(symbol -> stocksBySymbol.put(symbol.symbol().toUpperCase(), symbol.stock()));
+
+        loggingService.logAction("Catching up " + symbols.size() + " symbols from " + startTime + " to " + endTime);
+        int totalCandlesFetched = 0;
+
+        try (PagePrefetcher<MultiBarPage> pages = new PagePrefetcher<>(
+                pageToken -> alpacaDataApiClient.getMultiSymbolBars(symbols, "1Min", startTime, endTime, pageToken),
+                MultiBarPage::nextPageToken,
+                candleIngestionProperties.getBackfill().getPrefetchPages())) {
+
+            MultiBarPage page;
+            while ((page = pages.next()) != null) {
+                for (Map.Entry<String, List<Bar>> symbolBars : page.barsBySymbol().entrySet()) {
+                    PlatformStock stock = stocksBySymbol.get(symbolBars.getKey().toUpperCase());
+                    if (stock == null) {
+                        continue;
+                    }
+
+                    List<MarketCandle> candles = toCandles(symbolBars.getValue(), stock);
+                    saveCandleBatch(stock, candles);
+                    backfillScheduler.recordFetchedCandles(PLATFORM_NAME, symbolBars.getKey(), candles.size());
+                    totalCandlesFetched += candles.size();
                 }
             }
+        } catch (Exception e) {
+            // The symbols fall back to their own sync, which resumes from their latest candle
+            loggingService.logError("Error catching up " + symbols.size() + " symbols: " + e.getMessage(), e);
+            return symbols;
         }
 
-        return Optional.ofNullable(lastDataPoint);
+        loggingService.logAction("Caught up " + symbols.size() + " symbols with " + totalCandlesFetched + " candles");
+        return List.of();
     }
 
-    // Checks if any candles exist in the specified time range
-    private boolean checkForCandles(String symbol, ZonedDateTime startTime, ZonedDateTime endTime) {
-        try {
-            ResponseEntity<String> response = alpacaDataApiClient.getBars(
-                    symbol, "1Min", startTime, endTime, null);
+    // Refetches an interval the live stream missed, the end is exclusive
+    @Override
+    public void fillGap(String symbol, Instant from, Instant to) {
+        userContextService.setUser("SYSTEM", "SYSTEM");
+        PlatformStock stock = platformStockRepository.findByPlatformPlatformNameAndStockStockSymbol(PLATFORM_NAME, symbol).getFirst();
 
-            JsonNode responseData = objectMapper.readTree(response.getBody());
+        fetchCandlesInRange(stock, symbol, from.atZone(ZoneOffset.UTC), to.minusSeconds(1).atZone(ZoneOffset.UTC),
+                candles -> saveCandleBatch(stock, candles));
+    }
 
-            // Handle different response formats for crypto vs stock
-            if (isCryptoSymbol(symbol)) {
-                JsonNode barsObject = responseData.get("bars");
-                if (barsObject != null && barsObject.has(symbol)) {
-                    return !barsObject.get(symbol).isEmpty();
-                }
-                return false;
+    // Stages every page of the range with COPY and merges and aggregates them in set-based passes
+    private ZonedDateTime bulkLoadCandlesInRange(PlatformStock stock, String symbol,
+                                                 ZonedDateTime startTime, ZonedDateTime endTime) {
+        UUID loadId = candleBulkLoader.startLoad();
+
+        try {
+            ZonedDateTime syncEnd;
+            if (candleIngestionProperties.getBackfill().isRangeSplit()) {
+                // Windows are fetched concurrently and staged out of order, the merge sorts them out
+                rangeSplitBackfillService.fetchRange(symbol, startTime.toInstant(), endTime.toInstant(),
+                        (from, to) -> fetchBarPage(stock, symbol, from, to),
+                        candles -> {
+                            candleBulkLoader.stageCandles(loadId, candles);
+                            backfillScheduler.recordFetchedCandles(PLATFORM_NAME, symbol, candles.size());
+                        });
+                syncEnd = endTime;
             } else {
-                JsonNode barsArray = responseData.get("bars");
-                return barsArray != null && barsArray.isArray() && !barsArray.isEmpty();
+                syncEnd = fetchCandlesInRange(stock, symbol, startTime, endTime,
+                        candles -> candleBulkLoader.stageCandles(loadId, candles));
             }
+
+            BulkLoadResult result = candleBulkLoader.completeLoad(loadId, stock);
+            loggingService.logAction("Bulk loaded " + result.minuteRows() + " candles for " + symbol +
+                    " in " + result.elapsedMillis() + " ms");
+            return syncEnd;
         } catch (Exception e) {
-            loggingService.logError("Error checking for candles: " + e.getMessage(), e);
-            return false;
+            candleBulkLoader.discardLoad(loadId);
+            throw e;
         }
     }
 
-    // Fetches candles for a date range using pagination, returns completion timestamp
+    // Returns the first bar of a window, used by the earliest data search
+    private Optional<Instant> findFirstBar(PlatformStock stock, String symbol, Instant from, Instant to) {
+        BarPage page = alpacaDataApiClient.getBars(
+                symbol, "1Min", from.atZone(ZoneOffset.UTC), to.atZone(ZoneOffset.UTC), null).join();
+
+        return page.bars().isEmpty()
+                ? Optional.empty()
+                : Optional.of(Instant.ofEpochMilli(page.bars().getFirst().openTimeMillis()));
+    }
+
+    // Fetches candles for a date range using pagination and hands each page to the sink, returns completion timestamp
     private ZonedDateTime fetchCandlesInRange(PlatformStock stock, String symbol,
-                                              ZonedDateTime startTime, ZonedDateTime endTime) {
+                                              ZonedDateTime startTime, ZonedDateTime endTime,
+                                              Consumer<List<MarketCandle>> candleSink) {
         loggingService.logAction("Fetching " + symbol + " from " + startTime + " to " + endTime);
 
         int totalCandlesFetched = 0;
-        String pageToken = null;
 
-        try {
+        // Page N+1 is fetched through its token while page N is still being persisted
+        try (PagePrefetcher<BarPage> pages = new PagePrefetcher<>(
+                pageToken -> alpacaDataApiClient.getBars(symbol, "1Min", startTime, endTime, pageToken),
+                BarPage::nextPageToken,
+                candleIngestionProperties.getBackfill().getPrefetchPages())) {
+
             // Paginate through all available data
-            do {
-                ResponseEntity<String> response = alpacaDataApiClient.getBars(
-                        symbol, "1Min", startTime, endTime, pageToken);
-
-                JsonNode responseData = objectMapper.readTree(response.getBody());
-
-                // Parse response based on symbol type
-                List<MarketCandle> candles;
-                if (isCryptoSymbol(symbol)) {
-                    JsonNode barsObject = responseData.get("bars");
-                    candles = (barsObject != null && barsObject.has(symbol))
-                            ? parseCandles(barsObject.get(symbol), stock)
-                            : new ArrayList<>();
-                } else {
-                    candles = parseCandles(responseData.get("bars"), stock);
-                }
+            BarPage page;
+            while ((page = pages.next()) != null) {
+                List<MarketCandle> candles = toCandles(page.bars(), stock);
 
-                saveCandleBatch(stock, candles);
+                candleSink.accept(candles);
+                backfillScheduler.recordFetchedCandles(PLATFORM_NAME, symbol, candles.size());
                 totalCandlesFetched += candles.size();
-
-                pageToken = extractNextPageToken(responseData);
-
-                // Rate limiting between pages
-                if (pageToken != null) {
-                    Thread.sleep(100);
-                }
-
-            } while (pageToken != null);
+            }
 
             loggingService.logAction("Completed: " + totalCandlesFetched + " candles for " + symbol);
 
@@ -205,25 +322,12 @@ public class AlpacaCandleService implements AlpacaCandleServiceInterface {
         return ZonedDateTime.now(ZoneOffset.UTC);
     }
 
-    // Extracts next page token from response, handling null and empty values
-    private String extractNextPageToken(JsonNode responseData) {
-        if (!responseData.has("next_page_token")) {
-            return null;
-        }
-
-        JsonNode tokenNode = responseData.get("next_page_token");
-
-        if (tokenNode == null || tokenNode.isNull()) {
-            return null;
-        }
+    // Fetches the first page of one window for the range-split backfill, the window end is exclusive
+    private RangePage fetchBarPage(PlatformStock stock, String symbol, Instant from, Instant to) {
+        BarPage page = alpacaDataApiClient.getBars(
+                symbol, "1Min", from.atZone(ZoneOffset.UTC), to.minusSeconds(1).atZone(ZoneOffset.UTC), null).join();
 
-        String tokenValue = tokenNode.asText();
-
-        if (tokenValue == null || tokenValue.isEmpty() || "null".equalsIgnoreCase(tokenValue)) {
-            return null;
-        }
-
-        return tokenValue;
+        return new RangePage(toCandles(page.bars(), stock), page.nextPageToken() != null);
     }
 
     // Saves a batch of candles with deduplication and triggers aggregation
@@ -243,224 +347,54 @@ public class AlpacaCandleService implements AlpacaCandleServiceInterface {
             uniqueCandles.put(truncatedTimestamp, candle);
         }
 
-        loggingService.logAction("Upserting " + uniqueCandles.size() + " candles for stock ID: " + stock.getPlatformStockId());
-
-        // Upsert each candle with scaled values
-        int count = 0;
-        for (MarketCandle candle : uniqueCandles.values()) {
-            marketCandleRepository.upsertCandle(
-                    stock.getPlatformStockId(),
-                    candle.getTimeframe().getValue(),
-                    candle.getTimestamp(),
-                    scaleDecimal(candle.getOpenPrice()),
-                    scaleDecimal(candle.getHighPrice()),
-                    scaleDecimal(candle.getLowPrice()),
-                    scaleDecimal(candle.getClosePrice()),
-                    scaleDecimal(candle.getVolume())
-            );
-
-            count++;
-        }
+        // Upsert the whole batch with multi-row statements
+        UpsertResult result = marketCandleWriter.upsertCandles(
+                stock.getPlatformStockId(), new ArrayList<>(uniqueCandles.values()));
 
-        loggingService.logAction("Completed upserting " + count + " candles");
+        loggingService.logAction("Upserted " + result.rows() + " candles for stock ID: " + stock.getPlatformStockId() +
+                " in " + result.elapsedMillis() + " ms (" + result.rowsPerSecond() + " rows/s)");
 
         // Trigger aggregation to higher timeframes
-        aggregateCandles(stock, new ArrayList<>(uniqueCandles.values()));
+        candleAggregationService.aggregate(stock, new ArrayList<>(uniqueCandles.values()));
     }
 
-    // Parses Alpaca bar JSON into MarketCandle entities
-    private List<MarketCandle> parseCandles(JsonNode barsArray, PlatformStock stock) {
-        List<MarketCandle> candles = new ArrayList<>();
-
-        try {
-            if (barsArray == null || !barsArray.isArray()) {
-                return candles;
-            }
-
-            for (JsonNode barNode : barsArray) {
-                // Extract fields from Alpaca format
-                String timestamp = barNode.get("t").asText();
-                String open = barNode.get("o").asText();
-                String high = barNode.get("h").asText();
-                String low = barNode.get("l").asText();
-                String close = barNode.get("c").asText();
-                String volume = barNode.get("v").asText();
-
-                // Convert to UTC LocalDateTime
-                ZonedDateTime zonedDateTime = ZonedDateTime.parse(timestamp);
-                LocalDateTime localDateTime = zonedDateTime.withZoneSameInstant(ZoneOffset.UTC)
-                        .toLocalDateTime();
-
-                // Build candle entity with scaled values
-                MarketCandle candle = new MarketCandle();
-                candle.setPlatformStock(stock);
-                candle.setTimeframe(MarketCandle.Timeframe.M1);
-                candle.setTimestamp(localDateTime);
-                candle.setOpenPrice(scaleDecimal(new BigDecimal(open)));
-                candle.setHighPrice(scaleDecimal(new BigDecimal(high)));
-                candle.setLowPrice(scaleDecimal(new BigDecimal(low)));
-                candle.setClosePrice(scaleDecimal(new BigDecimal(close)));
-                candle.setVolume(scaleDecimal(new BigDecimal(volume)));
-
-                candles.add(candle);
-            }
-        } catch (Exception e) {
-            loggingService.logError("Error parsing candle data: " + e.getMessage(), e);
-            throw new RuntimeException("Failed to parse candle data", e);
+    // Converts decoded bars into MarketCandle entities, the values already carry 8 decimal places
+    private List<MarketCandle> toCandles(List<Bar> bars, PlatformStock stock) {
+        List<MarketCandle> candles = new ArrayList<>(bars.size());
+        for (Bar bar : bars) {
+            candles.add(toCandle(bar, stock));
         }
-
         return candles;
     }
 
-    // Processes a real-time candle from WebSocket and triggers aggregation
-    @Transactional
+    private MarketCandle toCandle(Bar bar, PlatformStock stock) {
+        MarketCandle candle = new MarketCandle();
+        candle.setPlatformStock(stock);
+        candle.setTimeframe(MarketCandle.Timeframe.M1);
+        candle.setTimestamp(LocalDateTime.ofEpochSecond(Math.floorDiv(bar.openTimeMillis(), 1000), 0, ZoneOffset.UTC));
+        candle.setOpenPrice(FixedPoint.toBigDecimal(bar.open()));
+        candle.setHighPrice(FixedPoint.toBigDecimal(bar.high()));
+        candle.setLowPrice(FixedPoint.toBigDecimal(bar.low()));
+        candle.setClosePrice(FixedPoint.toBigDecimal(bar.close()));
+        candle.setVolume(FixedPoint.toBigDecimal(bar.volume()));
+        return candle;
+    }
+
+    private record CatchUpSymbol(String symbol, PlatformStock stock, ZonedDateTime latestCandle) {
+    }
+
+    // Converts a decoded real-time bar from WebSocket and queues it for writing and aggregation
     @Override
-    public void processRealtimeCandle(JsonNode candleData, PlatformStock stock) {
+    public void processRealtimeCandle(StreamMessage barMessage, PlatformStock stock) {
         if (!userContextService.isAuthenticated()) {
             userContextService.setUser("SYSTEM", "SYSTEM");
         }
 
         try {
-            // Extract fields from WebSocket message
-            String timestamp = candleData.get("t").asText();
-            String open = candleData.get("o").asText();
-            String high = candleData.get("h").asText();
-            String low = candleData.get("l").asText();
-            String close = candleData.get("c").asText();
-            String volume = candleData.get("v").asText();
-
-            // Convert to UTC LocalDateTime
-            ZonedDateTime zonedDateTime = ZonedDateTime.parse(timestamp);
-            LocalDateTime localDateTime = zonedDateTime.withZoneSameInstant(ZoneOffset.UTC)
-                    .toLocalDateTime();
-
-            // Find existing or create new candle
-            MarketCandle candle = marketCandleRepository
-                    .findByPlatformStockAndTimeframeAndTimestampEquals(
-                            stock, MarketCandle.Timeframe.M1, localDateTime)
-                    .orElseGet(() -> {
-                        MarketCandle newCandle = new MarketCandle();
-                        newCandle.setPlatformStock(stock);
-                        newCandle.setTimeframe(MarketCandle.Timeframe.M1);
-                        newCandle.setTimestamp(localDateTime);
-                        return newCandle;
-                    });
-
-            // Update with scaled values
-            candle.setOpenPrice(scaleDecimal(new BigDecimal(open)));
-            candle.setHighPrice(scaleDecimal(new BigDecimal(high)));
-            candle.setLowPrice(scaleDecimal(new BigDecimal(low)));
-            candle.setClosePrice(scaleDecimal(new BigDecimal(close)));
-            candle.setVolume(scaleDecimal(new BigDecimal(volume)));
-
-            candle = marketCandleRepository.save(candle);
-
-            // Trigger aggregation
-            List<MarketCandle> minuteCandles = new ArrayList<>();
-            minuteCandles.add(candle);
-            aggregateCandles(stock, minuteCandles);
-
+            // Written and aggregated off the WebSocket thread in micro-batches
+            realtimeCandlePipeline.submit(stock, toCandle(barMessage.bar(), stock));
         } catch (Exception e) {
             loggingService.logError("Error processing realtime candle: " + e.getMessage(), e);
         }
     }
-
-    // Aggregates minute candles to all higher timeframes
-    private void aggregateCandles(PlatformStock stock, List<MarketCandle> minuteCandles) {
-        if (minuteCandles.isEmpty()) return;
-
-        aggregateTimeframe(stock, minuteCandles, MarketCandle.Timeframe.M5, 5);
-        aggregateTimeframe(stock, minuteCandles, MarketCandle.Timeframe.M15, 15);
-        aggregateTimeframe(stock, minuteCandles, MarketCandle.Timeframe.H1, 60);
-        aggregateTimeframe(stock, minuteCandles, MarketCandle.Timeframe.H4, 240);
-        aggregateTimeframe(stock, minuteCandles, MarketCandle.Timeframe.D1, 1440);
-    }
-
-    // Aggregates M1 candles to a specific higher timeframe
-    private void aggregateTimeframe(PlatformStock stock, List<MarketCandle> minuteCandles,
-                                    MarketCandle.Timeframe timeframe, int minutes) {
-        try {
-            // Group incoming candles by their timeframe period
-            Map<LocalDateTime, List<MarketCandle>> groupedCandles = new HashMap<>();
-
-            for (MarketCandle candle : minuteCandles) {
-                LocalDateTime timestamp = candle.getTimestamp();
-                LocalDateTime timeframeStart = calculateTimeframeStart(timestamp, minutes);
-                groupedCandles.computeIfAbsent(timeframeStart, _ -> new ArrayList<>()).add(candle);
-            }
-
-            // Process each affected timeframe period
-            for (Map.Entry<LocalDateTime, List<MarketCandle>> entry : groupedCandles.entrySet()) {
-                LocalDateTime timeframeStart = entry.getKey();
-                LocalDateTime timeframeEnd = timeframeStart.plusMinutes(minutes);
-
-                // Fetch all M1 candles in this period for accurate aggregation
-                List<MarketCandle> allCandlesInPeriod = marketCandleRepository
-                        .findByPlatformStockAndTimeframeAndTimestampBetween(
-                                stock,
-                                MarketCandle.Timeframe.M1,
-                                timeframeStart,
-                                timeframeEnd.minusSeconds(1)
-                        );
-
-                if (allCandlesInPeriod.isEmpty()) {
-                    continue;
-                }
-
-                // Sort for correct open/close determination
-                allCandlesInPeriod.sort(Comparator.comparing(MarketCandle::getTimestamp));
-
-                // Calculate OHLCV from all source candles
-                BigDecimal openPrice = allCandlesInPeriod.getFirst().getOpenPrice();
-                BigDecimal closePrice = allCandlesInPeriod.getLast().getClosePrice();
-
-                BigDecimal highPrice = allCandlesInPeriod.stream()
-                        .map(MarketCandle::getHighPrice)
-                        .max(BigDecimal::compareTo)
-                        .orElse(BigDecimal.ZERO);
-
-                BigDecimal lowPrice = allCandlesInPeriod.stream()
-                        .map(MarketCandle::getLowPrice)
-                        .min(BigDecimal::compareTo)
-                        .orElse(BigDecimal.ZERO);
-
-                BigDecimal volume = allCandlesInPeriod.stream()
-                        .map(MarketCandle::getVolume)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                // Upsert aggregated candle with scaled values
-                marketCandleRepository.upsertCandle(
-                        stock.getPlatformStockId(),
-                        timeframe.getValue(),
-                        timeframeStart,
-                        scaleDecimal(openPrice),
-                        scaleDecimal(highPrice),
-                        scaleDecimal(lowPrice),
-                        scaleDecimal(closePrice),
-                        scaleDecimal(volume)
-                );
-            }
-
-        } catch (Exception e) {
-            loggingService.logError("Error aggregating candles to timeframe " +
-                    timeframe + ": " + e.getMessage(), e);
-        }
-    }
-
-    // Calculates the start timestamp for a given timeframe period
-    private LocalDateTime calculateTimeframeStart(LocalDateTime time, int minutes) {
-        int minuteOfDay = time.getHour() * 60 + time.getMinute();
-        int timeframeIndex = minuteOfDay / minutes;
-
-        return time
-                .withHour((timeframeIndex * minutes) / 60)
-                .withMinute((timeframeIndex * minutes) % 60)
-                .withSecond(0)
-                .withNano(0);
-    }
-
-    // Determines if a symbol is crypto based on "/" presence
-    private boolean isCryptoSymbol(String symbol) {
-        return symbol.contains("/");
-    }
 }
\ No newline at end of file
@@ -2,38 +2,58 @@ package ehe_server.service.alpaca;
 
 import ehe_server.properties.AlpacaProperties;
 import ehe_server.service.intf.alpaca.AlpacaDataApiClientInterface;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.BarPage;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.MultiBarPage;
 import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.metrics.IngestionMetricsInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.Lane;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.LimitClass;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.http.*;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.time.Instant;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class AlpacaDataApiClient implements AlpacaDataApiClientInterface {
 
-    private final RestTemplate restTemplate;
+    private static final String PLATFORM_NAME = "Alpaca";
+
+    private final WebClient webClient;
     private final AlpacaProperties alpacaProperties;
     private final LoggingServiceInterface loggingService;
-
-    private final Map<String, Long> requestWindowStartMap = new ConcurrentHashMap<>();
-    private final Map<String, Integer> requestCountMap = new ConcurrentHashMap<>();
-    private static final int REQUEST_LIMIT_PER_MINUTE = 200;
-    private static final long MINUTE_IN_MS = 60_000;
+    private final ExchangeRequestBudgetInterface requestBudget;
+    private final BarStreamDecoderInterface barStreamDecoder;
+    private final IngestionMetricsInterface ingestionMetrics;
 
     public AlpacaDataApiClient(
-            @Qualifier("alpacaRestTemplate") RestTemplate restTemplate,
+            @Qualifier("alpacaWebClient") WebClient webClient,
             AlpacaProperties alpacaProperties,
-            LoggingServiceInterface loggingService) {
-        this.restTemplate = restTemplate;
+            LoggingServiceInterface loggingService,
+            ExchangeRequestBudgetInterface requestBudget,
+            BarStreamDecoderInterface barStreamDecoder,
+            IngestionMetricsInterface ingestionMetrics) {
+        this.webClient = webClient;
         this.alpacaProperties = alpacaProperties;
         this.loggingService = loggingService;
+        this.requestBudget = requestBudget;
+        this.barStreamDecoder = barStreamDecoder;
+        this.ingestionMetrics = ingestionMetrics;
     }
 
     /**
@@ -41,12 +61,9 @@ public class AlpacaDataApiClient implements AlpacaDataApiClientInterface {
      * Uses /v2/stocks/{symbol}/bars endpoint
      */
     @Override
-    public ResponseEntity<String> getStockBars(String symbol, String timeframe,
-                                               ZonedDateTime start, ZonedDateTime end,
-                                               String pageToken) {
-        String requestKey = "stock_bars_" + symbol;
-        waitForRateLimitIfNeeded(requestKey);
-
+    public CompletableFuture<BarPage> getStockBars(String symbol, String timeframe,
+                                                   ZonedDateTime start, ZonedDateTime end,
+                                                   String pageToken) {
         String endpoint = "/v2/stocks/" + symbol + "/bars";
         UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(alpacaProperties.getDataurl() + endpoint)
                 .queryParam("timeframe", convertTimeframeToAlpaca(timeframe));
@@ -66,20 +83,9 @@ public class AlpacaDataApiClient implements AlpacaDataApiClientInterface {
         builder.queryParam("limit", 10000);
         builder.queryParam("feed", "iex");
 
-        HttpHeaders headers = createAuthHeaders();
-        HttpEntity<?> entity = new HttpEntity<>(headers);
-
         loggingService.logAction("Requesting Alpaca stock bars: " + builder.toUriString());
 
-        ResponseEntity<String> response = restTemplate.exchange(
-                builder.toUriString(),
-                HttpMethod.GET,
-                entity,
-                String.class
-        );
-
-        trackRequest(requestKey);
-        return response;
+        return fetchBarPage(builder.toUriString(), symbol);
     }
 
 
@@ -90,12 +96,9 @@ public class AlpacaDataApiClient implements AlpacaDataApiClientInterface {
      * Note: Crypto symbols should be in format "BTC/USD"
      */
     @Override
-    public ResponseEntity<String> getCryptoBars(String symbol, String timeframe,
-                                                ZonedDateTime start, ZonedDateTime end,
-                                                String pageToken) {
-        String requestKey = "crypto_bars_" + symbol;
-        waitForRateLimitIfNeeded(requestKey);
-
+    public CompletableFuture<BarPage> getCryptoBars(String symbol, String timeframe,
+                                                    ZonedDateTime start, ZonedDateTime end,
+                                                    String pageToken) {
         String endpoint = "/v1beta3/crypto/us/bars";
         UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(alpacaProperties.getDataurl() + endpoint)
                 .queryParam("symbols", symbol)
@@ -115,22 +118,107 @@ public class AlpacaDataApiClient implements AlpacaDataApiClientInterface {
 
         builder.queryParam("limit", 10000);
 
+        loggingService.logAction("Requesting Alpaca crypto bars: " + builder.toUriString());
+
+        return fetchBarPage(builder.toUriString(), symbol);
+    }
+
+
+    /**
+     * Gets historical bars of several symbols of one kind, the limit applies to the bars of all symbols together
+     */
+    @Override
+    public CompletableFuture<MultiBarPage> getMultiSymbolBars(List<String> symbols, String timeframe,
+                                                              ZonedDateTime start, ZonedDateTime end,
+                                                              String pageToken) {
+        boolean crypto = isCryptoSymbol(symbols.getFirst());
+        String endpoint = crypto ? "/v1beta3/crypto/us/bars" : "/v2/stocks/bars";
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(alpacaProperties.getDataurl() + endpoint)
+                .queryParam("symbols", String.join(",", symbols))
+                .queryParam("timeframe", convertTimeframeToAlpaca(timeframe));
+
+        if (start != null) {
+            builder.queryParam("start", start.format(DateTimeFormatter.ISO_INSTANT));
+        }
+        if (end != null) {
+            builder.queryParam("end", end.format(DateTimeFormatter.ISO_INSTANT));
+        }
+
+        if (isValidPageToken(pageToken)) {
+            builder.queryParam("page_token", pageToken);
+        }
+
+        builder.queryParam("limit", 10000);
+        if (!crypto) {
+            builder.queryParam("feed", "iex");
+        }
+
+        loggingService.logAction("Requesting Alpaca bars of " + symbols.size() + " symbols: " + builder.toUriString());
+
         HttpHeaders headers = createAuthHeaders();
-        HttpEntity<?> entity = new HttpEntity<>(headers);
 
-        loggingService.logAction("Requesting Alpaca crypto bars: " + builder.toUriString());
+        return requestBudget.acquire(PLATFORM_NAME, LimitClass.REQUEST_WEIGHT, 1, Lane.BACKGROUND)
+                .thenCompose(_ -> request(builder.toUriString(), headers, "multi_bars")
+                        .map(this::decodeMultiBarPage)
+                        .defaultIfEmpty(new MultiBarPage(Map.of(), null))
+                        .toFuture());
+    }
+
+    /**
+     * Waits for the account-wide request budget without holding a thread, then decodes
+     * the pooled body buffers as a stream off the event loop, the body is never buffered as a String
+     */
+    private CompletableFuture<BarPage> fetchBarPage(String url, String symbol) {
+        HttpHeaders headers = createAuthHeaders();
+
+        // The request limit applies to the whole account, not to a single symbol
+        return requestBudget.acquire(PLATFORM_NAME, LimitClass.REQUEST_WEIGHT, 1, Lane.BACKGROUND)
+                .thenCompose(_ -> requestBarPage(url, headers, symbol));
+    }
+
+    private CompletableFuture<BarPage> requestBarPage(String url, HttpHeaders headers, String symbol) {
+        return request(url, headers, "bars")
+                .map(body -> decodeBarPage(body, symbol))
+                .defaultIfEmpty(new BarPage(List.of(), null))
+                .toFuture();
+    }
 
-        ResponseEntity<String> response = restTemplate.exchange(
-                builder.toUriString(),
-                HttpMethod.GET,
-                entity,
-                String.class
-        );
+    // Joined body buffers, published off the event loop for decoding
+    private Mono<DataBuffer> request(String url, HttpHeaders headers, String endpointName) {
+        long start = System.nanoTime();
+
+        return webClient.get()
+                .uri(url)
+                .headers(requestHeaders -> requestHeaders.addAll(headers))
+                .exchangeToMono(response -> {
+                    ingestionMetrics.recordRestRequest(PLATFORM_NAME, endpointName, response.statusCode().value(),
+                            System.nanoTime() - start);
+                    requestBudget.recordResponse(PLATFORM_NAME, response.statusCode().value(),
+                            response.headers().asHttpHeaders());
+
+                    if (response.statusCode().isError()) {
+                        return response.<DataBuffer>createError();
+                    }
+                    return DataBufferUtils.join(response.bodyToFlux(DataBuffer.class));
+                })
+                .publishOn(Schedulers.parallel());
+    }
 
-        trackRequest(requestKey);
-        return response;
+    private BarPage decodeBarPage(DataBuffer body, String symbol) {
+        try (InputStream stream = body.asInputStream(true)) {
+            return barStreamDecoder.decodeAlpacaBarPage(stream, symbol);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode Alpaca bars for " + symbol, e);
+        }
     }
 
+    private MultiBarPage decodeMultiBarPage(DataBuffer body) {
+        try (InputStream stream = body.asInputStream(true)) {
+            return barStreamDecoder.decodeAlpacaMultiBarPage(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode Alpaca multi-symbol bars", e);
+        }
+    }
 
     /**
      * Validate that a page token is actually usable
@@ -145,9 +233,9 @@ public class AlpacaDataApiClient implements AlpacaDataApiClientInterface {
      * Automatically detects if symbol is crypto (contains "/") and calls appropriate endpoint
      */
     @Override
-    public ResponseEntity<String> getBars(String symbol, String timeframe,
-                                          ZonedDateTime start, ZonedDateTime end,
-                                          String pageToken) {
+    public CompletableFuture<BarPage> getBars(String symbol, String timeframe,
+                                              ZonedDateTime start, ZonedDateTime end,
+                                              String pageToken) {
         if (isCryptoSymbol(symbol)) {
             return getCryptoBars(symbol, timeframe, start, end, pageToken);
         } else {
@@ -189,43 +277,4 @@ public class AlpacaDataApiClient implements AlpacaDataApiClientInterface {
         headers.set("APCA-API-SECRET-KEY", alpacaProperties.getSecret());
         return headers;
     }
-
-    // Rate limit management
-    private synchronized void waitForRateLimitIfNeeded(String requestKey) {
-        long now = Instant.now().toEpochMilli();
-        long windowStart = requestWindowStartMap.getOrDefault(requestKey, 0L);
-        int count = requestCountMap.getOrDefault(requestKey, 0);
-
-        if (now - windowStart < MINUTE_IN_MS && count > REQUEST_LIMIT_PER_MINUTE * 0.9) {
-            long waitTime = MINUTE_IN_MS - (now - windowStart);
-            loggingService.logAction("Rate limit approaching for " + requestKey + ", waiting " + waitTime + " ms");
-
-            try {
-                Thread.sleep(waitTime);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                loggingService.logError("Rate limit wait interrupted", e);
-            }
-
-            requestWindowStartMap.put(requestKey, Instant.now().toEpochMilli());
-            requestCountMap.put(requestKey, 0);
-        }
-
-        if (now - windowStart >= MINUTE_IN_MS) {
-            requestWindowStartMap.put(requestKey, now);
-            requestCountMap.put(requestKey, 0);
-        }
-    }
-
-    private synchronized void trackRequest(String requestKey) {
-        long now = Instant.now().toEpochMilli();
-        long windowStart = requestWindowStartMap.getOrDefault(requestKey, now);
-        int count = requestCountMap.getOrDefault(requestKey, 0);
-
-        requestCountMap.put(requestKey, count + 1);
-
-        if (windowStart == 0) {
-            requestWindowStartMap.put(requestKey, now);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -7,7 +7,11 @@ import ehe_server.service.intf.alpaca.AlpacaDataInitializationServiceInterface;
 import ehe_server.service.intf.alpaca.AlpacaWebSocketClientInterface;
 import ehe_server.service.intf.alpaca.MarketHoursServiceInterface;
 import ehe_server.service.intf.audit.UserContextServiceInterface;
+import ehe_server.service.intf.candle.CandleGapDetectorInterface;
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface;
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface.BackfillProgress;
 import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface;
 import jakarta.annotation.PostConstruct;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
@@ -17,6 +21,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class AlpacaDataInitializationService implements AlpacaDataInitializationServiceInterface {
@@ -29,9 +34,13 @@ public class AlpacaDataInitializationService implements AlpacaDataInitialization
     private final LoggingServiceInterface loggingService;
     private final UserContextServiceInterface userContextService;
     private final MarketHoursServiceInterface marketHoursService;
+    private final HistoricalBackfillSchedulerInterface backfillScheduler;
+    private final StreamConnectionSupervisorInterface streamSupervisor;
+    private final CandleGapDetectorInterface gapDetector;
 
     private final Set<String> liveSymbols = ConcurrentHashMap.newKeySet();
-    private final Map<String, Boolean> historicalSyncInProgress = new ConcurrentHashMap<>();
+    // Startup symbols that have neither gone live nor failed, plus one for the startup pass itself
+    private final AtomicInteger pendingStartupSymbols = new AtomicInteger(1);
 
     public AlpacaDataInitializationService(
             AlpacaCandleServiceInterface alpacaCandleService,
@@ -39,18 +48,32 @@ public class AlpacaDataInitializationService implements AlpacaDataInitialization
             PlatformStockRepository platformStockRepository,
             LoggingServiceInterface loggingService,
             UserContextServiceInterface userContextService,
-            MarketHoursServiceInterface marketHoursService) {
+            MarketHoursServiceInterface marketHoursService,
+            HistoricalBackfillSchedulerInterface backfillScheduler,
+            StreamConnectionSupervisorInterface streamSupervisor,
+            CandleGapDetectorInterface gapDetector) {
         this.alpacaCandleService = alpacaCandleService;
         this.alpacaWebSocketClient = alpacaWebSocketClient;
         this.platformStockRepository = platformStockRepository;
         this.loggingService = loggingService;
         this.userContextService = userContextService;
         this.marketHoursService = marketHoursService;
+        this.backfillScheduler = backfillScheduler;
+        this.streamSupervisor = streamSupervisor;
+        this.gapDetector = gapDetector;
     }
 
     @PostConstruct
     public void initialize() {
         userContextService.setUser("SYSTEM", "SYSTEM");
+
+        // Repairs the minutes missed while a stream reconnects, a running backfill covers them itself
+        streamSupervisor.registerGapFiller(PLATFORM_NAME, (symbol, from, to) -> {
+            if (!isSyncing(symbol)) {
+                alpacaCandleService.fillGap(symbol, from, to);
+            }
+        });
+
         loggingService.logAction("Alpaca data initialization service ready");
     }
 
@@ -79,17 +102,32 @@ public class AlpacaDataInitializationService implements AlpacaDataInitialization
                 loggingService.logAction("Found " + stockSymbols.size() + " stock symbols and " +
                         cryptoSymbols.size() + " crypto symbols");
 
+                // Symbols with stored candles are caught up together, a few requests instead of one per symbol
+                List<String> allSymbols = stocks.stream().map(stock -> stock.getStock().getStockSymbol()).toList();
+                Set<String> needFullSync = new HashSet<>(alpacaCandleService.catchUpSymbols(allSymbols));
+
                 for (PlatformStock crypto : cryptoSymbols) {
-                    setupSymbol(crypto.getStock().getStockSymbol());
+                    String symbol = crypto.getStock().getStockSymbol();
+                    if (needFullSync.contains(symbol)) {
+                        pendingStartupSymbols.incrementAndGet();
+                        scheduleBackfill(symbol, this::startupSymbolSettled);
+                    } else {
+                        setupLiveStream(symbol);
+                    }
                 }
 
+                // Stocks are backfilled regardless of market hours and go live once their own sync is done
                 for (PlatformStock stock : stockSymbols) {
                     String symbol = stock.getStock().getStockSymbol();
-                    syncHistoricalDataOnly(symbol);
-
-                    if (marketHoursService.isMarketOpen()) {
-                        setupLiveStream(symbol);
+                    if (!needFullSync.contains(symbol)) {
+                        if (marketHoursService.isMarketOpen()) {
+                            setupLiveStream(symbol);
+                        }
+                        continue;
                     }
+
+                    pendingStartupSymbols.incrementAndGet();
+                    scheduleBackfill(symbol, this::startupSymbolSettled);
                 }
 
                 if (!marketHoursService.isMarketOpen()) {
@@ -98,22 +136,15 @@ public class AlpacaDataInitializationService implements AlpacaDataInitialization
             }
         } catch (Exception e) {
             loggingService.logError("Error during async initialization: " + e.getMessage(), e);
+        } finally {
+            startupSymbolSettled();
         }
     }
 
-    /**
-     * Sync historical data regardless of market hours
-     */
-    private void syncHistoricalDataOnly(String symbol) {
-        try {
-            historicalSyncInProgress.put(symbol, true);
-            loggingService.logAction("Syncing historical data for " + symbol);
-            alpacaCandleService.syncHistoricalData(symbol);
-            historicalSyncInProgress.put(symbol, false);
-            loggingService.logAction("Historical sync complete for " + symbol);
-        } catch (Exception e) {
-            historicalSyncInProgress.put(symbol, false);
-            loggingService.logError("Failed to sync historical data for " + symbol + ": " + e.getMessage(), e);
+    // The bars journaled by the last run are replayed once every startup symbol has its handler or has failed
+    private void startupSymbolSettled() {
+        if (pendingStartupSymbols.decrementAndGet() == 0) {
+            alpacaWebSocketClient.startReplay();
         }
     }
 
@@ -128,7 +159,7 @@ public class AlpacaDataInitializationService implements AlpacaDataInitialization
             }
 
             alpacaWebSocketClient.registerHandler(symbol,
-                    candleData -> alpacaCandleService.processRealtimeCandle(candleData, stock));
+                    barMessage -> alpacaCandleService.processRealtimeCandle(barMessage, stock));
 
             liveSymbols.add(symbol);
             alpacaWebSocketClient.updateSubscriptions(new ArrayList<>(liveSymbols));
@@ -141,42 +172,44 @@ public class AlpacaDataInitializationService implements AlpacaDataInitialization
 
 
     /**
-     * Sets up a symbol: sync historical data, then add to live WebSocket
+     * Sets up a symbol: queue its historical data sync, then add it to the live WebSocket
      */
     @Override
     public void setupSymbol(String symbol) {
-        try {
-            // Check if it's a stock and market is closed
-            if (!isCryptoSymbol(symbol) && !marketHoursService.isMarketOpen()) {
-                loggingService.logAction("Skipping " + symbol + " - market is closed");
-                return;
-            }
-
-            historicalSyncInProgress.put(symbol, true);
-
-            loggingService.logAction("Starting historical data sync for " + symbol);
-            alpacaCandleService.syncHistoricalData(symbol);
-
-            // Get the stock entity for handler
-            PlatformStock stock = getStock(symbol);
-            if (stock == null) {
-                throw new RuntimeException("Stock not found: " + symbol);
-            }
-
-            // Register handler with WebSocket
-            alpacaWebSocketClient.registerHandler(symbol,
-                    candleData -> alpacaCandleService.processRealtimeCandle(candleData, stock));
+        // Check if it's a stock and market is closed
+        if (!isCryptoSymbol(symbol) && !marketHoursService.isMarketOpen()) {
+            loggingService.logAction("Skipping " + symbol + " - market is closed");
+            return;
+        }
 
-            // Add to live symbols (this triggers WebSocket reconnection)
-            liveSymbols.add(symbol);
-            alpacaWebSocketClient.updateSubscriptions(new ArrayList<>(liveSymbols));
+        scheduleBackfill(symbol, () -> {
+        });
+    }
 
-            historicalSyncInProgress.put(symbol, false);
-            loggingService.logAction("Successfully initialized " + symbol);
+    /**
+     * Queues the historical sync of a symbol, it goes live afterwards unless it is a stock and the market
+     * has closed. onSettled runs once the symbol has gone live, its backfill failed or it was not queued.
+     */
+    private void scheduleBackfill(String symbol, Runnable onSettled) {
+        boolean scheduled = backfillScheduler.schedule(PLATFORM_NAME, symbol,
+                () -> {
+                    try {
+                        alpacaCandleService.syncHistoricalData(symbol);
+                    } catch (RuntimeException e) {
+                        onSettled.run();
+                        throw e;
+                    }
+                },
+                () -> {
+                    if (isCryptoSymbol(symbol) || marketHoursService.isMarketOpen()) {
+                        setupLiveStream(symbol);
+                    }
+                    onSettled.run();
+                });
 
-        } catch (Exception e) {
-            historicalSyncInProgress.put(symbol, false);
-            loggingService.logError("Failed to initialize " + symbol + ": " + e.getMessage(), e);
+        if (!scheduled) {
+            loggingService.logAction("Skipping " + symbol + " - historical sync already in progress");
+            onSettled.run();
         }
     }
 
@@ -209,19 +242,28 @@ public class AlpacaDataInitializationService implements AlpacaDataInitialization
 
             List<PlatformStock> stocks = platformStockRepository.findByPlatformPlatformName(PLATFORM_NAME);
 
+            // Live symbols are caught up in multi-symbol requests, only the leftovers are synced one by one
+            List<String> catchUp = stocks.stream()
+                    .map(stock -> stock.getStock().getStockSymbol())
+                    .filter(symbol -> liveSymbols.contains(symbol) && !isSyncing(symbol))
+                    .toList();
+            if (!catchUp.isEmpty()) {
+                loggingService.logAction("Syncing any missing data for " + catchUp.size() + " live symbols");
+                for (String symbol : alpacaCandleService.catchUpSymbols(catchUp)) {
+                    alpacaCandleService.syncHistoricalData(symbol);
+                }
+            }
+
             for (PlatformStock stock : stocks) {
                 String symbol = stock.getStock().getStockSymbol();
 
-                // Skip if syncing or not live
-                if (historicalSyncInProgress.getOrDefault(symbol, false)) {
+                if (isSyncing(symbol)) {
                     loggingService.logAction("Skipping " + symbol + " - historical sync in progress");
                     continue;
                 }
 
-                if (liveSymbols.contains(symbol)) {
-                    loggingService.logAction("Syncing any missing data for " + symbol);
-                    alpacaCandleService.syncHistoricalData(symbol);
-                }
+                // Holes inside the stored series, e.g. from stream outages, only their ranges are refetched
+                gapDetector.repairGaps(stock, !isCryptoSymbol(symbol), alpacaCandleService::fillGap);
             }
         } catch (Exception e) {
             loggingService.logError("Error during daily maintenance: " + e.getMessage(), e);
@@ -240,13 +282,23 @@ public class AlpacaDataInitializationService implements AlpacaDataInitialization
 
             List<PlatformStock> stocks = platformStockRepository.findByPlatformPlatformName(PLATFORM_NAME);
 
-            for (PlatformStock stock : stocks) {
-                String symbol = stock.getStock().getStockSymbol();
+            // Only initialize stock symbols (not crypto)
+            List<String> opening = stocks.stream()
+                    .map(stock -> stock.getStock().getStockSymbol())
+                    .filter(symbol -> !isCryptoSymbol(symbol) && !liveSymbols.contains(symbol) && !isSyncing(symbol))
+                    .toList();
+
+            // The overnight minutes of every stock come in a few multi-symbol requests
+            Set<String> needFullSync = opening.isEmpty()
+                    ? Set.of()
+                    : new HashSet<>(alpacaCandleService.catchUpSymbols(opening));
 
-                // Only initialize stock symbols (not crypto)
-                if (!isCryptoSymbol(symbol) && !liveSymbols.contains(symbol)) {
-                    loggingService.logAction("Initializing stock symbol for market open: " + symbol);
+            for (String symbol : opening) {
+                loggingService.logAction("Initializing stock symbol for market open: " + symbol);
+                if (needFullSync.contains(symbol)) {
                     setupSymbol(symbol);
+                } else {
+                    setupLiveStream(symbol);
                 }
             }
         } catch (Exception e) {
@@ -303,7 +355,15 @@ public class AlpacaDataInitializationService implements AlpacaDataInitialization
      */
     @Override
     public boolean isSyncing(String symbol) {
-        return historicalSyncInProgress.getOrDefault(symbol, false);
+        return backfillScheduler.isBackfilling(PLATFORM_NAME, symbol);
+    }
+
+    /**
+     * Get backfill progress of every symbol
+     */
+    @Override
+    public List<BackfillProgress> getBackfillProgress() {
+        return backfillScheduler.getProgress(PLATFORM_NAME);
     }
 
     private PlatformStock getStock(String symbol) {
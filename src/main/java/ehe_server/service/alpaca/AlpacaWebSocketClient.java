@@ -3,8 +3,13 @@ package ehe_server.service.alpaca;
 import ehe_server.properties.AlpacaProperties;
 import ehe_server.service.intf.alpaca.AlpacaWebSocketClientInterface;
 import ehe_server.service.intf.audit.UserContextServiceInterface;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.StreamMessage;
+import ehe_server.service.intf.candle.RawFrameJournalInterface;
 import ehe_server.service.intf.log.LoggingServiceInterface;
-import com.fasterxml.jackson.databind.JsonNode;
+import ehe_server.service.intf.metrics.IngestionMetricsInterface;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface.StreamConnector;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
@@ -16,18 +21,29 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
+/**
+ * Keeps one WebSocket session per Alpaca feed. Each feed has its own handler, so every session
+ * is bound to its feed from the handshake on, and the connect and reconnect cycle of both feeds
+ * is owned by the stream connection supervisor.
+ */
 @Service
-public class AlpacaWebSocketClient extends TextWebSocketHandler implements AlpacaWebSocketClientInterface {
+public class AlpacaWebSocketClient implements AlpacaWebSocketClientInterface {
 
     private final ObjectMapper objectMapper;
+    private final BarStreamDecoderInterface barStreamDecoder;
     private final LoggingServiceInterface loggingService;
     private final UserContextServiceInterface userContextService;
     private final AlpacaProperties alpacaProperties;
+    private final StreamConnectionSupervisorInterface streamSupervisor;
+    private final RawFrameJournalInterface frameJournal;
+    private final IngestionMetricsInterface ingestionMetrics;
 
-    private volatile FeedType currentlyConnectingFeedType;
+    private final FeedHandler stockHandler = new FeedHandler(FeedType.STOCK);
+    private final FeedHandler cryptoHandler = new FeedHandler(FeedType.CRYPTO);
 
     private volatile WebSocketSession stockSession;
     private volatile WebSocketSession cryptoSession;
@@ -38,12 +54,14 @@ public class AlpacaWebSocketClient extends TextWebSocketHandler implements Alpac
     private final Set<String> stockSubscriptions = ConcurrentHashMap.newKeySet();
     private final Set<String> cryptoSubscriptions = ConcurrentHashMap.newKeySet();
 
-    private final Map<String, Consumer<JsonNode>> handlers = new ConcurrentHashMap<>();
-
-    private final Map<WebSocketSession, FeedType> sessionFeedTypeMap = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<StreamMessage>> handlers = new ConcurrentHashMap<>();
+    // Symbols whose handler was unregistered, their journaled bars are dropped instead of held back
+    private final Set<String> retiredSymbols = ConcurrentHashMap.newKeySet();
 
+    private static final String PLATFORM_NAME = "Alpaca";
     private static final String STOCK_FEED_PATH = "/v2/iex"; // or /v2/sip for paid plans
     private static final String CRYPTO_FEED_PATH = "/v1beta3/crypto/us";
+    private static final String JOURNAL_STREAM = "alpaca";
 
     private enum FeedType {
         STOCK,
@@ -52,18 +70,43 @@ public class AlpacaWebSocketClient extends TextWebSocketHandler implements Alpac
 
     public AlpacaWebSocketClient(
             ObjectMapper objectMapper,
+            BarStreamDecoderInterface barStreamDecoder,
             LoggingServiceInterface loggingService,
             UserContextServiceInterface userContextService,
-            AlpacaProperties alpacaProperties) {
+            AlpacaProperties alpacaProperties,
+            StreamConnectionSupervisorInterface streamSupervisor,
+            RawFrameJournalInterface frameJournal,
+            IngestionMetricsInterface ingestionMetrics) {
         this.objectMapper = objectMapper;
+        this.barStreamDecoder = barStreamDecoder;
         this.loggingService = loggingService;
         this.userContextService = userContextService;
         this.alpacaProperties = alpacaProperties;
+        this.streamSupervisor = streamSupervisor;
+        this.frameJournal = frameJournal;
+        this.ingestionMetrics = ingestionMetrics;
+
+        // Bar frames of both feeds go through one journal and are processed by its reader
+        frameJournal.open(JOURNAL_STREAM, this::processJournaledFrame);
+
+        for (FeedType feedType : FeedType.values()) {
+            streamSupervisor.register(streamKey(feedType), PLATFORM_NAME, new StreamConnector() {
+                @Override
+                public CompletableFuture<?> connect() {
+                    return connectToFeed(feedType);
+                }
+
+                @Override
+                public Set<String> symbols() {
+                    return Set.copyOf(feedType == FeedType.STOCK ? stockSubscriptions : cryptoSubscriptions);
+                }
+            });
+        }
     }
 
     /**
      * Update subscriptions with a complete list of symbols
-     * This will reconnect the websockets if the symbol list changes
+     * Changes are sent on the live sessions, a feed only reconnects if its session is dead
      */
     @Override
     public synchronized void updateSubscriptions(List<String> symbols) {
@@ -82,46 +125,82 @@ public class AlpacaWebSocketClient extends TextWebSocketHandler implements Alpac
             }
         }
 
-        // Update stock subscriptions if changed
-        if (!newStockSymbols.equals(stockSubscriptions)) {
-            loggingService.logAction("Updating stock subscriptions. Old: " + stockSubscriptions.size() +
-                    ", New: " + newStockSymbols.size());
-
-            closeSession(stockSession, "stock");
-            stockSession = null;
-            stockAuthenticated = false;
+        updateFeedSubscriptions(FeedType.STOCK, newStockSymbols);
+        updateFeedSubscriptions(FeedType.CRYPTO, newCryptoSymbols);
+    }
 
-            stockSubscriptions.clear();
-            stockSubscriptions.addAll(newStockSymbols);
+    /**
+     * Applies the symbol diff of one feed on its live, authenticated session.
+     * Only connects when the feed has no open session.
+     */
+    private void updateFeedSubscriptions(FeedType feedType, Set<String> newSymbols) {
+        Set<String> currentSymbols = feedType == FeedType.STOCK ? stockSubscriptions : cryptoSubscriptions;
+        String feedName = feedType == FeedType.STOCK ? "stock" : "crypto";
 
-            if (!stockSubscriptions.isEmpty()) {
-                connectToFeed(FeedType.STOCK);
-            } else {
-                loggingService.logAction("No stock symbols to subscribe to");
-            }
-        } else {
-            loggingService.logAction("Stock subscription list unchanged, skipping reconnection");
+        if (newSymbols.equals(currentSymbols)) {
+            loggingService.logAction(feedName + " subscription list unchanged");
+            return;
         }
 
-        // Update crypto subscriptions if changed
-        if (!newCryptoSymbols.equals(cryptoSubscriptions)) {
-            loggingService.logAction("Updating crypto subscriptions. Old: " + cryptoSubscriptions.size() +
-                    ", New: " + newCryptoSymbols.size());
+        List<String> added = newSymbols.stream().filter(symbol -> !currentSymbols.contains(symbol)).toList();
+        List<String> removed = currentSymbols.stream().filter(symbol -> !newSymbols.contains(symbol)).toList();
 
-            closeSession(cryptoSession, "crypto");
-            cryptoSession = null;
-            cryptoAuthenticated = false;
+        loggingService.logAction("Updating " + feedName + " subscriptions. Old: " + currentSymbols.size() +
+                ", New: " + newSymbols.size() + " (+" + added.size() + ", -" + removed.size() + ")");
 
-            cryptoSubscriptions.clear();
-            cryptoSubscriptions.addAll(newCryptoSymbols);
+        currentSymbols.retainAll(newSymbols);
+        currentSymbols.addAll(newSymbols);
 
-            if (!cryptoSubscriptions.isEmpty()) {
-                connectToFeed(FeedType.CRYPTO);
-            } else {
-                loggingService.logAction("No crypto symbols to subscribe to");
+        WebSocketSession session = feedType == FeedType.STOCK ? stockSession : cryptoSession;
+
+        if (currentSymbols.isEmpty()) {
+            streamSupervisor.stop(streamKey(feedType));
+            resetFeed(feedType);
+            closeSession(session, feedName);
+            loggingService.logAction("No " + feedName + " symbols to subscribe to");
+            return;
+        }
+
+        if (session != null && session.isOpen()) {
+            boolean authenticated = feedType == FeedType.STOCK ? stockAuthenticated : cryptoAuthenticated;
+
+            // Still authenticating: the subscription sent after authentication carries the full list
+            if (!authenticated) {
+                return;
+            }
+
+            try {
+                if (!removed.isEmpty()) {
+                    session.sendMessage(createSubscriptionMessage("unsubscribe", removed));
+                }
+                if (!added.isEmpty()) {
+                    session.sendMessage(createSubscriptionMessage("subscribe", added));
+                }
+                return;
+            } catch (IOException e) {
+                // The session is dead, fall back to a fresh connection with the full list
+                loggingService.logError("Failed to update " + feedName + " subscriptions on live session: " +
+                        e.getMessage(), e);
+                resetFeed(feedType);
+                closeSession(session, feedName);
+                streamSupervisor.connectionLost(streamKey(feedType));
+                return;
             }
+        }
+
+        streamSupervisor.requestConnect(streamKey(feedType));
+    }
+
+    /**
+     * Forgets the session and authentication state of a feed
+     */
+    private void resetFeed(FeedType feedType) {
+        if (feedType == FeedType.STOCK) {
+            stockSession = null;
+            stockAuthenticated = false;
         } else {
-            loggingService.logAction("Crypto subscription list unchanged, skipping reconnection");
+            cryptoSession = null;
+            cryptoAuthenticated = false;
         }
     }
 
@@ -131,7 +210,6 @@ public class AlpacaWebSocketClient extends TextWebSocketHandler implements Alpac
     private void closeSession(WebSocketSession session, String feedName) {
         if (session != null && session.isOpen()) {
             try {
-                sessionFeedTypeMap.remove(session);
                 session.close();
                 loggingService.logAction("Closed existing " + feedName + " WebSocket connection");
             } catch (Exception e) {
@@ -141,56 +219,37 @@ public class AlpacaWebSocketClient extends TextWebSocketHandler implements Alpac
     }
 
     /**
-     * Connect to a specific Alpaca data feed
+     * Starts the handshake of a specific Alpaca data feed without waiting for it.
+     * The session is bound to the feed by its handler once the connection is established.
      */
-    private void connectToFeed(FeedType feedType) {
+    private CompletableFuture<WebSocketSession> connectToFeed(FeedType feedType) {
         userContextService.setUser("SYSTEM", "SYSTEM");
 
         String feedPath = feedType == FeedType.STOCK ? STOCK_FEED_PATH : CRYPTO_FEED_PATH;
         String feedName = feedType == FeedType.STOCK ? "stock" : "crypto";
 
-        try {
-            String wsUrl = alpacaProperties.getWebsocketurl() + feedPath;
-
-            WebSocketClient client = new StandardWebSocketClient();
-
-            currentlyConnectingFeedType = feedType;
-
-            WebSocketSession newSession = client.execute(this, new WebSocketHttpHeaders(), URI.create(wsUrl)).get();
-
-            if (feedType == FeedType.STOCK) {
-                stockSession = newSession;
-            } else {
-                cryptoSession = newSession;
-            }
-
-            loggingService.logAction("WebSocket connected to " + feedName + " feed (" + feedPath +
-                    "). Awaiting authentication...");
-
-        } catch (Exception e) {
-            loggingService.logError("Failed to connect to Alpaca " + feedName + " WebSocket: " + e.getMessage(), e);
+        // A session left over from an earlier attempt would otherwise stay open next to the new one
+        synchronized (this) {
+            WebSocketSession staleSession = feedType == FeedType.STOCK ? stockSession : cryptoSession;
+            resetFeed(feedType);
+            closeSession(staleSession, feedName);
+        }
 
-            if (feedType == FeedType.STOCK) {
-                stockSession = null;
-                stockAuthenticated = false;
-            } else {
-                cryptoSession = null;
-                cryptoAuthenticated = false;
-            }
+        String wsUrl = alpacaProperties.getWebsocketurl() + feedPath;
+        WebSocketClient client = new StandardWebSocketClient();
+        FeedHandler handler = feedType == FeedType.STOCK ? stockHandler : cryptoHandler;
 
-            throw new RuntimeException(feedName + " WebSocket connection failed", e);
-        } finally {
-            // Clean up the temporary field
-            currentlyConnectingFeedType = null;
-        }
+        loggingService.logAction("Connecting to " + feedName + " feed (" + feedPath + ")");
+        return client.execute(handler, new WebSocketHttpHeaders(), URI.create(wsUrl));
     }
 
     /**
      * Register a message handler for a specific symbol
      */
     @Override
-    public void registerHandler(String symbol, Consumer<JsonNode> handler) {
+    public void registerHandler(String symbol, Consumer<StreamMessage> handler) {
         handlers.put(symbol.toUpperCase(), handler);
+        retiredSymbols.remove(symbol.toUpperCase());
         loggingService.logAction("Registered handler for symbol: " + symbol);
     }
 
@@ -200,86 +259,17 @@ public class AlpacaWebSocketClient extends TextWebSocketHandler implements Alpac
     @Override
     public void unregisterHandler(String symbol) {
         handlers.remove(symbol.toUpperCase());
+        retiredSymbols.add(symbol.toUpperCase());
         loggingService.logAction("Unregistered handler for symbol: " + symbol);
     }
 
     @Override
-    public void afterConnectionEstablished(@NonNull WebSocketSession session) {
-        userContextService.setUser("SYSTEM", "SYSTEM");
-
-        FeedType feedType = currentlyConnectingFeedType;
-
-        if (feedType != null) {
-            sessionFeedTypeMap.put(session, feedType);
-        } else {
-            loggingService.logError("Feed type was null in afterConnectionEstablished - this should not happen", null);
-            return;
-        }
-
-        String feedName = feedType == FeedType.STOCK ? "stock" : "crypto";
-
-        loggingService.logAction("Alpaca " + feedName + " WebSocket connection established. Sending authentication...");
-
-        try {
-            // Send authentication message
-            TextMessage authMsg = createAuthMessage();
-            session.sendMessage(authMsg);
-        } catch (IOException e) {
-            loggingService.logError("Failed to send auth message to " + feedName + " feed: " + e.getMessage(), e);
-        }
-    }
-
-    @Override
-    public void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
-        userContextService.setUser("SYSTEM", "SYSTEM");
-
-        FeedType feedType = sessionFeedTypeMap.get(session);
-        if (feedType == null) {
-            loggingService.logError("Received message from unknown session", null);
-            return;
-        }
-
-        String feedName = feedType == FeedType.STOCK ? "stock" : "crypto";
-
-        try {
-            JsonNode jsonArray = objectMapper.readTree(message.getPayload());
-
-            // Alpaca sends messages as an array
-            if (!jsonArray.isArray()) {
-                loggingService.logAction("Received non-array message from " + feedName + " feed: " + message.getPayload());
-                return;
-            }
-
-            for (JsonNode jsonNode : jsonArray) {
-                String messageType = jsonNode.has("T") ? jsonNode.get("T").asText() : "";
-
-                switch (messageType) {
-                    case "success":
-                        handleSuccessMessage(jsonNode, session, feedType);
-                        break;
-                    case "error":
-                        handleErrorMessage(jsonNode, feedName);
-                        break;
-                    case "subscription":
-                        handleSubscriptionMessage(jsonNode, feedName);
-                        break;
-                    case "b": // bar/candle
-                        handleBarMessage(jsonNode);
-                        break;
-                    case "t": // trade
-                    case "q": // quote
-                        break;
-                    default:
-                        loggingService.logAction("Unknown message type from " + feedName + " feed: " + messageType);
-                }
-            }
-        } catch (Exception e) {
-            loggingService.logError("Error processing " + feedName + " WebSocket message: " + e.getMessage(), e);
-        }
+    public void startReplay() {
+        frameJournal.startReplay(JOURNAL_STREAM);
     }
 
-    private void handleSuccessMessage(JsonNode jsonNode, WebSocketSession session, FeedType feedType) {
-        String msg = jsonNode.get("msg").asText();
+    private void handleSuccessMessage(StreamMessage message, WebSocketSession session, FeedType feedType) {
+        String msg = message.message() != null ? message.message() : "";
         String feedName = feedType == FeedType.STOCK ? "stock" : "crypto";
 
         loggingService.logAction(feedName + " WebSocket success: " + msg);
@@ -294,36 +284,59 @@ public class AlpacaWebSocketClient extends TextWebSocketHandler implements Alpac
 
             loggingService.logAction(feedName + " feed authentication successful");
 
-            // Now send subscription message for the appropriate symbols
-            try {
-                Set<String> symbolsToSubscribe = feedType == FeedType.STOCK ? stockSubscriptions : cryptoSubscriptions;
-                TextMessage subscribeMsg = createSubscriptionMessage(new ArrayList<>(symbolsToSubscribe));
-                session.sendMessage(subscribeMsg);
-            } catch (IOException e) {
-                loggingService.logError("Failed to send subscription message to " + feedName + " feed: " + e.getMessage(), e);
+            // Now send subscription message for the appropriate symbols, in step with live diff updates
+            synchronized (this) {
+                try {
+                    Set<String> symbolsToSubscribe = feedType == FeedType.STOCK ? stockSubscriptions : cryptoSubscriptions;
+                    TextMessage subscribeMsg = createSubscriptionMessage("subscribe", new ArrayList<>(symbolsToSubscribe));
+                    session.sendMessage(subscribeMsg);
+                } catch (IOException e) {
+                    loggingService.logError("Failed to send subscription message to " + feedName + " feed: " + e.getMessage(), e);
+                    return;
+                }
             }
+
+            streamSupervisor.connectionReady(streamKey(feedType));
         }
     }
 
-    private void handleErrorMessage(JsonNode jsonNode, String feedName) {
-        int code = jsonNode.get("code").asInt();
-        String msg = jsonNode.get("msg").asText();
-        loggingService.logError(feedName + " WebSocket error (code " + code + "): " + msg, null);
+    private void handleErrorMessage(StreamMessage message, String feedName) {
+        loggingService.logError(feedName + " WebSocket error (code " + message.code() + "): " + message.message(), null);
+    }
+
+    private void handleSubscriptionMessage(String payload, String feedName) {
+        loggingService.logAction(feedName + " subscription confirmed: " + payload);
     }
 
-    private void handleSubscriptionMessage(JsonNode jsonNode, String feedName) {
-        loggingService.logAction(feedName + " subscription confirmed: " + jsonNode.toString());
+    // A frame with a bar of a symbol that has no handler yet is held back by the journal as a whole
+    private boolean processJournaledFrame(String frame) throws IOException {
+        boolean consumed = true;
+        for (StreamMessage streamMessage : barStreamDecoder.decodeAlpacaFrame(frame)) {
+            if (streamMessage.isBar()) {
+                consumed &= handleBarMessage(streamMessage);
+            }
+        }
+        return consumed;
     }
 
-    private void handleBarMessage(JsonNode jsonNode) {
-        String symbol = jsonNode.get("S").asText();
+    // false while the symbol has no handler yet, bars of unregistered symbols are dropped
+    private boolean handleBarMessage(StreamMessage message) {
+        String symbol = message.symbol();
+        if (symbol == null) {
+            return true;
+        }
 
-        Consumer<JsonNode> handler = handlers.get(symbol);
+        Consumer<StreamMessage> handler = handlers.get(symbol);
         if (handler != null) {
-            handler.accept(jsonNode);
-        } else {
+            handler.accept(message);
+            return true;
+        }
+
+        if (retiredSymbols.contains(symbol)) {
             loggingService.logAction("No handler registered for symbol: " + symbol);
+            return true;
         }
+        return false;
     }
 
     /**
@@ -341,118 +354,19 @@ public class AlpacaWebSocketClient extends TextWebSocketHandler implements Alpac
     }
 
     /**
-     * Creates subscription message for Alpaca WebSocket
+     * Creates subscribe or unsubscribe message for Alpaca WebSocket
      * Format: {"action":"subscribe","bars":["AAPL","GOOGL"]}
      */
-    private TextMessage createSubscriptionMessage(List<String> symbols) throws IOException {
+    private TextMessage createSubscriptionMessage(String action, List<String> symbols) throws IOException {
         Map<String, Object> subscribePayload = new HashMap<>();
-        subscribePayload.put("action", "subscribe");
+        subscribePayload.put("action", action);
         subscribePayload.put("bars", symbols);
 
         String json = objectMapper.writeValueAsString(subscribePayload);
-        loggingService.logAction("Sending subscription for " + symbols.size() + " symbols: " + symbols);
+        loggingService.logAction("Sending " + action + " for " + symbols.size() + " symbols: " + symbols);
         return new TextMessage(json);
     }
 
-    @Override
-    public void handleTransportError(@NonNull WebSocketSession session, @NonNull Throwable exception) {
-        userContextService.setUser("SYSTEM", "SYSTEM");
-
-        FeedType feedType = sessionFeedTypeMap.get(session);
-        String feedName = feedType != null ? (feedType == FeedType.STOCK ? "stock" : "crypto") : "unknown";
-
-        loggingService.logError("Alpaca " + feedName + " WebSocket transport error: " + exception.getMessage(), exception);
-
-        // Schedule reconnection attempt
-        final FeedType reconnectFeedType = feedType;
-        new Thread(() -> {
-            try {
-                Thread.sleep(5000);
-                loggingService.logAction("Attempting to reconnect " + feedName + " feed after transport error");
-                synchronized (AlpacaWebSocketClient.this) {
-                    if (reconnectFeedType != null) {
-                        reconnectFeed(reconnectFeedType);
-                    }
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
-    }
-
-    @Override
-    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
-        userContextService.setUser("SYSTEM", "SYSTEM");
-
-        FeedType feedType = sessionFeedTypeMap.remove(session);
-        String feedName = feedType != null ? (feedType == FeedType.STOCK ? "stock" : "crypto") : "unknown";
-
-        loggingService.logAction("Alpaca " + feedName + " WebSocket connection closed: " + status);
-
-        // Reset authentication state
-        if (feedType == FeedType.STOCK) {
-            stockAuthenticated = false;
-            stockSession = null;
-        } else if (feedType == FeedType.CRYPTO) {
-            cryptoAuthenticated = false;
-            cryptoSession = null;
-        }
-
-        // Attempt reconnect if we still have subscriptions for this feed
-        final FeedType reconnectFeedType = feedType;
-        if (reconnectFeedType != null && hasSubscriptionsForFeed(reconnectFeedType)) {
-            new Thread(() -> {
-                try {
-                    Thread.sleep(5000);
-                    loggingService.logAction("Attempting to reconnect " + feedName + " feed with " +
-                            getSubscriptionCountForFeed(reconnectFeedType) + " symbols");
-                    synchronized (AlpacaWebSocketClient.this) {
-                        reconnectFeed(reconnectFeedType);
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
-        }
-    }
-
-    /**
-     * Reconnects a specific feed if it's not already connected
-     */
-    private void reconnectFeed(FeedType feedType) {
-        if (feedType == FeedType.STOCK) {
-            if ((stockSession == null || !stockSession.isOpen()) && !stockSubscriptions.isEmpty()) {
-                connectToFeed(FeedType.STOCK);
-            }
-        } else {
-            if ((cryptoSession == null || !cryptoSession.isOpen()) && !cryptoSubscriptions.isEmpty()) {
-                connectToFeed(FeedType.CRYPTO);
-            }
-        }
-    }
-
-    /**
-     * Checks if there are subscriptions for a specific feed
-     */
-    private boolean hasSubscriptionsForFeed(FeedType feedType) {
-        if (feedType == FeedType.STOCK) {
-            return !stockSubscriptions.isEmpty();
-        } else {
-            return !cryptoSubscriptions.isEmpty();
-        }
-    }
-
-    /**
-     * Gets subscription count for a specific feed
-     */
-    private int getSubscriptionCountForFeed(FeedType feedType) {
-        if (feedType == FeedType.STOCK) {
-            return stockSubscriptions.size();
-        } else {
-            return cryptoSubscriptions.size();
-        }
-    }
-
     /**
      * Check if WebSocket is currently connected and authenticated
      * Returns true if at least one feed with subscriptions is connected
@@ -481,4 +395,132 @@ public class AlpacaWebSocketClient extends TextWebSocketHandler implements Alpac
     private boolean isCryptoSymbol(String symbol) {
         return symbol.contains("/");
     }
+
+    private static String streamKey(FeedType feedType) {
+        return feedType == FeedType.STOCK ? "alpaca-stock" : "alpaca-crypto";
+    }
+
+    private WebSocketSession currentSession(FeedType feedType) {
+        return feedType == FeedType.STOCK ? stockSession : cryptoSession;
+    }
+
+    /**
+     * Receives the messages of one feed, so a session never has to be looked up to find its feed
+     */
+    private final class FeedHandler extends TextWebSocketHandler {
+        private final FeedType feedType;
+        private final String feedName;
+
+        private FeedHandler(FeedType feedType) {
+            this.feedType = feedType;
+            this.feedName = feedType == FeedType.STOCK ? "stock" : "crypto";
+        }
+
+        @Override
+        public void afterConnectionEstablished(@NonNull WebSocketSession session) {
+            userContextService.setUser("SYSTEM", "SYSTEM");
+
+            WebSocketSession previousSession;
+            synchronized (AlpacaWebSocketClient.this) {
+                previousSession = currentSession(feedType);
+                resetFeed(feedType);
+                if (feedType == FeedType.STOCK) {
+                    stockSession = session;
+                } else {
+                    cryptoSession = session;
+                }
+            }
+            closeSession(previousSession, feedName);
+
+            loggingService.logAction("Alpaca " + feedName + " WebSocket connection established. Sending authentication...");
+
+            try {
+                // Send authentication message
+                TextMessage authMsg = createAuthMessage();
+                session.sendMessage(authMsg);
+            } catch (IOException e) {
+                loggingService.logError("Failed to send auth message to " + feedName + " feed: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
+            userContextService.setUser("SYSTEM", "SYSTEM");
+
+            if (session != currentSession(feedType)) {
+                loggingService.logAction("Ignoring message from replaced " + feedName + " session");
+                return;
+            }
+
+            ingestionMetrics.recordStreamMessage(JOURNAL_STREAM);
+
+            try {
+                // Alpaca sends messages as an array, decoded without building a tree
+                List<StreamMessage> streamMessages = barStreamDecoder.decodeAlpacaFrame(message.getPayload());
+
+                if (streamMessages.isEmpty()) {
+                    loggingService.logAction("Received non-array message from " + feedName + " feed: " + message.getPayload());
+                    return;
+                }
+
+                // Frames with bars are journaled first, the journal reader processes their bars
+                boolean journaled = streamMessages.stream().anyMatch(StreamMessage::isBar)
+                        && frameJournal.append(JOURNAL_STREAM, message.getPayload());
+
+                for (StreamMessage streamMessage : streamMessages) {
+                    String messageType = streamMessage.type();
+
+                    switch (messageType) {
+                        case "success":
+                            handleSuccessMessage(streamMessage, session, feedType);
+                            break;
+                        case "error":
+                            handleErrorMessage(streamMessage, feedName);
+                            break;
+                        case "subscription":
+                            handleSubscriptionMessage(message.getPayload(), feedName);
+                            break;
+                        case "b": // bar/candle
+                            ingestionMetrics.recordStreamBar(PLATFORM_NAME, streamMessage.symbol());
+                            if (!journaled && !handleBarMessage(streamMessage)) {
+                                loggingService.logAction("No handler registered for symbol: " + streamMessage.symbol());
+                            }
+                            break;
+                        case "t": // trade
+                        case "q": // quote
+                            break;
+                        default:
+                            loggingService.logAction("Unknown message type from " + feedName + " feed: " + messageType);
+                    }
+                }
+            } catch (Exception e) {
+                loggingService.logError("Error processing " + feedName + " WebSocket message: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void handleTransportError(@NonNull WebSocketSession session, @NonNull Throwable exception) {
+            userContextService.setUser("SYSTEM", "SYSTEM");
+            loggingService.logError("Alpaca " + feedName + " WebSocket transport error: " + exception.getMessage(), exception);
+            onSessionLost(session);
+        }
+
+        @Override
+        public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+            userContextService.setUser("SYSTEM", "SYSTEM");
+            loggingService.logAction("Alpaca " + feedName + " WebSocket connection closed: " + status);
+            onSessionLost(session);
+        }
+
+        // Sessions closed on purpose are already detached from the feed and are not reported
+        private void onSessionLost(WebSocketSession session) {
+            synchronized (AlpacaWebSocketClient.this) {
+                if (session != currentSession(feedType)) {
+                    return;
+                }
+                resetFeed(feedType);
+            }
+            streamSupervisor.connectionLost(streamKey(feedType));
+        }
+    }
 }
\ No newline at end of file
@@ -3,26 +3,28 @@ package ehe_server.service.alpaca;
 import ehe_server.properties.AlpacaProperties;
 import ehe_server.service.intf.alpaca.MarketHoursServiceInterface;
 import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.Lane;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.LimitClass;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import java.time.Instant;
 
 @Service
 public class MarketHoursService implements MarketHoursServiceInterface {
 
-    private final RestTemplate restTemplate;
+    private final WebClient webClient;
     private final AlpacaProperties alpacaProperties;
     private final ObjectMapper objectMapper;
     private final LoggingServiceInterface loggingService;
+    private final ExchangeRequestBudgetInterface requestBudget;
 
+    private static final String PLATFORM_NAME = "Alpaca";
     private static final String CLOCK_ENDPOINT = "/v2/clock";
 
     private volatile Boolean cachedIsOpen = null;
@@ -30,14 +32,16 @@ public class MarketHoursService implements MarketHoursServiceInterface {
     private static final long CACHE_DURATION_MS = 60_000;
 
     public MarketHoursService(
-            @Qualifier("alpacaRestTemplate") RestTemplate restTemplate,
+            @Qualifier("alpacaWebClient") WebClient webClient,
             AlpacaProperties alpacaProperties,
             ObjectMapper objectMapper,
-            LoggingServiceInterface loggingService) {
-        this.restTemplate = restTemplate;
+            LoggingServiceInterface loggingService,
+            ExchangeRequestBudgetInterface requestBudget) {
+        this.webClient = webClient;
         this.alpacaProperties = alpacaProperties;
         this.objectMapper = objectMapper;
         this.loggingService = loggingService;
+        this.requestBudget = requestBudget;
     }
 
     /**
@@ -55,16 +59,19 @@ public class MarketHoursService implements MarketHoursServiceInterface {
             String url = alpacaProperties.getBaseurl() + CLOCK_ENDPOINT;
 
             HttpHeaders headers = createAuthHeaders();
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
 
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    requestEntity,
-                    String.class
-            );
-
-            JsonNode clock = objectMapper.readTree(response.getBody());
+            // The answer is cached for a minute, so waiting for it here is cheap.
+            // It decides about subscriptions, so it does not queue behind backfill either
+            String response = requestBudget.acquire(PLATFORM_NAME, LimitClass.REQUEST_WEIGHT, 1, Lane.INTERACTIVE)
+                    .thenCompose(_ -> webClient.get()
+                            .uri(url)
+                            .headers(requestHeaders -> requestHeaders.addAll(headers))
+                            .retrieve()
+                            .bodyToMono(String.class)
+                            .toFuture())
+                    .join();
+
+            JsonNode clock = objectMapper.readTree(response);
             boolean isOpen = clock.get("is_open").asBoolean();
 
             // Update cache
@@ -5,9 +5,9 @@ import ehe_server.entity.AutomatedTradeRule;
 import ehe_server.entity.MarketCandle;
 import ehe_server.entity.PlatformStock;
 import ehe_server.entity.Transaction;
-import ehe_server.repository.MarketCandleRepository;
 import ehe_server.repository.TransactionRepository;
 import ehe_server.service.intf.automatictrade.websocket.AutomatedTradeProcessingServiceInterface;
+import ehe_server.service.intf.candle.HotCandleCacheInterface;
 import ehe_server.service.intf.log.LoggingServiceInterface;
 import ehe_server.service.intf.trade.TradingServiceInterface;
 import org.springframework.stereotype.Service;
@@ -21,17 +21,17 @@ import java.util.Optional;
 @Transactional
 public class AutomatedTradeProcessingService implements AutomatedTradeProcessingServiceInterface {
 
-    private final MarketCandleRepository marketCandleRepository;
+    private final HotCandleCacheInterface hotCandleCache;
     private final TransactionRepository transactionRepository;
     private final TradingServiceInterface tradingService;
     private final LoggingServiceInterface loggingService;
 
     public AutomatedTradeProcessingService(
-            MarketCandleRepository marketCandleRepository,
+            HotCandleCacheInterface hotCandleCache,
             TransactionRepository transactionRepository,
             TradingServiceInterface tradingService,
             LoggingServiceInterface loggingService) {
-        this.marketCandleRepository = marketCandleRepository;
+        this.hotCandleCache = hotCandleCache;
         this.transactionRepository = transactionRepository;
         this.tradingService = tradingService;
         this.loggingService = loggingService;
@@ -39,9 +39,8 @@ public class AutomatedTradeProcessingService implements AutomatedTradeProcessing
 
     @Override
     public Optional<MarketCandle> getLatestMinuteCandle(PlatformStock platformStock) {
-        return Optional.ofNullable(
-                marketCandleRepository.findTopByPlatformStockAndTimeframeOrderByTimestampDesc(
-                        platformStock, MarketCandle.Timeframe.M1));
+        return hotCandleCache.getLatest(platformStock.getPlatformStockId(), MarketCandle.Timeframe.M1)
+                .map(candle -> candle.toMarketCandle(platformStock));
     }
 
     @Override
@@ -3,13 +3,15 @@ package ehe_server.service.binance;
 import ehe_server.entity.AutomatedTradeRule;
 import ehe_server.service.intf.binance.BinanceAccountServiceInterface;
 import ehe_server.service.intf.log.LoggingServiceInterface;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.Lane;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.LimitClass;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.reactive.function.client.WebClient.RequestHeadersSpec;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.crypto.Mac;
@@ -20,24 +22,36 @@ import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @Transactional
 public class BinanceAccountService implements BinanceAccountServiceInterface {
 
-    private final RestTemplate restTemplate;
+    private final WebClient webClient;
     private final LoggingServiceInterface loggingService;
+    private final ExchangeRequestBudgetInterface requestBudget;
     private static final String BINANCE_API_URL = "https://testnet.binance.vision";
     private static final String ACCOUNT_ENDPOINT = "/api/v3/account";
     private static final String ORDER_ENDPOINT = "/api/v3/order";
     private static final String HMAC_SHA256 = "HmacSHA256";
-
-    public BinanceAccountService(LoggingServiceInterface loggingService, RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    private static final String PLATFORM_NAME = "Binance";
+    private static final int ACCOUNT_REQUEST_WEIGHT = 20;
+    private static final int ORDER_REQUEST_WEIGHT = 1;
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    public BinanceAccountService(LoggingServiceInterface loggingService,
+                                 @Qualifier("binanceWebClient") WebClient webClient,
+                                 ExchangeRequestBudgetInterface requestBudget) {
+        this.webClient = webClient;
+        this.requestBudget = requestBudget;
         this.loggingService = loggingService;
     }
 
-    public Map<String, Object> getAccountInfo(String apiKey, String secretKey) {
+    @Override
+    public CompletableFuture<Map<String, Object>> getAccountInfo(String apiKey, String secretKey) {
         try {
             // Build URL with timestamp parameter
             long timestamp = Instant.now().toEpochMilli();
@@ -50,30 +64,18 @@ public class BinanceAccountService implements BinanceAccountServiceInterface {
                     .queryParam("signature", signature)
                     .toUriString();
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("X-MBX-APIKEY", apiKey);
-
-            // Make request
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    requestEntity,
-                    Map.class
-            );
-
-            return response.getBody();
+            // User-facing call, never queued behind backfill. Binance counts request weight per IP, so it stays shared
+            return requestBudget.acquire(PLATFORM_NAME, LimitClass.REQUEST_WEIGHT, ACCOUNT_REQUEST_WEIGHT, Lane.INTERACTIVE)
+                    .thenCompose(_ -> send(webClient.get().uri(url).header("X-MBX-APIKEY", apiKey)))
+                    .exceptionally(e -> accountInfoError(unwrap(e)));
         } catch (Exception e) {
-            loggingService.logError("Error getting account info from Binance: " + e.getMessage(), e);
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("success", false);
-            errorResult.put("message", "Failed to connect to Binance API: " + e.getMessage());
-            return errorResult;
+            return CompletableFuture.completedFuture(accountInfoError(e));
         }
     }
 
-    public Map<String, Object> placeMarketOrder(String apiKey, String secretKey, String symbol,
-                                                String side, String type, BigDecimal quantity, AutomatedTradeRule.QuantityType quantityType) {
+    @Override
+    public CompletableFuture<Map<String, Object>> placeMarketOrder(String apiKey, String secretKey, String symbol,
+                                                                  String side, String type, BigDecimal quantity, AutomatedTradeRule.QuantityType quantityType) {
         try {
             long timestamp = Instant.now().toEpochMilli();
             StringBuilder queryParamsBuilder = new StringBuilder();
@@ -99,27 +101,50 @@ public class BinanceAccountService implements BinanceAccountServiceInterface {
                     .queryParam("signature", signature)
                     .toUriString();
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("X-MBX-APIKEY", apiKey);
+            // Make POST request once both the shared IP weight and the order count of this account allow it
+            return requestBudget.acquire(PLATFORM_NAME, LimitClass.REQUEST_WEIGHT, ORDER_REQUEST_WEIGHT, Lane.INTERACTIVE)
+                    .thenCompose(_ -> requestBudget.acquireForAccount(PLATFORM_NAME, apiKey, LimitClass.ORDERS, 1,
+                            Lane.INTERACTIVE))
+                    .thenCompose(_ -> send(webClient.post().uri(url).header("X-MBX-APIKEY", apiKey)))
+                    .exceptionally(e -> orderError(unwrap(e)));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(orderError(e));
+        }
+    }
+
+    // Reports the used weight and rate limit answers back to the shared budget
+    private CompletableFuture<Map<String, Object>> send(RequestHeadersSpec<?> request) {
+        return request
+                .exchangeToMono(response -> {
+                    requestBudget.recordResponse(PLATFORM_NAME, response.statusCode().value(),
+                            response.headers().asHttpHeaders());
+
+                    if (response.statusCode().isError()) {
+                        return response.<Map<String, Object>>createError();
+                    }
+                    return response.bodyToMono(RESPONSE_TYPE);
+                })
+                .toFuture();
+    }
 
-            HttpEntity<String> requestEntity = new HttpEntity<>("", headers);
+    private Map<String, Object> accountInfoError(Throwable e) {
+        loggingService.logError("Error getting account info from Binance: " + e.getMessage(), e);
+        Map<String, Object> errorResult = new HashMap<>();
+        errorResult.put("success", false);
+        errorResult.put("message", "Failed to connect to Binance API: " + e.getMessage());
+        return errorResult;
+    }
 
-            // Make POST request
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    requestEntity,
-                    Map.class
-            );
+    private Map<String, Object> orderError(Throwable e) {
+        loggingService.logError("Error placing order on Binance: " + e.getMessage(), e);
+        Map<String, Object> errorResult = new HashMap<>();
+        errorResult.put("success", false);
+        errorResult.put("message", "Failed to place order via Binance API: " + e.getMessage());
+        return errorResult;
+    }
 
-            return response.getBody();
-        } catch (Exception e) {
-            loggingService.logError("Error placing order on Binance: " + e.getMessage(), e);
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("success", false);
-            errorResult.put("message", "Failed to place order via Binance API: " + e.getMessage());
-            return errorResult;
-        }
+    private Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 
     private String generateSignature(String data, String key) {
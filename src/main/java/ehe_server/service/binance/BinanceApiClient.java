@@ -1,36 +1,55 @@
 package ehe_server.service.binance;
 
+import ehe_server.properties.BinanceProperties;
 import ehe_server.service.intf.binance.BinanceApiClientInterface;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.Bar;
 import ehe_server.service.intf.log.LoggingServiceInterface;
-import org.springframework.http.*;
+import ehe_server.service.intf.metrics.IngestionMetricsInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.Lane;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.LimitClass;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.scheduler.Schedulers;
 
-import java.time.Instant;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class BinanceApiClient implements BinanceApiClientInterface {
-    private final RestTemplate restTemplate;
-    private static final String API_BASE_URL = "https://api.binance.com";
+    private final WebClient webClient;
+    private static final String PLATFORM_NAME = "Binance";
+    private static final int KLINES_REQUEST_WEIGHT = 2;
     private final LoggingServiceInterface loggingService;
-
-    private final AtomicLong windowStart = new AtomicLong(0);
-    private final AtomicInteger usedWeight = new AtomicInteger(0);
-    private static final int WEIGHT_LIMIT_PER_MINUTE = 1200;
-    private static final long MINUTE_IN_MS = 60_000;
-
-    public BinanceApiClient(RestTemplate restTemplate, LoggingServiceInterface loggingService) {
-        this.restTemplate = restTemplate;
+    private final ExchangeRequestBudgetInterface requestBudget;
+    private final BarStreamDecoderInterface barStreamDecoder;
+    private final BinanceProperties binanceProperties;
+    private final IngestionMetricsInterface ingestionMetrics;
+
+    public BinanceApiClient(@Qualifier("binanceWebClient") WebClient webClient, LoggingServiceInterface loggingService,
+                            ExchangeRequestBudgetInterface requestBudget,
+                            BarStreamDecoderInterface barStreamDecoder,
+                            BinanceProperties binanceProperties,
+                            IngestionMetricsInterface ingestionMetrics) {
+        this.webClient = webClient;
+        this.binanceProperties = binanceProperties;
         this.loggingService = loggingService;
+        this.requestBudget = requestBudget;
+        this.barStreamDecoder = barStreamDecoder;
+        this.ingestionMetrics = ingestionMetrics;
     }
 
-    public ResponseEntity<String> getKlines(String symbol, String interval, Long startTime, Long endTime, Integer limit) {
-        waitForRateLimitIfNeeded();
-
-        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(API_BASE_URL + "/api/v3/klines")
+    @Override
+    public CompletableFuture<List<Bar>> getKlines(String symbol, String interval, Long startTime, Long endTime, Integer limit) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(binanceProperties.getResturl() + "/api/v3/klines")
                 .queryParam("symbol", symbol)
                 .queryParam("interval", interval);
 
@@ -38,58 +57,41 @@ public class BinanceApiClient implements BinanceApiClientInterface {
         if (endTime != null) builder.queryParam("endTime", endTime);
         if (limit != null) builder.queryParam("limit", limit);
 
-        HttpHeaders headers = new HttpHeaders();
-        HttpEntity<?> entity = new HttpEntity<>(headers);
-
         loggingService.logAction("Requesting Binance klines: " + builder.toUriString());
-        ResponseEntity<String> response = restTemplate.exchange(
-                builder.toUriString(),
-                HttpMethod.GET,
-                entity,
-                String.class
-        );
-
-        updateRateLimitFromHeaders(response.getHeaders());
 
-        return response;
+        // Backfill traffic, it waits for the budget without holding a thread
+        return requestBudget.acquire(PLATFORM_NAME, LimitClass.REQUEST_WEIGHT, KLINES_REQUEST_WEIGHT, Lane.BACKGROUND)
+                .thenCompose(_ -> fetchKlines(builder.toUriString()));
     }
 
-    // Rate limit management
-    private void waitForRateLimitIfNeeded() {
-        long now = Instant.now().toEpochMilli();
-        long currentWindowStart = windowStart.get();
-        int currentWeight = usedWeight.get();
-
-        if (now - currentWindowStart >= MINUTE_IN_MS) {
-            windowStart.set(now);
-            usedWeight.set(0);
-            return;
-        }
-
-        if (currentWeight > WEIGHT_LIMIT_PER_MINUTE * 0.9) {
-            long waitTime = MINUTE_IN_MS - (now - currentWindowStart);
-            loggingService.logAction("Rate limit approaching, waiting " + waitTime + " ms");
-
-            try {
-                Thread.sleep(waitTime);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                loggingService.logError("Rate limit wait interrupted", e);
-            }
-
-            windowStart.set(Instant.now().toEpochMilli());
-            usedWeight.set(0);
-        }
+    // The pooled body buffers are decoded as a stream off the event loop, never as a String
+    private CompletableFuture<List<Bar>> fetchKlines(String url) {
+        long start = System.nanoTime();
+
+        return webClient.get()
+                .uri(url)
+                .exchangeToMono(response -> {
+                    ingestionMetrics.recordRestRequest(PLATFORM_NAME, "klines", response.statusCode().value(),
+                            System.nanoTime() - start);
+                    requestBudget.recordResponse(PLATFORM_NAME, response.statusCode().value(),
+                            response.headers().asHttpHeaders());
+
+                    if (response.statusCode().isError()) {
+                        return response.<DataBuffer>createError();
+                    }
+                    return DataBufferUtils.join(response.bodyToFlux(DataBuffer.class));
+                })
+                .publishOn(Schedulers.parallel())
+                .map(this::decodeKlines)
+                .defaultIfEmpty(List.of())
+                .toFuture();
     }
 
-    private void updateRateLimitFromHeaders(HttpHeaders headers) {
-        if (headers.containsKey("X-MBX-USED-WEIGHT-1M")) {
-            String usedWeightHeader = headers.getFirst("X-MBX-USED-WEIGHT-1M");
-            if (usedWeightHeader != null) {
-                int weight = Integer.parseInt(usedWeightHeader);
-                usedWeight.set(weight);
-                loggingService.logAction("Current Binance API weight: " + weight + "/" + WEIGHT_LIMIT_PER_MINUTE);
-            }
+    private List<Bar> decodeKlines(DataBuffer body) {
+        try (InputStream stream = body.asInputStream(true)) {
+            return barStreamDecoder.decodeBinanceKlines(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode Binance klines", e);
         }
     }
 
@@ -2,50 +2,80 @@ package ehe_server.service.binance;
 
 import ehe_server.entity.MarketCandle;
 import ehe_server.entity.PlatformStock;
+import ehe_server.properties.CandleIngestionProperties;
 import ehe_server.repository.MarketCandleRepository;
 import ehe_server.repository.PlatformStockRepository;
+import ehe_server.service.candle.FixedPoint;
 import ehe_server.service.intf.audit.UserContextServiceInterface;
 import ehe_server.service.intf.binance.BinanceApiClientInterface;
 import ehe_server.service.intf.binance.BinanceCandleServiceInterface;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.Bar;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.StreamMessage;
+import ehe_server.service.intf.candle.CandleAggregationServiceInterface;
+import ehe_server.service.intf.candle.CandleBulkLoaderInterface;
+import ehe_server.service.intf.candle.CandleBulkLoaderInterface.BulkLoadResult;
+import ehe_server.service.intf.candle.EarliestDataLocatorInterface;
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface;
+import ehe_server.service.intf.candle.RangeSplitBackfillServiceInterface;
+import ehe_server.service.intf.candle.OpenCandleWriteCoalescerInterface;
+import ehe_server.service.intf.candle.RangeSplitBackfillServiceInterface.RangePage;
+import ehe_server.service.intf.candle.MarketCandleWriterInterface;
+import ehe_server.service.intf.candle.MarketCandleWriterInterface.UpsertResult;
 import ehe_server.service.intf.log.LoggingServiceInterface;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.*;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class BinanceCandleService implements BinanceCandleServiceInterface {
     private static final String PLATFORM_NAME = "Binance";
     private static final int MAX_CANDLES_PER_REQUEST = 1000;
-    private static final int WEEK_IN_MINUTES = 7 * 24 * 60;
-    private static final int HALF_WEEK_IN_MINUTES = WEEK_IN_MINUTES / 2;
 
     private final BinanceApiClientInterface binanceApiClient;
     private final MarketCandleRepository marketCandleRepository;
     private final PlatformStockRepository platformStockRepository;
-    private final ObjectMapper objectMapper;
     private final LoggingServiceInterface loggingService;
     private final UserContextServiceInterface userContextService;
+    private final CandleAggregationServiceInterface candleAggregationService;
+    private final MarketCandleWriterInterface marketCandleWriter;
+    private final CandleBulkLoaderInterface candleBulkLoader;
+    private final CandleIngestionProperties candleIngestionProperties;
+    private final HistoricalBackfillSchedulerInterface backfillScheduler;
+    private final RangeSplitBackfillServiceInterface rangeSplitBackfillService;
+    private final EarliestDataLocatorInterface earliestDataLocator;
+    private final OpenCandleWriteCoalescerInterface openCandleWriteCoalescer;
 
     public BinanceCandleService(
             BinanceApiClientInterface binanceApiClient,
             MarketCandleRepository marketCandleRepository,
             PlatformStockRepository platformStockRepository,
-            ObjectMapper objectMapper,
             LoggingServiceInterface loggingService,
-            UserContextServiceInterface userContextService) {
+            UserContextServiceInterface userContextService,
+            CandleAggregationServiceInterface candleAggregationService,
+            MarketCandleWriterInterface marketCandleWriter,
+            CandleBulkLoaderInterface candleBulkLoader,
+            CandleIngestionProperties candleIngestionProperties,
+            HistoricalBackfillSchedulerInterface backfillScheduler,
+            RangeSplitBackfillServiceInterface rangeSplitBackfillService,
+            EarliestDataLocatorInterface earliestDataLocator,
+            OpenCandleWriteCoalescerInterface openCandleWriteCoalescer) {
         this.binanceApiClient = binanceApiClient;
         this.marketCandleRepository = marketCandleRepository;
         this.platformStockRepository = platformStockRepository;
-        this.objectMapper = objectMapper;
         this.loggingService = loggingService;
         this.userContextService = userContextService;
+        this.candleAggregationService = candleAggregationService;
+        this.marketCandleWriter = marketCandleWriter;
+        this.candleBulkLoader = candleBulkLoader;
+        this.candleIngestionProperties = candleIngestionProperties;
+        this.backfillScheduler = backfillScheduler;
+        this.rangeSplitBackfillService = rangeSplitBackfillService;
+        this.earliestDataLocator = earliestDataLocator;
+        this.openCandleWriteCoalescer = openCandleWriteCoalescer;
     }
 
     /**
@@ -66,23 +96,60 @@ public class BinanceCandleService implements BinanceCandleServiceInterface {
                     symbol, latestCandle.getTimestamp()));
 
             Instant startInstant = latestCandle.getTimestamp().toInstant(ZoneOffset.UTC);
-            fetchCandlesInRange(stock, symbol, startInstant);
+            fetchCandlesInRange(stock, symbol, startInstant, candles -> saveCandleBatch(stock, candles));
         } else {
             loggingService.logAction(String.format("No existing data for %s, searching for earliest available data", symbol));
 
             Instant firstCheckpoint = Instant.now();
-            Optional<Instant> earliestDataPoint = findEarliestAvailableData(symbol, firstCheckpoint);
+            Optional<Instant> earliestDataPoint = earliestDataLocator.findEarliestAvailableData(stock, firstCheckpoint,
+                    (from, to) -> findFirstKline(stock, symbol, from, to));
 
             if (earliestDataPoint.isPresent()) {
                 loggingService.logAction(String.format("Fetching %s from %s to present",
                         symbol, earliestDataPoint.get().atZone(ZoneOffset.UTC)));
-                fetchCandlesInRange(stock, symbol, earliestDataPoint.get());
+
+                if (candleIngestionProperties.getBulkLoad().isEnabled()) {
+                    bulkLoadCandles(stock, symbol, earliestDataPoint.get());
+                } else {
+                    fetchCandlesInRange(stock, symbol, earliestDataPoint.get(),
+                            candles -> saveCandleBatch(stock, candles));
+                }
             } else {
                 loggingService.logAction(String.format("No historical data available for %s", symbol));
             }
         }
     }
 
+    /**
+     * Refetches an interval the live stream missed, page by page up to the exclusive end.
+     */
+    @Override
+    public void fillGap(String symbol, Instant from, Instant to) {
+        userContextService.setUser("SYSTEM", "SYSTEM");
+        PlatformStock stock = platformStockRepository.findByPlatformPlatformNameAndStockStockSymbol(PLATFORM_NAME, symbol).getFirst();
+
+        Instant cursor = from;
+        int totalCandlesFetched = 0;
+
+        while (cursor.isBefore(to)) {
+            RangePage page = fetchKlinePage(stock, symbol, cursor, to);
+            if (page.candles().isEmpty()) {
+                break;
+            }
+
+            saveCandleBatch(stock, page.candles());
+            totalCandlesFetched += page.candles().size();
+
+            cursor = page.candles().getLast().getTimestamp().plusMinutes(1).toInstant(ZoneOffset.UTC);
+            if (!page.hasMore()) {
+                break;
+            }
+        }
+
+        loggingService.logAction(String.format("Filled gap of %s from %s to %s with %d candles",
+                symbol, from, to, totalCandlesFetched));
+    }
+
     /**
      * Saves a batch of candles and their aggregations in a single transaction.
      * Updates existing candles or creates new ones as needed.
@@ -100,65 +167,74 @@ public class BinanceCandleService implements BinanceCandleServiceInterface {
             uniqueCandles.put(key, candle);
         }
 
-        Map<MarketCandle.Timeframe, List<MarketCandle>> byTimeframe = uniqueCandles.values().stream()
-                .collect(Collectors.groupingBy(MarketCandle::getTimeframe));
-
-        Map<String, MarketCandle> existingMap = new HashMap<>();
+        UpsertResult result = marketCandleWriter.upsertCandles(
+                stock.getPlatformStockId(), new ArrayList<>(uniqueCandles.values()));
 
-        for (Map.Entry<MarketCandle.Timeframe, List<MarketCandle>> entry : byTimeframe.entrySet()) {
-            MarketCandle.Timeframe timeframe = entry.getKey();
-            List<LocalDateTime> timestamps = entry.getValue().stream()
-                    .map(MarketCandle::getTimestamp)
-                    .collect(Collectors.toList());
+        loggingService.logAction(String.format("Upserted %d candles for stock ID %d in %d ms (%d rows/s)",
+                result.rows(), stock.getPlatformStockId(), result.elapsedMillis(), result.rowsPerSecond()));
 
-            List<MarketCandle> existingCandles = marketCandleRepository
-                    .findByPlatformStockAndTimeframeAndTimestampIn(stock, timeframe, timestamps);
+        List<MarketCandle> minuteCandles = uniqueCandles.values().stream()
+                .filter(c -> c.getTimeframe() == MarketCandle.Timeframe.M1)
+                .collect(Collectors.toList());
 
-            for (MarketCandle existing : existingCandles) {
-                String key = existing.getTimeframe() + "|" + existing.getTimestamp();
-                existingMap.put(key, existing);
-            }
+        if (!minuteCandles.isEmpty()) {
+            candleAggregationService.aggregate(stock, minuteCandles);
         }
+    }
 
-        List<MarketCandle> candlesToSave = new ArrayList<>();
-        List<MarketCandle> savedCandles = new ArrayList<>();
+    /**
+     * First-time backfill: stages every batch with COPY, then merges and aggregates
+     * the whole history with set-based statements.
+     */
+    private void bulkLoadCandles(PlatformStock stock, String symbol, Instant startInstant) {
+        UUID loadId = candleBulkLoader.startLoad();
+        boolean rangeSplit = candleIngestionProperties.getBackfill().isRangeSplit();
+        Instant rangeEnd = Instant.now();
 
-        for (MarketCandle candle : uniqueCandles.values()) {
-            String key = candle.getTimeframe() + "|" + candle.getTimestamp();
-            MarketCandle existing = existingMap.get(key);
-
-            if (existing != null) {
-                // Update existing candle
-                existing.setOpenPrice(candle.getOpenPrice());
-                existing.setHighPrice(candle.getHighPrice());
-                existing.setLowPrice(candle.getLowPrice());
-                existing.setClosePrice(candle.getClosePrice());
-                existing.setVolume(candle.getVolume());
-                candlesToSave.add(existing);
-                savedCandles.add(existing);
+        try {
+            if (rangeSplit) {
+                // Windows are fetched concurrently and staged out of order, the merge sorts them out
+                rangeSplitBackfillService.fetchRange(symbol, startInstant, rangeEnd,
+                        (from, to) -> fetchKlinePage(stock, symbol, from, to),
+                        candles -> {
+                            candleBulkLoader.stageCandles(loadId, candles);
+                            backfillScheduler.recordFetchedCandles(PLATFORM_NAME, symbol, candles.size());
+                        });
             } else {
-                // New candle
-                candlesToSave.add(candle);
-                savedCandles.add(candle);
+                fetchCandlesInRange(stock, symbol, startInstant,
+                        candles -> candleBulkLoader.stageCandles(loadId, candles));
             }
+
+            BulkLoadResult result = candleBulkLoader.completeLoad(loadId, stock);
+            loggingService.logAction(String.format("Bulk loaded %d candles for %s in %d ms",
+                    result.minuteRows(), symbol, result.elapsedMillis()));
+        } catch (Exception e) {
+            candleBulkLoader.discardLoad(loadId);
+            throw e;
         }
 
-        marketCandleRepository.saveAll(candlesToSave);
+        // Catch up on the candles closed while the range was being fetched
+        if (rangeSplit) {
+            fetchCandlesInRange(stock, symbol, rangeEnd, candles -> saveCandleBatch(stock, candles));
+        }
+    }
 
-        List<MarketCandle> minuteCandles = savedCandles.stream()
-                .filter(c -> c.getTimeframe() == MarketCandle.Timeframe.M1)
-                .collect(Collectors.toList());
+    /**
+     * Fetches the first page of one window for the range-split backfill, the window end is exclusive.
+     */
+    private RangePage fetchKlinePage(PlatformStock stock, String symbol, Instant from, Instant to) {
+        List<MarketCandle> candles = toCandles(binanceApiClient.getKlines(
+                symbol, "1m", from.toEpochMilli(), to.toEpochMilli() - 1, MAX_CANDLES_PER_REQUEST).join(), stock);
 
-        if (!minuteCandles.isEmpty()) {
-            aggregateCandles(stock, minuteCandles);
-        }
+        return new RangePage(candles, candles.size() == MAX_CANDLES_PER_REQUEST);
     }
 
     /**
-     * Fetches candles in batches from start time to present.
+     * Fetches candles in batches from start time to present and hands each batch to the sink.
      * Continuously updates target end time to capture real-time data.
      */
-    private void fetchCandlesInRange(PlatformStock stock, String symbol, Instant startInstant) {
+    private void fetchCandlesInRange(PlatformStock stock, String symbol, Instant startInstant,
+                                     Consumer<List<MarketCandle>> candleSink) {
         long currentStartTime = startInstant.toEpochMilli();
         long endTime = Instant.now().toEpochMilli();
 
@@ -169,11 +245,16 @@ public class BinanceCandleService implements BinanceCandleServiceInterface {
                 // Always update target end time to capture latest data
                 endTime = Instant.now().toEpochMilli();
 
-                ResponseEntity<String> response = binanceApiClient.getKlines(
-                        symbol, "1m", currentStartTime, null, MAX_CANDLES_PER_REQUEST);
-                List<MarketCandle> candles = parseCandles(response.getBody(), stock);
+                List<MarketCandle> candles = toCandles(binanceApiClient.getKlines(
+                        symbol, "1m", currentStartTime, null, MAX_CANDLES_PER_REQUEST).join(), stock);
 
-                saveCandleBatch(stock, candles);
+                // Nothing after the start time yet, there is no last candle to advance from
+                if (candles.isEmpty()) {
+                    break;
+                }
+
+                candleSink.accept(candles);
+                backfillScheduler.recordFetchedCandles(PLATFORM_NAME, symbol, candles.size());
                 totalCandlesFetched += candles.size();
 
                 if (totalCandlesFetched % 5000 == 0) {
@@ -210,242 +291,52 @@ public class BinanceCandleService implements BinanceCandleServiceInterface {
     }
 
     /**
-     * Searches backward week-by-week to find the earliest available data point.
-     * Uses an expanding search when gaps are detected.
+     * Returns the first kline of a window, used by the earliest data search.
      */
-    private Optional<Instant> findEarliestAvailableData(String symbol, Instant firstCheckpoint) {
-        Instant checkPoint = firstCheckpoint;
-        Instant lastDataPoint = null;
-        boolean foundGap = false;
-
-        while (!foundGap) {
-            checkPoint = checkPoint.minus(Duration.ofMinutes(WEEK_IN_MINUTES));
-
-            boolean hasCandles = checkForCandles(symbol, checkPoint,
-                    checkPoint.plus(Duration.ofMinutes(WEEK_IN_MINUTES)));
-
-            if (hasCandles) {
-                lastDataPoint = checkPoint;
-            } else {
-                // Expand search range to confirm gap
-                Instant expandedStart = checkPoint.minus(Duration.ofMinutes(HALF_WEEK_IN_MINUTES));
-                Instant expandedEnd = checkPoint.plus(Duration.ofMinutes(WEEK_IN_MINUTES + HALF_WEEK_IN_MINUTES));
+    private Optional<Instant> findFirstKline(PlatformStock stock, String symbol, Instant from, Instant to) {
+        List<Bar> bars = binanceApiClient.getKlines(symbol, "1m", from.toEpochMilli(), to.toEpochMilli() - 1, 1).join();
 
-                boolean hasExpandedCandles = checkForCandles(symbol, expandedStart, expandedEnd);
-
-                if (hasExpandedCandles) {
-                    lastDataPoint = expandedStart;
-                } else {
-                    foundGap = true;
-                }
-            }
-        }
-
-        return Optional.ofNullable(lastDataPoint);
-    }
-
-    /**
-     * Checks if any candles exist in the specified time range.
-     */
-    private boolean checkForCandles(String symbol, Instant startTime, Instant endTime) {
-        try {
-            ResponseEntity<String> response = binanceApiClient.getKlines(
-                    symbol, "1m",
-                    startTime.toEpochMilli(),
-                    endTime.toEpochMilli(),
-                    1);
-
-            JsonNode candlesArray = objectMapper.readTree(response.getBody());
-            return !candlesArray.isEmpty();
-        } catch (Exception e) {
-            loggingService.logError("Error checking for candles: " + e.getMessage(), e);
-            return false;
-        }
+        return bars.isEmpty()
+                ? Optional.empty()
+                : Optional.of(Instant.ofEpochMilli(bars.getFirst().openTimeMillis()));
     }
 
     /**
-     * Parses Binance API candle data into MarketCandle entities.
+     * Converts decoded klines into MarketCandle entities.
      */
-    private List<MarketCandle> parseCandles(String responseBody, PlatformStock stock) {
-        List<MarketCandle> candles = new ArrayList<>();
-        try {
-            JsonNode candlesArray = objectMapper.readTree(responseBody);
-            for (JsonNode candleNode : candlesArray) {
-                long openTime = candleNode.get(0).asLong();
-                String open = candleNode.get(1).asText();
-                String high = candleNode.get(2).asText();
-                String low = candleNode.get(3).asText();
-                String close = candleNode.get(4).asText();
-                String volume = candleNode.get(5).asText();
-
-                MarketCandle candle = new MarketCandle();
-                candle.setPlatformStock(stock);
-                candle.setTimeframe(MarketCandle.Timeframe.M1);
-                candle.setTimestamp(LocalDateTime.ofInstant(
-                        Instant.ofEpochMilli(openTime), ZoneOffset.UTC));
-                candle.setOpenPrice(new BigDecimal(open));
-                candle.setHighPrice(new BigDecimal(high));
-                candle.setLowPrice(new BigDecimal(low));
-                candle.setClosePrice(new BigDecimal(close));
-                candle.setVolume(new BigDecimal(volume));
-
-                candles.add(candle);
-            }
-        } catch (Exception e) {
-            loggingService.logError("Error parsing candle data: " + e.getMessage(), e);
-            throw new RuntimeException("Failed to parse candle data", e);
+    private List<MarketCandle> toCandles(List<Bar> bars, PlatformStock stock) {
+        List<MarketCandle> candles = new ArrayList<>(bars.size());
+        for (Bar bar : bars) {
+            candles.add(toCandle(bar, stock));
         }
-
         return candles;
     }
 
-    /**
-     * Aggregates minute candles into higher timeframes (5m, 15m, 1h, 4h, 1d).
-     */
-    private void aggregateCandles(PlatformStock stock, List<MarketCandle> minuteCandles) {
-        if (minuteCandles.isEmpty()) return;
-
-        aggregateTimeframe(stock, minuteCandles, MarketCandle.Timeframe.M5, 5);
-        aggregateTimeframe(stock, minuteCandles, MarketCandle.Timeframe.M15, 15);
-        aggregateTimeframe(stock, minuteCandles, MarketCandle.Timeframe.H1, 60);
-        aggregateTimeframe(stock, minuteCandles, MarketCandle.Timeframe.H4, 240);
-        aggregateTimeframe(stock, minuteCandles, MarketCandle.Timeframe.D1, 1440);
+    private MarketCandle toCandle(Bar bar, PlatformStock stock) {
+        MarketCandle candle = new MarketCandle();
+        candle.setPlatformStock(stock);
+        candle.setTimeframe(MarketCandle.Timeframe.M1);
+        candle.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(bar.openTimeMillis()), ZoneOffset.UTC));
+        candle.setOpenPrice(FixedPoint.toBigDecimal(bar.open()));
+        candle.setHighPrice(FixedPoint.toBigDecimal(bar.high()));
+        candle.setLowPrice(FixedPoint.toBigDecimal(bar.low()));
+        candle.setClosePrice(FixedPoint.toBigDecimal(bar.close()));
+        candle.setVolume(FixedPoint.toBigDecimal(bar.volume()));
+        return candle;
     }
 
     /**
-     * Aggregates minute candles into a specific timeframe.
+     * Converts decoded real-time kline updates from WebSocket and queues them for writing and aggregation.
      */
-    private void aggregateTimeframe(PlatformStock stock, List<MarketCandle> minuteCandles,
-                                    MarketCandle.Timeframe timeframe, int minutes) {
-        try {
-            Map<LocalDateTime, List<MarketCandle>> groupedCandles = new HashMap<>();
-
-            for (MarketCandle candle : minuteCandles) {
-                LocalDateTime timeframeStart = calculateTimeframeStart(candle.getTimestamp(), minutes);
-                groupedCandles.computeIfAbsent(timeframeStart, _ -> new ArrayList<>()).add(candle);
-            }
-
-            List<MarketCandle> candlesToSave = new ArrayList<>();
-
-            for (Map.Entry<LocalDateTime, List<MarketCandle>> entry : groupedCandles.entrySet()) {
-                LocalDateTime timeframeStart = entry.getKey();
-                LocalDateTime timeframeEnd = timeframeStart.plusMinutes(minutes);
-
-                List<MarketCandle> allCandlesInPeriod = marketCandleRepository
-                        .findByPlatformStockAndTimeframeAndTimestampBetween(
-                                stock,
-                                MarketCandle.Timeframe.M1,
-                                timeframeStart,
-                                timeframeEnd.minusSeconds(1)
-                        );
-
-                if (allCandlesInPeriod.isEmpty()) {
-                    continue;
-                }
-
-                // Sort by timestamp
-                allCandlesInPeriod.sort(Comparator.comparing(MarketCandle::getTimestamp));
-
-                // Calculate ALL values from source candles
-                BigDecimal openPrice = allCandlesInPeriod.getFirst().getOpenPrice();
-                BigDecimal closePrice = allCandlesInPeriod.getLast().getClosePrice();
-
-                BigDecimal highPrice = allCandlesInPeriod.stream()
-                        .map(MarketCandle::getHighPrice)
-                        .max(BigDecimal::compareTo)
-                        .orElse(BigDecimal.ZERO);
-
-                BigDecimal lowPrice = allCandlesInPeriod.stream()
-                        .map(MarketCandle::getLowPrice)
-                        .min(BigDecimal::compareTo)
-                        .orElse(BigDecimal.ZERO);
-
-                BigDecimal volume = allCandlesInPeriod.stream()
-                        .map(MarketCandle::getVolume)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                // Find or create the aggregated candle
-                MarketCandle aggregatedCandle = marketCandleRepository
-                        .findByPlatformStockAndTimeframeAndTimestampEquals(
-                                stock, timeframe, timeframeStart)
-                        .orElseGet(() -> {
-                            MarketCandle newCandle = new MarketCandle();
-                            newCandle.setPlatformStock(stock);
-                            newCandle.setTimeframe(timeframe);
-                            newCandle.setTimestamp(timeframeStart);
-                            return newCandle;
-                        });
-
-                // Update all fields
-                aggregatedCandle.setOpenPrice(openPrice);
-                aggregatedCandle.setHighPrice(highPrice);
-                aggregatedCandle.setLowPrice(lowPrice);
-                aggregatedCandle.setClosePrice(closePrice);
-                aggregatedCandle.setVolume(volume);
-
-                candlesToSave.add(aggregatedCandle);
-            }
-
-            if (!candlesToSave.isEmpty()) {
-                marketCandleRepository.saveAll(candlesToSave);
-            }
-
-        } catch (Exception e) {
-            loggingService.logError(String.format("Error aggregating to %s: %s",
-                    timeframe, e.getMessage()), e);
-        }
-    }
-
-    /**
-     * Calculates the start timestamp for a given timeframe.
-     */
-    private LocalDateTime calculateTimeframeStart(LocalDateTime time, int minutes) {
-        int minuteOfDay = time.getHour() * 60 + time.getMinute();
-        int timeframeIndex = minuteOfDay / minutes;
-
-        return time
-                .withHour((timeframeIndex * minutes) / 60)
-                .withMinute((timeframeIndex * minutes) % 60)
-                .withSecond(0)
-                .withNano(0);
-    }
-
-    /**
-     * Processes real-time candle updates from WebSocket.
-     */
-    @Transactional
-    public void processRealtimeCandle(JsonNode candleData, PlatformStock stock) {
+    @Override
+    public void processRealtimeCandle(StreamMessage klineMessage, PlatformStock stock) {
         if (!userContextService.isAuthenticated()) {
             userContextService.setUser("SYSTEM", "SYSTEM");
         }
 
         try {
-            JsonNode k = candleData.get("k");
-            long openTime = k.get("t").asLong();
-
-            LocalDateTime timestamp = LocalDateTime.ofInstant(
-                    Instant.ofEpochMilli(openTime), ZoneOffset.UTC);
-
-            MarketCandle candle = marketCandleRepository
-                    .findByPlatformStockAndTimeframeAndTimestampEquals(
-                            stock, MarketCandle.Timeframe.M1, timestamp)
-                    .orElseGet(() -> {
-                        MarketCandle newCandle = new MarketCandle();
-                        newCandle.setPlatformStock(stock);
-                        newCandle.setTimeframe(MarketCandle.Timeframe.M1);
-                        newCandle.setTimestamp(timestamp);
-                        return newCandle;
-                    });
-
-            candle.setOpenPrice(new BigDecimal(k.get("o").asText()));
-            candle.setHighPrice(new BigDecimal(k.get("h").asText()));
-            candle.setLowPrice(new BigDecimal(k.get("l").asText()));
-            candle.setClosePrice(new BigDecimal(k.get("c").asText()));
-            candle.setVolume(new BigDecimal(k.get("v").asText()));
-
-            candle = marketCandleRepository.save(candle);
-
-            aggregateCandles(stock, Collections.singletonList(candle));
+            // Unchanged pushes of the open kline are dropped, the rest is written off the WebSocket thread
+            openCandleWriteCoalescer.offer(stock, toCandle(klineMessage.bar(), stock), klineMessage.closed());
         } catch (Exception e) {
             loggingService.logError("Error processing realtime candle: " + e.getMessage(), e);
             throw e;
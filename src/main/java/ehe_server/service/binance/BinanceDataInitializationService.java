@@ -6,7 +6,11 @@ import ehe_server.service.intf.audit.UserContextServiceInterface;
 import ehe_server.service.intf.binance.BinanceCandleServiceInterface;
 import ehe_server.service.intf.binance.BinanceDataInitializationServiceInterface;
 import ehe_server.service.intf.binance.BinanceWebSocketClientInterface;
+import ehe_server.service.intf.candle.CandleGapDetectorInterface;
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface;
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface.BackfillProgress;
 import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface;
 import jakarta.annotation.PostConstruct;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
@@ -16,6 +20,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class BinanceDataInitializationService implements BinanceDataInitializationServiceInterface {
@@ -26,26 +31,44 @@ public class BinanceDataInitializationService implements BinanceDataInitializati
     private final PlatformStockRepository platformStockRepository;
     private final LoggingServiceInterface loggingService;
     private final UserContextServiceInterface userContextService;
+    private final HistoricalBackfillSchedulerInterface backfillScheduler;
+    private final StreamConnectionSupervisorInterface streamSupervisor;
+    private final CandleGapDetectorInterface gapDetector;
 
     private final Set<String> liveSymbols = ConcurrentHashMap.newKeySet();
-    private final Map<String, Boolean> historicalSyncInProgress = new ConcurrentHashMap<>();
+    // Startup symbols that have neither gone live nor failed, plus one for the startup pass itself
+    private final AtomicInteger pendingStartupSymbols = new AtomicInteger(1);
 
     public BinanceDataInitializationService(
             BinanceCandleServiceInterface candleService,
             BinanceWebSocketClientInterface webSocketClient,
             PlatformStockRepository platformStockRepository,
             LoggingServiceInterface loggingService,
-            UserContextServiceInterface userContextService) {
+            UserContextServiceInterface userContextService,
+            HistoricalBackfillSchedulerInterface backfillScheduler,
+            StreamConnectionSupervisorInterface streamSupervisor,
+            CandleGapDetectorInterface gapDetector) {
         this.candleService = candleService;
         this.webSocketClient = webSocketClient;
         this.platformStockRepository = platformStockRepository;
         this.loggingService = loggingService;
         this.userContextService = userContextService;
+        this.backfillScheduler = backfillScheduler;
+        this.streamSupervisor = streamSupervisor;
+        this.gapDetector = gapDetector;
     }
 
     @PostConstruct
     public void initialize() {
         userContextService.setUser("SYSTEM", "SYSTEM");
+
+        // Repairs the minutes missed while a stream reconnects, a running backfill covers them itself
+        streamSupervisor.registerGapFiller(PLATFORM_NAME, (symbol, from, to) -> {
+            if (!isSyncing(symbol)) {
+                candleService.fillGap(symbol, from, to);
+            }
+        });
+
         loggingService.logAction("Binance data initialization service ready");
     }
 
@@ -61,28 +84,63 @@ public class BinanceDataInitializationService implements BinanceDataInitializati
             if (!stocks.isEmpty()) {
                 loggingService.logAction("Found " + stocks.size() + " Binance symbols. Starting initialization...");
 
-                // Initialize each symbol
+                // Queue each symbol, every one goes live as soon as its own backfill is done
                 for (PlatformStock stock : stocks) {
-                    setupSymbol(stock.getStock().getStockSymbol());
+                    pendingStartupSymbols.incrementAndGet();
+                    setupSymbol(stock.getStock().getStockSymbol(), this::startupSymbolSettled);
                 }
             } else {
                 loggingService.logAction("No Binance symbols found in database");
             }
         } catch (Exception e) {
             loggingService.logError("Error during async initialization: " + e.getMessage(), e);
+        } finally {
+            startupSymbolSettled();
+        }
+    }
+
+    // The klines journaled by the last run are replayed once every startup symbol has its handler or has failed
+    private void startupSymbolSettled() {
+        if (pendingStartupSymbols.decrementAndGet() == 0) {
+            webSocketClient.startReplay();
         }
     }
 
     /**
-     * Sets up a symbol: sync historical data, then add to live WebSocket
+     * Sets up a symbol: queue its historical data sync, then add it to the live WebSocket
      */
     public void setupSymbol(String symbol) {
-        try {
-            historicalSyncInProgress.put(symbol, true);
+        setupSymbol(symbol, () -> {
+        });
+    }
 
-            loggingService.logAction("Starting historical data sync for " + symbol);
-            candleService.syncHistoricalData(symbol);
+    // onSettled runs once the symbol has gone live, its backfill failed or it was not queued
+    private void setupSymbol(String symbol, Runnable onSettled) {
+        boolean scheduled = backfillScheduler.schedule(PLATFORM_NAME, symbol,
+                () -> {
+                    try {
+                        candleService.syncHistoricalData(symbol);
+                    } catch (RuntimeException e) {
+                        onSettled.run();
+                        throw e;
+                    }
+                },
+                () -> {
+                    setupLiveStream(symbol);
+                    onSettled.run();
+                });
 
+        if (!scheduled) {
+            loggingService.logAction("Skipping " + symbol + " - historical sync already in progress");
+            onSettled.run();
+        }
+    }
+
+    /**
+     * Registers the realtime handler and adds the symbol to the live WebSocket
+     */
+    private void setupLiveStream(String symbol) {
+        try {
             // Get the stock entity for handler
             PlatformStock stock = getStock(symbol);
             if (stock == null) {
@@ -91,17 +149,15 @@ public class BinanceDataInitializationService implements BinanceDataInitializati
 
             // Register handler with WebSocket
             webSocketClient.registerHandler(symbol,
-                    candleData -> candleService.processRealtimeCandle(candleData, stock));
+                    klineMessage -> candleService.processRealtimeCandle(klineMessage, stock));
 
             // Add to live symbols (this triggers WebSocket reconnection)
             liveSymbols.add(symbol);
             webSocketClient.updateSubscriptions(new ArrayList<>(liveSymbols));
 
-            historicalSyncInProgress.put(symbol, false);
             loggingService.logAction("Successfully initialized " + symbol);
 
         } catch (Exception e) {
-            historicalSyncInProgress.put(symbol, false);
             loggingService.logError("Failed to initialize " + symbol + ": " + e.getMessage(), e);
         }
     }
@@ -135,7 +191,7 @@ public class BinanceDataInitializationService implements BinanceDataInitializati
                 String symbol = stock.getStock().getStockSymbol();
 
                 // Skip if syncing or not live
-                if (historicalSyncInProgress.getOrDefault(symbol, false)) {
+                if (isSyncing(symbol)) {
                     loggingService.logAction("Skipping " + symbol + " - historical sync in progress");
                     continue;
                 }
@@ -144,6 +200,9 @@ public class BinanceDataInitializationService implements BinanceDataInitializati
                     loggingService.logAction("Syncing any missing data for " + symbol);
                     candleService.syncHistoricalData(symbol);
                 }
+
+                // Holes inside the stored series, e.g. from stream outages, only their ranges are refetched
+                gapDetector.repairGaps(stock, false, candleService::fillGap);
             }
         } catch (Exception e) {
             loggingService.logError("Error during daily maintenance: " + e.getMessage(), e);
@@ -195,7 +254,14 @@ public class BinanceDataInitializationService implements BinanceDataInitializati
      * Get sync status for a symbol
      */
     public boolean isSyncing(String symbol) {
-        return historicalSyncInProgress.getOrDefault(symbol, false);
+        return backfillScheduler.isBackfilling(PLATFORM_NAME, symbol);
+    }
+
+    /**
+     * Get backfill progress of every symbol
+     */
+    public List<BackfillProgress> getBackfillProgress() {
+        return backfillScheduler.getProgress(PLATFORM_NAME);
     }
 
     private PlatformStock getStock(String symbol) {
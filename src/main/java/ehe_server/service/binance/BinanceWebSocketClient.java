@@ -1,10 +1,15 @@
 package ehe_server.service.binance;
 
+import ehe_server.properties.BinanceProperties;
 import ehe_server.service.intf.audit.UserContextServiceInterface;
 import ehe_server.service.intf.binance.BinanceWebSocketClientInterface;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.StreamMessage;
+import ehe_server.service.intf.candle.RawFrameJournalInterface;
 import ehe_server.service.intf.log.LoggingServiceInterface;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ehe_server.service.intf.metrics.IngestionMetricsInterface;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface.StreamConnector;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.*;
@@ -13,39 +18,98 @@ import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * Spreads the kline streams over a fixed pool of combined-stream connections.
+ * Symbols are placed on shards with a consistent hash ring, so a symbol change
+ * only touches the shard that owns the symbol, and each shard has its own session and handler.
+ * The connect and reconnect cycle of every shard is owned by the stream connection supervisor.
+ */
 @Service
-public class BinanceWebSocketClient extends TextWebSocketHandler implements BinanceWebSocketClientInterface {
-    private final ObjectMapper objectMapper;
+public class BinanceWebSocketClient implements BinanceWebSocketClientInterface {
+    private final BarStreamDecoderInterface barStreamDecoder;
     private final LoggingServiceInterface loggingService;
     private final UserContextServiceInterface userContextService;
-
-    private volatile WebSocketSession session;
+    private final BinanceProperties binanceProperties;
+    private final StreamConnectionSupervisorInterface streamSupervisor;
+    private final RawFrameJournalInterface frameJournal;
+    private final IngestionMetricsInterface ingestionMetrics;
 
     private final Set<String> subscriptions = ConcurrentHashMap.newKeySet();
-    private final Map<String, Consumer<JsonNode>> handlers = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<StreamMessage>> handlers = new ConcurrentHashMap<>();
+    // Symbols whose handler was unregistered, their journaled klines are dropped instead of held back
+    private final Set<String> retiredSymbols = ConcurrentHashMap.newKeySet();
+
+    private final List<StreamShard> shards = new ArrayList<>();
+    private final TreeMap<Long, StreamShard> hashRing = new TreeMap<>();
 
     private final AtomicInteger lastId = new AtomicInteger(1);
-    private static final String WS_BASE_URL = "wss://stream.binance.com:9443/ws";
+    private static final String PLATFORM_NAME = "Binance";
+    private static final String STREAM_PATH = "/stream?streams=";
     private static final String INTERVAL = "1m";
+    private static final int VIRTUAL_NODES_PER_SHARD = 64;
+    private static final long RATE_WINDOW_MS = 10_000;
+    private static final String JOURNAL_STREAM = "binance";
 
     public BinanceWebSocketClient(
-            ObjectMapper objectMapper,
+            BarStreamDecoderInterface barStreamDecoder,
             LoggingServiceInterface loggingService,
-            UserContextServiceInterface userContextService) {
-        this.objectMapper = objectMapper;
+            UserContextServiceInterface userContextService,
+            BinanceProperties binanceProperties,
+            StreamConnectionSupervisorInterface streamSupervisor,
+            RawFrameJournalInterface frameJournal,
+            IngestionMetricsInterface ingestionMetrics) {
+        this.barStreamDecoder = barStreamDecoder;
         this.loggingService = loggingService;
         this.userContextService = userContextService;
+        this.binanceProperties = binanceProperties;
+        this.streamSupervisor = streamSupervisor;
+        this.frameJournal = frameJournal;
+        this.ingestionMetrics = ingestionMetrics;
+
+        // Kline frames of every shard go through one journal and are processed by its reader
+        frameJournal.open(JOURNAL_STREAM, frame -> handleKline(barStreamDecoder.decodeBinanceFrame(frame)));
+
+        int shardCount = Math.max(1, binanceProperties.getStreamShards());
+        for (int shardId = 0; shardId < shardCount; shardId++) {
+            StreamShard shard = new StreamShard(shardId);
+            shards.add(shard);
+
+            streamSupervisor.register(shard.streamKey, PLATFORM_NAME, new StreamConnector() {
+                @Override
+                public CompletableFuture<?> connect() {
+                    return BinanceWebSocketClient.this.connect(shard);
+                }
+
+                @Override
+                public Set<String> symbols() {
+                    return shard.symbols.stream().map(String::toUpperCase).collect(Collectors.toSet());
+                }
+            });
+
+            for (int node = 0; node < VIRTUAL_NODES_PER_SHARD; node++) {
+                hashRing.put(hash("shard-" + shardId + "#" + node), shard);
+            }
+        }
     }
 
     /**
      * Update subscriptions with a complete list of symbols.
-     * This will reconnect the websocket if the symbol list changes.
+     * Only shards whose symbols changed are touched; their changes are sent as
+     * SUBSCRIBE/UNSUBSCRIBE messages on the live session. A shard without an open session
+     * is handed to the supervisor to connect.
      */
     public synchronized void updateSubscriptions(List<String> symbols) {
         userContextService.setUser("SYSTEM", "SYSTEM");
@@ -54,34 +118,28 @@ public class BinanceWebSocketClient extends TextWebSocketHandler implements Bina
                 .map(String::toLowerCase)
                 .collect(Collectors.toSet());
 
-        // If nothing changed, don't reconnect
         if (normalizedSymbols.equals(subscriptions)) {
-            loggingService.logAction("Subscription list unchanged, skipping reconnection");
+            loggingService.logAction("Subscription list unchanged");
+            reconnectDeadShards();
             return;
         }
 
         loggingService.logAction("Updating subscriptions. Old: " + subscriptions.size() +
                 ", New: " + normalizedSymbols.size());
 
-        // Close existing connection
-        if (session != null && session.isOpen()) {
-            try {
-                session.close();
-                loggingService.logAction("Closed existing WebSocket connection");
-            } catch (Exception e) {
-                loggingService.logError("Error closing WebSocket: " + e.getMessage(), e);
-            }
-        }
-
-        subscriptions.clear();
+        subscriptions.retainAll(normalizedSymbols);
         subscriptions.addAll(normalizedSymbols);
 
-        // Connect with new symbols if any
-        if (!subscriptions.isEmpty()) {
-            connect();
-        } else {
-            loggingService.logAction("No symbols to subscribe to, connection idle");
-            session = null;
+        Map<StreamShard, Set<String>> symbolsByShard = new HashMap<>();
+        for (String symbol : normalizedSymbols) {
+            symbolsByShard.computeIfAbsent(shardFor(symbol), _ -> new HashSet<>()).add(symbol);
+        }
+
+        for (StreamShard shard : shards) {
+            Set<String> shardSymbols = symbolsByShard.getOrDefault(shard, Set.of());
+            if (!shardSymbols.equals(shard.symbols)) {
+                updateShard(shard, shardSymbols);
+            }
         }
     }
 
@@ -118,8 +176,9 @@ public class BinanceWebSocketClient extends TextWebSocketHandler implements Bina
     /**
      * Register a message handler for a specific symbol
      */
-    public void registerHandler(String symbol, Consumer<JsonNode> handler) {
+    public void registerHandler(String symbol, Consumer<StreamMessage> handler) {
         handlers.put(symbol.toLowerCase(), handler);
+        retiredSymbols.remove(symbol.toLowerCase());
         loggingService.logAction("Registered handler for symbol: " + symbol);
     }
 
@@ -128,136 +187,173 @@ public class BinanceWebSocketClient extends TextWebSocketHandler implements Bina
      */
     public void unregisterHandler(String symbol) {
         handlers.remove(symbol.toLowerCase());
+        retiredSymbols.add(symbol.toLowerCase());
         loggingService.logAction("Unregistered handler for symbol: " + symbol);
     }
 
-    private void connect() {
-        if (subscriptions.isEmpty()) {
-            loggingService.logAction("No symbols to subscribe to, skipping connection");
+    @Override
+    public void startReplay() {
+        frameJournal.startReplay(JOURNAL_STREAM);
+    }
+
+    /**
+     * Applies the symbol diff of one shard on its live session, or connects the shard
+     */
+    private void updateShard(StreamShard shard, Set<String> newSymbols) {
+        List<String> added = newSymbols.stream()
+                .filter(symbol -> !shard.symbols.contains(symbol))
+                .collect(Collectors.toList());
+        List<String> removed = shard.symbols.stream()
+                .filter(symbol -> !newSymbols.contains(symbol))
+                .collect(Collectors.toList());
+
+        shard.symbols.retainAll(newSymbols);
+        shard.symbols.addAll(newSymbols);
+
+        loggingService.logAction("Rebalancing shard " + shard.id + ": " + shard.symbols.size() +
+                " streams (+" + added.size() + ", -" + removed.size() + ")");
+
+        if (shard.symbols.size() > binanceProperties.getMaxStreamsPerConnection()) {
+            loggingService.logError("Shard " + shard.id + " holds " + shard.symbols.size() +
+                    " streams, above the per-connection limit of " + binanceProperties.getMaxStreamsPerConnection() +
+                    ". Increase spring.binance.stream-shards", null);
+        }
+
+        if (shard.symbols.isEmpty()) {
+            closeShard(shard);
             return;
         }
 
+        if (shard.isConnected()) {
+            try {
+                if (!removed.isEmpty()) {
+                    shard.session.sendMessage(createSubscriptionMessage("UNSUBSCRIBE", removed));
+                }
+                if (!added.isEmpty()) {
+                    shard.session.sendMessage(createSubscriptionMessage("SUBSCRIBE", added));
+                }
+                return;
+            } catch (Exception e) {
+                // The session is dead, fall back to a fresh connection with the full list
+                loggingService.logError("Failed to update shard " + shard.id + " on live session: " + e.getMessage(), e);
+                closeSession(shard);
+                streamSupervisor.connectionLost(shard.streamKey);
+                return;
+            }
+        }
+
+        streamSupervisor.requestConnect(shard.streamKey);
+    }
+
+    private void reconnectDeadShards() {
+        for (StreamShard shard : shards) {
+            if (!shard.symbols.isEmpty() && !shard.isConnected()) {
+                streamSupervisor.requestConnect(shard.streamKey);
+            }
+        }
+    }
+
+    /**
+     * Starts the handshake of a shard without waiting for it. The full shard list is
+     * subscribed by the shard handler once the connection is established.
+     */
+    private synchronized CompletableFuture<WebSocketSession> connect(StreamShard shard) {
         userContextService.setUser("SYSTEM", "SYSTEM");
 
-        try {
-            WebSocketClient client = new StandardWebSocketClient();
+        // A session left over from an earlier attempt would otherwise stay open next to the new one
+        closeSession(shard);
+
+        List<String> shardSymbols = new ArrayList<>(shard.symbols);
+        if (shardSymbols.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No symbols on shard " + shard.id));
+        }
+
+        // The URL opens the combined stream with one stream, the rest is subscribed in a single message
+        URI uri = URI.create(binanceProperties.getWebsocketurl() + STREAM_PATH +
+                shardSymbols.getFirst() + "@kline_" + INTERVAL);
+
+        WebSocketClient client = new StandardWebSocketClient();
+        return client.execute(shard.handler, new WebSocketHttpHeaders(), uri);
+    }
+
+    private void closeShard(StreamShard shard) {
+        streamSupervisor.stop(shard.streamKey);
+        closeSession(shard);
+    }
+
+    // Detaches the session first, so its close callback is not taken for a lost connection
+    private void closeSession(StreamShard shard) {
+        WebSocketSession session = shard.session;
+        shard.session = null;
+
+        if (session != null && session.isOpen()) {
+            try {
+                session.close();
+                loggingService.logAction("Closed WebSocket connection of shard " + shard.id);
+            } catch (Exception e) {
+                loggingService.logError("Error closing WebSocket of shard " + shard.id + ": " + e.getMessage(), e);
+            }
+        }
+    }
 
-            session = client.execute(this, new WebSocketHttpHeaders(), URI.create(WS_BASE_URL)).get();
+    // Routes a decoded kline to the handler registered for its symbol, false while the symbol has none yet
+    private boolean handleKline(StreamMessage event) {
+        if (!event.isBar() || event.symbol() == null) {
+            return true;
+        }
 
-            TextMessage subscribeMsg = createSubscriptionMessage(new ArrayList<>(subscriptions));
-            session.sendMessage(subscribeMsg);
+        String symbol = event.symbol().toLowerCase();
+
+        Consumer<StreamMessage> handler = handlers.get(symbol);
+        if (handler != null) {
+            handler.accept(event);
+            return true;
+        }
 
-            loggingService.logAction("WebSocket connected. Subscribed to " + subscriptions.size() +
-                    " symbols: " + subscriptions);
-        } catch (Exception e) {
-            loggingService.logError("Failed to connect to Binance WebSocket: " + e.getMessage(), e);
-            session = null;
-            throw new RuntimeException("WebSocket connection failed", e);
+        // Klines still in flight after a symbol was removed are dropped
+        if (retiredSymbols.contains(symbol)) {
+            loggingService.logAction("No handler registered for symbol: " + symbol);
+            return true;
         }
+        return false;
     }
 
     /**
-     * Creates a subscription message with multiple streams
+     * Creates a SUBSCRIBE or UNSUBSCRIBE message with multiple streams
      * Format: [symbol1@kline_1m, symbol2@kline_1m, ...]
      */
-    private TextMessage createSubscriptionMessage(List<String> symbols) {
+    private TextMessage createSubscriptionMessage(String method, List<String> symbols) {
         String params = symbols.stream()
                 .map(symbol -> "\"" + symbol + "@kline_" + INTERVAL + "\"")
                 .collect(Collectors.joining(","));
 
         String subscribePayload = "{" +
-                "\"method\": \"SUBSCRIBE\"," +
+                "\"method\": \"" + method + "\"," +
                 "\"params\": [" + params + "]," +
                 "\"id\": " + lastId.getAndIncrement() +
                 "}";
         return new TextMessage(subscribePayload);
     }
 
-    @Override
-    public void handleTextMessage(@NonNull WebSocketSession session,@NonNull TextMessage message) {
-        userContextService.setUser("SYSTEM", "SYSTEM");
-        try {
-            JsonNode jsonNode = objectMapper.readTree(message.getPayload());
-
-            // Handle subscription confirmation responses
-            if (jsonNode.has("id") && jsonNode.has("result")) {
-                loggingService.logAction("Subscription confirmed for ID: " + jsonNode.get("id"));
-                return;
-            }
-
-            // Handle kline stream data
-            if (jsonNode.has("e") && "kline".equals(jsonNode.get("e").asText())) {
-                String symbol = jsonNode.get("s").asText().toLowerCase();
-
-                Consumer<JsonNode> handler = handlers.get(symbol);
-                if (handler != null) {
-                    handler.accept(jsonNode);
-                } else {
-                    loggingService.logAction("No handler registered for symbol: " + symbol);
-                }
-            }
-        } catch (Exception e) {
-            loggingService.logError("Error processing WebSocket message: " + e.getMessage(), e);
-        }
-    }
-
-    @Override
-    public void afterConnectionEstablished(@NonNull WebSocketSession session) {
-        userContextService.setUser("SYSTEM", "SYSTEM");
-        loggingService.logAction("Binance WebSocket connection established with " +
-                subscriptions.size() + " subscriptions");
+    private StreamShard shardFor(String symbol) {
+        Map.Entry<Long, StreamShard> entry = hashRing.ceilingEntry(hash(symbol));
+        return entry != null ? entry.getValue() : hashRing.firstEntry().getValue();
     }
 
-    @Override
-    public void handleTransportError(@NonNull WebSocketSession session,@NonNull Throwable exception) {
-        userContextService.setUser("SYSTEM", "SYSTEM");
-        loggingService.logError("Binance WebSocket transport error: " + exception.getMessage(), exception);
-
-        // Schedule reconnection attempt
-        new Thread(() -> {
-            try {
-                Thread.sleep(5000);
-                loggingService.logAction("Attempting to reconnect after transport error");
-                synchronized (this) {
-                    if (session.equals(BinanceWebSocketClient.this.session)) {
-                        connect();
-                    }
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
-    }
-
-    @Override
-    public void afterConnectionClosed(@NonNull WebSocketSession session,@NonNull CloseStatus status) {
-        userContextService.setUser("SYSTEM", "SYSTEM");
-        loggingService.logAction("Binance WebSocket connection closed: " + status);
-
-        // Attempt reconnect if we still have subscriptions
-        if (!subscriptions.isEmpty()) {
-            new Thread(() -> {
-                try {
-                    Thread.sleep(5000);
-                    loggingService.logAction("Attempting to reconnect with " + subscriptions.size() + " symbols");
-                    synchronized (this) {
-                        if (BinanceWebSocketClient.this.session == null ||
-                                !BinanceWebSocketClient.this.session.isOpen()) {
-                            connect();
-                        }
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
         }
     }
 
     /**
-     * Check if WebSocket is currently connected
+     * Check if every shard that holds symbols is connected
      */
     public boolean isConnected() {
-        return session != null && session.isOpen();
+        return shards.stream().allMatch(shard -> shard.symbols.isEmpty() || shard.isConnected());
     }
 
     /**
@@ -273,4 +369,158 @@ public class BinanceWebSocketClient extends TextWebSocketHandler implements Bina
     public Set<String> getSubscribedSymbols() {
         return new HashSet<>(subscriptions);
     }
-}
\ No newline at end of file
+
+    /**
+     * Get connection state and message rate of every shard
+     */
+    @Override
+    public List<ShardHealth> getShardHealth() {
+        return shards.stream().map(StreamShard::toHealth).toList();
+    }
+
+    /**
+     * One combined-stream connection with its own handler and counters
+     */
+    private final class StreamShard {
+        private final int id;
+        private final String streamKey;
+        private final Set<String> symbols = ConcurrentHashMap.newKeySet();
+        private final ShardHandler handler = new ShardHandler(this);
+        private final AtomicLong messagesReceived = new AtomicLong();
+        private final AtomicInteger reconnects = new AtomicInteger();
+
+        private volatile WebSocketSession session;
+        private volatile Instant lastMessageAt;
+
+        private long rateWindowStart = System.currentTimeMillis();
+        private long rateWindowMessages;
+        private volatile double messagesPerSecond;
+
+        private StreamShard(int id) {
+            this.id = id;
+            this.streamKey = "binance-shard-" + id;
+        }
+
+        private boolean isConnected() {
+            WebSocketSession current = session;
+            return current != null && current.isOpen();
+        }
+
+        private synchronized void recordMessage() {
+            long now = System.currentTimeMillis();
+            messagesReceived.incrementAndGet();
+            lastMessageAt = Instant.ofEpochMilli(now);
+
+            if (now - rateWindowStart >= RATE_WINDOW_MS) {
+                messagesPerSecond = rateWindowMessages * 1000.0 / (now - rateWindowStart);
+                rateWindowStart = now;
+                rateWindowMessages = 0;
+            }
+            rateWindowMessages++;
+        }
+
+        private synchronized ShardHealth toHealth() {
+            // A shard that went quiet has no fresh window to report
+            boolean stale = System.currentTimeMillis() - rateWindowStart >= 2 * RATE_WINDOW_MS;
+            return new ShardHealth(id, isConnected(), symbols.size(), messagesReceived.get(),
+                    stale ? 0.0 : messagesPerSecond, lastMessageAt, reconnects.get());
+        }
+    }
+
+    /**
+     * Receives the combined stream of one shard
+     */
+    private final class ShardHandler extends TextWebSocketHandler {
+        private final StreamShard shard;
+
+        private ShardHandler(StreamShard shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
+            userContextService.setUser("SYSTEM", "SYSTEM");
+
+            if (session != shard.session) {
+                return;
+            }
+            shard.recordMessage();
+            ingestionMetrics.recordStreamMessage(JOURNAL_STREAM);
+
+            try {
+                // Combined streams wrap every event as {"stream": ..., "data": {...}}, the decoder unwraps it
+                StreamMessage event = barStreamDecoder.decodeBinanceFrame(message.getPayload());
+
+                // Handle subscription confirmation responses
+                if ("result".equals(event.type())) {
+                    loggingService.logAction("Subscription confirmed on shard " + shard.id +
+                            " for ID: " + event.code());
+                    return;
+                }
+
+                if (event.isBar()) {
+                    ingestionMetrics.recordStreamBar(PLATFORM_NAME, event.symbol());
+                }
+
+                // Kline frames are journaled first, the journal reader processes them
+                if (event.isBar() && !frameJournal.append(JOURNAL_STREAM, message.getPayload()) && !handleKline(event)) {
+                    loggingService.logAction("No handler registered for symbol: " + event.symbol());
+                }
+            } catch (Exception e) {
+                loggingService.logError("Error processing WebSocket message on shard " + shard.id + ": " +
+                        e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void afterConnectionEstablished(@NonNull WebSocketSession session) {
+            userContextService.setUser("SYSTEM", "SYSTEM");
+
+            // Subscribing under the client lock keeps the full list in step with live diff updates
+            synchronized (BinanceWebSocketClient.this) {
+                closeSession(shard);
+                shard.session = session;
+
+                List<String> shardSymbols = new ArrayList<>(shard.symbols);
+                try {
+                    session.sendMessage(createSubscriptionMessage("SUBSCRIBE", shardSymbols));
+                } catch (Exception e) {
+                    loggingService.logError("Failed to subscribe shard " + shard.id + ": " + e.getMessage(), e);
+                    return;
+                }
+
+                loggingService.logAction("Binance WebSocket connection established for shard " + shard.id +
+                        ". Subscribed to " + shardSymbols.size() + " symbols: " + shardSymbols);
+            }
+
+            streamSupervisor.connectionReady(shard.streamKey);
+        }
+
+        @Override
+        public void handleTransportError(@NonNull WebSocketSession session, @NonNull Throwable exception) {
+            userContextService.setUser("SYSTEM", "SYSTEM");
+            loggingService.logError("Binance WebSocket transport error on shard " + shard.id + ": " +
+                    exception.getMessage(), exception);
+            onSessionLost(session);
+        }
+
+        @Override
+        public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+            userContextService.setUser("SYSTEM", "SYSTEM");
+            loggingService.logAction("Binance WebSocket connection of shard " + shard.id + " closed: " + status);
+            onSessionLost(session);
+        }
+
+        // Sessions closed on purpose are already detached from the shard and are not reported
+        private void onSessionLost(WebSocketSession session) {
+            synchronized (BinanceWebSocketClient.this) {
+                if (session != shard.session) {
+                    return;
+                }
+                shard.session = null;
+            }
+            shard.reconnects.incrementAndGet();
+            streamSupervisor.connectionLost(shard.streamKey);
+        }
+    }
+}
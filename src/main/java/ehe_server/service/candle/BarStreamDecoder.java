@@ -0,0 +1,420 @@
+package ehe_server.service.candle;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads exchange bars token by token with Jackson's JsonParser, without building a String
+ * of the body or a JsonNode tree. Numbers are parsed from the parser's character buffer
+ * into scaled longs and timestamps into epoch milliseconds.
+ */
+@Service
+public class BarStreamDecoder implements BarStreamDecoderInterface {
+
+    private static final int BINANCE_OPEN_TIME = 0;
+    private static final int BINANCE_OPEN = 1;
+    private static final int BINANCE_HIGH = 2;
+    private static final int BINANCE_LOW = 3;
+    private static final int BINANCE_CLOSE = 4;
+    private static final int BINANCE_VOLUME = 5;
+
+    private final JsonFactory jsonFactory;
+
+    public BarStreamDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    public BarPage decodeAlpacaBarPage(InputStream body, String symbol) throws IOException {
+        List<Bar> bars = new ArrayList<>();
+        String nextPageToken = null;
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new BarPage(bars, null);
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "bars" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            readAlpacaBars(parser, bars);
+                        } else if (value == JsonToken.START_OBJECT) {
+                            // Crypto responses key the bars by symbol
+                            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                String barsSymbol = parser.currentName();
+                                if (parser.nextToken() == JsonToken.START_ARRAY && barsSymbol.equals(symbol)) {
+                                    readAlpacaBars(parser, bars);
+                                } else {
+                                    parser.skipChildren();
+                                }
+                            }
+                        }
+                    }
+                    case "next_page_token" -> nextPageToken = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        if (nextPageToken != null && (nextPageToken.isEmpty() || "null".equalsIgnoreCase(nextPageToken))) {
+            nextPageToken = null;
+        }
+        return new BarPage(bars, nextPageToken);
+    }
+
+    @Override
+    public MultiBarPage decodeAlpacaMultiBarPage(InputStream body) throws IOException {
+        Map<String, List<Bar>> barsBySymbol = new LinkedHashMap<>();
+        String nextPageToken = null;
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new MultiBarPage(barsBySymbol, null);
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "bars" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                String barsSymbol = parser.currentName();
+                                if (parser.nextToken() == JsonToken.START_ARRAY) {
+                                    readAlpacaBars(parser, barsBySymbol.computeIfAbsent(barsSymbol, _ -> new ArrayList<>()));
+                                } else {
+                                    parser.skipChildren();
+                                }
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    case "next_page_token" -> nextPageToken = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        if (nextPageToken != null && (nextPageToken.isEmpty() || "null".equalsIgnoreCase(nextPageToken))) {
+            nextPageToken = null;
+        }
+        return new MultiBarPage(barsBySymbol, nextPageToken);
+    }
+
+    @Override
+    public List<Bar> decodeBinanceKlines(InputStream body) throws IOException {
+        List<Bar> bars = new ArrayList<>();
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return bars;
+            }
+
+            while (parser.nextToken() == JsonToken.START_ARRAY) {
+                long openTime = 0;
+                long open = 0, high = 0, low = 0, close = 0, volume = 0;
+                int index = 0;
+
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    switch (index) {
+                        case BINANCE_OPEN_TIME -> openTime = parser.getLongValue();
+                        case BINANCE_OPEN -> open = readFixedPoint(parser);
+                        case BINANCE_HIGH -> high = readFixedPoint(parser);
+                        case BINANCE_LOW -> low = readFixedPoint(parser);
+                        case BINANCE_CLOSE -> close = readFixedPoint(parser);
+                        case BINANCE_VOLUME -> volume = readFixedPoint(parser);
+                        default -> {
+                            if (token.isStructStart()) {
+                                parser.skipChildren();
+                            }
+                        }
+                    }
+                    index++;
+                }
+
+                bars.add(new Bar(openTime, open, high, low, close, volume));
+            }
+        }
+
+        return bars;
+    }
+
+    @Override
+    public List<StreamMessage> decodeAlpacaFrame(String payload) throws IOException {
+        List<StreamMessage> messages = new ArrayList<>();
+
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return messages;
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                messages.add(readAlpacaMessage(parser));
+            }
+        }
+
+        return messages;
+    }
+
+    @Override
+    public StreamMessage decodeBinanceFrame(String payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new StreamMessage("unknown", null, null, false, null, 0);
+            }
+
+            BinanceEvent event = new BinanceEvent();
+            readBinanceEvent(parser, event);
+            return event.toMessage();
+        }
+    }
+
+    // Reads the bar objects of an array, the parser is on START_ARRAY and ends on END_ARRAY
+    private void readAlpacaBars(JsonParser parser, List<Bar> bars) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            long openTime = 0;
+            long open = 0, high = 0, low = 0, close = 0, volume = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case "t" -> openTime = readIsoMillis(parser);
+                    case "o" -> open = readFixedPoint(parser);
+                    case "h" -> high = readFixedPoint(parser);
+                    case "l" -> low = readFixedPoint(parser);
+                    case "c" -> close = readFixedPoint(parser);
+                    case "v" -> volume = readFixedPoint(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            bars.add(new Bar(openTime, open, high, low, close, volume));
+        }
+    }
+
+    // Reads one message of a frame, the parser is on START_OBJECT and ends on END_OBJECT
+    private StreamMessage readAlpacaMessage(JsonParser parser) throws IOException {
+        String type = "";
+        String symbol = null;
+        String message = null;
+        long code = 0;
+        long openTime = 0;
+        long open = 0, high = 0, low = 0, close = 0, volume = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "T" -> type = parser.getText();
+                case "S" -> symbol = parser.getText();
+                case "msg" -> message = parser.getText();
+                case "code" -> code = value.isNumeric() ? parser.getLongValue() : 0;
+                case "t" -> openTime = value == JsonToken.VALUE_STRING ? readIsoMillis(parser) : 0;
+                case "o" -> open = readFixedPoint(parser);
+                case "h" -> high = readFixedPoint(parser);
+                case "l" -> low = readFixedPoint(parser);
+                case "c" -> close = readFixedPoint(parser);
+                case "v" -> volume = readFixedPoint(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        // Alpaca bars are only sent once the minute is over
+        Bar bar = "b".equals(type) ? new Bar(openTime, open, high, low, close, volume) : null;
+        return new StreamMessage(type, symbol, bar, bar != null, message, code);
+    }
+
+    // Reads an event object and any envelope around it, the parser is on START_OBJECT
+    private void readBinanceEvent(JsonParser parser, BinanceEvent event) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "data" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        readBinanceEvent(parser, event);
+                    }
+                }
+                case "e" -> event.type = parser.getText();
+                case "s" -> event.symbol = parser.getText();
+                case "id" -> {
+                    event.hasId = true;
+                    event.id = value.isNumeric() ? parser.getLongValue() : 0;
+                }
+                case "k" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        readBinanceKline(parser, event);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void readBinanceKline(JsonParser parser, BinanceEvent event) throws IOException {
+        event.hasKline = true;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "t" -> event.openTime = parser.getLongValue();
+                case "o" -> event.open = readFixedPoint(parser);
+                case "h" -> event.high = readFixedPoint(parser);
+                case "l" -> event.low = readFixedPoint(parser);
+                case "c" -> event.close = readFixedPoint(parser);
+                case "v" -> event.volume = readFixedPoint(parser);
+                case "x" -> event.closed = parser.getBooleanValue();
+                case "s" -> {
+                    if (event.symbol == null) {
+                        event.symbol = parser.getText();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    // Works for numbers and quoted decimals alike, without materializing a String
+    private long readFixedPoint(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return 0;
+        }
+        return FixedPoint.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    /**
+     * Parses RFC 3339 timestamps such as 2024-01-02T14:30:00Z or 2024-01-02T14:30:00.123-05:00
+     * to epoch milliseconds. Anything else falls back to OffsetDateTime.
+     */
+    private long readIsoMillis(JsonParser parser) throws IOException {
+        char[] buffer = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        int end = offset + length;
+
+        if (length < 20 || buffer[offset + 4] != '-' || buffer[offset + 7] != '-' || buffer[offset + 10] != 'T'
+                || buffer[offset + 13] != ':' || buffer[offset + 16] != ':') {
+            return parseIsoFallback(buffer, offset, length);
+        }
+
+        int year = digits(buffer, offset, 4);
+        int month = digits(buffer, offset + 5, 2);
+        int day = digits(buffer, offset + 8, 2);
+        int hour = digits(buffer, offset + 11, 2);
+        int minute = digits(buffer, offset + 14, 2);
+        int second = digits(buffer, offset + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0) {
+            return parseIsoFallback(buffer, offset, length);
+        }
+
+        int index = offset + 19;
+        int millis = 0;
+        if (index < end && buffer[index] == '.') {
+            index++;
+            int fractionDigits = 0;
+            while (index < end && buffer[index] >= '0' && buffer[index] <= '9') {
+                if (fractionDigits < 3) {
+                    millis = millis * 10 + (buffer[index] - '0');
+                }
+                fractionDigits++;
+                index++;
+            }
+            for (int digit = fractionDigits; digit < 3; digit++) {
+                millis *= 10;
+            }
+        }
+
+        int offsetSeconds;
+        if (index == end - 1 && (buffer[index] == 'Z' || buffer[index] == 'z')) {
+            offsetSeconds = 0;
+        } else if (index == end - 6 && (buffer[index] == '+' || buffer[index] == '-') && buffer[index + 3] == ':') {
+            int offsetHours = digits(buffer, index + 1, 2);
+            int offsetMinutes = digits(buffer, index + 4, 2);
+            if ((offsetHours | offsetMinutes) < 0) {
+                return parseIsoFallback(buffer, offset, length);
+            }
+            offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (buffer[index] == '-' ? -1 : 1);
+        } else {
+            return parseIsoFallback(buffer, offset, length);
+        }
+
+        long epochSeconds = daysFromCivil(year, month, day) * 86_400L
+                + hour * 3600L + minute * 60L + second - offsetSeconds;
+        return epochSeconds * 1000 + millis;
+    }
+
+    private long parseIsoFallback(char[] buffer, int offset, int length) {
+        return OffsetDateTime.parse(new String(buffer, offset, length)).toInstant().toEpochMilli();
+    }
+
+    // Returns -1 if any character is not a digit
+    private static int digits(char[] buffer, int offset, int count) {
+        int value = 0;
+        for (int index = offset; index < offset + count; index++) {
+            char c = buffer[index];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Days since 1970-01-01 of a proleptic Gregorian date, without allocating a LocalDate
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static final class BinanceEvent {
+        private String type;
+        private String symbol;
+        private boolean hasId;
+        private long id;
+        private boolean hasKline;
+        private boolean closed;
+        private long openTime;
+        private long open, high, low, close, volume;
+
+        private StreamMessage toMessage() {
+            if (hasKline) {
+                Bar bar = new Bar(openTime, open, high, low, close, volume);
+                return new StreamMessage("kline", symbol, bar, closed, null, 0);
+            }
+            if (hasId) {
+                return new StreamMessage("result", null, null, false, null, id);
+            }
+            return new StreamMessage(type != null ? type : "unknown", symbol, null, false, null, 0);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.MarketCandle.Timeframe;
+import ehe_server.entity.PlatformStock;
+import ehe_server.repository.MarketCandleRepository;
+import ehe_server.service.intf.candle.CandleAggregationServiceInterface;
+import ehe_server.service.intf.candle.MarketCandleWriterInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.stock.CandleWithSequenceInterface;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the currently open M5..D1 bucket of every platform stock in memory and folds
+ * each new or revised minute candle into it, so the higher timeframes are maintained
+ * without re-reading the minute candles of the bucket. All touched buckets of a call
+ * are written with a single multi-row upsert.
+ * Falls back to rebuilding a bucket from the stored minute candles when its state is unknown,
+ * when a minute arrives out of order, or when the bucket is no longer the open one.
+ */
+@Service
+public class CandleAggregationService implements CandleAggregationServiceInterface {
+
+    private static final Timeframe[] AGGREGATED_TIMEFRAMES = {
+            Timeframe.M5, Timeframe.M15, Timeframe.H1, Timeframe.H4, Timeframe.D1
+    };
+
+    private final MarketCandleRepository marketCandleRepository;
+    private final MarketCandleWriterInterface marketCandleWriter;
+    private final LoggingServiceInterface loggingService;
+
+    private final Map<Integer, Map<Timeframe, OpenBucket>> openBuckets = new ConcurrentHashMap<>();
+
+    public CandleAggregationService(
+            MarketCandleRepository marketCandleRepository,
+            MarketCandleWriterInterface marketCandleWriter,
+            LoggingServiceInterface loggingService) {
+        this.marketCandleRepository = marketCandleRepository;
+        this.marketCandleWriter = marketCandleWriter;
+        this.loggingService = loggingService;
+    }
+
+    @Transactional
+    @Override
+    public void aggregate(PlatformStock stock, List<MarketCandle> minuteCandles) {
+        if (minuteCandles == null || minuteCandles.isEmpty()) {
+            return;
+        }
+
+        // Sort for correct open/close determination
+        List<MarketCandle> orderedCandles = minuteCandles.stream()
+                .filter(candle -> candle.getTimeframe() == Timeframe.M1)
+                .sorted(Comparator.comparing(MarketCandle::getTimestamp))
+                .toList();
+
+        if (orderedCandles.isEmpty()) {
+            return;
+        }
+
+        Integer platformStockId = stock.getPlatformStockId();
+        Map<Timeframe, OpenBucket> stockBuckets = openBuckets.computeIfAbsent(
+                platformStockId, _ -> new EnumMap<>(Timeframe.class));
+
+        CandleSeries minutes;
+        try {
+            minutes = CandleSeries.of(orderedCandles);
+        } catch (ArithmeticException e) {
+            invalidate(platformStockId);
+            loggingService.logError("Minute candles of stock ID " + platformStockId +
+                    " exceed the fixed point range: " + e.getMessage(), e);
+            return;
+        }
+
+        List<MarketCandle> aggregatedCandles = new ArrayList<>();
+
+        synchronized (stockBuckets) {
+            invalidateOnRollback(platformStockId);
+
+            for (Timeframe timeframe : AGGREGATED_TIMEFRAMES) {
+                try {
+                    aggregatedCandles.addAll(aggregateTimeframe(stock, stockBuckets, minutes, timeframe));
+                } catch (Exception e) {
+                    stockBuckets.remove(timeframe);
+                    loggingService.logError("Error aggregating candles to timeframe " +
+                            timeframe + ": " + e.getMessage(), e);
+                }
+            }
+
+            try {
+                marketCandleWriter.upsertCandles(platformStockId, aggregatedCandles);
+            } catch (Exception e) {
+                invalidate(platformStockId);
+                loggingService.logError("Error saving aggregated candles for stock ID " +
+                        platformStockId + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(Integer platformStockId) {
+        openBuckets.remove(platformStockId);
+    }
+
+    // Folds the ordered minutes into one timeframe and returns each touched bucket once
+    private List<MarketCandle> aggregateTimeframe(PlatformStock stock, Map<Timeframe, OpenBucket> stockBuckets,
+                                                  CandleSeries minutes, Timeframe timeframe) {
+        // Minutes are ordered, so touched and rebuilt buckets only ever follow the previous one
+        List<OpenBucket> touchedBuckets = new ArrayList<>();
+        long rebuiltStart = Long.MIN_VALUE;
+        Long latestStoredMinute = null;
+
+        for (int index = 0; index < minutes.size(); index++) {
+            long timestamp = minutes.timestamp(index);
+            long bucketStart = calculateTimeframeStart(timestamp, timeframe.getMinutes());
+
+            // A rebuild already read every stored minute of the bucket, this one included
+            if (bucketStart == rebuiltStart) {
+                continue;
+            }
+
+            OpenBucket openBucket = stockBuckets.get(timeframe);
+            OpenBucket touchedBucket;
+
+            if (openBucket != null && openBucket.start == bucketStart && timestamp >= openBucket.lastTimestamp) {
+                // Next or revised minute of the open bucket
+                openBucket.fold(minutes, index);
+                touchedBucket = openBucket;
+            } else if (openBucket != null && bucketStart > openBucket.start) {
+                // A newer bucket opens. The open bucket is always the newest stored one, so only
+                // the minutes of this call can be stored in it and they are all folded below
+                touchedBucket = new OpenBucket(bucketStart);
+                touchedBucket.fold(minutes, index);
+                stockBuckets.put(timeframe, touchedBucket);
+            } else {
+                // Unknown state, out of order minute or closed bucket
+                touchedBucket = rebuildFromStoredCandles(stock, bucketStart, timeframe.getMinutes());
+                rebuiltStart = bucketStart;
+
+                if (touchedBucket == null) {
+                    continue;
+                }
+
+                // Without an open bucket, a rebuilt one may only be adopted if no minute is stored after it.
+                // A historical bucket adopted as open would make the next live minute open a bucket from scratch
+                if (openBucket == null) {
+                    if (latestStoredMinute == null) {
+                        latestStoredMinute = findLatestStoredMinute(stock);
+                    }
+                    if (latestStoredMinute < bucketStart + timeframe.getMinutes() * 60L) {
+                        stockBuckets.put(timeframe, touchedBucket);
+                    }
+                } else if (bucketStart >= openBucket.start) {
+                    stockBuckets.put(timeframe, touchedBucket);
+                }
+            }
+
+            if (touchedBuckets.isEmpty() || touchedBuckets.getLast().start != bucketStart) {
+                touchedBuckets.add(touchedBucket);
+            } else {
+                touchedBuckets.set(touchedBuckets.size() - 1, touchedBucket);
+            }
+        }
+
+        List<MarketCandle> aggregatedCandles = new ArrayList<>(touchedBuckets.size());
+        for (OpenBucket bucket : touchedBuckets) {
+            aggregatedCandles.add(bucket.toCandle(stock, timeframe));
+        }
+        return aggregatedCandles;
+    }
+
+    // The day of the newest minute is never packed, so the rows alone know the latest stored minute
+    private long findLatestStoredMinute(PlatformStock stock) {
+        return marketCandleRepository.findLatestCandleWithSequence(stock.getPlatformStockId(), Timeframe.M1)
+                .map(candle -> CandleSeries.toEpochSecond(candle.getTimestamp()))
+                .orElse(Long.MIN_VALUE);
+    }
+
+    // Reloads every stored M1 candle of a bucket, packed days included, returns null if the bucket has none
+    private OpenBucket rebuildFromStoredCandles(PlatformStock stock, long bucketStart, int minutes) {
+        LocalDateTime start = CandleSeries.toLocalDateTime(bucketStart);
+        List<CandleWithSequenceInterface> storedCandles = marketCandleRepository
+                .findCandlesByDateRangeWithSequence(
+                        stock.getPlatformStockId(),
+                        Timeframe.M1,
+                        start,
+                        start.plusMinutes(minutes).minusSeconds(1)
+                );
+
+        if (storedCandles.isEmpty()) {
+            return null;
+        }
+
+        // Already ordered by timestamp
+        CandleSeries series = new CandleSeries(storedCandles.size());
+        for (CandleWithSequenceInterface candle : storedCandles) {
+            series.append(CandleSeries.toEpochSecond(candle.getTimestamp()),
+                    FixedPoint.fromBigDecimal(candle.getOpenPrice()),
+                    FixedPoint.fromBigDecimal(candle.getHighPrice()),
+                    FixedPoint.fromBigDecimal(candle.getLowPrice()),
+                    FixedPoint.fromBigDecimal(candle.getClosePrice()),
+                    FixedPoint.fromBigDecimal(candle.getVolume()));
+        }
+        return OpenBucket.rebuild(bucketStart, series);
+    }
+
+    // Forgets the buckets of a stock if the transaction that folded candles into them does not commit
+    private void invalidateOnRollback(Integer platformStockId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    invalidate(platformStockId);
+                }
+            }
+        });
+    }
+
+    // Start of the bucket a UTC epoch second falls into, every timeframe divides a whole day
+    private long calculateTimeframeStart(long timestamp, int minutes) {
+        long bucketSeconds = minutes * 60L;
+        return timestamp - Math.floorMod(timestamp, bucketSeconds);
+    }
+
+    /**
+     * Running OHLCV of one bucket in fixed point. The latest minute is kept apart from the settled
+     * minutes before it, so a revision of that minute replaces its contribution
+     * instead of being added twice.
+     */
+    private static final class OpenBucket {
+        private final long start;
+        private long lastTimestamp = Long.MIN_VALUE;
+
+        private boolean hasSettled;
+        private long settledOpen;
+        private long settledHigh;
+        private long settledLow;
+        private long settledVolume;
+
+        private long lastOpen;
+        private long lastHigh;
+        private long lastLow;
+        private long lastClose;
+        private long lastVolume;
+
+        private OpenBucket(long start) {
+            this.start = start;
+        }
+
+        // Every minute but the last one is settled with a single pass over the series
+        private static OpenBucket rebuild(long start, CandleSeries minutes) {
+            OpenBucket bucket = new OpenBucket(start);
+            int last = minutes.size() - 1;
+
+            if (last > 0) {
+                bucket.hasSettled = true;
+                bucket.settledOpen = minutes.open(0);
+                bucket.settledHigh = minutes.maxHigh(0, last);
+                bucket.settledLow = minutes.minLow(0, last);
+                bucket.settledVolume = minutes.sumVolume(0, last);
+            }
+
+            bucket.setLastMinute(minutes, last);
+            return bucket;
+        }
+
+        // Expects minutes in non-decreasing timestamp order
+        private void fold(CandleSeries minutes, int index) {
+            if (lastTimestamp != Long.MIN_VALUE && minutes.timestamp(index) > lastTimestamp) {
+                settleLastMinute();
+            }
+            setLastMinute(minutes, index);
+        }
+
+        private void setLastMinute(CandleSeries minutes, int index) {
+            lastTimestamp = minutes.timestamp(index);
+            lastOpen = minutes.open(index);
+            lastHigh = minutes.high(index);
+            lastLow = minutes.low(index);
+            lastClose = minutes.close(index);
+            lastVolume = minutes.volume(index);
+        }
+
+        private void settleLastMinute() {
+            if (!hasSettled) {
+                hasSettled = true;
+                settledOpen = lastOpen;
+                settledHigh = lastHigh;
+                settledLow = lastLow;
+                settledVolume = lastVolume;
+            } else {
+                settledHigh = Math.max(settledHigh, lastHigh);
+                settledLow = Math.min(settledLow, lastLow);
+                settledVolume = Math.addExact(settledVolume, lastVolume);
+            }
+        }
+
+        private MarketCandle toCandle(PlatformStock stock, Timeframe timeframe) {
+            MarketCandle candle = new MarketCandle();
+            candle.setPlatformStock(stock);
+            candle.setTimeframe(timeframe);
+            candle.setTimestamp(CandleSeries.toLocalDateTime(start));
+            candle.setOpenPrice(FixedPoint.toBigDecimal(hasSettled ? settledOpen : lastOpen));
+            candle.setHighPrice(FixedPoint.toBigDecimal(hasSettled ? Math.max(settledHigh, lastHigh) : lastHigh));
+            candle.setLowPrice(FixedPoint.toBigDecimal(hasSettled ? Math.min(settledLow, lastLow) : lastLow));
+            candle.setClosePrice(FixedPoint.toBigDecimal(lastClose));
+            candle.setVolume(FixedPoint.toBigDecimal(
+                    hasSettled ? Math.addExact(settledVolume, lastVolume) : lastVolume));
+            return candle;
+        }
+    }
+}
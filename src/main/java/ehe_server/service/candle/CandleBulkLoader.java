@@ -0,0 +1,274 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.MarketCandle.Timeframe;
+import ehe_server.entity.PlatformStock;
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.service.intf.candle.CandleAggregationServiceInterface;
+import ehe_server.service.intf.candle.CandleBulkLoaderInterface;
+import ehe_server.service.intf.candle.HotCandleCacheInterface;
+import ehe_server.service.intf.candle.MinuteCandlePackerInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * First-time backfill path: minute candles are streamed into the unlogged market_candle_staging
+ * table with COPY, then merged into market_candle and aggregated to M5..D1 with set-based
+ * statements, one window of days per transaction.
+ */
+@Service
+public class CandleBulkLoader implements CandleBulkLoaderInterface {
+
+    private static final int DECIMAL_SCALE = 8;
+    private static final int COPY_FLUSH_CHARS = 64 * 1024;
+    private static final DateTimeFormatter COPY_TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final Timeframe[] AGGREGATED_TIMEFRAMES = {
+            Timeframe.M5, Timeframe.M15, Timeframe.H1, Timeframe.H4, Timeframe.D1
+    };
+
+    private static final String COPY_STATEMENT = """
+            COPY market_candle_staging
+                (load_id, timestamp, open_price, high_price, low_price, close_price, volume)
+            FROM STDIN WITH (FORMAT text)
+            """;
+
+    private static final String STAGED_RANGE_QUERY = """
+            SELECT MIN(timestamp) AS first_timestamp, MAX(timestamp) AS last_timestamp
+            FROM market_candle_staging
+            WHERE load_id = ?
+            """;
+
+    private static final String CONFLICT_SUFFIX = """
+            ON CONFLICT (platform_stock_id, timeframe, timestamp)
+            DO UPDATE SET
+                open_price = EXCLUDED.open_price,
+                high_price = EXCLUDED.high_price,
+                low_price = EXCLUDED.low_price,
+                close_price = EXCLUDED.close_price,
+                volume = EXCLUDED.volume
+            WHERE (market_candle.open_price, market_candle.high_price, market_candle.low_price,
+                   market_candle.close_price, market_candle.volume)
+                IS DISTINCT FROM
+                  (EXCLUDED.open_price, EXCLUDED.high_price, EXCLUDED.low_price,
+                   EXCLUDED.close_price, EXCLUDED.volume)
+            """;
+
+    // Pages may overlap at their edges, DISTINCT ON keeps one row per minute
+    private static final String MERGE_STATEMENT = """
+            INSERT INTO market_candle
+                (platform_stock_id, timeframe, timestamp, open_price, high_price, low_price, close_price, volume)
+            SELECT DISTINCT ON (staged.timestamp)
+                ?, ?, staged.timestamp, staged.open_price, staged.high_price,
+                staged.low_price, staged.close_price, staged.volume
+            FROM market_candle_staging staged
+            WHERE staged.load_id = ? AND staged.timestamp >= ? AND staged.timestamp < ?
+            ORDER BY staged.timestamp
+            """ + CONFLICT_SUFFIX;
+
+    // Buckets are aligned to the start of the day, so every timeframe divides a window of whole days
+    private static final String AGGREGATE_STATEMENT = """
+            INSERT INTO market_candle
+                (platform_stock_id, timeframe, timestamp, open_price, high_price, low_price, close_price, volume)
+            SELECT ?, ?, minute.bucket_start,
+                (array_agg(minute.open_price ORDER BY minute.timestamp))[1],
+                MAX(minute.high_price),
+                MIN(minute.low_price),
+                (array_agg(minute.close_price ORDER BY minute.timestamp DESC))[1],
+                SUM(minute.volume)
+            FROM (
+                SELECT date_trunc('day', mc.timestamp) + make_interval(mins =>
+                           CAST(floor((EXTRACT(HOUR FROM mc.timestamp) * 60 + EXTRACT(MINUTE FROM mc.timestamp)) / ?)
+                               AS INTEGER) * ?) AS bucket_start,
+                       mc.timestamp, mc.open_price, mc.high_price, mc.low_price, mc.close_price, mc.volume
+                FROM market_candle mc
+                WHERE mc.platform_stock_id = ? AND mc.timeframe = ?
+                  AND mc.timestamp >= ? AND mc.timestamp < ?
+            ) minute
+            GROUP BY minute.bucket_start
+            """ + CONFLICT_SUFFIX;
+
+    private static final String DELETE_STAGED_STATEMENT = "DELETE FROM market_candle_staging WHERE load_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CandleAggregationServiceInterface candleAggregationService;
+    private final HotCandleCacheInterface hotCandleCache;
+    private final MinuteCandlePackerInterface minuteCandlePacker;
+    private final CandleIngestionProperties candleIngestionProperties;
+    private final LoggingServiceInterface loggingService;
+
+    public CandleBulkLoader(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            CandleAggregationServiceInterface candleAggregationService,
+            HotCandleCacheInterface hotCandleCache,
+            MinuteCandlePackerInterface minuteCandlePacker,
+            CandleIngestionProperties candleIngestionProperties,
+            LoggingServiceInterface loggingService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.candleAggregationService = candleAggregationService;
+        this.hotCandleCache = hotCandleCache;
+        this.minuteCandlePacker = minuteCandlePacker;
+        this.candleIngestionProperties = candleIngestionProperties;
+        this.loggingService = loggingService;
+    }
+
+    @Override
+    public UUID startLoad() {
+        return UUID.randomUUID();
+    }
+
+    @Transactional
+    @Override
+    public long stageCandles(UUID loadId, List<MarketCandle> minuteCandles) {
+        if (minuteCandles == null || minuteCandles.isEmpty()) {
+            return 0;
+        }
+
+        Long copiedRows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STATEMENT);
+
+            try {
+                String loadIdText = loadId.toString();
+                StringBuilder buffer = new StringBuilder(COPY_FLUSH_CHARS + 256);
+
+                for (MarketCandle candle : minuteCandles) {
+                    if (candle.getTimeframe() != Timeframe.M1) {
+                        continue;
+                    }
+
+                    buffer.append(loadIdText).append('\t')
+                            .append(COPY_TIMESTAMP_FORMAT.format(candle.getTimestamp())).append('\t')
+                            .append(formatDecimal(candle.getOpenPrice())).append('\t')
+                            .append(formatDecimal(candle.getHighPrice())).append('\t')
+                            .append(formatDecimal(candle.getLowPrice())).append('\t')
+                            .append(formatDecimal(candle.getClosePrice())).append('\t')
+                            .append(formatDecimal(candle.getVolume())).append('\n');
+
+                    if (buffer.length() >= COPY_FLUSH_CHARS) {
+                        writeToCopy(copyIn, buffer);
+                    }
+                }
+
+                writeToCopy(copyIn, buffer);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+
+        return copiedRows != null ? copiedRows : 0;
+    }
+
+    @Override
+    public BulkLoadResult completeLoad(UUID loadId, PlatformStock stock) {
+        long startNanos = System.nanoTime();
+        Integer platformStockId = stock.getPlatformStockId();
+
+        Map<String, Object> stagedRange = jdbcTemplate.queryForMap(STAGED_RANGE_QUERY, loadId);
+        Timestamp firstTimestamp = (Timestamp) stagedRange.get("first_timestamp");
+        Timestamp lastTimestamp = (Timestamp) stagedRange.get("last_timestamp");
+
+        if (firstTimestamp == null || lastTimestamp == null) {
+            return new BulkLoadResult(0, 0, System.nanoTime() - startNanos);
+        }
+
+        int windowDays = Math.max(1, candleIngestionProperties.getBulkLoad().getMergeWindowDays());
+        LocalDateTime windowStart = firstTimestamp.toLocalDateTime().truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime lastMinute = lastTimestamp.toLocalDateTime();
+
+        int minuteRows = 0;
+        int aggregatedRows = 0;
+
+        try {
+            // Each window commits on its own, so a failure keeps the earlier history and sync resumes after it
+            while (!windowStart.isAfter(lastMinute)) {
+                LocalDateTime windowEnd = windowStart.plusDays(windowDays);
+                int[] windowRows = mergeWindow(loadId, platformStockId, windowStart, windowEnd);
+
+                minuteRows += windowRows[0];
+                aggregatedRows += windowRows[1];
+                windowStart = windowEnd;
+            }
+        } finally {
+            candleAggregationService.invalidate(platformStockId);
+            // Merged rows shift the sequence numbers, cached series reload on their next read
+            hotCandleCache.invalidate(platformStockId);
+            discardLoad(loadId);
+        }
+
+        BulkLoadResult result = new BulkLoadResult(minuteRows, aggregatedRows, System.nanoTime() - startNanos);
+        loggingService.logAction("Bulk load merged " + minuteRows + " minute candles and " + aggregatedRows +
+                " aggregated candles for stock ID " + platformStockId + " in " + result.elapsedMillis() + " ms");
+        return result;
+    }
+
+    @Override
+    public void discardLoad(UUID loadId) {
+        transactionTemplate.executeWithoutResult(_ -> jdbcTemplate.update(DELETE_STAGED_STATEMENT, loadId));
+    }
+
+    // Merges the staged minutes of one window and rebuilds every higher timeframe bucket inside it
+    private int[] mergeWindow(UUID loadId, Integer platformStockId,
+                              LocalDateTime windowStart, LocalDateTime windowEnd) {
+        int[] rows = transactionTemplate.execute(_ -> {
+            // The aggregation below reads every minute of the window, packed days come back as rows
+            minuteCandlePacker.prepareMinuteWrite(platformStockId, windowStart);
+
+            int mergedRows = jdbcTemplate.update(MERGE_STATEMENT,
+                    platformStockId, Timeframe.M1.getValue(), loadId, windowStart, windowEnd);
+
+            int aggregated = 0;
+            for (Timeframe timeframe : AGGREGATED_TIMEFRAMES) {
+                aggregated += jdbcTemplate.update(AGGREGATE_STATEMENT,
+                        platformStockId, timeframe.getValue(),
+                        timeframe.getMinutes(), timeframe.getMinutes(),
+                        platformStockId, Timeframe.M1.getValue(), windowStart, windowEnd);
+            }
+
+            return new int[]{mergedRows, aggregated};
+        });
+
+        return rows != null ? rows : new int[2];
+    }
+
+    private void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    // Rounds to 8 decimal places like the other writers and prints without exponent
+    private String formatDecimal(BigDecimal value) {
+        if (value == null) {
+            return BigDecimal.ZERO.setScale(DECIMAL_SCALE).toPlainString();
+        }
+        return value.setScale(DECIMAL_SCALE, RoundingMode.HALF_UP).toPlainString();
+    }
+}
@@ -0,0 +1,177 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.PlatformStock;
+import ehe_server.entity.PlatformStockSyncState;
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.properties.CandleIngestionProperties.GapScanConfig;
+import ehe_server.repository.MarketCandleRepository;
+import ehe_server.repository.PlatformStockSyncStateRepository;
+import ehe_server.service.intf.candle.CandleGapDetectorInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface.GapFiller;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds holes in the minute series with a LAG window over the stored candles, so the database returns
+ * only the missing ranges instead of every timestamp. Each platform stock keeps a watermark at its last
+ * verified candle, and a run only scans the candles stored after it. Only gaps between two stored
+ * candles are found; a missing tail is left to the regular sync, which resumes from the latest candle.
+ */
+@Service
+public class CandleGapDetector implements CandleGapDetectorInterface {
+
+    // Start of the first scan of a platform stock, before any stored candle
+    private static final LocalDateTime SCAN_FLOOR = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final MarketCandleRepository marketCandleRepository;
+    private final PlatformStockSyncStateRepository syncStateRepository;
+    private final CandleIngestionProperties candleIngestionProperties;
+    private final LoggingServiceInterface loggingService;
+
+    public CandleGapDetector(
+            MarketCandleRepository marketCandleRepository,
+            PlatformStockSyncStateRepository syncStateRepository,
+            CandleIngestionProperties candleIngestionProperties,
+            LoggingServiceInterface loggingService) {
+        this.marketCandleRepository = marketCandleRepository;
+        this.syncStateRepository = syncStateRepository;
+        this.candleIngestionProperties = candleIngestionProperties;
+        this.loggingService = loggingService;
+    }
+
+    @Override
+    public List<GapRange> findGaps(PlatformStock stock, boolean sessionOnly) {
+        return findGaps(stock, sessionOnly, scanFrom(stock), scanTo());
+    }
+
+    @Override
+    public int repairGaps(PlatformStock stock, boolean sessionOnly, GapFiller gapFiller) {
+        GapScanConfig config = candleIngestionProperties.getGapScan();
+        if (!config.isEnabled()) {
+            return 0;
+        }
+
+        String symbol = stock.getStock().getStockSymbol();
+        LocalDateTime scanTo = scanTo();
+        List<GapRange> gaps = findGaps(stock, sessionOnly, scanFrom(stock), scanTo);
+
+        int limit = Math.min(gaps.size(), Math.max(1, config.getMaxGapsPerRun()));
+        int repaired = 0;
+
+        for (int i = 0; i < limit; i++) {
+            GapRange gap = gaps.get(i);
+            try {
+                gapFiller.fillGap(symbol, gap.from(), gap.to());
+                repaired++;
+            } catch (Exception e) {
+                loggingService.logError("Failed to repair gap " + gap.from() + " - " + gap.to() +
+                        " of " + symbol + ": " + e.getMessage(), e);
+                break;
+            }
+        }
+
+        LocalDateTime watermark;
+        if (repaired < gaps.size()) {
+            // The candle before the first open gap, so the next scan finds that gap again
+            watermark = toLocal(gaps.get(repaired).from().minus(Duration.ofMinutes(1)));
+        } else {
+            // The last candle of the scan, so a gap that starts right after it is still found
+            MarketCandle lastCandle = marketCandleRepository
+                    .findTopByPlatformStockAndTimeframeAndTimestampLessThanOrderByTimestampDesc(
+                            stock, MarketCandle.Timeframe.M1, scanTo);
+            watermark = lastCandle != null ? lastCandle.getTimestamp() : null;
+        }
+
+        if (watermark != null) {
+            saveWatermark(stock, watermark);
+        }
+
+        if (!gaps.isEmpty()) {
+            loggingService.logAction("Repaired " + repaired + " of " + gaps.size() + " gaps of " + symbol +
+                    ", verified until " + watermark);
+        }
+
+        return repaired;
+    }
+
+    private List<GapRange> findGaps(PlatformStock stock, boolean sessionOnly, LocalDateTime from, LocalDateTime to) {
+        GapScanConfig config = candleIngestionProperties.getGapScan();
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+
+        List<CandleGapInterface> rows = marketCandleRepository.findMinuteGaps(
+                stock.getPlatformStockId(), from, to, sessionOnly, config.getSessionZone(),
+                LocalTime.parse(config.getSessionOpen()), LocalTime.parse(config.getSessionClose()));
+
+        return merge(rows, Duration.ofMinutes(Math.max(0, config.getMergeMinutes())));
+    }
+
+    // Neighbouring gaps become one range, refetching the few candles between them is cheaper than a request
+    private List<GapRange> merge(List<CandleGapInterface> rows, Duration mergeDistance) {
+        List<GapRange> ranges = new ArrayList<>();
+        Instant from = null;
+        Instant to = null;
+
+        for (CandleGapInterface row : rows) {
+            Instant gapStart = toInstant(row.getGapStart());
+            Instant gapEnd = toInstant(row.getGapEnd());
+
+            if (from != null && !gapStart.isAfter(to.plus(mergeDistance))) {
+                to = gapEnd;
+                continue;
+            }
+
+            if (from != null) {
+                ranges.add(new GapRange(from, to));
+            }
+            from = gapStart;
+            to = gapEnd;
+        }
+
+        if (from != null) {
+            ranges.add(new GapRange(from, to));
+        }
+        return ranges;
+    }
+
+    private LocalDateTime scanFrom(PlatformStock stock) {
+        return syncStateRepository.findById(stock.getPlatformStockId())
+                .map(PlatformStockSyncState::getGapVerifiedUntil)
+                .orElse(SCAN_FLOOR);
+    }
+
+    private LocalDateTime scanTo() {
+        int settleMinutes = Math.max(0, candleIngestionProperties.getGapScan().getSettleMinutes());
+        return LocalDateTime.now(ZoneOffset.UTC).minusMinutes(settleMinutes);
+    }
+
+    private void saveWatermark(PlatformStock stock, LocalDateTime watermark) {
+        PlatformStockSyncState syncState = syncStateRepository.findById(stock.getPlatformStockId())
+                .orElseGet(() -> {
+                    PlatformStockSyncState state = new PlatformStockSyncState();
+                    state.setPlatformStockId(stock.getPlatformStockId());
+                    return state;
+                });
+
+        syncState.setGapVerifiedUntil(watermark);
+        syncStateRepository.save(syncState);
+    }
+
+    private Instant toInstant(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC);
+    }
+
+    private LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
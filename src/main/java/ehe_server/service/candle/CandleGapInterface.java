@@ -0,0 +1,10 @@
+package ehe_server.service.candle;
+
+import java.time.LocalDateTime;
+
+public interface CandleGapInterface {
+    // First missing minute
+    LocalDateTime getGapStart();
+    // Next stored minute, exclusive end of the gap
+    LocalDateTime getGapEnd();
+}
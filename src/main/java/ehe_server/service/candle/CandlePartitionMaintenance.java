@@ -0,0 +1,93 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.MarketCandle.Timeframe;
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.service.intf.candle.CandlePartitionMaintenanceInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Keeps the time partitions of market_candle ahead of the clock and drops expired minute partitions.
+ * The partition layout itself lives in the database functions of the V6 migration.
+ */
+@Service
+public class CandlePartitionMaintenance implements CandlePartitionMaintenanceInterface {
+
+    private static final String ENSURE_STATEMENT = "SELECT market_candle_ensure_partitions(?)";
+    private static final String DROP_STATEMENT = "SELECT market_candle_drop_partitions(?, ?)";
+    private static final String DROP_BUCKETS_STATEMENT = "DELETE FROM market_candle_minute_bucket WHERE bucket_start < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CandleIngestionProperties candleIngestionProperties;
+    private final LoggingServiceInterface loggingService;
+
+    public CandlePartitionMaintenance(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            CandleIngestionProperties candleIngestionProperties,
+            LoggingServiceInterface loggingService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.candleIngestionProperties = candleIngestionProperties;
+        this.loggingService = loggingService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 15 0 * * *", zone = "UTC")
+    public void runMaintenance() {
+        try {
+            int created = ensurePartitions();
+            int dropped = dropExpiredMinutePartitions();
+
+            if (created > 0 || dropped > 0) {
+                loggingService.logAction("Candle partition maintenance created " + created +
+                        " and dropped " + dropped + " partitions");
+            }
+        } catch (Exception e) {
+            loggingService.logError("Candle partition maintenance failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int ensurePartitions() {
+        int monthsAhead = Math.max(1, candleIngestionProperties.getPartitions().getMonthsAhead());
+        // The pool hands out connections without auto-commit, outside a transaction the DDL is rolled back
+        Integer created = transactionTemplate.execute(_ ->
+                jdbcTemplate.queryForObject(ENSURE_STATEMENT, Integer.class, monthsAhead));
+        return created != null ? created : 0;
+    }
+
+    @Override
+    public int dropExpiredMinutePartitions() {
+        int retentionMonths = candleIngestionProperties.getPartitions().getMinuteRetentionMonths();
+        if (retentionMonths <= 0) {
+            return 0;
+        }
+
+        // Whole months only, the current month always stays
+        LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC)
+                .truncatedTo(ChronoUnit.DAYS)
+                .withDayOfMonth(1)
+                .minusMonths(retentionMonths);
+
+        // Packed days expire with the partitions their rows came from, in the same transaction
+        Integer dropped = transactionTemplate.execute(_ -> {
+            Integer droppedPartitions = jdbcTemplate.queryForObject(DROP_STATEMENT, Integer.class,
+                    Timeframe.M1.getValue(), cutoff);
+            jdbcTemplate.update(DROP_BUCKETS_STATEMENT, cutoff);
+            return droppedPartitions;
+        });
+        return dropped != null ? dropped : 0;
+    }
+}
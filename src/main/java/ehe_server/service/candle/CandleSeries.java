@@ -0,0 +1,237 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.MarketCandle.Timeframe;
+import ehe_server.entity.PlatformStock;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Candles in parallel primitive arrays: timestamps as UTC epoch seconds, prices and volumes
+ * scaled like FixedPoint. Reductions and comparisons work on the longs without allocating,
+ * BigDecimal and MarketCandle only appear when a candle leaves the series.
+ * Ranges are half open, from inclusive and to exclusive. Not thread safe.
+ */
+public final class CandleSeries {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] timestamps;
+    private long[] opens;
+    private long[] highs;
+    private long[] lows;
+    private long[] closes;
+    private long[] volumes;
+    private int size;
+
+    public CandleSeries() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CandleSeries(int capacity) {
+        int initial = Math.max(1, capacity);
+        this.timestamps = new long[initial];
+        this.opens = new long[initial];
+        this.highs = new long[initial];
+        this.lows = new long[initial];
+        this.closes = new long[initial];
+        this.volumes = new long[initial];
+    }
+
+    /**
+     * Copies the candles in their list order.
+     *
+     * @throws ArithmeticException if a value does not fit the fixed point scale
+     */
+    public static CandleSeries of(List<MarketCandle> candles) {
+        CandleSeries series = new CandleSeries(candles.size());
+        for (MarketCandle candle : candles) {
+            series.append(candle);
+        }
+        return series;
+    }
+
+    public void append(MarketCandle candle) {
+        append(toEpochSecond(candle.getTimestamp()),
+                FixedPoint.fromBigDecimal(candle.getOpenPrice()),
+                FixedPoint.fromBigDecimal(candle.getHighPrice()),
+                FixedPoint.fromBigDecimal(candle.getLowPrice()),
+                FixedPoint.fromBigDecimal(candle.getClosePrice()),
+                FixedPoint.fromBigDecimal(candle.getVolume()));
+    }
+
+    public void append(long timestamp, long open, long high, long low, long close, long volume) {
+        if (size == timestamps.length) {
+            grow();
+        }
+
+        timestamps[size] = timestamp;
+        opens[size] = open;
+        highs[size] = high;
+        lows[size] = low;
+        closes[size] = close;
+        volumes[size] = volume;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long timestamp(int index) {
+        return timestamps[checkIndex(index)];
+    }
+
+    public long open(int index) {
+        return opens[checkIndex(index)];
+    }
+
+    public long high(int index) {
+        return highs[checkIndex(index)];
+    }
+
+    public long low(int index) {
+        return lows[checkIndex(index)];
+    }
+
+    public long close(int index) {
+        return closes[checkIndex(index)];
+    }
+
+    public long volume(int index) {
+        return volumes[checkIndex(index)];
+    }
+
+    public LocalDateTime timestampAt(int index) {
+        return toLocalDateTime(timestamp(index));
+    }
+
+    public long maxHigh(int from, int to) {
+        checkRange(from, to);
+        long max = highs[from];
+        for (int i = from + 1; i < to; i++) {
+            max = Math.max(max, highs[i]);
+        }
+        return max;
+    }
+
+    public long minLow(int from, int to) {
+        checkRange(from, to);
+        long min = lows[from];
+        for (int i = from + 1; i < to; i++) {
+            min = Math.min(min, lows[i]);
+        }
+        return min;
+    }
+
+    /**
+     * @throws ArithmeticException if the sum leaves the long range
+     */
+    public long sumVolume(int from, int to) {
+        checkRange(from, to);
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum = Math.addExact(sum, volumes[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * @return First index from the given one whose high is above the threshold, -1 if there is none
+     */
+    public int firstHighAbove(long threshold, int from) {
+        for (int i = Math.max(0, from); i < size; i++) {
+            if (highs[i] > threshold) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return First index from the given one whose low is below the threshold, -1 if there is none
+     */
+    public int firstLowBelow(long threshold, int from) {
+        for (int i = Math.max(0, from); i < size; i++) {
+            if (lows[i] < threshold) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean valuesEqual(int index, long open, long high, long low, long close, long volume) {
+        checkIndex(index);
+        return opens[index] == open && highs[index] == high && lows[index] == low
+                && closes[index] == close && volumes[index] == volume;
+    }
+
+    // First index whose timestamp is not before the given one, expects ascending timestamps
+    public int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public MarketCandle toMarketCandle(int index, PlatformStock platformStock, Timeframe timeframe) {
+        checkIndex(index);
+        MarketCandle candle = new MarketCandle();
+        candle.setPlatformStock(platformStock);
+        candle.setTimeframe(timeframe);
+        candle.setTimestamp(toLocalDateTime(timestamps[index]));
+        candle.setOpenPrice(FixedPoint.toBigDecimal(opens[index]));
+        candle.setHighPrice(FixedPoint.toBigDecimal(highs[index]));
+        candle.setLowPrice(FixedPoint.toBigDecimal(lows[index]));
+        candle.setClosePrice(FixedPoint.toBigDecimal(closes[index]));
+        candle.setVolume(FixedPoint.toBigDecimal(volumes[index]));
+        return candle;
+    }
+
+    public static long toEpochSecond(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private void grow() {
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        opens = Arrays.copyOf(opens, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+        lows = Arrays.copyOf(lows, capacity);
+        closes = Arrays.copyOf(closes, capacity);
+        volumes = Arrays.copyOf(volumes, capacity);
+    }
+
+    private int checkIndex(int index) {
+        return Objects.checkIndex(index, size);
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > size || from >= to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") of a series of " + size);
+        }
+    }
+}
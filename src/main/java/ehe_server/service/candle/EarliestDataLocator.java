@@ -0,0 +1,107 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.PlatformStock;
+import ehe_server.entity.PlatformStockSyncState;
+import ehe_server.repository.PlatformStockSyncStateRepository;
+import ehe_server.service.intf.candle.EarliestDataLocatorInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Gallops backwards from now with windows that double in size, so a listing date n weeks back is
+ * bracketed in about log2(n) probes instead of n. Each probe returns the first bar of its window,
+ * so once an empty window is reached the first bar of the newer, non-empty window is the boundary
+ * itself and no further narrowing is needed. Found listing dates are cached per platform stock.
+ */
+@Service
+public class EarliestDataLocator implements EarliestDataLocatorInterface {
+
+    private static final Duration INITIAL_WINDOW = Duration.ofDays(7);
+    // No exchange in use serves minute bars from before this point
+    private static final Instant PROBE_FLOOR = Instant.parse("2000-01-01T00:00:00Z");
+
+    private final PlatformStockSyncStateRepository syncStateRepository;
+    private final LoggingServiceInterface loggingService;
+
+    public EarliestDataLocator(
+            PlatformStockSyncStateRepository syncStateRepository,
+            LoggingServiceInterface loggingService) {
+        this.syncStateRepository = syncStateRepository;
+        this.loggingService = loggingService;
+    }
+
+    @Override
+    public Optional<Instant> findEarliestAvailableData(PlatformStock stock, Instant now, FirstBarProbe probe) {
+        Optional<Instant> cached = syncStateRepository.findById(stock.getPlatformStockId())
+                .map(PlatformStockSyncState::getEarliestDataTimestamp)
+                .map(timestamp -> timestamp.toInstant(ZoneOffset.UTC));
+
+        if (cached.isPresent()) {
+            loggingService.logAction("Using cached earliest data point " + cached.get() +
+                    " for stock ID " + stock.getPlatformStockId());
+            return cached;
+        }
+
+        Optional<Instant> earliest;
+        try {
+            earliest = gallopBackwards(stock, now, probe);
+        } catch (Exception e) {
+            // Not cached, so the next sync probes again instead of trusting a partial search
+            loggingService.logError("Error searching earliest data for stock ID " +
+                    stock.getPlatformStockId() + ": " + e.getMessage(), e);
+            return Optional.empty();
+        }
+
+        earliest.ifPresent(timestamp -> cacheEarliest(stock, timestamp));
+        return earliest;
+    }
+
+    private Optional<Instant> gallopBackwards(PlatformStock stock, Instant now, FirstBarProbe probe) throws Exception {
+        Duration window = INITIAL_WINDOW;
+        Instant windowEnd = now;
+        Optional<Instant> oldestFirstBar = Optional.empty();
+        int probes = 0;
+
+        while (windowEnd.isAfter(PROBE_FLOOR)) {
+            Instant windowStart = windowEnd.minus(window);
+            if (windowStart.isBefore(PROBE_FLOOR)) {
+                windowStart = PROBE_FLOOR;
+            }
+
+            Optional<Instant> firstBar = probe.firstBarIn(windowStart, windowEnd);
+            probes++;
+
+            if (firstBar.isPresent()) {
+                oldestFirstBar = firstBar;
+            } else if (oldestFirstBar.isPresent()) {
+                // An empty window twice as wide as the newer, non-empty one marks the listing boundary
+                break;
+            }
+
+            windowEnd = windowStart;
+            window = window.multipliedBy(2);
+        }
+
+        loggingService.logAction("Earliest data search for stock ID " + stock.getPlatformStockId() +
+                " took " + probes + " probes: " + oldestFirstBar.map(Instant::toString).orElse("no data"));
+
+        return oldestFirstBar;
+    }
+
+    private void cacheEarliest(PlatformStock stock, Instant earliest) {
+        PlatformStockSyncState syncState = syncStateRepository.findById(stock.getPlatformStockId())
+                .orElseGet(() -> {
+                    PlatformStockSyncState state = new PlatformStockSyncState();
+                    state.setPlatformStockId(stock.getPlatformStockId());
+                    return state;
+                });
+
+        syncState.setEarliestDataTimestamp(earliest.atZone(ZoneOffset.UTC).toLocalDateTime());
+        syncStateRepository.save(syncState);
+    }
+}
@@ -0,0 +1,90 @@
+package ehe_server.service.candle;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices and volumes as longs scaled by 10^8, the precision of the market_candle columns.
+ * A NUMERIC(18,8) value always fits, so decoding and comparing bars needs no BigDecimal.
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = 8;
+    public static final long ONE = 100_000_000L;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Parses a decimal such as "123.456" or "-0.5" straight from a character buffer,
+     * rounding half up to 8 decimals like the BigDecimal path did.
+     */
+    public static long parse(char[] buffer, int offset, int length) {
+        int index = offset;
+        int end = offset + length;
+
+        if (index >= end) {
+            throw new NumberFormatException("Empty decimal");
+        }
+
+        boolean negative = buffer[index] == '-';
+        if (negative || buffer[index] == '+') {
+            index++;
+        }
+
+        long integerPart = 0;
+        int integerDigits = 0;
+        while (index < end && isDigit(buffer[index])) {
+            integerPart = Math.addExact(Math.multiplyExact(integerPart, 10), buffer[index] - '0');
+            integerDigits++;
+            index++;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (index < end && buffer[index] == '.') {
+            index++;
+            while (index < end && isDigit(buffer[index])) {
+                if (fractionDigits < SCALE) {
+                    fraction = fraction * 10 + (buffer[index] - '0');
+                } else if (fractionDigits == SCALE) {
+                    roundUp = buffer[index] >= '5';
+                }
+                fractionDigits++;
+                index++;
+            }
+        }
+
+        // Exponents and anything unusual take the exact but slower path
+        if (index < end || integerDigits + fractionDigits == 0) {
+            return fromBigDecimal(new BigDecimal(buffer, offset, length));
+        }
+
+        for (int digit = Math.min(fractionDigits, SCALE); digit < SCALE; digit++) {
+            fraction *= 10;
+        }
+
+        long scaled = Math.addExact(Math.multiplyExact(integerPart, ONE), fraction);
+        if (roundUp) {
+            scaled = Math.addExact(scaled, 1);
+        }
+        return negative ? -scaled : scaled;
+    }
+
+    public static long parse(String value) {
+        return parse(value.toCharArray(), 0, value.length());
+    }
+
+    public static long fromBigDecimal(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long scaled) {
+        return BigDecimal.valueOf(scaled, SCALE);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,166 @@
+package ehe_server.service.candle;
+
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.service.intf.audit.UserContextServiceInterface;
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.metrics.IngestionMetricsInterface;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs historical backfills of many symbols concurrently on a bounded worker pool
+ * and keeps the progress of the latest backfill of every symbol.
+ * Request pacing is left to the shared per-exchange request budget of the API clients.
+ */
+@Service
+public class HistoricalBackfillScheduler implements HistoricalBackfillSchedulerInterface {
+
+    private final UserContextServiceInterface userContextService;
+    private final LoggingServiceInterface loggingService;
+    private final IngestionMetricsInterface ingestionMetrics;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final Map<String, ProgressEntry> progressBySymbol = new ConcurrentHashMap<>();
+
+    public HistoricalBackfillScheduler(
+            CandleIngestionProperties candleIngestionProperties,
+            UserContextServiceInterface userContextService,
+            LoggingServiceInterface loggingService,
+            IngestionMetricsInterface ingestionMetrics) {
+        this.userContextService = userContextService;
+        this.loggingService = loggingService;
+        this.ingestionMetrics = ingestionMetrics;
+
+        int workerThreads = Math.max(1, candleIngestionProperties.getBackfill().getWorkerThreads());
+
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(workerThreads);
+        taskExecutor.setMaxPoolSize(workerThreads);
+        taskExecutor.setThreadNamePrefix("candle-backfill-");
+        taskExecutor.initialize();
+
+        this.executor = taskExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public synchronized boolean schedule(String platformName, String symbol, Runnable backfill, Runnable onComplete) {
+        String key = key(platformName, symbol);
+        ProgressEntry existing = progressBySymbol.get(key);
+
+        if (existing != null && existing.isActive()) {
+            return false;
+        }
+
+        ProgressEntry entry = new ProgressEntry(platformName, symbol);
+        progressBySymbol.put(key, entry);
+        executor.execute(() -> runBackfill(entry, backfill, onComplete));
+
+        loggingService.logAction("Queued historical backfill for " + platformName + " " + symbol);
+        return true;
+    }
+
+    @Override
+    public void recordFetchedCandles(String platformName, String symbol, int candles) {
+        ingestionMetrics.recordBackfillCandles(platformName, candles);
+
+        ProgressEntry entry = progressBySymbol.get(key(platformName, symbol));
+        if (entry != null && entry.status == BackfillStatus.RUNNING) {
+            entry.candlesFetched.addAndGet(candles);
+        }
+    }
+
+    @Override
+    public boolean isBackfilling(String platformName, String symbol) {
+        ProgressEntry entry = progressBySymbol.get(key(platformName, symbol));
+        return entry != null && entry.isActive();
+    }
+
+    @Override
+    public Optional<BackfillProgress> getProgress(String platformName, String symbol) {
+        return Optional.ofNullable(progressBySymbol.get(key(platformName, symbol)))
+                .map(ProgressEntry::toProgress);
+    }
+
+    @Override
+    public List<BackfillProgress> getProgress(String platformName) {
+        return progressBySymbol.values().stream()
+                .filter(entry -> entry.platformName.equals(platformName))
+                .map(ProgressEntry::toProgress)
+                .sorted(Comparator.comparing(BackfillProgress::queuedAt))
+                .toList();
+    }
+
+    private void runBackfill(ProgressEntry entry, Runnable backfill, Runnable onComplete) {
+        userContextService.setUser("SYSTEM", "SYSTEM");
+        entry.startedAt = Instant.now();
+        entry.status = BackfillStatus.RUNNING;
+
+        try {
+            backfill.run();
+        } catch (Exception e) {
+            entry.error = e.getMessage();
+            entry.finishedAt = Instant.now();
+            entry.status = BackfillStatus.FAILED;
+            loggingService.logError("Historical backfill failed for " + entry.platformName + " " +
+                    entry.symbol + ": " + e.getMessage(), e);
+            return;
+        }
+
+        entry.finishedAt = Instant.now();
+        entry.status = BackfillStatus.COMPLETED;
+        loggingService.logAction("Historical backfill complete for " + entry.platformName + " " + entry.symbol +
+                ": " + entry.candlesFetched.get() + " candles");
+
+        try {
+            onComplete.run();
+        } catch (Exception e) {
+            loggingService.logError("Post-backfill step failed for " + entry.platformName + " " +
+                    entry.symbol + ": " + e.getMessage(), e);
+        }
+    }
+
+    private String key(String platformName, String symbol) {
+        return platformName + "|" + symbol;
+    }
+
+    private static final class ProgressEntry {
+        private final String platformName;
+        private final String symbol;
+        private final Instant queuedAt = Instant.now();
+        private final AtomicLong candlesFetched = new AtomicLong();
+
+        private volatile BackfillStatus status = BackfillStatus.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private ProgressEntry(String platformName, String symbol) {
+            this.platformName = platformName;
+            this.symbol = symbol;
+        }
+
+        private boolean isActive() {
+            return status == BackfillStatus.QUEUED || status == BackfillStatus.RUNNING;
+        }
+
+        private BackfillProgress toProgress() {
+            return new BackfillProgress(platformName, symbol, status, candlesFetched.get(),
+                    queuedAt, startedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.MarketCandle.Timeframe;
+import ehe_server.entity.PlatformStock;
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.repository.MarketCandleRepository;
+import ehe_server.repository.PlatformStockRepository;
+import ehe_server.service.intf.candle.HotCandleCacheInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.stock.CandleWithSequenceInterface;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the newest candles of every platform stock and timeframe in fixed size rings of longs,
+ * prices and volumes scaled like FixedPoint. Series are warmed on startup, loaded on first read
+ * and then fed by every committed candle write, so latest and recent window reads stay off the database.
+ * A load only installs its series when no write of that series committed in the meantime,
+ * writes bump a per series generation before they touch the ring.
+ */
+@Service
+public class HotCandleCache implements HotCandleCacheInterface {
+
+    private final MarketCandleRepository marketCandleRepository;
+    private final PlatformStockRepository platformStockRepository;
+    private final CandleIngestionProperties candleIngestionProperties;
+    private final LoggingServiceInterface loggingService;
+
+    private final Map<SeriesKey, Ring> rings = new ConcurrentHashMap<>();
+    private final Map<SeriesKey, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public HotCandleCache(
+            MarketCandleRepository marketCandleRepository,
+            PlatformStockRepository platformStockRepository,
+            CandleIngestionProperties candleIngestionProperties,
+            LoggingServiceInterface loggingService) {
+        this.marketCandleRepository = marketCandleRepository;
+        this.platformStockRepository = platformStockRepository;
+        this.candleIngestionProperties = candleIngestionProperties;
+        this.loggingService = loggingService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Async
+    public void warmUp() {
+        CandleIngestionProperties.HotCacheConfig config = candleIngestionProperties.getHotCache();
+        if (!config.isEnabled() || !config.isWarmOnStartup()) {
+            return;
+        }
+
+        long startMillis = System.currentTimeMillis();
+        int series = 0;
+
+        try {
+            for (PlatformStock stock : platformStockRepository.findAll()) {
+                for (Timeframe timeframe : Timeframe.values()) {
+                    if (getRing(stock.getPlatformStockId(), timeframe) != null) {
+                        series++;
+                    }
+                }
+            }
+            loggingService.logAction("Hot candle cache warmed with " + series + " series in "
+                    + (System.currentTimeMillis() - startMillis) + " ms");
+        } catch (Exception e) {
+            // Series that were not warmed load on their first read
+            loggingService.logError("Hot candle cache warm up stopped after " + series + " series: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<CachedCandle> getLatest(Integer platformStockId, Timeframe timeframe) {
+        Ring ring = getRing(platformStockId, timeframe);
+        if (ring == null) {
+            return marketCandleRepository.findLatestCandleWithSequence(platformStockId, timeframe)
+                    .map(candle -> toCachedCandle(timeframe, candle));
+        }
+
+        synchronized (ring) {
+            return ring.count == 0 ? Optional.empty() : Optional.of(ring.get(ring.count - 1, timeframe));
+        }
+    }
+
+    @Override
+    public CandleSeries getSeries(Integer platformStockId, Timeframe timeframe, LocalDateTime from, LocalDateTime to) {
+        long fromSeconds = CandleSeries.toEpochSecond(from);
+        long toSeconds = CandleSeries.toEpochSecond(to);
+
+        Ring ring = getRing(platformStockId, timeframe);
+        if (ring != null) {
+            synchronized (ring) {
+                if (ring.covers(fromSeconds)) {
+                    CandleSeries series = new CandleSeries();
+                    for (int index = ring.lowerBound(fromSeconds); index < ring.count; index++) {
+                        if (ring.timestampAt(index) > toSeconds) {
+                            break;
+                        }
+                        ring.copyTo(index, series);
+                    }
+                    return series;
+                }
+            }
+        }
+
+        List<CandleWithSequenceInterface> candles =
+                marketCandleRepository.findCandlesByDateRangeWithSequence(platformStockId, timeframe, from, to);
+        CandleSeries series = new CandleSeries(candles.size());
+        for (CandleWithSequenceInterface candle : candles) {
+            series.append(CandleSeries.toEpochSecond(candle.getTimestamp()),
+                    FixedPoint.fromBigDecimal(candle.getOpenPrice()),
+                    FixedPoint.fromBigDecimal(candle.getHighPrice()),
+                    FixedPoint.fromBigDecimal(candle.getLowPrice()),
+                    FixedPoint.fromBigDecimal(candle.getClosePrice()),
+                    FixedPoint.fromBigDecimal(candle.getVolume()));
+        }
+        return series;
+    }
+
+    @Override
+    public Optional<CachedCandle> getAt(Integer platformStockId, Timeframe timeframe, LocalDateTime timestamp) {
+        Ring ring = getRing(platformStockId, timeframe);
+        if (ring != null) {
+            long seconds = CandleSeries.toEpochSecond(timestamp);
+
+            synchronized (ring) {
+                if (ring.covers(seconds)) {
+                    int index = ring.lowerBound(seconds);
+                    return index < ring.count && ring.timestampAt(index) == seconds
+                            ? Optional.of(ring.get(index, timeframe))
+                            : Optional.empty();
+                }
+            }
+        }
+
+        return marketCandleRepository.findCandleWithSequenceByTimestamp(platformStockId, timeframe, timestamp)
+                .map(candle -> toCachedCandle(timeframe, candle));
+    }
+
+    @Override
+    public void recordWritten(Integer platformStockId, List<MarketCandle> candles) {
+        if (!candleIngestionProperties.getHotCache().isEnabled() || candles.isEmpty()) {
+            return;
+        }
+
+        // Copied now, the caller may keep changing its candles until the commit
+        List<PendingCandle> pending = new ArrayList<>(candles.size());
+        for (MarketCandle candle : candles) {
+            try {
+                pending.add(new PendingCandle(candle.getTimeframe(), CandleSeries.toEpochSecond(candle.getTimestamp()),
+                        FixedPoint.fromBigDecimal(candle.getOpenPrice()),
+                        FixedPoint.fromBigDecimal(candle.getHighPrice()),
+                        FixedPoint.fromBigDecimal(candle.getLowPrice()),
+                        FixedPoint.fromBigDecimal(candle.getClosePrice()),
+                        FixedPoint.fromBigDecimal(candle.getVolume())));
+            } catch (ArithmeticException | NullPointerException e) {
+                // Values the rings cannot hold, the series go back to the database
+                invalidate(platformStockId);
+                return;
+            }
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(platformStockId, pending);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(platformStockId, pending);
+            }
+        });
+    }
+
+    @Override
+    public void invalidate(Integer platformStockId) {
+        drop(platformStockId);
+
+        // A reader may load the old rows again before the transaction commits
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    drop(platformStockId);
+                }
+            });
+        }
+    }
+
+    private void drop(Integer platformStockId) {
+        for (Timeframe timeframe : Timeframe.values()) {
+            SeriesKey key = new SeriesKey(platformStockId, timeframe);
+            generation(key).incrementAndGet();
+            rings.remove(key);
+        }
+    }
+
+    private void apply(Integer platformStockId, List<PendingCandle> pending) {
+        for (PendingCandle candle : pending) {
+            SeriesKey key = new SeriesKey(platformStockId, candle.timeframe());
+            generation(key).incrementAndGet();
+
+            // Serialized with loads of the same series by the map
+            rings.computeIfPresent(key, (_, ring) -> {
+                synchronized (ring) {
+                    return ring.put(candle) ? ring : null;
+                }
+            });
+        }
+    }
+
+    // Null when the cache is disabled, readers then go to the database
+    private Ring getRing(Integer platformStockId, Timeframe timeframe) {
+        CandleIngestionProperties.HotCacheConfig config = candleIngestionProperties.getHotCache();
+        if (!config.isEnabled() || platformStockId == null) {
+            return null;
+        }
+
+        SeriesKey key = new SeriesKey(platformStockId, timeframe);
+        Ring ring = rings.get(key);
+        if (ring != null) {
+            return ring;
+        }
+
+        AtomicLong generation = generation(key);
+        long loadGeneration = generation.get();
+        int capacity = Math.max(1, config.getCapacity());
+
+        List<CandleWithSequenceInterface> newestFirst =
+                marketCandleRepository.findLatestCandlesWithSequence(platformStockId, timeframe, capacity);
+        Ring loaded = new Ring(capacity, newestFirst.size() < capacity);
+        for (int index = newestFirst.size() - 1; index >= 0; index--) {
+            if (!loaded.load(newestFirst.get(index))) {
+                return null;
+            }
+        }
+
+        // A write that committed during the load already changed the rows, the next read loads again
+        Ring installed = rings.compute(key, (_, current) ->
+                current == null && generation.get() == loadGeneration ? loaded : current);
+        return installed != null ? installed : loaded;
+    }
+
+    private AtomicLong generation(SeriesKey key) {
+        return generations.computeIfAbsent(key, _ -> new AtomicLong());
+    }
+
+    private CachedCandle toCachedCandle(Timeframe timeframe, CandleWithSequenceInterface candle) {
+        return new CachedCandle(timeframe, candle.getTimestamp(),
+                FixedPoint.fromBigDecimal(candle.getOpenPrice()),
+                FixedPoint.fromBigDecimal(candle.getHighPrice()),
+                FixedPoint.fromBigDecimal(candle.getLowPrice()),
+                FixedPoint.fromBigDecimal(candle.getClosePrice()),
+                FixedPoint.fromBigDecimal(candle.getVolume()),
+                candle.getSequence() != null ? candle.getSequence() : 0);
+    }
+
+    private record SeriesKey(Integer platformStockId, Timeframe timeframe) {
+    }
+
+    private record PendingCandle(Timeframe timeframe, long timestamp, long open, long high, long low, long close,
+                                 long volume) {
+    }
+
+    /**
+     * The newest candles of one series in ascending timestamp order, guarded by its own monitor.
+     */
+    private static final class Ring {
+        private final long[] timestamps;
+        private final long[] opens;
+        private final long[] highs;
+        private final long[] lows;
+        private final long[] closes;
+        private final long[] volumes;
+        private final long[] sequences;
+
+        // Physical slot of the oldest candle
+        private int head;
+        private int count;
+        // Whether the ring holds the whole series, so older ranges are known to be empty
+        private boolean complete;
+
+        private Ring(int capacity, boolean complete) {
+            this.timestamps = new long[capacity];
+            this.opens = new long[capacity];
+            this.highs = new long[capacity];
+            this.lows = new long[capacity];
+            this.closes = new long[capacity];
+            this.volumes = new long[capacity];
+            this.sequences = new long[capacity];
+            this.complete = complete;
+        }
+
+        private boolean load(CandleWithSequenceInterface candle) {
+            try {
+                append(CandleSeries.toEpochSecond(candle.getTimestamp()),
+                        FixedPoint.fromBigDecimal(candle.getOpenPrice()),
+                        FixedPoint.fromBigDecimal(candle.getHighPrice()),
+                        FixedPoint.fromBigDecimal(candle.getLowPrice()),
+                        FixedPoint.fromBigDecimal(candle.getClosePrice()),
+                        FixedPoint.fromBigDecimal(candle.getVolume()),
+                        candle.getSequence() != null ? candle.getSequence() : 0);
+                return true;
+            } catch (ArithmeticException | NullPointerException e) {
+                return false;
+            }
+        }
+
+        /**
+         * @return False when the candle landed before the newest one without replacing it,
+         * the database renumbered the series and the ring has to be dropped
+         */
+        private boolean put(PendingCandle candle) {
+            if (count == 0 || candle.timestamp() > timestampAt(count - 1)) {
+                long sequence = count == 0 ? 1 : sequences[slot(count - 1)] + 1;
+                append(candle.timestamp(), candle.open(), candle.high(), candle.low(), candle.close(),
+                        candle.volume(), sequence);
+                return true;
+            }
+
+            int index = lowerBound(candle.timestamp());
+            if (index < count && timestampAt(index) == candle.timestamp()) {
+                int slot = slot(index);
+                opens[slot] = candle.open();
+                highs[slot] = candle.high();
+                lows[slot] = candle.low();
+                closes[slot] = candle.close();
+                volumes[slot] = candle.volume();
+                return true;
+            }
+            return false;
+        }
+
+        private void append(long timestamp, long open, long high, long low, long close, long volume, long sequence) {
+            int slot;
+            if (count == timestamps.length) {
+                slot = head;
+                head = (head + 1) % timestamps.length;
+                complete = false;
+            } else {
+                slot = slot(count);
+                count++;
+            }
+
+            timestamps[slot] = timestamp;
+            opens[slot] = open;
+            highs[slot] = high;
+            lows[slot] = low;
+            closes[slot] = close;
+            volumes[slot] = volume;
+            sequences[slot] = sequence;
+        }
+
+        // Every stored candle at or after the timestamp is in the ring
+        private boolean covers(long timestamp) {
+            return complete || (count > 0 && timestamp >= timestampAt(0));
+        }
+
+        // First index whose timestamp is not before the given one
+        private int lowerBound(long timestamp) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestampAt(mid) < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private long timestampAt(int index) {
+            return timestamps[slot(index)];
+        }
+
+        private int slot(int index) {
+            return (head + index) % timestamps.length;
+        }
+
+        private CachedCandle get(int index, Timeframe timeframe) {
+            int slot = slot(index);
+            return new CachedCandle(timeframe, CandleSeries.toLocalDateTime(timestamps[slot]),
+                    opens[slot], highs[slot], lows[slot], closes[slot], volumes[slot], sequences[slot]);
+        }
+
+        private void copyTo(int index, CandleSeries series) {
+            int slot = slot(index);
+            series.append(timestamps[slot], opens[slot], highs[slot], lows[slot], closes[slot], volumes[slot]);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.service.intf.candle.HotCandleCacheInterface;
+import ehe_server.service.intf.candle.MarketCandleWriterInterface;
+import ehe_server.service.intf.candle.MinuteCandlePackerInterface;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Writes candles straight to market_candle with multi-row upserts,
+ * without loading or materializing MarketCandle entities.
+ */
+@Service
+public class MarketCandleWriter implements MarketCandleWriterInterface {
+
+    private static final int DECIMAL_SCALE = 8;
+    private static final int COLUMNS_PER_ROW = 8;
+    // PostgreSQL accepts at most 65535 bind parameters per statement
+    private static final int MAX_ROWS_PER_STATEMENT = 65535 / COLUMNS_PER_ROW;
+
+    private static final String INSERT_PREFIX = """
+            INSERT INTO market_candle
+                (platform_stock_id, timeframe, timestamp, open_price, high_price, low_price, close_price, volume)
+            VALUES
+            """;
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String CONFLICT_SUFFIX = """
+
+            ON CONFLICT (platform_stock_id, timeframe, timestamp)
+            DO UPDATE SET
+                open_price = EXCLUDED.open_price,
+                high_price = EXCLUDED.high_price,
+                low_price = EXCLUDED.low_price,
+                close_price = EXCLUDED.close_price,
+                volume = EXCLUDED.volume
+            WHERE (market_candle.open_price, market_candle.high_price, market_candle.low_price,
+                   market_candle.close_price, market_candle.volume)
+                IS DISTINCT FROM
+                  (EXCLUDED.open_price, EXCLUDED.high_price, EXCLUDED.low_price,
+                   EXCLUDED.close_price, EXCLUDED.volume)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CandleIngestionProperties candleIngestionProperties;
+    private final HotCandleCacheInterface hotCandleCache;
+    private final MinuteCandlePackerInterface minuteCandlePacker;
+
+    private volatile CachedStatement fullChunkStatement;
+
+    public MarketCandleWriter(
+            JdbcTemplate jdbcTemplate,
+            CandleIngestionProperties candleIngestionProperties,
+            HotCandleCacheInterface hotCandleCache,
+            MinuteCandlePackerInterface minuteCandlePacker) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.candleIngestionProperties = candleIngestionProperties;
+        this.hotCandleCache = hotCandleCache;
+        this.minuteCandlePacker = minuteCandlePacker;
+    }
+
+    @Transactional
+    @Override
+    public UpsertResult upsertCandles(Integer platformStockId, List<MarketCandle> candles) {
+        if (candles == null || candles.isEmpty()) {
+            return new UpsertResult(0, 0);
+        }
+
+        long startNanos = System.nanoTime();
+
+        // A statement may not update the same row twice, keep the last version of each candle
+        Map<String, MarketCandle> uniqueCandles = new LinkedHashMap<>();
+        for (MarketCandle candle : candles) {
+            uniqueCandles.put(candle.getTimeframe().getValue() + "|" + candle.getTimestamp(), candle);
+        }
+
+        List<MarketCandle> rows = new ArrayList<>(uniqueCandles.values());
+
+        // Late minutes of a packed day move that day back into rows before they are written
+        LocalDateTime earliestMinute = null;
+        for (MarketCandle candle : rows) {
+            if (candle.getTimeframe() == MarketCandle.Timeframe.M1
+                    && (earliestMinute == null || candle.getTimestamp().isBefore(earliestMinute))) {
+                earliestMinute = candle.getTimestamp();
+            }
+        }
+        minuteCandlePacker.prepareMinuteWrite(platformStockId, earliestMinute);
+
+        int chunkSize = getChunkSize();
+
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            List<MarketCandle> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+            jdbcTemplate.update(getUpsertStatement(chunk.size(), chunkSize), ps -> bindChunk(ps, platformStockId, chunk));
+        }
+
+        // Every minute and aggregated candle passes here, the cache applies them once they commit
+        hotCandleCache.recordWritten(platformStockId, rows);
+
+        return new UpsertResult(rows.size(), System.nanoTime() - startNanos);
+    }
+
+    private void bindChunk(PreparedStatement ps, Integer platformStockId, List<MarketCandle> chunk)
+            throws SQLException {
+        int index = 1;
+        for (MarketCandle candle : chunk) {
+            ps.setInt(index++, platformStockId);
+            ps.setString(index++, candle.getTimeframe().getValue());
+            ps.setObject(index++, candle.getTimestamp());
+            ps.setBigDecimal(index++, scaleDecimal(candle.getOpenPrice()));
+            ps.setBigDecimal(index++, scaleDecimal(candle.getHighPrice()));
+            ps.setBigDecimal(index++, scaleDecimal(candle.getLowPrice()));
+            ps.setBigDecimal(index++, scaleDecimal(candle.getClosePrice()));
+            ps.setBigDecimal(index++, scaleDecimal(candle.getVolume()));
+        }
+    }
+
+    // Full chunks reuse the same SQL text, only the trailing partial chunk builds its own
+    private String getUpsertStatement(int rowCount, int chunkSize) {
+        if (rowCount != chunkSize) {
+            return buildUpsertStatement(rowCount);
+        }
+
+        CachedStatement cached = fullChunkStatement;
+        if (cached == null || cached.rows() != chunkSize) {
+            cached = new CachedStatement(chunkSize, buildUpsertStatement(chunkSize));
+            fullChunkStatement = cached;
+        }
+        return cached.sql();
+    }
+
+    private String buildUpsertStatement(int rowCount) {
+        return INSERT_PREFIX + String.join(",\n", Collections.nCopies(rowCount, ROW_PLACEHOLDER)) + CONFLICT_SUFFIX;
+    }
+
+    private int getChunkSize() {
+        int configured = candleIngestionProperties.getWriter().getChunkSize();
+        return Math.max(1, Math.min(configured, MAX_ROWS_PER_STATEMENT));
+    }
+
+    // Rounds BigDecimal to 8 decimal places for database compatibility
+    private BigDecimal scaleDecimal(BigDecimal value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value.setScale(DECIMAL_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private record CachedStatement(int rows, String sql) {
+    }
+}
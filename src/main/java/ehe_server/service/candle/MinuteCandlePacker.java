@@ -0,0 +1,162 @@
+package ehe_server.service.candle;
+
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.properties.CandleIngestionProperties.PackingConfig;
+import ehe_server.service.intf.candle.MinuteCandlePackerInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Packs settled minute candles into day buckets of fixed point arrays and unpacks them again before
+ * a write reaches back into a packed day. The layout and the moves live in the database functions
+ * of the V7 migration, the read queries of MarketCandleRepository merge buckets and rows.
+ */
+@Service
+public class MinuteCandlePacker implements MinuteCandlePackerInterface {
+
+    private static final String PACK_STATEMENT = "SELECT market_candle_pack_minutes(?, ?, ?)";
+    private static final String UNPACK_STATEMENT = "SELECT market_candle_unpack_minutes(?, ?)";
+    private static final String PACKED_UNTIL_QUERY = """
+            SELECT MAX(b.bucket_start) + INTERVAL '1 day'
+            FROM market_candle_minute_bucket b
+            WHERE b.platform_stock_id = ?
+            """;
+    private static final String STOCKS_QUERY = """
+            SELECT ps.platform_stock_id, state.gap_verified_until
+            FROM platform_stock ps
+            LEFT JOIN platform_stock_sync_state state ON state.platform_stock_id = ps.platform_stock_id
+            ORDER BY ps.platform_stock_id
+            """;
+
+    // Stands for a stock without packed days in the boundary cache
+    private static final LocalDateTime NOTHING_PACKED = LocalDateTime.MIN;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CandleIngestionProperties candleIngestionProperties;
+    private final LoggingServiceInterface loggingService;
+
+    // End of the packed days per stock. Packing elsewhere only leaves it too low, which the settle
+    // horizon covers, unpacking leaves it too high, which only costs a needless unpack call
+    private final Map<Integer, LocalDateTime> packedUntil = new ConcurrentHashMap<>();
+
+    public MinuteCandlePacker(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            CandleIngestionProperties candleIngestionProperties,
+            LoggingServiceInterface loggingService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.candleIngestionProperties = candleIngestionProperties;
+        this.loggingService = loggingService;
+    }
+
+    @Override
+    public void prepareMinuteWrite(Integer platformStockId, LocalDateTime earliestMinute) {
+        if (earliestMinute == null) {
+            return;
+        }
+
+        // Packing never goes past the settle horizon, so newer writes only have to clear known packed days
+        LocalDateTime horizon = settleHorizon();
+        if (!earliestMinute.isBefore(horizon) && !earliestMinute.isBefore(getPackedUntil(platformStockId))) {
+            return;
+        }
+
+        Integer unpacked = jdbcTemplate.queryForObject(UNPACK_STATEMENT, Integer.class, platformStockId, earliestMinute);
+        if (unpacked != null && unpacked > 0) {
+            packedUntil.remove(platformStockId);
+            loggingService.logAction("Unpacked " + unpacked + " minute days of stock ID " + platformStockId +
+                    " for a write at " + earliestMinute);
+        }
+    }
+
+    @Scheduled(cron = "0 45 0 * * *", zone = "UTC")
+    public void runPacking() {
+        if (!candleIngestionProperties.getPacking().isEnabled()) {
+            return;
+        }
+
+        try {
+            int packed = packSettledMinutes();
+            if (packed > 0) {
+                loggingService.logAction("Packed " + packed + " minute days into buckets");
+            }
+        } catch (Exception e) {
+            loggingService.logError("Minute candle packing failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int packSettledMinutes() {
+        PackingConfig config = candleIngestionProperties.getPacking();
+        boolean gapScanEnabled = candleIngestionProperties.getGapScan().isEnabled();
+        int maxDays = Math.max(1, config.getMaxDaysPerTransaction());
+        LocalDateTime horizon = settleHorizon();
+
+        int packedDays = 0;
+        for (Map<String, Object> stock : jdbcTemplate.queryForList(STOCKS_QUERY)) {
+            Integer platformStockId = ((Number) stock.get("platform_stock_id")).intValue();
+            Timestamp gapVerifiedUntil = (Timestamp) stock.get("gap_verified_until");
+
+            // Packed days are never scanned for gaps again, they have to be verified first
+            LocalDateTime until = horizon;
+            if (gapScanEnabled) {
+                if (gapVerifiedUntil == null) {
+                    continue;
+                }
+                LocalDateTime verifiedDay = gapVerifiedUntil.toLocalDateTime().truncatedTo(ChronoUnit.DAYS);
+                until = verifiedDay.isBefore(until) ? verifiedDay : until;
+            }
+
+            try {
+                packedDays += packStock(platformStockId, until, maxDays);
+            } catch (Exception e) {
+                loggingService.logError("Failed to pack minute candles of stock ID " + platformStockId +
+                        ": " + e.getMessage(), e);
+            }
+        }
+        return packedDays;
+    }
+
+    // One transaction per call keeps the series lock short, the first pass over a long history takes several
+    private int packStock(Integer platformStockId, LocalDateTime until, int maxDays) {
+        int packedDays = 0;
+        int packed;
+        do {
+            Integer days = transactionTemplate.execute(_ -> jdbcTemplate.queryForObject(
+                    PACK_STATEMENT, Integer.class, platformStockId, until, maxDays));
+            packed = days != null ? days : 0;
+            packedDays += packed;
+        } while (packed > 0);
+
+        if (packedDays > 0) {
+            packedUntil.remove(platformStockId);
+        }
+        return packedDays;
+    }
+
+    private LocalDateTime getPackedUntil(Integer platformStockId) {
+        return packedUntil.computeIfAbsent(platformStockId, id -> {
+            Timestamp until = jdbcTemplate.queryForObject(PACKED_UNTIL_QUERY, Timestamp.class, id);
+            return until != null ? until.toLocalDateTime() : NOTHING_PACKED;
+        });
+    }
+
+    private LocalDateTime settleHorizon() {
+        int settleDays = Math.max(1, candleIngestionProperties.getPacking().getSettleDays());
+        return LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS).minusDays(settleDays);
+    }
+}
@@ -0,0 +1,187 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.PlatformStock;
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.service.intf.candle.OpenCandleWriteCoalescerInterface;
+import ehe_server.service.intf.candle.RealtimeCandlePipelineInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sits in front of the realtime pipeline for feeds that push the open candle over and over.
+ * Keeps a fingerprint of the last forwarded version of every stock's open minute and only
+ * forwards a push when its OHLCV differ, at most once per interval while the minute is open.
+ */
+@Service
+public class OpenCandleWriteCoalescer implements OpenCandleWriteCoalescerInterface {
+
+    private final RealtimeCandlePipelineInterface realtimeCandlePipeline;
+    private final LoggingServiceInterface loggingService;
+    private final ThreadPoolTaskScheduler scheduler;
+    private final long writeIntervalNanos;
+
+    private final Map<Integer, OpenCandle> openCandles = new ConcurrentHashMap<>();
+
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public OpenCandleWriteCoalescer(
+            RealtimeCandlePipelineInterface realtimeCandlePipeline,
+            CandleIngestionProperties candleIngestionProperties,
+            LoggingServiceInterface loggingService) {
+        this.realtimeCandlePipeline = realtimeCandlePipeline;
+        this.loggingService = loggingService;
+
+        long writeIntervalMs = Math.max(0, candleIngestionProperties.getRealtime().getOpenCandleWriteIntervalMs());
+        this.writeIntervalNanos = TimeUnit.MILLISECONDS.toNanos(writeIntervalMs);
+
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(1);
+        taskScheduler.setThreadNamePrefix("candle-coalescer-");
+        taskScheduler.initialize();
+        this.scheduler = taskScheduler;
+
+        // Held back versions are checked twice per interval, so none waits much longer than the interval
+        if (writeIntervalMs > 0) {
+            scheduler.scheduleAtFixedRate(this::flushDue, Duration.ofMillis(Math.max(1, writeIntervalMs / 2)));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        openCandles.values().forEach(openCandle -> {
+            synchronized (openCandle) {
+                openCandle.flushPending();
+            }
+        });
+    }
+
+    @Override
+    public void offer(PlatformStock stock, MarketCandle minuteCandle, boolean closed) {
+        OpenCandle openCandle = openCandles.computeIfAbsent(stock.getPlatformStockId(), _ -> new OpenCandle(stock));
+
+        synchronized (openCandle) {
+            LocalDateTime timestamp = minuteCandle.getTimestamp();
+
+            // An older minute can only be a late duplicate, forward it so nothing is lost
+            if (openCandle.timestamp != null && timestamp.isBefore(openCandle.timestamp)) {
+                forward(openCandle.stock, minuteCandle);
+                return;
+            }
+
+            if (openCandle.timestamp != null && timestamp.isAfter(openCandle.timestamp)) {
+                // The previous minute never got its closed push, write what was held back of it first
+                openCandle.flushPending();
+                openCandle.startMinute(timestamp);
+            } else if (openCandle.timestamp == null) {
+                openCandle.startMinute(timestamp);
+            }
+
+            if (openCandle.matchesLastForwarded(minuteCandle)) {
+                openCandle.pending = null;
+                unchanged.incrementAndGet();
+                return;
+            }
+
+            if (closed || System.nanoTime() - openCandle.lastForwardNanos >= writeIntervalNanos) {
+                openCandle.pending = minuteCandle;
+                openCandle.flushPending();
+            } else {
+                if (openCandle.pending != null) {
+                    coalesced.incrementAndGet();
+                }
+                openCandle.pending = minuteCandle;
+            }
+        }
+    }
+
+    @Override
+    public CoalescerStats getStats() {
+        int pending = (int) openCandles.values().stream().filter(openCandle -> openCandle.pending != null).count();
+        return new CoalescerStats(forwarded.get(), unchanged.get(), coalesced.get(), pending);
+    }
+
+    private void flushDue() {
+        try {
+            long now = System.nanoTime();
+            for (OpenCandle openCandle : openCandles.values()) {
+                synchronized (openCandle) {
+                    if (openCandle.pending != null && now - openCandle.lastForwardNanos >= writeIntervalNanos) {
+                        openCandle.flushPending();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            loggingService.logError("Error flushing coalesced open candles: " + e.getMessage(), e);
+        }
+    }
+
+    private void forward(PlatformStock stock, MarketCandle minuteCandle) {
+        realtimeCandlePipeline.submit(stock, minuteCandle);
+        forwarded.incrementAndGet();
+    }
+
+    /**
+     * Open minute of one stock with the fingerprint of its last forwarded version.
+     * Guarded by its own monitor.
+     */
+    private final class OpenCandle {
+        private final PlatformStock stock;
+        private LocalDateTime timestamp;
+        private MarketCandle lastForwarded;
+        private MarketCandle pending;
+        private long lastForwardNanos;
+
+        private OpenCandle(PlatformStock stock) {
+            this.stock = stock;
+        }
+
+        private void startMinute(LocalDateTime minute) {
+            timestamp = minute;
+            lastForwarded = null;
+            pending = null;
+            // The first push of a minute is always due
+            lastForwardNanos = System.nanoTime() - writeIntervalNanos;
+        }
+
+        private void flushPending() {
+            if (pending == null) {
+                return;
+            }
+            forward(stock, pending);
+            lastForwarded = pending;
+            lastForwardNanos = System.nanoTime();
+            pending = null;
+        }
+
+        private boolean matchesLastForwarded(MarketCandle candle) {
+            return lastForwarded != null
+                    && sameValue(lastForwarded.getOpenPrice(), candle.getOpenPrice())
+                    && sameValue(lastForwarded.getHighPrice(), candle.getHighPrice())
+                    && sameValue(lastForwarded.getLowPrice(), candle.getLowPrice())
+                    && sameValue(lastForwarded.getClosePrice(), candle.getClosePrice())
+                    && sameValue(lastForwarded.getVolume(), candle.getVolume());
+        }
+
+        // Compares by value, so "1.50" and "1.5000" are the same price
+        private boolean sameValue(BigDecimal left, BigDecimal right) {
+            if (left == null || right == null) {
+                return left == right;
+            }
+            return left.compareTo(right) == 0;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ehe_server.service.candle;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Reads a token-chained page sequence ahead of its consumer. The next page is requested
+ * as soon as the token of the previous one is known, while the consumer is still busy
+ * persisting earlier pages. At most depth pages are fetched or in flight but not yet taken,
+ * which caps the memory a slow consumer can pile up.
+ *
+ * @param <P> Page type
+ */
+public final class PagePrefetcher<P> implements AutoCloseable {
+
+    private final Function<String, CompletableFuture<P>> fetcher;
+    private final Function<P, String> nextToken;
+    private final int depth;
+
+    // Guarded by this, in request order
+    private final Deque<CompletableFuture<P>> pages = new ArrayDeque<>();
+    private boolean started;
+    private boolean closed;
+    private String pausedToken;
+
+    /**
+     * @param fetcher Requests the page of a token, the first page with a null token
+     * @param nextToken Token of the page after the given one, null on the last page
+     * @param depth Pages that may be fetched ahead of the consumer
+     */
+    public PagePrefetcher(Function<String, CompletableFuture<P>> fetcher, Function<P, String> nextToken, int depth) {
+        this.fetcher = fetcher;
+        this.nextToken = nextToken;
+        this.depth = Math.max(1, depth);
+    }
+
+    /**
+     * Waits for the next page in order.
+     *
+     * @return The page, or null once the last page has been taken
+     * @throws java.util.concurrent.CompletionException if the page could not be fetched
+     */
+    public P next() {
+        CompletableFuture<P> page;
+
+        synchronized (this) {
+            if (!started) {
+                started = true;
+                request(null);
+            }
+
+            page = pages.poll();
+            if (page == null) {
+                return null;
+            }
+
+            // Taking a page frees room for the page the fetch side held back
+            if (pausedToken != null && !closed) {
+                String token = pausedToken;
+                pausedToken = null;
+                request(token);
+            }
+        }
+
+        return page.join();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        pausedToken = null;
+    }
+
+    // Caller holds the monitor
+    private void request(String token) {
+        CompletableFuture<P> page;
+        try {
+            page = fetcher.apply(token);
+        } catch (RuntimeException e) {
+            page = CompletableFuture.failedFuture(e);
+        }
+
+        // The consumer gets the page only after its successor was requested, so it never sees a gap
+        CompletableFuture<P> handedOver = new CompletableFuture<>();
+        pages.add(handedOver);
+        page.whenComplete((result, error) -> {
+            onFetched(result, error);
+            if (error != null) {
+                handedOver.completeExceptionally(error);
+            } else {
+                handedOver.complete(result);
+            }
+        });
+    }
+
+    private synchronized void onFetched(P page, Throwable error) {
+        // A failed page ends the sequence, the consumer sees the error when it takes the page
+        if (error != null || closed) {
+            return;
+        }
+
+        String token = nextToken.apply(page);
+        if (token == null) {
+            return;
+        }
+
+        if (pages.size() < depth) {
+            request(token);
+        } else {
+            pausedToken = token;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.service.intf.candle.RangeSplitBackfillServiceInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.function.Consumer;
+
+/**
+ * Fetches one symbol's history as independent page requests over disjoint time windows.
+ * A single coordinator (the calling thread) keeps at most {@code parallelism} pages in flight;
+ * every page request runs on the shared range pool and writes its candles to the sink itself.
+ * Request pacing is left to the per-exchange request budget of the API clients.
+ */
+@Service
+public class RangeSplitBackfillService implements RangeSplitBackfillServiceInterface {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 2000;
+
+    private final CandleIngestionProperties candleIngestionProperties;
+    private final LoggingServiceInterface loggingService;
+    private final ThreadPoolTaskExecutor executor;
+
+    public RangeSplitBackfillService(
+            CandleIngestionProperties candleIngestionProperties,
+            LoggingServiceInterface loggingService) {
+        this.candleIngestionProperties = candleIngestionProperties;
+        this.loggingService = loggingService;
+
+        int poolSize = Math.max(1, candleIngestionProperties.getBackfill().getRangeParallelism());
+
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(poolSize);
+        taskExecutor.setMaxPoolSize(poolSize);
+        taskExecutor.setThreadNamePrefix("candle-range-");
+        taskExecutor.initialize();
+
+        this.executor = taskExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public long fetchRange(String symbol, Instant start, Instant end,
+                           RangePageFetcher pageFetcher, Consumer<List<MarketCandle>> candleSink) {
+        long startNanos = System.nanoTime();
+        int parallelism = Math.max(1, candleIngestionProperties.getBackfill().getRangeParallelism());
+
+        Deque<Window> pending = new ArrayDeque<>(splitEvenly(new Window(start, end), parallelism));
+        CompletionService<PageResult> completionService = new ExecutorCompletionService<>(executor);
+
+        int inFlight = 0;
+        long totalCandles = 0;
+        int requests = 0;
+        int splits = 0;
+
+        try {
+            while (!pending.isEmpty() || inFlight > 0) {
+                while (inFlight < parallelism && !pending.isEmpty()) {
+                    Window window = pending.pollFirst();
+                    completionService.submit(() -> fetchWindowPage(window, pageFetcher, candleSink));
+                    inFlight++;
+                }
+
+                PageResult result = completionService.take().get();
+                inFlight--;
+                requests++;
+                totalCandles += result.candles();
+
+                Window remainder = result.remainder();
+                if (remainder == null) {
+                    continue;
+                }
+
+                // The page came back full: split what is left of a dense window while workers would idle
+                boolean workersIdle = inFlight + pending.size() + 1 < parallelism;
+                if (workersIdle && remainder.duration().compareTo(result.pageSpan().multipliedBy(2)) > 0) {
+                    pending.addAll(splitEvenly(remainder, 2));
+                    splits++;
+                } else {
+                    pending.addFirst(remainder);
+                }
+            }
+        } catch (ExecutionException e) {
+            awaitInFlight(completionService, inFlight);
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IllegalStateException("Range fetch failed for " + symbol + ": " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Range fetch interrupted for " + symbol, e);
+        }
+
+        loggingService.logAction("Range-split fetch of " + symbol + " complete: " + totalCandles + " candles in " +
+                requests + " requests, " + splits + " adaptive splits, " +
+                Duration.ofNanos(System.nanoTime() - startNanos).toMillis() + " ms");
+
+        return totalCandles;
+    }
+
+    // Fetches the first page of a window, hands it to the sink and returns what is left of the window
+    private PageResult fetchWindowPage(Window window, RangePageFetcher pageFetcher,
+                                       Consumer<List<MarketCandle>> candleSink) throws Exception {
+        RangePage page = fetchWithRetry(window, pageFetcher);
+        List<MarketCandle> candles = page.candles();
+
+        if (candles.isEmpty()) {
+            return new PageResult(0, null, Duration.ZERO);
+        }
+
+        candleSink.accept(candles);
+
+        Instant firstTimestamp = candles.getFirst().getTimestamp().toInstant(ZoneOffset.UTC);
+        Instant lastTimestamp = candles.getLast().getTimestamp().toInstant(ZoneOffset.UTC);
+        Duration pageSpan = Duration.between(firstTimestamp, lastTimestamp);
+
+        Instant cursor = lastTimestamp.plus(1, ChronoUnit.MINUTES);
+        Window remainder = page.hasMore() && cursor.isBefore(window.to())
+                ? new Window(cursor, window.to())
+                : null;
+
+        return new PageResult(candles.size(), remainder, pageSpan);
+    }
+
+    private RangePage fetchWithRetry(Window window, RangePageFetcher pageFetcher) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return pageFetcher.fetchPage(window.from(), window.to());
+            } catch (Exception e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                loggingService.logError("Fetching window " + window.from() + " - " + window.to() +
+                        " failed (attempt " + attempt + "): " + e.getMessage(), e);
+                Thread.sleep(RETRY_DELAY_MS * attempt);
+            }
+        }
+    }
+
+    // Lets requests that are still running finish, so nothing reaches the sink after a failure is reported
+    private void awaitInFlight(CompletionService<PageResult> completionService, int inFlight) {
+        for (int i = 0; i < inFlight; i++) {
+            try {
+                completionService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Splits a window into equal parts aligned to whole minutes
+    private List<Window> splitEvenly(Window window, int parts) {
+        long totalMinutes = window.duration().toMinutes();
+        if (parts <= 1 || totalMinutes < parts) {
+            return List.of(window);
+        }
+
+        long partMinutes = totalMinutes / parts;
+        List<Window> windows = new ArrayList<>(parts);
+        Instant from = window.from();
+
+        for (int i = 0; i < parts - 1; i++) {
+            Instant to = from.plus(partMinutes, ChronoUnit.MINUTES);
+            windows.add(new Window(from, to));
+            from = to;
+        }
+        windows.add(new Window(from, window.to()));
+
+        return windows;
+    }
+
+    private record Window(Instant from, Instant to) {
+        private Duration duration() {
+            return Duration.between(from, to);
+        }
+    }
+
+    private record PageResult(int candles, Window remainder, Duration pageSpan) {
+    }
+}
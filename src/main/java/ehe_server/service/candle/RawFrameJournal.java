@@ -0,0 +1,410 @@
+package ehe_server.service.candle;
+
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.properties.CandleIngestionProperties.JournalConfig;
+import ehe_server.service.intf.audit.UserContextServiceInterface;
+import ehe_server.service.intf.candle.RawFrameJournalInterface;
+import ehe_server.service.intf.candle.RealtimeCandlePipelineInterface;
+import ehe_server.service.intf.candle.RealtimeCandlePipelineInterface.WriteMark;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of raw bar frames. The WebSocket threads only append a frame to a memory-mapped
+ * segment and return, so they keep up with the wire whatever the database does. A reader per stream
+ * hands the frames to the stream's consumer in order and holds back while the realtime pipeline is
+ * backlogged. An offset is committed once the pipeline has settled every candle queued up to it, and
+ * after a lost write or a restart the reader goes back to the committed offset and replays from there.
+ * Replayed candles are upserts, so frames that had been written already do no harm. The reader only
+ * starts with startReplay, and a frame none of whose consumers is registered yet is held back, so
+ * the frames of the last run are not skipped while the symbols are still being set up.
+ */
+@Service
+public class RawFrameJournal implements RawFrameJournalInterface {
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String OFFSET_FILE = "consumer.offset";
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int MAX_FRAMES_PER_DRAIN = 1000;
+    private static final long HOLD_RETRY_MS = 1000;
+
+    private final RealtimeCandlePipelineInterface realtimeCandlePipeline;
+    private final UserContextServiceInterface userContextService;
+    private final LoggingServiceInterface loggingService;
+    private final JournalConfig config;
+    private final ThreadPoolTaskScheduler scheduler;
+
+    private final Map<String, StreamJournal> journals = new ConcurrentHashMap<>();
+
+    public RawFrameJournal(
+            RealtimeCandlePipelineInterface realtimeCandlePipeline,
+            CandleIngestionProperties candleIngestionProperties,
+            UserContextServiceInterface userContextService,
+            LoggingServiceInterface loggingService) {
+        this.realtimeCandlePipeline = realtimeCandlePipeline;
+        this.userContextService = userContextService;
+        this.loggingService = loggingService;
+        this.config = candleIngestionProperties.getJournal();
+
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(2);
+        taskScheduler.setThreadNamePrefix("candle-journal-");
+        taskScheduler.initialize();
+        this.scheduler = taskScheduler;
+
+        if (config.isEnabled()) {
+            scheduler.scheduleAtFixedRate(() -> journals.values().forEach(StreamJournal::commitSettled),
+                    Duration.ofMillis(Math.max(1, config.getCommitIntervalMs())));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        journals.values().forEach(StreamJournal::force);
+    }
+
+    @Override
+    public void open(String streamName, FrameConsumer consumer) {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        journals.computeIfAbsent(streamName, name -> {
+            try {
+                return new StreamJournal(name, consumer);
+            } catch (IOException e) {
+                loggingService.logError("Failed to open frame journal " + name +
+                        ", its frames are processed without journaling: " + e.getMessage(), e);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void startReplay(String streamName) {
+        StreamJournal journal = journals.get(streamName);
+        if (journal == null || !journal.started.compareAndSet(false, true)) {
+            return;
+        }
+
+        loggingService.logAction("Starting frame journal reader of " + streamName + " at offset " + journal.readOffset);
+        scheduler.scheduleWithFixedDelay(journal::drain, Duration.ofMillis(Math.max(1, config.getReadIntervalMs())));
+    }
+
+    @Override
+    public boolean append(String streamName, String frame) {
+        StreamJournal journal = journals.get(streamName);
+        if (journal == null) {
+            return false;
+        }
+
+        try {
+            return journal.append(frame.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            loggingService.logError("Failed to journal frame of " + streamName + ": " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public List<JournalStats> getStats() {
+        return journals.values().stream().map(StreamJournal::toStats).toList();
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Offsets are logical: a segment starts where the previous one ends, and the unused tail
+     * of a segment is skipped. A record is its length followed by the frame bytes, and a zero
+     * length marks the end of the written part of a segment.
+     */
+    private final class StreamJournal {
+        private final String streamName;
+        private final Path directory;
+        private final FrameConsumer consumer;
+        private final long segmentSize;
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        // Segments by start offset
+        private final NavigableMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+        private final MappedByteBuffer offsetBuffer;
+
+        // Guarded by this
+        private long headStart;
+        private MappedByteBuffer head;
+        // Published after the frame bytes, the reader never reads past it
+        private volatile long appendOffset;
+
+        // Only touched by the drain task
+        private long readOffset;
+        private volatile long dispatchedOffset;
+        private volatile long rewindTo = -1;
+        // Start and last attempt of the frame held back at readOffset, -1 while none is
+        private long heldSince = -1;
+        private long heldAttempt;
+
+        // Only touched by the commit task
+        private volatile long committedOffset;
+        private WriteMark pendingMark;
+        private long pendingOffset;
+        private long lostSeen;
+        private boolean replayNeeded;
+
+        private final AtomicLong appendedFrames = new AtomicLong();
+        private final AtomicLong replays = new AtomicLong();
+
+        private StreamJournal(String streamName, FrameConsumer consumer) throws IOException {
+            this.streamName = streamName;
+            this.consumer = consumer;
+            this.directory = Paths.get(config.getDirectory(), streamName);
+            this.segmentSize = Math.max(1, config.getSegmentSizeMb()) * 1024L * 1024L;
+
+            Files.createDirectories(directory);
+            this.offsetBuffer = map(directory.resolve(OFFSET_FILE), Long.BYTES);
+            this.committedOffset = offsetBuffer.getLong(0);
+            this.lostSeen = realtimeCandlePipeline.getLostCandles();
+
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                    String name = file.getFileName().toString();
+                    long start = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(start, map(file, Math.max(Files.size(file), LENGTH_BYTES)));
+                }
+            }
+
+            if (segments.isEmpty()) {
+                segments.put(committedOffset, map(segmentPath(committedOffset), segmentSize));
+            }
+
+            this.headStart = segments.lastKey();
+            this.head = segments.lastEntry().getValue();
+            this.appendOffset = headStart + findEnd(head);
+
+            // Frames after the committed offset were not written for sure, so they are replayed
+            this.readOffset = Math.max(committedOffset, segments.firstKey());
+            this.dispatchedOffset = readOffset;
+            this.committedOffset = readOffset;
+            this.pendingOffset = readOffset;
+
+            if (readOffset < appendOffset) {
+                loggingService.logAction("Found " + (appendOffset - readOffset) + " journaled bytes of " +
+                        streamName + " after committed offset " + readOffset + ", replayed once the reader starts");
+            }
+        }
+
+        private synchronized boolean append(byte[] frame) throws IOException {
+            int recordSize = LENGTH_BYTES + frame.length;
+            if (frame.length == 0 || recordSize > segmentSize) {
+                return false;
+            }
+
+            long position = appendOffset - headStart;
+            if (position + recordSize > head.capacity()) {
+                roll();
+                position = 0;
+            }
+
+            // The length goes last, so a record is never seen half written
+            head.put((int) position + LENGTH_BYTES, frame);
+            head.putInt((int) position, frame.length);
+            appendOffset = headStart + position + recordSize;
+            appendedFrames.incrementAndGet();
+            return true;
+        }
+
+        private void roll() throws IOException {
+            long nextStart = headStart + head.capacity();
+            MappedByteBuffer next = map(segmentPath(nextStart), segmentSize);
+
+            segments.put(nextStart, next);
+            headStart = nextStart;
+            head = next;
+        }
+
+        // Runs on the scheduler, one drain per stream at a time
+        private void drain() {
+            userContextService.setUser("SYSTEM", "SYSTEM");
+
+            try {
+                long rewind = rewindTo;
+                if (rewind >= 0) {
+                    readOffset = Math.max(rewind, segments.firstKey());
+                    dispatchedOffset = readOffset;
+                    rewindTo = -1;
+                    heldSince = -1;
+                    replays.incrementAndGet();
+                }
+
+                // A held frame is offered again at a slower pace, every attempt runs its other bars again
+                if (heldSince >= 0 && System.currentTimeMillis() - heldAttempt < HOLD_RETRY_MS) {
+                    return;
+                }
+
+                long end = appendOffset;
+                int frames = 0;
+
+                while (readOffset < end && frames < MAX_FRAMES_PER_DRAIN && !realtimeCandlePipeline.isBacklogged()) {
+                    Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(readOffset);
+                    MappedByteBuffer buffer = segment.getValue();
+                    int position = (int) (readOffset - segment.getKey());
+
+                    int length = position + LENGTH_BYTES <= buffer.capacity() ? buffer.getInt(position) : 0;
+                    if (length <= 0) {
+                        // Unused tail of a segment that rolled over
+                        readOffset = segment.getKey() + buffer.capacity();
+                        continue;
+                    }
+
+                    byte[] frame = new byte[length];
+                    buffer.get(position + LENGTH_BYTES, frame);
+
+                    boolean consumed = true;
+                    try {
+                        consumed = consumer.accept(new String(frame, StandardCharsets.UTF_8));
+                    } catch (Exception e) {
+                        loggingService.logError("Error processing journaled frame of " + streamName + ": " +
+                                e.getMessage(), e);
+                    }
+
+                    if (!consumed && !holdExpired()) {
+                        break;
+                    }
+
+                    heldSince = -1;
+                    readOffset += LENGTH_BYTES + length;
+                    dispatchedOffset = readOffset;
+                    frames++;
+                }
+            } catch (Exception e) {
+                loggingService.logError("Frame journal reader of " + streamName + " failed: " + e.getMessage(), e);
+            }
+        }
+
+        // A symbol that never gets a consumer, e.g. one removed while the server was down, must not stop the stream for good
+        private boolean holdExpired() {
+            long now = System.currentTimeMillis();
+            heldAttempt = now;
+
+            if (heldSince < 0) {
+                heldSince = now;
+                loggingService.logAction("Holding back the journaled frame of " + streamName + " at offset " +
+                        readOffset + " until its symbols have handlers");
+                return false;
+            }
+
+            if (now - heldSince < config.getHoldTimeoutMs()) {
+                return false;
+            }
+
+            loggingService.logError("No handler took the journaled frame of " + streamName + " at offset " +
+                    readOffset + " within " + config.getHoldTimeoutMs() + " ms, skipping it", null);
+            return true;
+        }
+
+        // Runs on the scheduler, commits the dispatched offset of the previous run once its candles have settled
+        private void commitSettled() {
+            try {
+                long lost = realtimeCandlePipeline.getLostCandles();
+                if (lost != lostSeen) {
+                    lostSeen = lost;
+                    replayNeeded = true;
+                    pendingMark = null;
+                }
+
+                if (replayNeeded) {
+                    // Waits for the database to take writes again before replaying into it
+                    if (realtimeCandlePipeline.isLastWriteSuccessful()) {
+                        loggingService.logAction("Candles were lost, replaying " + streamName +
+                                " from committed offset " + committedOffset);
+                        replayNeeded = false;
+                        rewindTo = committedOffset;
+                    }
+                    return;
+                }
+
+                if (pendingMark != null && realtimeCandlePipeline.isWritten(pendingMark)) {
+                    commit(pendingOffset);
+                    pendingMark = null;
+                }
+
+                // The offset is read before the mark, so every frame up to it was queued before the mark
+                long dispatched = dispatchedOffset;
+                if (pendingMark == null && rewindTo < 0 && dispatched > committedOffset) {
+                    pendingOffset = dispatched;
+                    pendingMark = realtimeCandlePipeline.mark();
+                }
+            } catch (Exception e) {
+                loggingService.logError("Failed to commit frame journal of " + streamName + ": " + e.getMessage(), e);
+            }
+        }
+
+        private void commit(long offset) throws IOException {
+            offsetBuffer.putLong(0, offset);
+            committedOffset = offset;
+
+            // Segments that end before the committed offset are never read again
+            long headSegment = segments.lastKey();
+            for (Map.Entry<Long, MappedByteBuffer> segment : segments.headMap(headSegment).entrySet()) {
+                if (segment.getKey() + segment.getValue().capacity() > offset) {
+                    break;
+                }
+                segments.remove(segment.getKey());
+                Files.deleteIfExists(segmentPath(segment.getKey()));
+            }
+        }
+
+        private synchronized void force() {
+            head.force();
+            offsetBuffer.force();
+        }
+
+        // Position after the last complete record of a segment
+        private int findEnd(MappedByteBuffer buffer) {
+            int position = 0;
+            while (position + LENGTH_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + LENGTH_BYTES + length > buffer.capacity()) {
+                    break;
+                }
+                position += LENGTH_BYTES + length;
+            }
+            return position;
+        }
+
+        private Path segmentPath(long start) {
+            return directory.resolve(String.format("%020d", start) + SEGMENT_SUFFIX);
+        }
+
+        private JournalStats toStats() {
+            return new JournalStats(streamName, segments.size(), appendedFrames.get(), appendOffset,
+                    dispatchedOffset, committedOffset, replays.get());
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package ehe_server.service.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.PlatformStock;
+import ehe_server.properties.CandleIngestionProperties;
+import ehe_server.properties.CandleIngestionProperties.DropPolicy;
+import ehe_server.properties.CandleIngestionProperties.RealtimeConfig;
+import ehe_server.service.intf.audit.UserContextServiceInterface;
+import ehe_server.service.intf.candle.CandleAggregationServiceInterface;
+import ehe_server.service.intf.candle.MarketCandleWriterInterface;
+import ehe_server.service.intf.candle.RealtimeCandlePipelineInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.metrics.IngestionMetricsInterface;
+import ehe_server.service.intf.metrics.IngestionMetricsInterface.DatabaseOperation;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes live minute candles off the WebSocket threads. Every stock is pinned to one of a few
+ * writer workers, each with its own bounded queue, so candles of a stock stay in order while
+ * a slow write only holds up the stocks of that worker. Workers drain their queue in
+ * micro-batches and write each batch with one upsert and one aggregation pass per stock
+ * in a single transaction.
+ */
+@Service
+public class RealtimeCandlePipeline implements RealtimeCandlePipelineInterface {
+
+    private static final long IDLE_POLL_MS = 500;
+    private static final long DROP_LOG_INTERVAL = 1000;
+    private static final long MINUTE_MILLIS = 60_000;
+
+    private final MarketCandleWriterInterface marketCandleWriter;
+    private final CandleAggregationServiceInterface candleAggregationService;
+    private final UserContextServiceInterface userContextService;
+    private final LoggingServiceInterface loggingService;
+    private final IngestionMetricsInterface ingestionMetrics;
+    private final Clock clock;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final int batchSize;
+    private final long batchWindowNanos;
+    private final long lagWarningMs;
+    private final DropPolicy dropPolicy;
+    private final List<Worker> workers = new ArrayList<>();
+
+    private volatile boolean running = true;
+    private volatile boolean lastWriteSuccessful = true;
+
+    public RealtimeCandlePipeline(
+            MarketCandleWriterInterface marketCandleWriter,
+            CandleAggregationServiceInterface candleAggregationService,
+            CandleIngestionProperties candleIngestionProperties,
+            PlatformTransactionManager transactionManager,
+            UserContextServiceInterface userContextService,
+            LoggingServiceInterface loggingService,
+            IngestionMetricsInterface ingestionMetrics,
+            Clock clock) {
+        this.marketCandleWriter = marketCandleWriter;
+        this.candleAggregationService = candleAggregationService;
+        this.userContextService = userContextService;
+        this.loggingService = loggingService;
+        this.ingestionMetrics = ingestionMetrics;
+        this.clock = clock;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        RealtimeConfig config = candleIngestionProperties.getRealtime();
+        this.batchSize = Math.max(1, config.getBatchSize());
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getBatchWindowMs()));
+        this.lagWarningMs = config.getLagWarningMs();
+        this.dropPolicy = config.getDropPolicy();
+
+        int workerThreads = Math.max(1, config.getWorkerThreads());
+        int queueCapacity = Math.max(1, config.getQueueCapacity());
+
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(workerThreads);
+        taskExecutor.setMaxPoolSize(workerThreads);
+        taskExecutor.setThreadNamePrefix("candle-realtime-");
+        // Workers stop on their own once their queue is drained
+        taskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        taskExecutor.setAwaitTerminationSeconds(10);
+        taskExecutor.initialize();
+        this.executor = taskExecutor;
+
+        for (int id = 0; id < workerThreads; id++) {
+            Worker worker = new Worker(id, queueCapacity);
+            workers.add(worker);
+            executor.execute(() -> runWorker(worker));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean submit(PlatformStock stock, MarketCandle minuteCandle) {
+        Worker worker = workers.get(Math.floorMod(stock.getPlatformStockId().hashCode(), workers.size()));
+        PendingCandle pending = new PendingCandle(stock, minuteCandle, System.nanoTime());
+
+        while (!worker.queue.offer(pending)) {
+            if (dropPolicy == DropPolicy.DROP_NEWEST) {
+                recordDrop(worker);
+                return false;
+            }
+
+            // DROP_OLDEST: make room, a later revision or the next gap fill repairs the minute
+            if (worker.queue.poll() != null) {
+                recordDrop(worker);
+                worker.settled.incrementAndGet();
+            }
+        }
+
+        worker.enqueued.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public WriteMark mark() {
+        long[] enqueued = new long[workers.size()];
+        for (int i = 0; i < enqueued.length; i++) {
+            enqueued[i] = workers.get(i).enqueued.get();
+        }
+        return new WriteMark(enqueued);
+    }
+
+    @Override
+    public boolean isWritten(WriteMark mark) {
+        for (int i = 0; i < mark.enqueued().length; i++) {
+            if (workers.get(i).settled.get() < mark.enqueued()[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getLostCandles() {
+        return workers.stream().mapToLong(worker -> worker.lostCandles.get()).sum();
+    }
+
+    @Override
+    public boolean isLastWriteSuccessful() {
+        return lastWriteSuccessful;
+    }
+
+    @Override
+    public boolean isBacklogged() {
+        return workers.stream().anyMatch(worker -> worker.queue.size() > worker.capacity / 2);
+    }
+
+    @Override
+    public List<WorkerStats> getStats() {
+        return workers.stream().map(Worker::toStats).toList();
+    }
+
+    private void runWorker(Worker worker) {
+        userContextService.setUser("SYSTEM", "SYSTEM");
+        List<PendingCandle> batch = new ArrayList<>(batchSize);
+
+        while (running || !worker.queue.isEmpty()) {
+            try {
+                PendingCandle first = worker.queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                collectBatch(worker, batch);
+                flush(worker, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                loggingService.logError("Realtime candle worker " + worker.id + " failed: " + e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Fills the batch until it is full or the batch window since its first candle has passed
+    private void collectBatch(Worker worker, List<PendingCandle> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + batchWindowNanos;
+
+        while (batch.size() < batchSize) {
+            if (worker.queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+
+            PendingCandle next = worker.queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(Worker worker, List<PendingCandle> batch) {
+        Map<Integer, StockBatch> batchesByStock = new LinkedHashMap<>();
+        for (PendingCandle pending : batch) {
+            batchesByStock.computeIfAbsent(pending.stock().getPlatformStockId(), _ -> new StockBatch(pending.stock()))
+                    .candles().add(pending.candle());
+        }
+
+        boolean written = true;
+        try {
+            transactionTemplate.executeWithoutResult(_ -> batchesByStock.values().forEach(this::writeStockBatch));
+            batch.forEach(pending -> recordCommitLag(pending.candle()));
+        } catch (Exception e) {
+            // Retry stock by stock, so one failing stock does not take the rest of the batch with it
+            loggingService.logError("Realtime batch of " + batch.size() + " candles failed, retrying per stock: " +
+                    e.getMessage(), e);
+
+            for (StockBatch stockBatch : batchesByStock.values()) {
+                try {
+                    transactionTemplate.executeWithoutResult(_ -> writeStockBatch(stockBatch));
+                    stockBatch.candles().forEach(this::recordCommitLag);
+                } catch (Exception stockError) {
+                    written = false;
+                    worker.failedBatches.incrementAndGet();
+                    worker.lostCandles.addAndGet(stockBatch.candles().size());
+                    loggingService.logError("Failed to write realtime candles for stock ID " +
+                            stockBatch.stock().getPlatformStockId() + ": " + stockError.getMessage(), stockError);
+                }
+            }
+        }
+
+        lastWriteSuccessful = written;
+        worker.settled.addAndGet(batch.size());
+
+        // The queue is FIFO, so the first candle of the batch waited longest
+        long lagMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batch.getFirst().enqueuedNanos());
+        worker.recordBatch(batch.size(), lagMillis);
+
+        if (lagMillis > lagWarningMs) {
+            loggingService.logAction("Realtime candle worker " + worker.id + " is lagging: " + lagMillis +
+                    " ms behind with " + worker.queue.size() + " candles queued");
+        }
+    }
+
+    private void writeStockBatch(StockBatch stockBatch) {
+        long start = System.nanoTime();
+        marketCandleWriter.upsertCandles(stockBatch.stock().getPlatformStockId(), stockBatch.candles());
+        long upserted = System.nanoTime();
+        candleAggregationService.aggregate(stockBatch.stock(), stockBatch.candles());
+
+        ingestionMetrics.recordDatabaseTime(DatabaseOperation.UPSERT, upserted - start);
+        ingestionMetrics.recordDatabaseTime(DatabaseOperation.AGGREGATION, System.nanoTime() - upserted);
+    }
+
+    // Lag from the close of the minute, so revisions of an open minute count from when it closes
+    private void recordCommitLag(MarketCandle candle) {
+        long closeMillis = candle.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli() + MINUTE_MILLIS;
+        ingestionMetrics.recordCommitLag(clock.millis() - closeMillis);
+    }
+
+    private void recordDrop(Worker worker) {
+        worker.lostCandles.incrementAndGet();
+        long dropped = worker.dropped.incrementAndGet();
+        if (dropped == 1 || dropped % DROP_LOG_INTERVAL == 0) {
+            loggingService.logError("Realtime candle queue of worker " + worker.id + " is full (" + dropPolicy +
+                    "), " + dropped + " candles dropped so far", null);
+        }
+    }
+
+    private record PendingCandle(PlatformStock stock, MarketCandle candle, long enqueuedNanos) {
+    }
+
+    private record StockBatch(PlatformStock stock, List<MarketCandle> candles) {
+        private StockBatch(PlatformStock stock) {
+            this(stock, new ArrayList<>());
+        }
+    }
+
+    private static final class Worker {
+        private final int id;
+        private final int capacity;
+        private final BlockingQueue<PendingCandle> queue;
+
+        private final AtomicLong enqueued = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong batchesWritten = new AtomicLong();
+        private final AtomicLong candlesWritten = new AtomicLong();
+        private final AtomicLong failedBatches = new AtomicLong();
+        // Queued candles that were written, failed or dropped
+        private final AtomicLong settled = new AtomicLong();
+        private final AtomicLong lostCandles = new AtomicLong();
+
+        private volatile int lastBatchSize;
+        private volatile long lastLagMillis;
+        private volatile long maxLagMillis;
+
+        private Worker(int id, int capacity) {
+            this.id = id;
+            this.capacity = capacity;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        // Only called by the worker thread itself
+        private void recordBatch(int size, long lagMillis) {
+            batchesWritten.incrementAndGet();
+            candlesWritten.addAndGet(size);
+            lastBatchSize = size;
+            lastLagMillis = lagMillis;
+            maxLagMillis = Math.max(maxLagMillis, lagMillis);
+        }
+
+        private WorkerStats toStats() {
+            return new WorkerStats(id, queue.size(), capacity, enqueued.get(), dropped.get(),
+                    batchesWritten.get(), candlesWritten.get(), failedBatches.get(),
+                    lastBatchSize, lastLagMillis, maxLagMillis);
+        }
+    }
+}
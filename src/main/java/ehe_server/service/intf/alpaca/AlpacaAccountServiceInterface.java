@@ -3,6 +3,7 @@ package ehe_server.service.intf.alpaca;
 import ehe_server.entity.AutomatedTradeRule;
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface AlpacaAccountServiceInterface {
 
@@ -11,9 +12,9 @@ public interface AlpacaAccountServiceInterface {
      *
      * @param apiKey    The API key
      * @param secretKey The secret key
-     * @return Map containing account information
+     * @return Future of the map containing account information or error response, never completed exceptionally
      */
-    Map<String, Object> getAccountInfo(String apiKey, String secretKey);
+    CompletableFuture<Map<String, Object>> getAccountInfo(String apiKey, String secretKey);
 
     /**
      * Places a market order on Alpaca
@@ -25,9 +26,9 @@ public interface AlpacaAccountServiceInterface {
      * @param type         Order type (e.g., "market")
      * @param amount       The amount to trade
      * @param quantityType QUANTITY for shares/coins, QUOTE_ORDER_QTY for dollar amount
-     * @return Response from Alpaca API
+     * @return Future of the response from Alpaca API or error response, never completed exceptionally
      */
-    Map<String, Object> placeMarketOrder(
+    CompletableFuture<Map<String, Object>> placeMarketOrder(
             String apiKey,
             String secretKey,
             String symbol,
@@ -1,8 +1,9 @@
 package ehe_server.service.intf.alpaca;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import ehe_server.entity.MarketCandle;
 import ehe_server.entity.PlatformStock;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.StreamMessage;
+import java.time.Instant;
 import java.util.List;
 
 public interface AlpacaCandleServiceInterface {
@@ -15,6 +16,16 @@ public interface AlpacaCandleServiceInterface {
      */
     void syncHistoricalData(String symbol);
 
+    /**
+     * Brings symbols that already have candles up to date with multi-symbol requests. Symbols are grouped
+     * by the time of their latest candle, so a shared request refetches little of what is stored.
+     *
+     * @param symbols Trading symbols, stocks and crypto pairs may be mixed
+     * @return Symbols that still need {@link #syncHistoricalData(String)}: those without candles
+     * and those whose catch-up request failed
+     */
+    List<String> catchUpSymbols(List<String> symbols);
+
     /**
      * Saves a batch of candles and their aggregations in a single transaction
      *
@@ -24,10 +35,20 @@ public interface AlpacaCandleServiceInterface {
     void saveCandleBatch(PlatformStock stock, List<MarketCandle> candles);
 
     /**
-     * Processes a real-time candle from WebSocket
+     * Converts a decoded real-time bar from WebSocket and queues it on the realtime pipeline,
+     * the candle is written and aggregated by a pipeline worker
      *
-     * @param candleData JSON data from WebSocket
+     * @param barMessage Decoded bar message from WebSocket
      * @param stock Platform stock entity
      */
-    void processRealtimeCandle(JsonNode candleData, PlatformStock stock);
-}
\ No newline at end of file
+    void processRealtimeCandle(StreamMessage barMessage, PlatformStock stock);
+
+    /**
+     * Refetches the minute candles of an interval the live stream missed, e.g. while reconnecting
+     *
+     * @param symbol Trading symbol
+     * @param from Start of the missed interval, inclusive
+     * @param to End of the missed interval, exclusive
+     */
+    void fillGap(String symbol, Instant from, Instant to);
+}
@@ -1,7 +1,11 @@
 package ehe_server.service.intf.alpaca;
 
-import org.springframework.http.ResponseEntity;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.BarPage;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.MultiBarPage;
+
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface AlpacaDataApiClientInterface {
 
@@ -14,11 +18,11 @@ public interface AlpacaDataApiClientInterface {
      * @param start Start time
      * @param end End time
      * @param pageToken Pagination token
-     * @return Response containing bar data
+     * @return Future of the decoded bars of the page and the next page token
      */
-    ResponseEntity<String> getStockBars(String symbol, String timeframe,
-                                        ZonedDateTime start, ZonedDateTime end,
-                                        String pageToken);
+    CompletableFuture<BarPage> getStockBars(String symbol, String timeframe,
+                                            ZonedDateTime start, ZonedDateTime end,
+                                            String pageToken);
 
     /**
      * Gets historical bars for a crypto symbol
@@ -29,11 +33,26 @@ public interface AlpacaDataApiClientInterface {
      * @param start Start time
      * @param end End time
      * @param pageToken Pagination token
-     * @return Response containing bar data
+     * @return Future of the decoded bars of the page and the next page token
+     */
+    CompletableFuture<BarPage> getCryptoBars(String symbol, String timeframe,
+                                             ZonedDateTime start, ZonedDateTime end,
+                                             String pageToken);
+
+    /**
+     * Gets historical bars of several symbols in one request per page
+     * Uses /v2/stocks/bars for stocks and /v1beta3/crypto/us/bars for crypto
+     *
+     * @param symbols Symbols of one kind, either all stocks or all crypto pairs
+     * @param timeframe Timeframe for bars
+     * @param start Start time
+     * @param end End time
+     * @param pageToken Pagination token
+     * @return Future of the decoded bars of the page per symbol and the next page token
      */
-    ResponseEntity<String> getCryptoBars(String symbol, String timeframe,
-                                         ZonedDateTime start, ZonedDateTime end,
-                                         String pageToken);
+    CompletableFuture<MultiBarPage> getMultiSymbolBars(List<String> symbols, String timeframe,
+                                                       ZonedDateTime start, ZonedDateTime end,
+                                                       String pageToken);
 
     /**
      * Automatically detects if symbol is crypto (contains "/") and calls appropriate endpoint
@@ -43,9 +62,9 @@ public interface AlpacaDataApiClientInterface {
      * @param start Start time
      * @param end End time
      * @param pageToken Pagination token
-     * @return Response containing bar data
+     * @return Future of the decoded bars of the page and the next page token
      */
-    ResponseEntity<String> getBars(String symbol, String timeframe,
-                                   ZonedDateTime start, ZonedDateTime end,
-                                   String pageToken);
+    CompletableFuture<BarPage> getBars(String symbol, String timeframe,
+                                       ZonedDateTime start, ZonedDateTime end,
+                                       String pageToken);
 }
\ No newline at end of file
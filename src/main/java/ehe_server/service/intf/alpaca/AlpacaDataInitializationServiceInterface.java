@@ -1,11 +1,14 @@
 package ehe_server.service.intf.alpaca;
 
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface.BackfillProgress;
+
+import java.util.List;
 import java.util.Set;
 
 public interface AlpacaDataInitializationServiceInterface {
 
     /**
-     * Sets up a symbol: sync historical data, then add to live WebSocket
+     * Sets up a symbol: queue its historical data sync, then add it to the live WebSocket
      *
      * @param symbol Trading symbol to setup
      */
@@ -32,4 +35,11 @@ public interface AlpacaDataInitializationServiceInterface {
      * @return true if currently syncing historical data
      */
     boolean isSyncing(String symbol);
+
+    /**
+     * Get historical backfill progress of every scheduled symbol
+     *
+     * @return Progress per symbol, oldest scheduled first
+     */
+    List<BackfillProgress> getBackfillProgress();
 }
\ No newline at end of file
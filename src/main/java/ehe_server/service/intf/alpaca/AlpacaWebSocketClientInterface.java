@@ -1,6 +1,7 @@
 package ehe_server.service.intf.alpaca;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.StreamMessage;
+
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -8,7 +9,7 @@ public interface AlpacaWebSocketClientInterface {
 
     /**
      * Update subscriptions with a complete list of symbols
-     * This will reconnect the websockets if the symbol list changes
+     * Changes are sent on the live sessions, a feed only reconnects if its session is dead
      *
      * @param symbols List of symbols to subscribe to
      */
@@ -18,9 +19,9 @@ public interface AlpacaWebSocketClientInterface {
      * Register a message handler for a specific symbol
      *
      * @param symbol Symbol to register handler for
-     * @param handler Consumer to handle incoming JsonNode messages
+     * @param handler Consumer to handle decoded bar messages
      */
-    void registerHandler(String symbol, Consumer<JsonNode> handler);
+    void registerHandler(String symbol, Consumer<StreamMessage> handler);
 
     /**
      * Unregister a message handler for a specific symbol
@@ -43,4 +44,10 @@ public interface AlpacaWebSocketClientInterface {
      * @return Total number of active subscriptions
      */
     int getSubscriptionCount();
-}
\ No newline at end of file
+
+    /**
+     * Starts processing the journaled bar frames, the ones an earlier run left behind first.
+     * Called once the handlers of the symbols set up at startup are registered.
+     */
+    void startReplay();
+}
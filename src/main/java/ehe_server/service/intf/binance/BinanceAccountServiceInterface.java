@@ -4,6 +4,7 @@ import ehe_server.entity.AutomatedTradeRule;
 
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for Binance account operations
@@ -15,9 +16,9 @@ public interface BinanceAccountServiceInterface {
      *
      * @param apiKey    The API key
      * @param secretKey The secret key
-     * @return Account information or error response
+     * @return Future of the account information or error response, never completed exceptionally
      */
-    Map<String, Object> getAccountInfo(String apiKey, String secretKey);
+    CompletableFuture<Map<String, Object>> getAccountInfo(String apiKey, String secretKey);
 
     /**
      * Places a market order on Binance
@@ -29,9 +30,9 @@ public interface BinanceAccountServiceInterface {
      * @param type          Order type (e.g., "MARKET")
      * @param quantity      The quantity to trade
      * @param quantityType  The quantity type (e.g., QUANTITY, QUOTE_ORDER_QTY)
-     * @return Response from Binance API
+     * @return Future of the response from Binance API or error response, never completed exceptionally
      */
-    Map<String, Object> placeMarketOrder(
+    CompletableFuture<Map<String, Object>> placeMarketOrder(
             String apiKey,
             String secretKey,
             String symbol,
@@ -1,6 +1,9 @@
 package ehe_server.service.intf.binance;
 
-import org.springframework.http.ResponseEntity;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.Bar;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for Binance API communication
@@ -8,16 +11,16 @@ import org.springframework.http.ResponseEntity;
 public interface BinanceApiClientInterface {
 
     /**
-     * Retrieves kline/candlestick data from Binance
+     * Retrieves kline/candlestick data from Binance without blocking the caller
      *
      * @param symbol    Trading pair symbol
      * @param interval  Time interval (e.g., "1m", "5m", "1h")
      * @param startTime Start time in milliseconds (optional)
      * @param endTime   End time in milliseconds (optional)
      * @param limit     Number of candles to retrieve (optional, max 1000)
-     * @return Response containing kline data
+     * @return Future of the decoded klines in response order
      */
-    ResponseEntity<String> getKlines(
+    CompletableFuture<List<Bar>> getKlines(
             String symbol,
             String interval,
             Long startTime,
@@ -2,8 +2,9 @@ package ehe_server.service.intf.binance;
 
 import ehe_server.entity.MarketCandle;
 import ehe_server.entity.PlatformStock;
-import com.fasterxml.jackson.databind.JsonNode;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.StreamMessage;
 
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -28,10 +29,20 @@ public interface BinanceCandleServiceInterface {
     void saveCandleBatch(PlatformStock stock, List<MarketCandle> candles);
 
     /**
-     * Processes real-time candle data from WebSocket
+     * Converts a decoded real-time kline from WebSocket and queues it for writing,
+     * the candle is written and aggregated by a pipeline worker
      *
-     * @param candleData The candle data from WebSocket
+     * @param klineMessage The decoded kline message from WebSocket
      * @param stock      The platform stock entity
      */
-    void processRealtimeCandle(JsonNode candleData, PlatformStock stock);
-}
\ No newline at end of file
+    void processRealtimeCandle(StreamMessage klineMessage, PlatformStock stock);
+
+    /**
+     * Refetches the minute candles of an interval the live stream missed, e.g. while reconnecting
+     *
+     * @param symbol The trading pair symbol
+     * @param from   Start of the missed interval, inclusive
+     * @param to     End of the missed interval, exclusive
+     */
+    void fillGap(String symbol, Instant from, Instant to);
+}
@@ -1,5 +1,8 @@
 package ehe_server.service.intf.binance;
 
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface.BackfillProgress;
+
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -13,7 +16,7 @@ public interface BinanceDataInitializationServiceInterface {
     void initializeDataAsync();
 
     /**
-     * Sets up a symbol: sync historical data, then add to live WebSocket
+     * Sets up a symbol: queue its historical data sync, then add it to the live WebSocket
      *
      * @param symbol The trading pair symbol
      */
@@ -50,4 +53,11 @@ public interface BinanceDataInitializationServiceInterface {
      * @return true if syncing, false otherwise
      */
     boolean isSyncing(String symbol);
+
+    /**
+     * Get historical backfill progress of every scheduled symbol
+     *
+     * @return Progress per symbol, oldest scheduled first
+     */
+    List<BackfillProgress> getBackfillProgress();
 }
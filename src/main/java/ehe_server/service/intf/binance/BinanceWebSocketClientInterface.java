@@ -1,7 +1,8 @@
 package ehe_server.service.intf.binance;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.StreamMessage;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -13,7 +14,7 @@ public interface BinanceWebSocketClientInterface {
 
     /**
      * Update subscriptions with a complete list of symbols
-     * This will reconnect the websocket if the symbol list changes
+     * Changes are sent on the live session, the websocket only reconnects if the session is dead
      *
      * @param symbols List of symbols to subscribe to
      */
@@ -39,7 +40,7 @@ public interface BinanceWebSocketClientInterface {
      * @param symbol  The trading pair symbol
      * @param handler Consumer to handle incoming messages
      */
-    void registerHandler(String symbol, Consumer<JsonNode> handler);
+    void registerHandler(String symbol, Consumer<StreamMessage> handler);
 
     /**
      * Unregister a message handler for a specific symbol
@@ -48,6 +49,12 @@ public interface BinanceWebSocketClientInterface {
      */
     void unregisterHandler(String symbol);
 
+    /**
+     * Starts processing the journaled bar frames, the ones an earlier run left behind first.
+     * Called once the handlers of the symbols set up at startup are registered.
+     */
+    void startReplay();
+
     /**
      * Check if WebSocket is currently connected
      *
@@ -68,4 +75,22 @@ public interface BinanceWebSocketClientInterface {
      * @return Set of subscribed symbols
      */
     Set<String> getSubscribedSymbols();
-}
\ No newline at end of file
+
+    /**
+     * Get connection state and message rate of every stream shard
+     *
+     * @return Health of each shard, ordered by shard ID
+     */
+    List<ShardHealth> getShardHealth();
+
+    record ShardHealth(
+            int shardId,
+            boolean connected,
+            int streams,
+            long messagesReceived,
+            double messagesPerSecond,
+            Instant lastMessageAt,
+            int reconnects
+    ) {
+    }
+}
@@ -0,0 +1,97 @@
+package ehe_server.service.intf.candle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+public interface BarStreamDecoderInterface {
+
+    /**
+     * Decodes an Alpaca bars response straight from the response stream.
+     * Handles both the stock format {"bars":[...]} and the crypto format {"bars":{"BTC/USD":[...]}}.
+     *
+     * @param body Response body, not closed by the decoder
+     * @param symbol Symbol whose bars are read from a crypto response
+     * @return Bars of the page and the token of the next page, null on the last page
+     */
+    BarPage decodeAlpacaBarPage(InputStream body, String symbol) throws IOException;
+
+    /**
+     * Decodes an Alpaca multi-symbol bars response {"bars":{"AAPL":[...],"MSFT":[...]}} straight from the response stream.
+     *
+     * @param body Response body, not closed by the decoder
+     * @return Bars of the page per symbol and the token of the next page, null on the last page
+     */
+    MultiBarPage decodeAlpacaMultiBarPage(InputStream body) throws IOException;
+
+    /**
+     * Decodes a Binance klines response ([[openTime, "open", "high", ...], ...]) straight from the response stream.
+     *
+     * @param body Response body, not closed by the decoder
+     * @return Bars in response order
+     */
+    List<Bar> decodeBinanceKlines(InputStream body) throws IOException;
+
+    /**
+     * Decodes an Alpaca WebSocket frame, which is an array of messages.
+     *
+     * @param payload Frame text
+     * @return One message per element, empty if the frame is not an array
+     */
+    List<StreamMessage> decodeAlpacaFrame(String payload) throws IOException;
+
+    /**
+     * Decodes a Binance WebSocket frame, raw or wrapped in a combined stream envelope.
+     *
+     * @param payload Frame text
+     * @return The kline event, the subscription response (type "result", code = request ID) or the event type
+     */
+    StreamMessage decodeBinanceFrame(String payload) throws IOException;
+
+    /**
+     * One bar with prices and volume scaled by FixedPoint.SCALE
+     */
+    record Bar(
+            long openTimeMillis,
+            long open,
+            long high,
+            long low,
+            long close,
+            long volume
+    ) {
+    }
+
+    record BarPage(
+            List<Bar> bars,
+            String nextPageToken
+    ) {
+    }
+
+    /**
+     * A page of a multi-symbol request. A page may end inside the bars of a symbol,
+     * the next page continues with the rest of them.
+     */
+    record MultiBarPage(
+            Map<String, List<Bar>> barsBySymbol,
+            String nextPageToken
+    ) {
+    }
+
+    /**
+     * Decoded WebSocket message. Bar messages carry symbol, bar and the closed flag,
+     * control messages their text and code.
+     */
+    record StreamMessage(
+            String type,
+            String symbol,
+            Bar bar,
+            boolean closed,
+            String message,
+            long code
+    ) {
+        public boolean isBar() {
+            return bar != null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ehe_server.service.intf.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.PlatformStock;
+
+import java.util.List;
+
+public interface CandleAggregationServiceInterface {
+
+    /**
+     * Folds persisted minute candles into the M5, M15, H1, H4 and D1 candles of a stock
+     * and upserts every touched higher timeframe candle once.
+     * The minute candles must already be written in the current transaction.
+     *
+     * @param stock Platform stock the candles belong to
+     * @param minuteCandles New or revised M1 candles
+     */
+    void aggregate(PlatformStock stock, List<MarketCandle> minuteCandles);
+
+    /**
+     * Drops the in-memory open buckets of a stock, so the next candle rebuilds them from the database.
+     * Must be called after candles of the stock were written without going through this service.
+     *
+     * @param platformStockId Platform stock ID
+     */
+    void invalidate(Integer platformStockId);
+}
@@ -0,0 +1,54 @@
+package ehe_server.service.intf.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.PlatformStock;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface CandleBulkLoaderInterface {
+
+    /**
+     * Opens a new bulk load. Pages of minute candles are staged under the returned ID
+     * and only reach market_candle when the load is completed.
+     *
+     * @return ID of the load
+     */
+    UUID startLoad();
+
+    /**
+     * Streams a page of minute candles into the unlogged staging table with COPY.
+     *
+     * @param loadId ID returned by startLoad
+     * @param minuteCandles M1 candles, only their timestamp and OHLCV values are read
+     * @return Number of rows copied
+     */
+    long stageCandles(UUID loadId, List<MarketCandle> minuteCandles);
+
+    /**
+     * Merges every staged candle of the load into market_candle, builds the M5..D1 candles of the
+     * loaded range with one set-based pass per timeframe and clears the staging rows.
+     *
+     * @param loadId ID returned by startLoad
+     * @param stock Platform stock the candles belong to
+     * @return Row counts of the merge and the time it took
+     */
+    BulkLoadResult completeLoad(UUID loadId, PlatformStock stock);
+
+    /**
+     * Drops the staged rows of a load without merging them.
+     *
+     * @param loadId ID returned by startLoad
+     */
+    void discardLoad(UUID loadId);
+
+    record BulkLoadResult(
+            int minuteRows,
+            int aggregatedRows,
+            long elapsedNanos
+    ) {
+        public long elapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ehe_server.service.intf.candle;
+
+import ehe_server.entity.PlatformStock;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface.GapFiller;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface CandleGapDetectorInterface {
+
+    /**
+     * Finds the missing minute ranges of a platform stock stored since its last verified watermark.
+     * Gaps that lie close together are merged into one range.
+     *
+     * @param stock Platform stock to scan
+     * @param sessionOnly true for symbols that only trade in the regular session
+     * @return Missing ranges in time order
+     */
+    List<GapRange> findGaps(PlatformStock stock, boolean sessionOnly);
+
+    /**
+     * Refetches the missing ranges of a platform stock and moves its watermark past every range
+     * that was repaired, so the next run only scans what was stored since.
+     *
+     * @param stock Platform stock to repair
+     * @param sessionOnly true for symbols that only trade in the regular session
+     * @param gapFiller Refetches one range through the REST client of the exchange
+     * @return Number of ranges repaired
+     */
+    int repairGaps(PlatformStock stock, boolean sessionOnly, GapFiller gapFiller);
+
+    record GapRange(
+            Instant from,
+            // Exclusive
+            Instant to
+    ) {
+    }
+}
@@ -0,0 +1,18 @@
+package ehe_server.service.intf.candle;
+
+public interface CandlePartitionMaintenanceInterface {
+
+    /**
+     * Creates the market_candle partitions of the coming months and of rows that landed in a default partition.
+     *
+     * @return Number of partitions created
+     */
+    int ensurePartitions();
+
+    /**
+     * Drops the minute candle partitions older than the configured retention, nothing when it is 0.
+     *
+     * @return Number of partitions dropped
+     */
+    int dropExpiredMinutePartitions();
+}
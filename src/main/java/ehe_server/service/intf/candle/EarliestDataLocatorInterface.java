@@ -0,0 +1,30 @@
+package ehe_server.service.intf.candle;
+
+import ehe_server.entity.PlatformStock;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface EarliestDataLocatorInterface {
+
+    /**
+     * Finds the first minute bar an exchange has for a platform stock. A cached listing date is
+     * returned without any request; otherwise the exchange is probed and the result is cached.
+     *
+     * @param stock Platform stock to locate
+     * @param now Newest point of the search
+     * @param probe Returns the first bar of a window
+     * @return Timestamp of the first available bar, empty if the exchange has none
+     */
+    Optional<Instant> findEarliestAvailableData(PlatformStock stock, Instant now, FirstBarProbe probe);
+
+    @FunctionalInterface
+    interface FirstBarProbe {
+        /**
+         * @param from Inclusive window start
+         * @param to Exclusive window end
+         * @return Timestamp of the first bar inside the window, empty if the window has none
+         */
+        Optional<Instant> firstBarIn(Instant from, Instant to) throws Exception;
+    }
+}
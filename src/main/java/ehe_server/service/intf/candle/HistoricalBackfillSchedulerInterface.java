@@ -0,0 +1,69 @@
+package ehe_server.service.intf.candle;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface HistoricalBackfillSchedulerInterface {
+
+    /**
+     * Queues the historical backfill of a symbol on the bounded backfill worker pool.
+     * The follow-up runs on the same worker right after a successful backfill, so the symbol
+     * can go live without waiting for the other symbols.
+     *
+     * @param platformName Platform the symbol belongs to
+     * @param symbol Trading symbol
+     * @param backfill Historical sync of the symbol
+     * @param onComplete Follow-up after a successful backfill, e.g. starting the live stream
+     * @return false if a backfill of the symbol is already queued or running
+     */
+    boolean schedule(String platformName, String symbol, Runnable backfill, Runnable onComplete);
+
+    /**
+     * Adds fetched candles to the progress of a running backfill.
+     *
+     * @param platformName Platform the symbol belongs to
+     * @param symbol Trading symbol
+     * @param candles Number of candles fetched since the last call
+     */
+    void recordFetchedCandles(String platformName, String symbol, int candles);
+
+    /**
+     * @param platformName Platform the symbol belongs to
+     * @param symbol Trading symbol
+     * @return true if a backfill of the symbol is queued or running
+     */
+    boolean isBackfilling(String platformName, String symbol);
+
+    /**
+     * @param platformName Platform the symbol belongs to
+     * @param symbol Trading symbol
+     * @return Progress of the latest backfill of the symbol, empty if it was never scheduled
+     */
+    Optional<BackfillProgress> getProgress(String platformName, String symbol);
+
+    /**
+     * @param platformName Platform to list
+     * @return Progress of the latest backfill of every scheduled symbol of the platform
+     */
+    List<BackfillProgress> getProgress(String platformName);
+
+    enum BackfillStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    record BackfillProgress(
+            String platformName,
+            String symbol,
+            BackfillStatus status,
+            long candlesFetched,
+            Instant queuedAt,
+            Instant startedAt,
+            Instant finishedAt,
+            String error
+    ) {
+    }
+}
@@ -0,0 +1,98 @@
+package ehe_server.service.intf.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.MarketCandle.Timeframe;
+import ehe_server.entity.PlatformStock;
+import ehe_server.service.candle.CandleSeries;
+import ehe_server.service.candle.FixedPoint;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface HotCandleCacheInterface {
+
+    /**
+     * @return Newest candle of the series, empty if the series has no candles
+     */
+    Optional<CachedCandle> getLatest(Integer platformStockId, Timeframe timeframe);
+
+    /**
+     * Candles between both timestamps, inclusive, in ascending order. Ranges inside the cached window
+     * are copied from it without touching the database, older ranges are read from it.
+     */
+    CandleSeries getSeries(Integer platformStockId, Timeframe timeframe, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * @return The candle that opens at the timestamp, empty if there is none
+     */
+    Optional<CachedCandle> getAt(Integer platformStockId, Timeframe timeframe, LocalDateTime timestamp);
+
+    /**
+     * Applies written candles of any timeframe once the current transaction commits, right away without one.
+     * A candle that does not fit the cached window, e.g. a late historical insert, drops the series
+     * so it is reloaded with the shifted sequence numbers.
+     */
+    void recordWritten(Integer platformStockId, List<MarketCandle> candles);
+
+    /**
+     * Drops every series of a platform stock, now and again after the current transaction completes.
+     */
+    void invalidate(Integer platformStockId);
+
+    /**
+     * Prices and volume scaled like FixedPoint, the BigDecimal accessors convert them.
+     */
+    record CachedCandle(
+            Timeframe timeframe,
+            LocalDateTime timestamp,
+            long scaledOpen,
+            long scaledHigh,
+            long scaledLow,
+            long scaledClose,
+            long scaledVolume,
+            long sequence
+    ) {
+        public BigDecimal openPrice() {
+            return FixedPoint.toBigDecimal(scaledOpen);
+        }
+
+        public BigDecimal highPrice() {
+            return FixedPoint.toBigDecimal(scaledHigh);
+        }
+
+        public BigDecimal lowPrice() {
+            return FixedPoint.toBigDecimal(scaledLow);
+        }
+
+        public BigDecimal closePrice() {
+            return FixedPoint.toBigDecimal(scaledClose);
+        }
+
+        public BigDecimal volume() {
+            return FixedPoint.toBigDecimal(scaledVolume);
+        }
+
+        public boolean valuesEqual(long open, long high, long low, long close, long volume) {
+            return scaledOpen == open && scaledHigh == high && scaledLow == low
+                    && scaledClose == close && scaledVolume == volume;
+        }
+
+        /**
+         * @return Detached candle for code that works with entities, it has no ID
+         */
+        public MarketCandle toMarketCandle(PlatformStock platformStock) {
+            MarketCandle candle = new MarketCandle();
+            candle.setPlatformStock(platformStock);
+            candle.setTimeframe(timeframe);
+            candle.setTimestamp(timestamp);
+            candle.setOpenPrice(openPrice());
+            candle.setHighPrice(highPrice());
+            candle.setLowPrice(lowPrice());
+            candle.setClosePrice(closePrice());
+            candle.setVolume(volume());
+            return candle;
+        }
+    }
+}
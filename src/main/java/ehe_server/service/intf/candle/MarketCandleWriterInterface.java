@@ -0,0 +1,31 @@
+package ehe_server.service.intf.candle;
+
+import ehe_server.entity.MarketCandle;
+
+import java.util.List;
+
+public interface MarketCandleWriterInterface {
+
+    /**
+     * Upserts candles of one platform stock with multi-row INSERT ... ON CONFLICT statements.
+     * Candles may mix timeframes, the last candle wins for a duplicated timeframe and timestamp.
+     *
+     * @param platformStockId Platform stock ID the candles belong to
+     * @param candles Candles to write, only their timeframe, timestamp and OHLCV values are read
+     * @return Number of rows sent and the time it took
+     */
+    UpsertResult upsertCandles(Integer platformStockId, List<MarketCandle> candles);
+
+    record UpsertResult(
+            int rows,
+            long elapsedNanos
+    ) {
+        public long elapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public long rowsPerSecond() {
+            return elapsedNanos > 0 ? rows * 1_000_000_000L / elapsedNanos : rows;
+        }
+    }
+}
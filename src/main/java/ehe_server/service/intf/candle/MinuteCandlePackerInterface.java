@@ -0,0 +1,20 @@
+package ehe_server.service.intf.candle;
+
+import java.time.LocalDateTime;
+
+public interface MinuteCandlePackerInterface {
+
+    /**
+     * Unpacks the packed minute days of a stock from the day of the earliest written minute on, so the
+     * write lands among rows. Has to run in the transaction of the write, which then holds the series lock.
+     * Writes newer than every packed day return without touching the database.
+     */
+    void prepareMinuteWrite(Integer platformStockId, LocalDateTime earliestMinute);
+
+    /**
+     * Packs the settled minute days of every stock into one bucket row per stock and day.
+     *
+     * @return Number of days packed
+     */
+    int packSettledMinutes();
+}
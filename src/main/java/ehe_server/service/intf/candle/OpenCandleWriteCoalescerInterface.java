@@ -0,0 +1,32 @@
+package ehe_server.service.intf.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.PlatformStock;
+
+public interface OpenCandleWriteCoalescerInterface {
+
+    /**
+     * Forwards a live minute candle to the realtime pipeline unless it would not change anything.
+     * Pushes with the same OHLCV as the last forwarded version are dropped, and pushes of a still
+     * open candle are held back so it is written at most once per configured interval.
+     * A closed candle, or the first push of the next minute, flushes right away.
+     *
+     * @param stock Platform stock the candle belongs to
+     * @param minuteCandle Latest version of the M1 candle
+     * @param closed true if the exchange marked the candle as final
+     */
+    void offer(PlatformStock stock, MarketCandle minuteCandle, boolean closed);
+
+    /**
+     * @return Counts of forwarded, unchanged and coalesced pushes and of candles waiting for their interval
+     */
+    CoalescerStats getStats();
+
+    record CoalescerStats(
+            long forwarded,
+            long unchanged,
+            long coalesced,
+            int pending
+    ) {
+    }
+}
@@ -0,0 +1,42 @@
+package ehe_server.service.intf.candle;
+
+import ehe_server.entity.MarketCandle;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface RangeSplitBackfillServiceInterface {
+
+    /**
+     * Fetches [start, end) of one symbol as concurrent page requests over disjoint windows.
+     * Windows whose pages come back full are split further while workers are idle, so dense
+     * stretches get more parallelism and empty ones (weekends, pre-listing) finish in one request.
+     * Pages reach the sink out of order and from several threads.
+     *
+     * @param symbol Trading symbol, used for logging
+     * @param start Inclusive start of the range
+     * @param end Exclusive end of the range
+     * @param pageFetcher Fetches the first page of candles of a window
+     * @param candleSink Receives every fetched page, must be thread-safe
+     * @return Number of candles fetched
+     */
+    long fetchRange(String symbol, Instant start, Instant end,
+                    RangePageFetcher pageFetcher, Consumer<List<MarketCandle>> candleSink);
+
+    @FunctionalInterface
+    interface RangePageFetcher {
+        /**
+         * @param from Inclusive window start
+         * @param to Exclusive window end
+         * @return Candles from the start of the window in ascending order, and whether the window has more
+         */
+        RangePage fetchPage(Instant from, Instant to) throws Exception;
+    }
+
+    record RangePage(
+            List<MarketCandle> candles,
+            boolean hasMore
+    ) {
+    }
+}
@@ -0,0 +1,58 @@
+package ehe_server.service.intf.candle;
+
+import java.util.List;
+
+public interface RawFrameJournalInterface {
+
+    /**
+     * Opens the journal of a stream. Frames are appended from now on, but none is handed to the
+     * consumer before startReplay, so the frames an earlier run left behind wait for their consumers.
+     * Does nothing if journaling is disabled.
+     *
+     * @param streamName Name of the stream, also the name of its directory
+     * @param consumer Decodes a frame and processes its bars, called on the journal reader thread
+     */
+    void open(String streamName, FrameConsumer consumer);
+
+    /**
+     * Starts the reader of an open journal, beginning with the frames after the last committed offset.
+     * Later calls do nothing.
+     *
+     * @param streamName Name of the stream
+     */
+    void startReplay(String streamName);
+
+    /**
+     * Appends a raw frame without decoding or processing it.
+     *
+     * @param streamName Stream the frame arrived on
+     * @param frame Frame as received
+     * @return false if the stream is not journaled, the caller then processes the frame itself
+     */
+    boolean append(String streamName, String frame);
+
+    /**
+     * @return Offsets and replays of every open journal
+     */
+    List<JournalStats> getStats();
+
+    @FunctionalInterface
+    interface FrameConsumer {
+        /**
+         * @return false if a bar of the frame has no consumer yet, the reader then holds the frame back
+         * and offers it again instead of moving past it
+         */
+        boolean accept(String frame) throws Exception;
+    }
+
+    record JournalStats(
+            String streamName,
+            int segments,
+            long appendedFrames,
+            long appendOffset,
+            long dispatchedOffset,
+            long committedOffset,
+            long replays
+    ) {
+    }
+}
@@ -0,0 +1,71 @@
+package ehe_server.service.intf.candle;
+
+import ehe_server.entity.MarketCandle;
+import ehe_server.entity.PlatformStock;
+
+import java.util.List;
+
+public interface RealtimeCandlePipelineInterface {
+
+    /**
+     * Queues a live minute candle for writing and aggregation without touching the database.
+     * Candles of the same stock always land on the same worker and are written in arrival order.
+     *
+     * @param stock Platform stock the candle belongs to
+     * @param minuteCandle New or revised M1 candle
+     * @return false if the candle was dropped because the queue was full and the policy is DROP_NEWEST
+     */
+    boolean submit(PlatformStock stock, MarketCandle minuteCandle);
+
+    /**
+     * @return Position after the last candle queued so far on every worker
+     */
+    WriteMark mark();
+
+    /**
+     * @param mark Position taken with {@link #mark()}
+     * @return true once every candle queued before the mark has been written, failed or dropped
+     */
+    boolean isWritten(WriteMark mark);
+
+    /**
+     * @return Candles dropped from a full queue or lost to a failed write so far
+     */
+    long getLostCandles();
+
+    /**
+     * @return false if the latest batch of any worker could not be written
+     */
+    boolean isLastWriteSuccessful();
+
+    /**
+     * @return true while a worker queue is more than half full, so replays can hold back
+     */
+    boolean isBacklogged();
+
+    /**
+     * @return Queue depth, throughput, drops and end-to-end lag of every worker
+     */
+    List<WorkerStats> getStats();
+
+    record WriteMark(
+            // Candles queued per worker, indexed by worker
+            long[] enqueued
+    ) {
+    }
+
+    record WorkerStats(
+            int worker,
+            int queueDepth,
+            int queueCapacity,
+            long enqueued,
+            long dropped,
+            long batchesWritten,
+            long candlesWritten,
+            long failedBatches,
+            int lastBatchSize,
+            long lastLagMillis,
+            long maxLagMillis
+    ) {
+    }
+}
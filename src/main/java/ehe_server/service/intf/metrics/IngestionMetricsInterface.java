@@ -0,0 +1,44 @@
+package ehe_server.service.intf.metrics;
+
+public interface IngestionMetricsInterface {
+
+    /**
+     * Counts a text frame received on a market data stream.
+     *
+     * @param feed Stream the frame came from, e.g. "alpaca" or "binance"
+     */
+    void recordStreamMessage(String feed);
+
+    /**
+     * Counts a live bar of a symbol. Only the first symbols up to the configured limit get their own series.
+     */
+    void recordStreamBar(String platformName, String symbol);
+
+    /**
+     * Counts candles fetched by the historical sync.
+     */
+    void recordBackfillCandles(String platformName, int candles);
+
+    /**
+     * @param lagMillis Time from the close of a minute until its candle was committed
+     */
+    void recordCommitLag(long lagMillis);
+
+    void recordDatabaseTime(DatabaseOperation operation, long nanos);
+
+    /**
+     * @param endpoint Short fixed name of the endpoint, never a URL with parameters
+     * @param statusCode HTTP status of the response
+     */
+    void recordRestRequest(String platformName, String endpoint, int statusCode, long nanos);
+
+    /**
+     * @param lane Request budget lane the request waited in
+     */
+    void recordBudgetWait(String platformName, String lane, long nanos);
+
+    enum DatabaseOperation {
+        UPSERT,
+        AGGREGATION
+    }
+}
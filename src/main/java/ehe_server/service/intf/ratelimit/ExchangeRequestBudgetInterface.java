@@ -0,0 +1,90 @@
+package ehe_server.service.intf.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface ExchangeRequestBudgetInterface {
+
+    /**
+     * Takes budget for a request without blocking the caller. The future completes once the
+     * request may be sent, on a budget thread if it had to wait.
+     * The budget is shared by every caller of the exchange, regardless of symbol or thread.
+     *
+     * @param platformName Exchange the request goes to, e.g. "Binance"
+     * @param limitClass Exchange limit the request counts against
+     * @param weight Budget units the request costs
+     * @param lane INTERACTIVE for user-facing calls, which are never queued behind BACKGROUND ones
+     * @return Future that completes when the budget is granted
+     */
+    CompletableFuture<Void> acquire(String platformName, LimitClass limitClass, int weight, Lane lane);
+
+    /**
+     * Takes budget from the bucket of one exchange account, for limits the exchange enforces per API key
+     * or per account rather than per IP. Every account gets its own bucket with the configured limit,
+     * so one user's requests never hold back another user's or the shared data requests.
+     *
+     * @param accountKey API key the request is signed with
+     * @see #acquire(String, LimitClass, int, Lane)
+     */
+    CompletableFuture<Void> acquireForAccount(String platformName, String accountKey, LimitClass limitClass,
+                                              int weight, Lane lane);
+
+    /**
+     * Aligns the request weight budget with the usage reported by the exchange itself,
+     * so requests made outside this budget are accounted for as well.
+     *
+     * @param platformName Exchange that reported the usage
+     * @param usedWeight Weight used in the current minute according to the exchange
+     */
+    void recordReportedUsage(String platformName, int usedWeight);
+
+    /**
+     * Holds back every request to the exchange after it answered with a rate limit response
+     *
+     * @param platformName Exchange that rejected the request
+     * @param retryAfterMs Time the exchange asked to wait
+     */
+    void recordRetryAfter(String platformName, long retryAfterMs);
+
+    /**
+     * Learns from a response of the exchange: the usage it reports in its headers
+     * and, for rate limit responses, how long it asked to wait.
+     *
+     * @param platformName Exchange that answered
+     * @param statusCode HTTP status of the response
+     * @param headers Response headers
+     */
+    void recordResponse(String platformName, int statusCode, HttpHeaders headers);
+
+    /**
+     * @return State of every shared bucket that has been used so far, account buckets grow with the users and are left out
+     */
+    List<BucketStats> getStats();
+
+    enum LimitClass {
+        // Weight of every request, the per-minute limit of the exchange
+        REQUEST_WEIGHT,
+        // Order placements, limited separately on top of their request weight
+        ORDERS
+    }
+
+    enum Lane {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    record BucketStats(
+            String platformName,
+            LimitClass limitClass,
+            int perMinute,
+            int capacity,
+            double availableTokens,
+            int queuedBackground,
+            long grantedInteractive,
+            long grantedBackground,
+            long delayed
+    ) {
+    }
+}
@@ -0,0 +1,27 @@
+package ehe_server.service.intf.simulator;
+
+import java.time.Instant;
+
+public interface ExchangeSimulatorInterface {
+
+    /**
+     * @return Simulated exchange time, catches up with the wall clock by the time compression and never passes it
+     */
+    Instant now();
+
+    /**
+     * @return Requests, sessions and bars served so far
+     */
+    SimulatorStats getStats();
+
+    record SimulatorStats(
+            Instant simulatedTime,
+            int streamSessions,
+            int subscribedSymbols,
+            long restRequests,
+            long restBars,
+            long streamFrames,
+            long streamBars
+    ) {
+    }
+}
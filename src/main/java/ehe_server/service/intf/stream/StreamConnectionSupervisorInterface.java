@@ -0,0 +1,97 @@
+package ehe_server.service.intf.stream;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+public interface StreamConnectionSupervisorInterface {
+
+    /**
+     * Registers a WebSocket connection with the supervisor, which from then on owns its connect
+     * and reconnect cycle. Registering an existing key replaces its connector.
+     *
+     * @param streamKey Unique name of the connection, e.g. "alpaca-stock" or "binance-shard-0"
+     * @param platformName Platform whose gap filler repairs the missed interval after a reconnect
+     * @param connector Starts connections and reports the symbols of the connection
+     */
+    void register(String streamKey, String platformName, StreamConnector connector);
+
+    /**
+     * Starts a connect attempt right away unless the connection is already connected or connecting.
+     *
+     * @param streamKey Key the connection was registered with
+     */
+    void requestConnect(String streamKey);
+
+    /**
+     * Reports a connection as ready, i.e. subscribed and receiving. Resets the backoff and,
+     * if the connection was lost before, requests a gap fill for the missed interval.
+     *
+     * @param streamKey Key the connection was registered with
+     */
+    void connectionReady(String streamKey);
+
+    /**
+     * Reports a lost connection. A reconnect is scheduled with jittered exponential backoff
+     * as long as the connector still wants a connection.
+     *
+     * @param streamKey Key the connection was registered with
+     */
+    void connectionLost(String streamKey);
+
+    /**
+     * Cancels any pending reconnect of a connection that was closed on purpose.
+     *
+     * @param streamKey Key the connection was registered with
+     */
+    void stop(String streamKey);
+
+    /**
+     * Registers the REST backfill that repairs the interval a connection of the platform missed.
+     *
+     * @param platformName Platform name as used in register
+     * @param gapFiller Fetches and stores the candles of a symbol for the missed interval
+     */
+    void registerGapFiller(String platformName, GapFiller gapFiller);
+
+    /**
+     * @return Connection state of every registered connection
+     */
+    List<StreamConnectionStatus> getStatus();
+
+    interface StreamConnector {
+
+        /**
+         * Starts a connection without blocking. The future completes once the handshake is done.
+         */
+        CompletableFuture<?> connect();
+
+        /**
+         * @return Symbols currently assigned to the connection, reconnects stop when it is empty
+         */
+        Set<String> symbols();
+    }
+
+    @FunctionalInterface
+    interface GapFiller {
+        void fillGap(String symbol, Instant from, Instant to);
+    }
+
+    enum ConnectionState {
+        IDLE,
+        CONNECTING,
+        CONNECTED,
+        BACKOFF
+    }
+
+    record StreamConnectionStatus(
+            String streamKey,
+            String platformName,
+            ConnectionState state,
+            int failedAttempts,
+            Instant disconnectedAt,
+            Instant nextAttemptAt
+    ) {
+    }
+}
@@ -0,0 +1,224 @@
+package ehe_server.service.metrics;
+
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface;
+import ehe_server.service.intf.candle.HistoricalBackfillSchedulerInterface.BackfillStatus;
+import ehe_server.service.intf.candle.OpenCandleWriteCoalescerInterface;
+import ehe_server.service.intf.candle.OpenCandleWriteCoalescerInterface.CoalescerStats;
+import ehe_server.service.intf.candle.RawFrameJournalInterface;
+import ehe_server.service.intf.candle.RawFrameJournalInterface.JournalStats;
+import ehe_server.service.intf.candle.RealtimeCandlePipelineInterface;
+import ehe_server.service.intf.candle.RealtimeCandlePipelineInterface.WorkerStats;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.BucketStats;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface.LimitClass;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface.ConnectionState;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface.StreamConnectionStatus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the counters the ingestion components keep themselves as meters read at scrape time,
+ * so the components need no knowledge of the registry.
+ */
+@Service
+public class IngestionMeterBinder implements MeterBinder {
+
+    private static final List<String> PLATFORMS = List.of("Alpaca", "Binance");
+    private static final long SERIES_CHECK_INTERVAL_MS = 60_000;
+
+    private final RealtimeCandlePipelineInterface realtimeCandlePipeline;
+    private final OpenCandleWriteCoalescerInterface openCandleWriteCoalescer;
+    private final RawFrameJournalInterface rawFrameJournal;
+    private final ExchangeRequestBudgetInterface exchangeRequestBudget;
+    private final StreamConnectionSupervisorInterface streamConnectionSupervisor;
+    private final HistoricalBackfillSchedulerInterface backfillScheduler;
+
+    private volatile MeterRegistry meterRegistry;
+
+    public IngestionMeterBinder(
+            RealtimeCandlePipelineInterface realtimeCandlePipeline,
+            OpenCandleWriteCoalescerInterface openCandleWriteCoalescer,
+            RawFrameJournalInterface rawFrameJournal,
+            ExchangeRequestBudgetInterface exchangeRequestBudget,
+            StreamConnectionSupervisorInterface streamConnectionSupervisor,
+            HistoricalBackfillSchedulerInterface backfillScheduler) {
+        this.realtimeCandlePipeline = realtimeCandlePipeline;
+        this.openCandleWriteCoalescer = openCandleWriteCoalescer;
+        this.rawFrameJournal = rawFrameJournal;
+        this.exchangeRequestBudget = exchangeRequestBudget;
+        this.streamConnectionSupervisor = streamConnectionSupervisor;
+        this.backfillScheduler = backfillScheduler;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        bindCoalescer(registry);
+        bindBackfill(registry);
+        registerSeries();
+    }
+
+    // Journals, request budgets and streams show up at runtime, registering an existing meter is a no-op
+    @Scheduled(fixedRate = SERIES_CHECK_INTERVAL_MS)
+    public void registerSeries() {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            return;
+        }
+
+        bindPipeline(registry);
+        bindJournals(registry);
+        bindRequestBudget(registry);
+        bindStreams(registry);
+    }
+
+    private void bindPipeline(MeterRegistry registry) {
+        for (WorkerStats stats : realtimeCandlePipeline.getStats()) {
+            int worker = stats.worker();
+            Tags tags = Tags.of("worker", String.valueOf(worker));
+
+            gauge(registry, "ingestion.pipeline.queue.depth", "Candles queued per realtime worker", tags,
+                    () -> workerValue(worker, WorkerStats::queueDepth));
+            gauge(registry, "ingestion.pipeline.queue.capacity", "Queue capacity per realtime worker", tags,
+                    () -> workerValue(worker, WorkerStats::queueCapacity));
+            counter(registry, "ingestion.pipeline.candles.written", "Candles written per realtime worker", tags,
+                    () -> workerValue(worker, WorkerStats::candlesWritten));
+            counter(registry, "ingestion.pipeline.candles.dropped", "Candles dropped from a full realtime queue", tags,
+                    () -> workerValue(worker, WorkerStats::dropped));
+            counter(registry, "ingestion.pipeline.failed.batches", "Realtime stock batches that could not be written", tags,
+                    () -> workerValue(worker, WorkerStats::failedBatches));
+            TimeGauge.builder("ingestion.pipeline.queue.lag", () -> workerValue(worker, WorkerStats::lastLagMillis),
+                            TimeUnit.MILLISECONDS)
+                    .description("Time the oldest candle of the last batch waited in the queue")
+                    .tags(tags)
+                    .register(registry);
+        }
+    }
+
+    private void bindCoalescer(MeterRegistry registry) {
+        String description = "Open candle updates by what the coalescer did with them";
+        counter(registry, "ingestion.open.candle.updates", description, Tags.of("result", "forwarded"),
+                () -> openCandleWriteCoalescer.getStats().forwarded());
+        counter(registry, "ingestion.open.candle.updates", description, Tags.of("result", "unchanged"),
+                () -> openCandleWriteCoalescer.getStats().unchanged());
+        counter(registry, "ingestion.open.candle.updates", description, Tags.of("result", "coalesced"),
+                () -> openCandleWriteCoalescer.getStats().coalesced());
+
+        gauge(registry, "ingestion.open.candle.pending", "Open candles waiting for their flush", Tags.empty(),
+                () -> openCandleWriteCoalescer.getStats().pending());
+    }
+
+    private void bindJournals(MeterRegistry registry) {
+        for (JournalStats stats : rawFrameJournal.getStats()) {
+            String streamName = stats.streamName();
+            Tags tags = Tags.of("stream", streamName);
+
+            gauge(registry, "ingestion.journal.segments", "Mapped segments per raw frame journal", tags,
+                    () -> journalValue(streamName, JournalStats::segments));
+            Gauge.builder("ingestion.journal.uncommitted",
+                            () -> journalValue(streamName, journal -> journal.appendOffset() - journal.committedOffset()))
+                    .description("Journal bytes not yet confirmed as written to the database")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tags(tags)
+                    .register(registry);
+            counter(registry, "ingestion.journal.replays", "Journal replays after lost candles", tags,
+                    () -> journalValue(streamName, JournalStats::replays));
+        }
+    }
+
+    private void bindRequestBudget(MeterRegistry registry) {
+        for (BucketStats stats : exchangeRequestBudget.getStats()) {
+            String platformName = stats.platformName();
+            LimitClass limitClass = stats.limitClass();
+            Tags tags = Tags.of("platform", platformName, "limit", limitClass.name().toLowerCase());
+
+            gauge(registry, "exchange.budget.available.tokens", "Tokens left in each request budget", tags,
+                    () -> bucketValue(platformName, limitClass, BucketStats::availableTokens));
+            gauge(registry, "exchange.budget.queued.requests", "Background requests waiting for tokens", tags,
+                    () -> bucketValue(platformName, limitClass, BucketStats::queuedBackground));
+            counter(registry, "exchange.budget.delayed.requests", "Requests that could not be granted right away", tags,
+                    () -> bucketValue(platformName, limitClass, BucketStats::delayed));
+        }
+    }
+
+    private void bindStreams(MeterRegistry registry) {
+        List<String> platformNames = streamConnectionSupervisor.getStatus().stream()
+                .map(StreamConnectionStatus::platformName)
+                .distinct()
+                .toList();
+
+        for (String platformName : platformNames) {
+            for (ConnectionState state : ConnectionState.values()) {
+                gauge(registry, "ingestion.stream.connections", "Supervised stream connections by state",
+                        Tags.of("platform", platformName, "state", state.name().toLowerCase()),
+                        () -> streamConnectionSupervisor.getStatus().stream()
+                                .filter(status -> status.platformName().equals(platformName) && status.state() == state)
+                                .count());
+            }
+        }
+    }
+
+    private void bindBackfill(MeterRegistry registry) {
+        for (String platformName : PLATFORMS) {
+            for (BackfillStatus status : BackfillStatus.values()) {
+                gauge(registry, "ingestion.backfill.symbols", "Symbols of the historical sync by status",
+                        Tags.of("platform", platformName, "status", status.name().toLowerCase()),
+                        () -> backfillScheduler.getProgress(platformName).stream()
+                                .filter(progress -> progress.status() == status)
+                                .count());
+            }
+        }
+    }
+
+    private double workerValue(int worker, ToDoubleFunction<WorkerStats> value) {
+        return realtimeCandlePipeline.getStats().stream()
+                .filter(stats -> stats.worker() == worker)
+                .mapToDouble(value)
+                .findFirst()
+                .orElse(Double.NaN);
+    }
+
+    private double journalValue(String streamName, ToDoubleFunction<JournalStats> value) {
+        return rawFrameJournal.getStats().stream()
+                .filter(stats -> stats.streamName().equals(streamName))
+                .mapToDouble(value)
+                .findFirst()
+                .orElse(Double.NaN);
+    }
+
+    private double bucketValue(String platformName, LimitClass limitClass, ToDoubleFunction<BucketStats> value) {
+        return exchangeRequestBudget.getStats().stream()
+                .filter(stats -> stats.platformName().equals(platformName) && stats.limitClass() == limitClass)
+                .mapToDouble(value)
+                .findFirst()
+                .orElse(Double.NaN);
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description, Tags tags, DoubleSupplier value) {
+        Gauge.builder(name, value::getAsDouble)
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+
+    // The binder is the state object, it lives as long as the context so the counter is never collected
+    private void counter(MeterRegistry registry, String name, String description, Tags tags, DoubleSupplier value) {
+        FunctionCounter.builder(name, this, _ -> value.getAsDouble())
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+}
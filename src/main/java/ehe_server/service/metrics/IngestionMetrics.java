@@ -0,0 +1,109 @@
+package ehe_server.service.metrics;
+
+import ehe_server.service.intf.metrics.IngestionMetricsInterface;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counters and timers of the ingestion path, recorded through the meter registry and scraped from
+ * /actuator/prometheus. Tag values are bounded: feeds, platforms, endpoints and lanes are fixed sets
+ * and SymbolTagLimitFilter caps the symbols that get their own bar rate series.
+ */
+@Service
+public class IngestionMetrics implements IngestionMetricsInterface {
+
+    static final String STREAM_BARS = "ingestion.stream.bars";
+
+    private static final Duration[] LAG_BUCKETS = seconds(0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300);
+    private static final Duration[] LATENCY_BUCKETS = seconds(0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10);
+    private static final Duration[] WAIT_BUCKETS = seconds(0.001, 0.01, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60);
+
+    private final MeterRegistry meterRegistry;
+
+    public IngestionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void recordStreamMessage(String feed) {
+        Counter.builder("ingestion.stream.messages")
+                .description("Text frames received on the market data streams")
+                .tag("feed", feed)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public void recordStreamBar(String platformName, String symbol) {
+        Counter.builder(STREAM_BARS)
+                .description("Live bars received per symbol")
+                .tags("platform", platformName, "symbol", symbol)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public void recordBackfillCandles(String platformName, int candles) {
+        Counter.builder("ingestion.backfill.candles")
+                .description("Candles fetched by the historical sync")
+                .tag("platform", platformName)
+                .register(meterRegistry)
+                .increment(candles);
+    }
+
+    @Override
+    public void recordCommitLag(long lagMillis) {
+        Timer.builder("ingestion.commit.lag")
+                .description("Time from the close of a minute until its candle was committed")
+                .serviceLevelObjectives(LAG_BUCKETS)
+                .register(meterRegistry)
+                .record(Math.max(0, lagMillis), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordDatabaseTime(DatabaseOperation operation, long nanos) {
+        Timer.builder("ingestion.db.duration")
+                .description("Time spent writing and aggregating realtime candles")
+                .tag("operation", operation.name().toLowerCase())
+                .serviceLevelObjectives(LATENCY_BUCKETS)
+                .register(meterRegistry)
+                .record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRestRequest(String platformName, String endpoint, int statusCode, long nanos) {
+        Timer.builder("exchange.rest.request.duration")
+                .description("Latency of exchange REST requests until the response headers")
+                .tags("platform", platformName, "endpoint", endpoint, "status", statusClass(statusCode))
+                .serviceLevelObjectives(LATENCY_BUCKETS)
+                .register(meterRegistry)
+                .record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordBudgetWait(String platformName, String lane, long nanos) {
+        Timer.builder("exchange.budget.wait")
+                .description("Time requests waited for the exchange request budget")
+                .tags("platform", platformName, "lane", lane.toLowerCase())
+                .serviceLevelObjectives(WAIT_BUCKETS)
+                .register(meterRegistry)
+                .record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    private String statusClass(int statusCode) {
+        return statusCode >= 100 && statusCode < 600 ? (statusCode / 100) + "xx" : "error";
+    }
+
+    private static Duration[] seconds(double... bounds) {
+        Duration[] durations = new Duration[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            durations[i] = Duration.ofNanos(Math.round(bounds[i] * TimeUnit.SECONDS.toNanos(1)));
+        }
+        return durations;
+    }
+}
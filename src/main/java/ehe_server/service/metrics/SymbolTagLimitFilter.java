@@ -0,0 +1,44 @@
+package ehe_server.service.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.config.MeterFilter;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives only the first symbols up to the limit their own bar rate series, later symbols are
+ * counted under "other" so a large symbol universe cannot blow up the scrape.
+ */
+public class SymbolTagLimitFilter implements MeterFilter {
+
+    private static final String SYMBOL_TAG = "symbol";
+    private static final String OTHER_SYMBOL = "other";
+
+    private final int maxSymbolSeries;
+    private final Set<String> symbolSeries = ConcurrentHashMap.newKeySet();
+
+    public SymbolTagLimitFilter(int maxSymbolSeries) {
+        this.maxSymbolSeries = Math.max(0, maxSymbolSeries);
+    }
+
+    @Override
+    public Meter.Id map(Meter.Id id) {
+        String symbol = id.getTag(SYMBOL_TAG);
+        if (!IngestionMetrics.STREAM_BARS.equals(id.getName()) || symbol == null) {
+            return id;
+        }
+
+        String key = id.getTag("platform") + ":" + symbol;
+        if (symbolSeries.contains(key)) {
+            return id;
+        }
+
+        // Concurrent first bars may overshoot the limit by a few series, which is harmless
+        if (symbolSeries.size() < maxSymbolSeries && symbolSeries.add(key)) {
+            return id;
+        }
+        return id.withTag(Tag.of(SYMBOL_TAG, OTHER_SYMBOL));
+    }
+}
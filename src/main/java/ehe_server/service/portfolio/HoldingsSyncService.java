@@ -158,7 +158,7 @@ public class HoldingsSyncService implements HoldingsSyncServiceInterface {
         Map<String, Object> accountInfo = binanceAccountService.getAccountInfo(
                 apiKey.getApiKeyValue(),
                 apiKey.getSecretKey()
-        );
+        ).join();
 
         if (accountInfo == null || !accountInfo.containsKey(BINANCE_BALANCE_KEY)) {
             throw new BinanceApiCommunicationException();
@@ -183,7 +183,7 @@ public class HoldingsSyncService implements HoldingsSyncServiceInterface {
         Map<String, Object> accountInfo = alpacaAccountService.getAccountInfo(
                 apiKey.getApiKeyValue(),
                 apiKey.getSecretKey()
-        );
+        ).join();
 
         if (accountInfo == null) {
             throw new AlpacaApiCommunicationException();
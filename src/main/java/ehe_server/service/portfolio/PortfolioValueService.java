@@ -9,9 +9,10 @@ import ehe_server.entity.Portfolio;
 import ehe_server.exception.custom.PortfolioNotFoundException;
 import ehe_server.exception.custom.UnauthorizedPortfolioAccessException;
 import ehe_server.repository.HoldingRepository;
-import ehe_server.repository.MarketCandleRepository;
 import ehe_server.repository.PlatformStockRepository;
 import ehe_server.repository.PortfolioRepository;
+import ehe_server.service.intf.candle.HotCandleCacheInterface;
+import ehe_server.service.intf.candle.HotCandleCacheInterface.CachedCandle;
 import ehe_server.service.intf.log.LoggingServiceInterface;
 import ehe_server.service.intf.portfolio.HoldingsSyncServiceInterface;
 import ehe_server.service.intf.portfolio.PortfolioValueServiceInterface;
@@ -31,7 +32,7 @@ public class PortfolioValueService implements PortfolioValueServiceInterface {
     private final PortfolioRepository portfolioRepository;
     private final HoldingRepository holdingRepository;
     private final PlatformStockRepository platformStockRepository;
-    private final MarketCandleRepository marketCandleRepository;
+    private final HotCandleCacheInterface hotCandleCache;
     private final LoggingServiceInterface loggingService;
     private final HoldingsSyncServiceInterface holdingsSyncService;
 
@@ -44,13 +45,13 @@ public class PortfolioValueService implements PortfolioValueServiceInterface {
             PortfolioRepository portfolioRepository,
             HoldingRepository holdingRepository,
             PlatformStockRepository platformStockRepository,
-            MarketCandleRepository marketCandleRepository,
+            HotCandleCacheInterface hotCandleCache,
             LoggingServiceInterface loggingService,
             HoldingsSyncServiceInterface holdingsSyncService) {
         this.portfolioRepository = portfolioRepository;
         this.holdingRepository = holdingRepository;
         this.platformStockRepository = platformStockRepository;
-        this.marketCandleRepository = marketCandleRepository;
+        this.hotCandleCache = hotCandleCache;
         this.loggingService = loggingService;
         this.holdingsSyncService = holdingsSyncService;
     }
@@ -143,10 +144,9 @@ public class PortfolioValueService implements PortfolioValueServiceInterface {
     }
 
     private BigDecimal getLatestPrice(PlatformStock usdtPair) {
-        MarketCandle candle = marketCandleRepository
-                .findTopByPlatformStockAndTimeframeOrderByTimestampDesc(
-                        usdtPair, MarketCandle.Timeframe.M1);
-        return candle != null ? candle.getClosePrice() : BigDecimal.ZERO;
+        return hotCandleCache.getLatest(usdtPair.getPlatformStockId(), MarketCandle.Timeframe.M1)
+                .map(CachedCandle::closePrice)
+                .orElse(BigDecimal.ZERO);
     }
 
     private BigDecimal calculateTotalValue(List<HoldingDetails> holdings, BigDecimal reservedCash) {
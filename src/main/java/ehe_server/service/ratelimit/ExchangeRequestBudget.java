@@ -0,0 +1,382 @@
+package ehe_server.service.ratelimit;
+
+import ehe_server.properties.ExchangeRequestBudgetProperties;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.metrics.IngestionMetricsInterface;
+import ehe_server.service.intf.ratelimit.ExchangeRequestBudgetInterface;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One token bucket per exchange and limit class, shared by every symbol, worker and client.
+ * Limits the exchange enforces per account get one bucket per API key instead.
+ * Buckets are lock-free GCRA buckets: a single CAS on the theoretical arrival time takes tokens.
+ * Nobody sleeps on a bucket. Interactive requests reserve their slot and get a future that completes
+ * when the slot comes, background requests queue up and are released by the budget thread.
+ * Background requests never use the last part of the burst, so an interactive request always finds it free.
+ */
+@Service
+public class ExchangeRequestBudget implements ExchangeRequestBudgetInterface {
+
+    private static final long MINUTE_IN_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long DEFAULT_RETRY_AFTER_MS = 60_000;
+    private static final int TOO_MANY_REQUESTS = 429;
+    // Binance answers with 418 once an IP keeps sending after a 429
+    private static final int IP_BANNED = 418;
+
+    private final ExchangeRequestBudgetProperties budgetProperties;
+    private final LoggingServiceInterface loggingService;
+    private final IngestionMetricsInterface ingestionMetrics;
+    private final ThreadPoolTaskScheduler scheduler;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    // Keyed by platform, limit class and API key, one per user account that made a request
+    private final Map<String, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+
+    public ExchangeRequestBudget(
+            ExchangeRequestBudgetProperties budgetProperties,
+            LoggingServiceInterface loggingService,
+            IngestionMetricsInterface ingestionMetrics) {
+        this.budgetProperties = budgetProperties;
+        this.loggingService = loggingService;
+        this.ingestionMetrics = ingestionMetrics;
+
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(1);
+        taskScheduler.setThreadNamePrefix("request-budget-");
+        taskScheduler.initialize();
+        this.scheduler = taskScheduler;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        buckets.values().forEach(TokenBucket::failWaiters);
+        accountBuckets.values().forEach(TokenBucket::failWaiters);
+    }
+
+    @Override
+    public CompletableFuture<Void> acquire(String platformName, LimitClass limitClass, int weight, Lane lane) {
+        return acquire(getBucket(platformName, limitClass), platformName, weight, lane);
+    }
+
+    @Override
+    public CompletableFuture<Void> acquireForAccount(String platformName, String accountKey, LimitClass limitClass,
+                                                     int weight, Lane lane) {
+        return acquire(getAccountBucket(platformName, accountKey, limitClass), platformName, weight, lane);
+    }
+
+    private CompletableFuture<Void> acquire(TokenBucket bucket, String platformName, int weight, Lane lane) {
+        // No limit configured for this exchange and class
+        if (bucket == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> granted = lane == Lane.INTERACTIVE
+                ? bucket.acquireInteractive(weight)
+                : bucket.acquireBackground(weight);
+
+        // Immediate grants are recorded too, so the wait distribution shows how often requests wait at all
+        granted.whenComplete((_, error) -> {
+            if (error == null) {
+                ingestionMetrics.recordBudgetWait(platformName, lane.name(), System.nanoTime() - start);
+            }
+        });
+        return granted;
+    }
+
+    @Override
+    public void recordReportedUsage(String platformName, int usedWeight) {
+        TokenBucket bucket = getBucket(platformName, LimitClass.REQUEST_WEIGHT);
+        if (bucket != null) {
+            bucket.alignWithReportedUsage(usedWeight);
+        }
+    }
+
+    @Override
+    public void recordRetryAfter(String platformName, long retryAfterMs) {
+        TokenBucket bucket = getBucket(platformName, LimitClass.REQUEST_WEIGHT);
+        if (bucket != null) {
+            loggingService.logAction(platformName + " rate limit hit, holding back requests for " + retryAfterMs + " ms");
+            bucket.holdBack(TimeUnit.MILLISECONDS.toNanos(Math.max(0, retryAfterMs)));
+        }
+    }
+
+    @Override
+    public void recordResponse(String platformName, int statusCode, HttpHeaders headers) {
+        // Binance reports the weight used by this IP in the current minute
+        Integer usedWeight = parseHeader(headers, "X-MBX-USED-WEIGHT-1M");
+        if (usedWeight != null) {
+            recordReportedUsage(platformName, usedWeight);
+        }
+
+        // Alpaca reports the limit and what is left of it
+        Integer limit = parseHeader(headers, "X-RateLimit-Limit");
+        Integer remaining = parseHeader(headers, "X-RateLimit-Remaining");
+        if (limit != null && remaining != null) {
+            recordReportedUsage(platformName, limit - remaining);
+        }
+
+        if (statusCode == TOO_MANY_REQUESTS || statusCode == IP_BANNED) {
+            Integer retryAfterSeconds = parseHeader(headers, HttpHeaders.RETRY_AFTER);
+            recordRetryAfter(platformName, retryAfterSeconds != null
+                    ? TimeUnit.SECONDS.toMillis(retryAfterSeconds)
+                    : DEFAULT_RETRY_AFTER_MS);
+        }
+    }
+
+    @Override
+    public List<BucketStats> getStats() {
+        return buckets.values().stream().map(TokenBucket::toStats).toList();
+    }
+
+    private Integer parseHeader(HttpHeaders headers, String name) {
+        String value = headers.getFirst(name);
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private TokenBucket getBucket(String platformName, LimitClass limitClass) {
+        int perMinute = getPerMinute(platformName, limitClass);
+        if (perMinute <= 0 || perMinute == Integer.MAX_VALUE) {
+            return null;
+        }
+
+        String key = platformName.toLowerCase() + ":" + limitClass;
+        return buckets.computeIfAbsent(key, _ -> new TokenBucket(platformName, limitClass, perMinute));
+    }
+
+    private TokenBucket getAccountBucket(String platformName, String accountKey, LimitClass limitClass) {
+        int perMinute = getPerMinute(platformName, limitClass);
+        if (perMinute <= 0 || perMinute == Integer.MAX_VALUE || accountKey == null) {
+            return null;
+        }
+
+        String key = platformName.toLowerCase() + ":" + limitClass + ":" + accountKey;
+        return accountBuckets.computeIfAbsent(key, _ -> new TokenBucket(platformName, limitClass, perMinute));
+    }
+
+    private int getPerMinute(String platformName, LimitClass limitClass) {
+        return limitClass == LimitClass.ORDERS
+                ? budgetProperties.getOrdersPerMinute(platformName)
+                : budgetProperties.getPerMinute(platformName);
+    }
+
+    private final class TokenBucket {
+        private final String platformName;
+        private final LimitClass limitClass;
+        private final int perMinute;
+        private final int capacity;
+        private final long nanosPerToken;
+        private final long burstNanos;
+        private final long backgroundBurstNanos;
+
+        // The bucket is full while the theoretical arrival time is not in the future
+        private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+        private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+        private final LongAdder grantedInteractive = new LongAdder();
+        private final LongAdder grantedBackground = new LongAdder();
+        private final LongAdder delayed = new LongAdder();
+
+        private TokenBucket(String platformName, LimitClass limitClass, int perMinute) {
+            this.platformName = platformName;
+            this.limitClass = limitClass;
+            this.perMinute = perMinute;
+            this.capacity = Math.max(1, perMinute * Math.max(1, budgetProperties.getBurstSeconds()) / 60);
+            this.nanosPerToken = MINUTE_IN_NANOS / perMinute;
+            this.burstNanos = capacity * nanosPerToken;
+
+            int reserve = Math.min(capacity - 1,
+                    Math.round(capacity * budgetProperties.getInteractiveReservePercent() / 100f));
+            this.backgroundBurstNanos = (capacity - Math.max(0, reserve)) * nanosPerToken;
+        }
+
+        // Reserves the next slot right away, even if it lies in the future
+        private CompletableFuture<Void> acquireInteractive(int weight) {
+            long cost = weight * nanosPerToken;
+
+            while (true) {
+                long now = System.nanoTime();
+                long arrival = theoreticalArrival.get();
+                long next = (arrival - now < 0 ? now : arrival) + cost;
+
+                if (theoreticalArrival.compareAndSet(arrival, next)) {
+                    grantedInteractive.increment();
+
+                    long waitNanos = next - now - burstNanos;
+                    if (waitNanos <= 0) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+
+                    delayed.increment();
+                    CompletableFuture<Void> granted = new CompletableFuture<>();
+                    scheduler.schedule(() -> granted.complete(null), Instant.now().plusNanos(waitNanos));
+                    return granted;
+                }
+            }
+        }
+
+        // Takes tokens only if they are there now, otherwise queues behind earlier background requests
+        private CompletableFuture<Void> acquireBackground(int weight) {
+            if (waiters.isEmpty() && tryTakeBackground(weight) == 0) {
+                grantedBackground.increment();
+                return CompletableFuture.completedFuture(null);
+            }
+
+            Waiter waiter = new Waiter(weight);
+            waiters.add(waiter);
+            delayed.increment();
+
+            if (queued.getAndIncrement() == 0) {
+                loggingService.logAction("Request budget of " + platformName + " (" + limitClass +
+                        ") exhausted, queueing background requests");
+            }
+
+            // Drains right away in case the bucket filled up between the check and the enqueue
+            scheduleDrain(0);
+            return waiter.granted;
+        }
+
+        /**
+         * @return 0 if the tokens were taken, otherwise the nanoseconds until they could be
+         */
+        private long tryTakeBackground(int weight) {
+            long cost = weight * nanosPerToken;
+
+            while (true) {
+                long now = System.nanoTime();
+                long arrival = theoreticalArrival.get();
+                long next = (arrival - now < 0 ? now : arrival) + cost;
+                long excess = next - now - backgroundBurstNanos;
+
+                // A request heavier than the background share still goes through on a full bucket
+                boolean full = arrival - now <= 0;
+                if (excess > 0 && !full) {
+                    return Math.max(1, Math.min(excess, arrival - now));
+                }
+
+                if (theoreticalArrival.compareAndSet(arrival, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        private void scheduleDrain(long delayNanos) {
+            if (drainScheduled.compareAndSet(false, true)) {
+                scheduler.schedule(this::drain, Instant.now().plusNanos(delayNanos));
+            }
+        }
+
+        // Runs on the budget thread only, releases waiters in arrival order
+        private void drain() {
+            drainScheduled.set(false);
+
+            try {
+                Waiter head;
+                while ((head = waiters.peek()) != null) {
+                    if (head.granted.isDone()) {
+                        waiters.poll();
+                        queued.decrementAndGet();
+                        continue;
+                    }
+
+                    long waitNanos = tryTakeBackground(head.weight);
+                    if (waitNanos > 0) {
+                        scheduleDrain(waitNanos);
+                        return;
+                    }
+
+                    waiters.poll();
+                    queued.decrementAndGet();
+                    grantedBackground.increment();
+                    head.granted.complete(null);
+                }
+            } catch (Exception e) {
+                loggingService.logError("Error releasing queued requests of " + platformName + ": " + e.getMessage(), e);
+                scheduleDrain(nanosPerToken);
+            }
+        }
+
+        // The exchange counts requests this budget did not see, so its usage only ever lowers the tokens
+        private void alignWithReportedUsage(int usedWeight) {
+            long remaining = (long) perMinute - usedWeight;
+            if (remaining >= capacity) {
+                return;
+            }
+
+            while (true) {
+                long now = System.nanoTime();
+                long arrival = theoreticalArrival.get();
+                long minimum = now + burstNanos - remaining * nanosPerToken;
+
+                if (arrival - minimum >= 0 || theoreticalArrival.compareAndSet(arrival, minimum)) {
+                    return;
+                }
+            }
+        }
+
+        private void holdBack(long holdNanos) {
+            while (true) {
+                long now = System.nanoTime();
+                long arrival = theoreticalArrival.get();
+                long minimum = now + holdNanos + burstNanos;
+
+                if (arrival - minimum >= 0 || theoreticalArrival.compareAndSet(arrival, minimum)) {
+                    return;
+                }
+            }
+        }
+
+        private void failWaiters() {
+            Waiter waiter;
+            while ((waiter = waiters.poll()) != null) {
+                waiter.granted.completeExceptionally(
+                        new IllegalStateException("Request budget of " + platformName + " is shutting down"));
+            }
+        }
+
+        private BucketStats toStats() {
+            long backlog = Math.max(0, theoreticalArrival.get() - System.nanoTime());
+            double availableTokens = Math.max(0, burstNanos - backlog) / (double) nanosPerToken;
+
+            return new BucketStats(platformName, limitClass, perMinute, capacity, availableTokens,
+                    queued.get(), grantedInteractive.sum(), grantedBackground.sum(), delayed.sum());
+        }
+    }
+
+    private static final class Waiter {
+        private final int weight;
+        private final CompletableFuture<Void> granted = new CompletableFuture<>();
+
+        private Waiter(int weight) {
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,550 @@
+package ehe_server.service.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ehe_server.properties.ExchangeSimulatorProperties;
+import ehe_server.service.intf.audit.UserContextServiceInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.simulator.ExchangeSimulatorInterface;
+import ehe_server.service.simulator.SimulatedBarSource.SimulatedBar;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the Alpaca and Binance market data endpoints, started with the simulator profile.
+ * It speaks enough of their REST and stream protocols to drive the real clients: bar history,
+ * the market clock, the Alpaca bar feeds and the Binance kline streams. Simulated time starts
+ * replayHours behind the wall clock and runs timeCompression times faster until it has caught up,
+ * then keeps pace with it. It never runs ahead, so the server never stores future candles and
+ * measures its lag against the same clock. Every stream session gets a closed bar per symbol and
+ * simulated minute, and Binance sessions also get the pushes of the open kline.
+ */
+@Service
+@Profile("simulator")
+public class ExchangeSimulator implements ExchangeSimulatorInterface {
+
+    private static final long MINUTE_MS = 60_000;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+    private static final long DAY_MS = 24 * 60 * MINUTE_MS;
+    private static final int ALPACA_DEFAULT_LIMIT = 1000;
+    private static final int ALPACA_MAX_LIMIT = 10_000;
+    private static final int BINANCE_DEFAULT_LIMIT = 500;
+    private static final int BINANCE_MAX_LIMIT = 1000;
+    private static final int BARS_PER_ALPACA_FRAME = 1000;
+    // A session that falls further behind skips ahead instead of flooding the client
+    private static final int MAX_CATCH_UP_MINUTES = 60;
+    private static final String KLINE_SUFFIX = "@kline_1m";
+
+    private final ExchangeSimulatorProperties simulatorProperties;
+    private final ObjectMapper objectMapper;
+    private final UserContextServiceInterface userContextService;
+    private final LoggingServiceInterface loggingService;
+    private final ThreadPoolTaskScheduler scheduler;
+    private final SimulatedBarSource barSource;
+
+    private final long realStartMs = System.currentTimeMillis();
+    private final long simulatedStartMs;
+    private final int timeCompression;
+    private final long openPushIntervalMs;
+    private final Set<StreamSession> sessions = ConcurrentHashMap.newKeySet();
+    // Only touched by the simulator thread
+    private long lastOpenPushMs = Long.MIN_VALUE / 2;
+
+    private final LongAdder restRequests = new LongAdder();
+    private final LongAdder restBars = new LongAdder();
+    private final LongAdder streamFrames = new LongAdder();
+    private final LongAdder streamBars = new LongAdder();
+
+    private DisposableServer server;
+
+    public ExchangeSimulator(
+            ExchangeSimulatorProperties simulatorProperties,
+            ObjectMapper objectMapper,
+            UserContextServiceInterface userContextService,
+            LoggingServiceInterface loggingService) {
+        this.simulatorProperties = simulatorProperties;
+        this.objectMapper = objectMapper;
+        this.userContextService = userContextService;
+        this.loggingService = loggingService;
+        this.timeCompression = Math.max(1, simulatorProperties.getTimeCompression());
+        this.simulatedStartMs = realStartMs - Math.max(0, simulatorProperties.getReplayHours()) * HOUR_MS;
+        this.openPushIntervalMs = Math.max(1, MINUTE_MS / Math.max(1, simulatorProperties.getKlineUpdatesPerMinute()));
+
+        try {
+            this.barSource = new SimulatedBarSource(simulatorProperties.getRecordingFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load simulator recording " +
+                    simulatorProperties.getRecordingFile(), e);
+        }
+
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(1);
+        taskScheduler.setThreadNamePrefix("exchange-simulator-");
+        taskScheduler.initialize();
+        this.scheduler = taskScheduler;
+    }
+
+    @PostConstruct
+    public void start() {
+        userContextService.setUser("SYSTEM", "SYSTEM");
+
+        server = HttpServer.create()
+                .host(simulatorProperties.getHost())
+                .port(simulatorProperties.getPort())
+                .route(routes -> routes
+                        .get("/v2/clock", (request, response) -> sendJson(response, clock()))
+                        .get("/v2/stocks/bars", (request, response) ->
+                                sendJson(response, alpacaBars(query(request.uri()), null)))
+                        .get("/v2/stocks/{symbol}/bars", (request, response) ->
+                                sendJson(response, alpacaBars(query(request.uri()), request.param("symbol"))))
+                        .get("/v1beta3/crypto/us/bars", (request, response) ->
+                                sendJson(response, alpacaBars(query(request.uri()), null)))
+                        .get("/api/v3/klines", (request, response) ->
+                                sendJson(response, binanceKlines(query(request.uri()))))
+                        .get("/v2/iex", (request, response) -> response.sendWebsocket(
+                                (in, out) -> serve(new AlpacaSession(), in, out)))
+                        .get("/v2/sip", (request, response) -> response.sendWebsocket(
+                                (in, out) -> serve(new AlpacaSession(), in, out)))
+                        .get("/v1beta3/crypto/us", (request, response) -> response.sendWebsocket(
+                                (in, out) -> serve(new AlpacaSession(), in, out)))
+                        .get("/stream", (request, response) -> response.sendWebsocket(
+                                (in, out) -> serve(new BinanceSession(true, query(request.uri()).get("streams")), in, out)))
+                        .get("/ws", (request, response) -> response.sendWebsocket(
+                                (in, out) -> serve(new BinanceSession(false, null), in, out)))
+                        .get("/ws/{stream}", (request, response) -> response.sendWebsocket(
+                                (in, out) -> serve(new BinanceSession(false, request.param("stream")), in, out))))
+                .bindNow();
+
+        long tickMs = Math.max(1, openPushIntervalMs / timeCompression);
+        scheduler.scheduleAtFixedRate(this::tick, Duration.ofMillis(tickMs));
+
+        loggingService.logAction("Exchange simulator listening on " + simulatorProperties.getHost() + ":" +
+                server.port() + " replaying from " + now() + " with " + timeCompression + "x time compression and " +
+                barSource.recordedSymbols() + " recorded symbols");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    @Override
+    public Instant now() {
+        return Instant.ofEpochMilli(nowMs());
+    }
+
+    @Override
+    public SimulatorStats getStats() {
+        int subscribedSymbols = sessions.stream().mapToInt(session -> session.symbols.size()).sum();
+        return new SimulatorStats(now(), sessions.size(), subscribedSymbols, restRequests.sum(),
+                restBars.sum(), streamFrames.sum(), streamBars.sum());
+    }
+
+    // Compressed replay from the simulated start, capped at the wall clock once it has caught up
+    private long nowMs() {
+        long wallMs = System.currentTimeMillis();
+        long replayedMs = (wallMs - realStartMs) * timeCompression;
+        return Math.min(wallMs, simulatedStartMs + replayedMs);
+    }
+
+    private long lastClosedMinute() {
+        return Math.floorDiv(nowMs(), MINUTE_MS) - 1;
+    }
+
+    private long firstHistoryMinute() {
+        return Math.floorDiv(simulatedStartMs - simulatorProperties.getHistoryDays() * DAY_MS, MINUTE_MS);
+    }
+
+    // REST
+
+    private Publisher<Void> sendJson(HttpServerResponse response, String body) {
+        restRequests.increment();
+        return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json").sendString(Mono.just(body));
+    }
+
+    private String clock() {
+        Instant now = now();
+        return "{\"timestamp\":\"" + now + "\",\"is_open\":" + simulatorProperties.isMarketOpen() +
+                ",\"next_open\":\"" + now.plusMillis(DAY_MS) + "\",\"next_close\":\"" + now.plusMillis(DAY_MS) + "\"}";
+    }
+
+    /**
+     * Pages run through the symbols in order and through the minutes of each symbol.
+     * The page token is the index of the symbol and the minute to continue from.
+     */
+    private String alpacaBars(Map<String, String> query, String pathSymbol) {
+        List<String> symbols = pathSymbol != null
+                ? List.of(pathSymbol)
+                : Arrays.stream(query.getOrDefault("symbols", "").split(",")).filter(s -> !s.isBlank()).sorted().toList();
+
+        int limit = Math.min(ALPACA_MAX_LIMIT, parseInt(query.get("limit"), ALPACA_DEFAULT_LIMIT));
+        long startMinute = Math.max(firstHistoryMinute(), parseIsoMinute(query.get("start"), firstHistoryMinute()));
+        long endMinute = Math.min(lastClosedMinute(), parseIsoMinute(query.get("end"), lastClosedMinute()));
+
+        int symbolIndex = 0;
+        long minute = startMinute;
+        String pageToken = query.get("page_token");
+        if (pageToken != null && pageToken.contains(":")) {
+            symbolIndex = Integer.parseInt(pageToken.substring(0, pageToken.indexOf(':')));
+            minute = Long.parseLong(pageToken.substring(pageToken.indexOf(':') + 1));
+        }
+
+        StringBuilder json = new StringBuilder(pathSymbol != null ? "{\"bars\":[" : "{\"bars\":{");
+        String nextPageToken = null;
+        int served = 0;
+
+        for (; symbolIndex < symbols.size() && nextPageToken == null; symbolIndex++, minute = startMinute) {
+            String symbol = symbols.get(symbolIndex);
+            boolean first = true;
+
+            if (pathSymbol == null) {
+                if (json.charAt(json.length() - 1) != '{') {
+                    json.append(',');
+                }
+                json.append('"').append(symbol).append("\":[");
+            }
+
+            for (; minute <= endMinute; minute++) {
+                if (served == limit) {
+                    nextPageToken = symbolIndex + ":" + minute;
+                    break;
+                }
+
+                if (!first) {
+                    json.append(',');
+                }
+                appendAlpacaBar(json, barSource.bar(symbol, minute, 1), null);
+                first = false;
+                served++;
+            }
+
+            if (pathSymbol == null) {
+                json.append(']');
+            }
+        }
+
+        json.append(pathSymbol != null ? "]" : "}");
+        if (pathSymbol != null) {
+            json.append(",\"symbol\":\"").append(pathSymbol).append('"');
+        }
+        json.append(",\"next_page_token\":").append(nextPageToken != null ? "\"" + nextPageToken + "\"" : "null").append('}');
+
+        restBars.add(served);
+        return json.toString();
+    }
+
+    // Like Binance, a range that reaches the current minute ends with the open kline
+    private String binanceKlines(Map<String, String> query) {
+        String symbol = query.getOrDefault("symbol", "");
+        int limit = Math.min(BINANCE_MAX_LIMIT, parseInt(query.get("limit"), BINANCE_DEFAULT_LIMIT));
+        long currentMinute = Math.floorDiv(nowMs(), MINUTE_MS);
+
+        long endMinute = Math.min(currentMinute, query.containsKey("endTime")
+                ? Math.floorDiv(Long.parseLong(query.get("endTime")), MINUTE_MS)
+                : currentMinute);
+        long startMinute = query.containsKey("startTime")
+                ? Math.ceilDiv(Long.parseLong(query.get("startTime")), MINUTE_MS)
+                : endMinute - limit + 1;
+        startMinute = Math.max(firstHistoryMinute(), startMinute);
+
+        StringBuilder json = new StringBuilder("[");
+        int served = 0;
+
+        for (long minute = startMinute; minute <= endMinute && served < limit; minute++) {
+            double progress = minute < currentMinute ? 1 : (nowMs() - minute * MINUTE_MS) / (double) MINUTE_MS;
+            SimulatedBar bar = barSource.bar(symbol, minute, progress);
+
+            if (served > 0) {
+                json.append(',');
+            }
+            json.append('[').append(bar.openTimeMs())
+                    .append(",\"").append(decimal(bar.open()))
+                    .append("\",\"").append(decimal(bar.high()))
+                    .append("\",\"").append(decimal(bar.low()))
+                    .append("\",\"").append(decimal(bar.close()))
+                    .append("\",\"").append(decimal(bar.volume()))
+                    .append("\",").append(bar.openTimeMs() + MINUTE_MS - 1)
+                    .append(",\"").append(decimal(bar.volume() * bar.close()))
+                    .append("\",").append(bar.trades())
+                    .append(",\"0\",\"0\",\"0\"]");
+            served++;
+        }
+
+        restBars.add(served);
+        return json.append(']').toString();
+    }
+
+    // Streams
+
+    private Publisher<Void> serve(StreamSession session, WebsocketInbound in, WebsocketOutbound out) {
+        sessions.add(session);
+        session.onOpen();
+
+        Mono<Void> inbound = in.receive().asString().doOnNext(message -> {
+            try {
+                session.onMessage(objectMapper.readTree(message));
+            } catch (Exception e) {
+                loggingService.logError("Simulator could not handle stream message " + message + ": " +
+                        e.getMessage(), e);
+            }
+        }).then();
+        Mono<Void> outbound = out.sendString(session.frames.asFlux()).then();
+
+        return Mono.firstWithSignal(inbound, outbound).doFinally(_ -> sessions.remove(session));
+    }
+
+    // Runs on the simulator thread only
+    private void tick() {
+        userContextService.setUser("SYSTEM", "SYSTEM");
+
+        try {
+            long now = nowMs();
+            long currentMinute = Math.floorDiv(now, MINUTE_MS);
+            double progress = (now - currentMinute * MINUTE_MS) / (double) MINUTE_MS;
+
+            // Once caught up the ticks outpace simulated time, open klines keep their configured rate
+            boolean pushOpen = now - lastOpenPushMs >= openPushIntervalMs;
+            if (pushOpen) {
+                lastOpenPushMs = now;
+            }
+
+            for (StreamSession session : sessions) {
+                long from = Math.max(session.lastClosedMinute + 1, currentMinute - MAX_CATCH_UP_MINUTES);
+                for (long minute = from; minute < currentMinute; minute++) {
+                    session.sendBars(minute, 1);
+                }
+                session.lastClosedMinute = currentMinute - 1;
+                if (pushOpen) {
+                    session.sendOpenBars(currentMinute, progress);
+                }
+            }
+        } catch (Exception e) {
+            loggingService.logError("Exchange simulator tick failed: " + e.getMessage(), e);
+        }
+    }
+
+    private abstract class StreamSession {
+        private final Sinks.Many<String> frames = Sinks.many().unicast().onBackpressureBuffer();
+        protected final Set<String> symbols = ConcurrentHashMap.newKeySet();
+        // Only touched by the simulator thread
+        private long lastClosedMinute = Math.floorDiv(nowMs(), MINUTE_MS) - 1;
+
+        abstract void onOpen();
+
+        abstract void onMessage(JsonNode message);
+
+        abstract void sendBars(long minute, double progress);
+
+        void sendOpenBars(long minute, double progress) {
+        }
+
+        // The tick and the inbound handler both send, the sink takes one frame at a time
+        synchronized void send(String frame) {
+            frames.tryEmitNext(frame);
+            streamFrames.increment();
+        }
+    }
+
+    private final class AlpacaSession extends StreamSession {
+
+        @Override
+        void onOpen() {
+            send("[{\"T\":\"success\",\"msg\":\"connected\"}]");
+        }
+
+        @Override
+        void onMessage(JsonNode message) {
+            String action = message.path("action").asText();
+            switch (action) {
+                case "auth" -> send("[{\"T\":\"success\",\"msg\":\"authenticated\"}]");
+                case "subscribe", "unsubscribe" -> {
+                    for (JsonNode symbol : message.path("bars")) {
+                        if (action.equals("subscribe")) {
+                            symbols.add(symbol.asText().toUpperCase());
+                        } else {
+                            symbols.remove(symbol.asText().toUpperCase());
+                        }
+                    }
+
+                    StringBuilder confirmation = new StringBuilder("[{\"T\":\"subscription\",\"trades\":[],\"quotes\":[],\"bars\":[");
+                    String separator = "";
+                    for (String symbol : symbols) {
+                        confirmation.append(separator).append('"').append(symbol).append('"');
+                        separator = ",";
+                    }
+                    send(confirmation.append("]}]").toString());
+                }
+                default -> send("[{\"T\":\"error\",\"code\":400,\"msg\":\"invalid syntax\"}]");
+            }
+        }
+
+        // Alpaca batches the bars of a minute into array frames
+        @Override
+        void sendBars(long minute, double progress) {
+            StringBuilder frame = new StringBuilder("[");
+            int bars = 0;
+
+            for (String symbol : symbols) {
+                if (bars > 0) {
+                    frame.append(',');
+                }
+                appendAlpacaBar(frame, barSource.bar(symbol, minute, progress), symbol);
+                bars++;
+
+                if (bars == BARS_PER_ALPACA_FRAME) {
+                    send(frame.append(']').toString());
+                    streamBars.add(bars);
+                    frame.setLength(1);
+                    bars = 0;
+                }
+            }
+
+            if (bars > 0) {
+                send(frame.append(']').toString());
+                streamBars.add(bars);
+            }
+        }
+    }
+
+    private final class BinanceSession extends StreamSession {
+        private final boolean combined;
+
+        private BinanceSession(boolean combined, String streams) {
+            this.combined = combined;
+            if (streams != null) {
+                for (String stream : streams.split("/")) {
+                    addStream(stream);
+                }
+            }
+        }
+
+        @Override
+        void onOpen() {
+        }
+
+        @Override
+        void onMessage(JsonNode message) {
+            String method = message.path("method").asText();
+            for (JsonNode stream : message.path("params")) {
+                if (method.equals("SUBSCRIBE")) {
+                    addStream(stream.asText());
+                } else if (method.equals("UNSUBSCRIBE")) {
+                    symbols.remove(stream.asText().replace(KLINE_SUFFIX, "").toUpperCase());
+                }
+            }
+            send("{\"result\":null,\"id\":" + message.path("id").asLong() + "}");
+        }
+
+        @Override
+        void sendBars(long minute, double progress) {
+            for (String symbol : symbols) {
+                send(klineEvent(symbol, barSource.bar(symbol, minute, progress), true));
+                streamBars.increment();
+            }
+        }
+
+        @Override
+        void sendOpenBars(long minute, double progress) {
+            for (String symbol : symbols) {
+                send(klineEvent(symbol, barSource.bar(symbol, minute, progress), false));
+                streamBars.increment();
+            }
+        }
+
+        private void addStream(String stream) {
+            if (stream.endsWith(KLINE_SUFFIX)) {
+                symbols.add(stream.substring(0, stream.length() - KLINE_SUFFIX.length()).toUpperCase());
+            }
+        }
+
+        private String klineEvent(String symbol, SimulatedBar bar, boolean closed) {
+            StringBuilder event = new StringBuilder(320);
+            if (combined) {
+                event.append("{\"stream\":\"").append(symbol.toLowerCase()).append(KLINE_SUFFIX).append("\",\"data\":");
+            }
+
+            event.append("{\"e\":\"kline\",\"E\":").append(nowMs())
+                    .append(",\"s\":\"").append(symbol)
+                    .append("\",\"k\":{\"t\":").append(bar.openTimeMs())
+                    .append(",\"T\":").append(bar.openTimeMs() + MINUTE_MS - 1)
+                    .append(",\"s\":\"").append(symbol)
+                    .append("\",\"i\":\"1m\",\"f\":0,\"L\":0")
+                    .append(",\"o\":\"").append(decimal(bar.open()))
+                    .append("\",\"c\":\"").append(decimal(bar.close()))
+                    .append("\",\"h\":\"").append(decimal(bar.high()))
+                    .append("\",\"l\":\"").append(decimal(bar.low()))
+                    .append("\",\"v\":\"").append(decimal(bar.volume()))
+                    .append("\",\"n\":").append(bar.trades())
+                    .append(",\"x\":").append(closed)
+                    .append(",\"q\":\"0\",\"V\":\"0\",\"Q\":\"0\",\"B\":\"0\"}}");
+
+            if (combined) {
+                event.append('}');
+            }
+            return event.toString();
+        }
+    }
+
+    private void appendAlpacaBar(StringBuilder json, SimulatedBar bar, String streamSymbol) {
+        json.append('{');
+        if (streamSymbol != null) {
+            json.append("\"T\":\"b\",\"S\":\"").append(streamSymbol).append("\",");
+        }
+        json.append("\"t\":\"").append(Instant.ofEpochMilli(bar.openTimeMs()))
+                .append("\",\"o\":").append(decimal(bar.open()))
+                .append(",\"h\":").append(decimal(bar.high()))
+                .append(",\"l\":").append(decimal(bar.low()))
+                .append(",\"c\":").append(decimal(bar.close()))
+                .append(",\"v\":").append(decimal(bar.volume()))
+                .append(",\"n\":").append(bar.trades())
+                .append(",\"vw\":").append(decimal((bar.open() + bar.close()) / 2))
+                .append('}');
+    }
+
+    private static String decimal(double value) {
+        return BigDecimal.valueOf(Math.round(value * 10_000) / 10_000.0).toPlainString();
+    }
+
+    private static Map<String, String> query(String uri) {
+        Map<String, String> parameters = new HashMap<>();
+        new QueryStringDecoder(uri).parameters().forEach((name, values) -> parameters.put(name, values.getFirst()));
+        return parameters;
+    }
+
+    private static int parseInt(String value, int fallback) {
+        try {
+            return value != null ? Math.max(1, Integer.parseInt(value)) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static long parseIsoMinute(String value, long fallback) {
+        return value != null ? Math.floorDiv(Instant.parse(value).toEpochMilli(), MINUTE_MS) : fallback;
+    }
+}
@@ -0,0 +1,118 @@
+package ehe_server.service.simulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Bars of the simulated exchange. Every bar is a pure function of symbol and minute, so a REST page
+ * and the stream always agree and a run can be repeated exactly. Symbols with a recording replay it
+ * in a loop, every other symbol follows a synthetic path around a price derived from its name.
+ */
+final class SimulatedBarSource {
+
+    private static final long MINUTE_MS = 60_000;
+
+    private final Map<String, List<SimulatedBar>> recordings = new HashMap<>();
+
+    SimulatedBarSource(String recordingFile) throws IOException {
+        if (recordingFile != null && !recordingFile.isBlank()) {
+            loadRecording(Path.of(recordingFile));
+        }
+    }
+
+    /**
+     * @param symbol Symbol as the exchange spells it
+     * @param minute Open time of the bar in epoch minutes
+     * @param progress Share of the minute that has passed, 1 for a closed bar
+     */
+    SimulatedBar bar(String symbol, long minute, double progress) {
+        SimulatedBar full = fullBar(symbol.toUpperCase(), minute);
+        if (progress >= 1) {
+            return full;
+        }
+
+        // The open bar converges on the closed one, so its last push matches the REST history
+        double close = full.open() + (full.close() - full.open()) * progress;
+        return new SimulatedBar(full.openTimeMs(), full.open(),
+                Math.max(full.open(), Math.max(close, full.open() + (full.high() - full.open()) * progress)),
+                Math.min(full.open(), Math.min(close, full.open() - (full.open() - full.low()) * progress)),
+                close, full.volume() * progress, (int) (full.trades() * progress));
+    }
+
+    int recordedSymbols() {
+        return recordings.size();
+    }
+
+    private SimulatedBar fullBar(String symbol, long minute) {
+        List<SimulatedBar> recording = recordings.get(symbol);
+        if (recording != null) {
+            SimulatedBar recorded = recording.get(Math.floorMod(minute, recording.size()));
+            return new SimulatedBar(minute * MINUTE_MS, recorded.open(), recorded.high(), recorded.low(),
+                    recorded.close(), recorded.volume(), recorded.trades());
+        }
+
+        int seed = symbol.hashCode();
+        double base = 20 + Math.floorMod(seed, 48_000) / 100.0;
+        double open = price(base, seed, minute);
+        double close = price(base, seed, minute + 1);
+
+        SplittableRandom random = new SplittableRandom(seed * 31L + minute);
+        double high = Math.max(open, close) * (1 + random.nextDouble() * 0.001);
+        double low = Math.min(open, close) * (1 - random.nextDouble() * 0.001);
+        double volume = 100 + random.nextDouble() * 10_000;
+
+        return new SimulatedBar(minute * MINUTE_MS, round(open), round(high), round(low), round(close),
+                round(volume), 1 + random.nextInt(500));
+    }
+
+    // A day-long swing with a faster ripple on top, the phases differ per symbol
+    private double price(double base, int seed, long minute) {
+        double dayPhase = Math.floorMod(seed, 1440) / 1440.0 * 2 * Math.PI;
+        double ripplePhase = Math.floorMod(seed >>> 8, 97) / 97.0 * 2 * Math.PI;
+        return base * (1 + 0.03 * Math.sin(2 * Math.PI * minute / 1440 + dayPhase)
+                + 0.01 * Math.sin(2 * Math.PI * minute / 97 + ripplePhase));
+    }
+
+    private double round(double value) {
+        return Math.round(value * 10_000) / 10_000.0;
+    }
+
+    private void loadRecording(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length < 7 || !fields[1].trim().matches("\\d+")) {
+                    // Header or malformed line
+                    continue;
+                }
+
+                recordings.computeIfAbsent(fields[0].trim().toUpperCase(), _ -> new ArrayList<>())
+                        .add(new SimulatedBar(Long.parseLong(fields[1].trim()),
+                                Double.parseDouble(fields[2].trim()), Double.parseDouble(fields[3].trim()),
+                                Double.parseDouble(fields[4].trim()), Double.parseDouble(fields[5].trim()),
+                                Double.parseDouble(fields[6].trim()), 1));
+            }
+        }
+
+        recordings.values().forEach(bars -> bars.sort((a, b) -> Long.compare(a.openTimeMs(), b.openTimeMs())));
+    }
+
+    record SimulatedBar(
+            long openTimeMs,
+            double open,
+            double high,
+            double low,
+            double close,
+            double volume,
+            int trades
+    ) {
+    }
+}
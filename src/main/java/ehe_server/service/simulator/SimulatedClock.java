@@ -0,0 +1,58 @@
+package ehe_server.service.simulator;
+
+import ehe_server.service.intf.simulator.ExchangeSimulatorInterface;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Clock that reads the simulated exchange time of the simulator profile, in UTC unless a view
+ * with another zone is taken through withZone.
+ */
+public final class SimulatedClock extends Clock {
+
+    private final ExchangeSimulatorInterface exchangeSimulator;
+    private final ZoneId zone;
+
+    public SimulatedClock(ExchangeSimulatorInterface exchangeSimulator) {
+        this(exchangeSimulator, ZoneOffset.UTC);
+    }
+
+    private SimulatedClock(ExchangeSimulatorInterface exchangeSimulator, ZoneId zone) {
+        this.exchangeSimulator = exchangeSimulator;
+        this.zone = zone;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // The view reads the same simulated time, only the zone differs
+    @Override
+    public Clock withZone(ZoneId zone) {
+        if (this.zone.equals(zone)) {
+            return this;
+        }
+        return new SimulatedClock(exchangeSimulator, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return exchangeSimulator.now();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SimulatedClock clock
+                && exchangeSimulator == clock.exchangeSimulator
+                && zone.equals(clock.zone);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(exchangeSimulator) ^ zone.hashCode();
+    }
+}
@@ -107,6 +107,7 @@ public class CandleRetrievalService implements CandleRetrievalServiceInterface {
         return platformStocks.getFirst();
     }
 
+    // Minutes of packed days have no row ID, their sequence still identifies them
     private CandleDTO convertToDTO(CandleWithSequenceInterface candle) {
         return new CandleDTO(
                 candle.getMarketCandleId(),
@@ -3,8 +3,10 @@ package ehe_server.service.stock;
 import ehe_server.dto.websocket.CandleDataResponse.CandleData;
 import ehe_server.entity.MarketCandle.Timeframe;
 import ehe_server.entity.PlatformStock;
-import ehe_server.repository.MarketCandleRepository;
 import ehe_server.repository.PlatformStockRepository;
+import ehe_server.service.candle.FixedPoint;
+import ehe_server.service.intf.candle.HotCandleCacheInterface;
+import ehe_server.service.intf.candle.HotCandleCacheInterface.CachedCandle;
 import ehe_server.service.intf.log.LoggingServiceInterface;
 import ehe_server.service.intf.stock.MarketCandleServiceInterface;
 import org.springframework.stereotype.Service;
@@ -19,15 +21,15 @@ import java.util.Optional;
 @Transactional
 public class MarketCandleService implements MarketCandleServiceInterface {
 
-    private final MarketCandleRepository marketCandleRepository;
+    private final HotCandleCacheInterface hotCandleCache;
     private final PlatformStockRepository platformStockRepository;
     private final LoggingServiceInterface loggingService;
 
     public MarketCandleService(
-            MarketCandleRepository marketCandleRepository,
+            HotCandleCacheInterface hotCandleCache,
             PlatformStockRepository platformStockRepository,
             LoggingServiceInterface loggingService) {
-        this.marketCandleRepository = marketCandleRepository;
+        this.hotCandleCache = hotCandleCache;
         this.platformStockRepository = platformStockRepository;
         this.loggingService = loggingService;
     }
@@ -56,14 +58,13 @@ public class MarketCandleService implements MarketCandleServiceInterface {
             Timeframe timeframe;
             timeframe = parseTimeframe(timeframeStr);
 
-            Optional<CandleWithSequenceInterface> candleOpt = marketCandleRepository
-                    .findLatestCandleWithSequence(stock.getPlatformStockId(), timeframe);
+            Optional<CachedCandle> candleOpt = hotCandleCache.getLatest(stock.getPlatformStockId(), timeframe);
 
             if (candleOpt.isEmpty()) {
                 return null;
             }
 
-            CandleWithSequenceInterface candle = candleOpt.get();
+            CachedCandle candle = candleOpt.get();
 
             return convertToDTO(candle);
 
@@ -109,37 +110,22 @@ public class MarketCandleService implements MarketCandleServiceInterface {
             timeframe = parseTimeframe(timeframeStr);
 
             // Get the candle at the specific timestamp WITH SEQUENCE
-            Optional<CandleWithSequenceInterface> candleOpt = marketCandleRepository
-                    .findCandleWithSequenceByTimestamp(stock.getPlatformStockId(), timeframe, candleTimestamp);
+            Optional<CachedCandle> candleOpt = hotCandleCache
+                    .getAt(stock.getPlatformStockId(), timeframe, candleTimestamp);
 
             if (candleOpt.isEmpty()) {
                 return null;
             }
 
-            CandleWithSequenceInterface candle = candleOpt.get();
+            CachedCandle candle = candleOpt.get();
 
-            // Check if the candle has been modified
-            boolean isModified = false;
-
-            if (!candle.getOpenPrice().equals(lastOpen)) {
-                isModified = true;
-            }
-
-            if (!candle.getHighPrice().equals(lastHigh)) {
-                isModified = true;
-            }
-
-            if (!candle.getLowPrice().equals(lastLow)) {
-                isModified = true;
-            }
-
-            if (!candle.getClosePrice().equals(lastClose)) {
-                isModified = true;
-            }
-
-            if (!candle.getVolume().equals(lastVolume)) {
-                isModified = true;
-            }
+            // Compared in fixed point, so a client value like 1.5 matches the stored 1.50000000
+            boolean isModified = !candle.valuesEqual(
+                    toFixedPoint(lastOpen),
+                    toFixedPoint(lastHigh),
+                    toFixedPoint(lastLow),
+                    toFixedPoint(lastClose),
+                    toFixedPoint(lastVolume));
 
             if (isModified) {
                 return convertToDTO(candle);
@@ -182,15 +168,20 @@ public class MarketCandleService implements MarketCandleServiceInterface {
         return result;
     }
 
-    private CandleData convertToDTO(CandleWithSequenceInterface candle) {
+    // A missing value never matches a stored one
+    private long toFixedPoint(BigDecimal value) {
+        return value != null ? FixedPoint.fromBigDecimal(value) : Long.MIN_VALUE;
+    }
+
+    private CandleData convertToDTO(CachedCandle candle) {
         CandleData dto = new CandleData();
-        dto.setTimestamp(candle.getTimestamp());
-        dto.setOpenPrice(candle.getOpenPrice());
-        dto.setHighPrice(candle.getHighPrice());
-        dto.setLowPrice(candle.getLowPrice());
-        dto.setClosePrice(candle.getClosePrice());
-        dto.setVolume(candle.getVolume());
-        dto.setSequence(candle.getSequence());
+        dto.setTimestamp(candle.timestamp());
+        dto.setOpenPrice(candle.openPrice());
+        dto.setHighPrice(candle.highPrice());
+        dto.setLowPrice(candle.lowPrice());
+        dto.setClosePrice(candle.closePrice());
+        dto.setVolume(candle.volume());
+        dto.setSequence(candle.sequence());
         return dto;
     }
 }
\ No newline at end of file
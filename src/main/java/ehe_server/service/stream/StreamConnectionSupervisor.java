@@ -0,0 +1,316 @@
+package ehe_server.service.stream;
+
+import ehe_server.properties.StreamReconnectProperties;
+import ehe_server.service.intf.audit.UserContextServiceInterface;
+import ehe_server.service.intf.log.LoggingServiceInterface;
+import ehe_server.service.intf.stream.StreamConnectionSupervisorInterface;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Owns the connect and reconnect cycle of every market data WebSocket connection.
+ * Connects never block a thread: the connector starts the handshake and the connection
+ * reports back once it is ready or lost. Failed attempts are retried with jittered
+ * exponential backoff, and after a reconnect the missed interval is requested over REST.
+ */
+@Service
+public class StreamConnectionSupervisor implements StreamConnectionSupervisorInterface {
+
+    private final StreamReconnectProperties reconnectProperties;
+    private final UserContextServiceInterface userContextService;
+    private final LoggingServiceInterface loggingService;
+    private final ThreadPoolTaskScheduler scheduler;
+    private final ThreadPoolTaskExecutor gapFillExecutor;
+
+    private final Map<String, StreamEntry> entries = new ConcurrentHashMap<>();
+    private final Map<String, GapFiller> gapFillers = new ConcurrentHashMap<>();
+
+    public StreamConnectionSupervisor(
+            StreamReconnectProperties reconnectProperties,
+            UserContextServiceInterface userContextService,
+            LoggingServiceInterface loggingService) {
+        this.reconnectProperties = reconnectProperties;
+        this.userContextService = userContextService;
+        this.loggingService = loggingService;
+
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(1);
+        taskScheduler.setThreadNamePrefix("stream-supervisor-");
+        taskScheduler.initialize();
+        this.scheduler = taskScheduler;
+
+        int gapFillThreads = Math.max(1, reconnectProperties.getGapFillThreads());
+
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(gapFillThreads);
+        taskExecutor.setMaxPoolSize(gapFillThreads);
+        taskExecutor.setThreadNamePrefix("stream-gap-fill-");
+        taskExecutor.initialize();
+        this.gapFillExecutor = taskExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        gapFillExecutor.shutdown();
+    }
+
+    @Override
+    public void register(String streamKey, String platformName, StreamConnector connector) {
+        StreamEntry entry = entries.computeIfAbsent(streamKey, StreamEntry::new);
+        synchronized (entry) {
+            entry.platformName = platformName;
+            entry.connector = connector;
+        }
+    }
+
+    @Override
+    public void requestConnect(String streamKey) {
+        StreamEntry entry = getEntry(streamKey);
+
+        synchronized (entry) {
+            // A pending backoff attempt is kept, so repeated requests cannot bypass it
+            if (entry.state != ConnectionState.IDLE) {
+                return;
+            }
+            entry.state = ConnectionState.CONNECTING;
+        }
+
+        scheduler.execute(() -> attempt(entry));
+    }
+
+    @Override
+    public void connectionReady(String streamKey) {
+        StreamEntry entry = getEntry(streamKey);
+        Instant gapStart;
+
+        synchronized (entry) {
+            cancelPendingAttempt(entry);
+            entry.generation++;
+            entry.state = ConnectionState.CONNECTED;
+            entry.failedAttempts = 0;
+            entry.nextAttemptAt = null;
+
+            gapStart = entry.disconnectedAt;
+            entry.disconnectedAt = null;
+        }
+
+        loggingService.logAction("Stream " + streamKey + " is ready");
+
+        if (gapStart != null) {
+            requestGapFill(entry, gapStart, Instant.now());
+        }
+    }
+
+    @Override
+    public void connectionLost(String streamKey) {
+        StreamEntry entry = getEntry(streamKey);
+
+        synchronized (entry) {
+            switch (entry.state) {
+                case CONNECTED -> {
+                    entry.disconnectedAt = Instant.now();
+                    entry.failedAttempts = 0;
+                }
+                // Dropped before it became ready, counts as a failed attempt
+                case CONNECTING -> entry.failedAttempts++;
+                // Already handled, e.g. a transport error followed by the close
+                default -> {
+                    return;
+                }
+            }
+
+            entry.generation++;
+            scheduleRetry(entry);
+        }
+    }
+
+    @Override
+    public void stop(String streamKey) {
+        StreamEntry entry = entries.get(streamKey);
+        if (entry == null) {
+            return;
+        }
+
+        synchronized (entry) {
+            cancelPendingAttempt(entry);
+            entry.generation++;
+            entry.state = ConnectionState.IDLE;
+            entry.failedAttempts = 0;
+            entry.disconnectedAt = null;
+            entry.nextAttemptAt = null;
+        }
+    }
+
+    @Override
+    public void registerGapFiller(String platformName, GapFiller gapFiller) {
+        gapFillers.put(platformName, gapFiller);
+    }
+
+    @Override
+    public List<StreamConnectionStatus> getStatus() {
+        return entries.values().stream()
+                .map(StreamEntry::toStatus)
+                .sorted(Comparator.comparing(StreamConnectionStatus::streamKey))
+                .toList();
+    }
+
+    // Starts one connect attempt and arms its timeout, runs on the supervisor thread
+    private void attempt(StreamEntry entry) {
+        userContextService.setUser("SYSTEM", "SYSTEM");
+        long generation;
+
+        synchronized (entry) {
+            if (entry.connector.symbols().isEmpty()) {
+                entry.state = ConnectionState.IDLE;
+                entry.nextAttemptAt = null;
+                return;
+            }
+
+            entry.pendingAttempt = null;
+            entry.nextAttemptAt = null;
+            entry.state = ConnectionState.CONNECTING;
+            generation = ++entry.generation;
+        }
+
+        loggingService.logAction("Connecting stream " + entry.streamKey +
+                (entry.failedAttempts > 0 ? " (attempt " + (entry.failedAttempts + 1) + ")" : ""));
+
+        CompletableFuture<?> handshake;
+        try {
+            handshake = entry.connector.connect();
+        } catch (Exception e) {
+            handshake = CompletableFuture.failedFuture(e);
+        }
+
+        handshake.whenComplete((_, error) -> {
+            if (error != null) {
+                attemptFailed(entry, generation, error);
+            }
+        });
+
+        // The attempt also fails if the connection is open but never reports ready
+        scheduler.schedule(() -> attemptFailed(entry, generation, null),
+                Instant.now().plusMillis(reconnectProperties.getConnectTimeoutMs()));
+    }
+
+    private void attemptFailed(StreamEntry entry, long generation, Throwable error) {
+        synchronized (entry) {
+            if (entry.generation != generation || entry.state != ConnectionState.CONNECTING) {
+                return;
+            }
+
+            entry.failedAttempts++;
+            entry.generation++;
+
+            loggingService.logError("Connect attempt " + entry.failedAttempts + " of stream " + entry.streamKey +
+                    " failed: " + (error != null ? error.getMessage() : "not ready within " +
+                    reconnectProperties.getConnectTimeoutMs() + " ms"), error);
+
+            scheduleRetry(entry);
+        }
+    }
+
+    // Caller holds the entry lock
+    private void scheduleRetry(StreamEntry entry) {
+        cancelPendingAttempt(entry);
+
+        if (entry.connector == null || entry.connector.symbols().isEmpty()) {
+            entry.state = ConnectionState.IDLE;
+            entry.nextAttemptAt = null;
+            return;
+        }
+
+        long delayMs = backoffDelay(entry.failedAttempts);
+        entry.state = ConnectionState.BACKOFF;
+        entry.nextAttemptAt = Instant.now().plusMillis(delayMs);
+        entry.pendingAttempt = scheduler.schedule(() -> attempt(entry), entry.nextAttemptAt);
+
+        loggingService.logAction("Reconnecting stream " + entry.streamKey + " in " + delayMs + " ms");
+    }
+
+    // Equal jitter: half of the exponential step is fixed, the other half random
+    private long backoffDelay(int failedAttempts) {
+        long initialDelay = Math.max(1, reconnectProperties.getInitialDelayMs());
+        long maxDelay = Math.max(initialDelay, reconnectProperties.getMaxDelayMs());
+
+        long step = initialDelay << Math.min(failedAttempts, 30);
+        long cappedStep = step <= 0 ? maxDelay : Math.min(step, maxDelay);
+        long half = cappedStep / 2;
+
+        return half + ThreadLocalRandom.current().nextLong(cappedStep - half + 1);
+    }
+
+    private void cancelPendingAttempt(StreamEntry entry) {
+        if (entry.pendingAttempt != null) {
+            entry.pendingAttempt.cancel(false);
+            entry.pendingAttempt = null;
+        }
+    }
+
+    // Refetches the minutes since the one in progress when the connection dropped
+    private void requestGapFill(StreamEntry entry, Instant disconnectedAt, Instant reconnectedAt) {
+        GapFiller gapFiller = gapFillers.get(entry.platformName);
+        if (gapFiller == null) {
+            return;
+        }
+
+        Instant from = disconnectedAt.truncatedTo(ChronoUnit.MINUTES);
+        Set<String> symbols = new HashSet<>(entry.connector.symbols());
+
+        loggingService.logAction("Requesting gap fill of " + symbols.size() + " symbols on stream " +
+                entry.streamKey + " from " + from + " to " + reconnectedAt);
+
+        for (String symbol : symbols) {
+            gapFillExecutor.execute(() -> {
+                userContextService.setUser("SYSTEM", "SYSTEM");
+                try {
+                    gapFiller.fillGap(symbol, from, reconnectedAt);
+                } catch (Exception e) {
+                    loggingService.logError("Gap fill failed for " + symbol + ": " + e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    private StreamEntry getEntry(String streamKey) {
+        StreamEntry entry = entries.get(streamKey);
+        if (entry == null) {
+            throw new IllegalStateException("Stream not registered: " + streamKey);
+        }
+        return entry;
+    }
+
+    private static final class StreamEntry {
+        private final String streamKey;
+        private String platformName;
+        private StreamConnector connector;
+
+        private ConnectionState state = ConnectionState.IDLE;
+        private int failedAttempts;
+        private Instant disconnectedAt;
+        private Instant nextAttemptAt;
+        private ScheduledFuture<?> pendingAttempt;
+        // Bumped on every transition, so late callbacks of an older attempt are ignored
+        private long generation;
+
+        private StreamEntry(String streamKey) {
+            this.streamKey = streamKey;
+        }
+
+        private synchronized StreamConnectionStatus toStatus() {
+            return new StreamConnectionStatus(streamKey, platformName, state, failedAttempts,
+                    disconnectedAt, nextAttemptAt);
+        }
+    }
+}
@@ -7,9 +7,10 @@ import ehe_server.exception.custom.PlatformStockNotFoundException;
 import ehe_server.exception.custom.PortfolioNotFoundException;
 import ehe_server.exception.custom.PriceDataNotFoundException;
 import ehe_server.repository.HoldingRepository;
-import ehe_server.repository.MarketCandleRepository;
 import ehe_server.repository.PlatformStockRepository;
 import ehe_server.repository.PortfolioRepository;
+import ehe_server.service.intf.candle.HotCandleCacheInterface;
+import ehe_server.service.intf.candle.HotCandleCacheInterface.CachedCandle;
 import ehe_server.service.intf.log.LoggingServiceInterface;
 import ehe_server.service.intf.portfolio.HoldingsSyncServiceInterface;
 import ehe_server.service.intf.trade.TradingCapacityServiceInterface;
@@ -27,7 +28,7 @@ public class TradingCapacityService implements TradingCapacityServiceInterface {
     private final PortfolioRepository portfolioRepository;
     private final HoldingRepository holdingRepository;
     private final PlatformStockRepository platformStockRepository;
-    private final MarketCandleRepository marketCandleRepository;
+    private final HotCandleCacheInterface hotCandleCache;
     private final LoggingServiceInterface loggingService;
     private final HoldingsSyncServiceInterface holdingsSyncService;
 
@@ -35,13 +36,13 @@ public class TradingCapacityService implements TradingCapacityServiceInterface {
             PortfolioRepository portfolioRepository,
             HoldingRepository holdingRepository,
             PlatformStockRepository platformStockRepository,
-            MarketCandleRepository marketCandleRepository,
+            HotCandleCacheInterface hotCandleCache,
             LoggingServiceInterface loggingService,
             HoldingsSyncServiceInterface holdingsSyncService) {
         this.portfolioRepository = portfolioRepository;
         this.holdingRepository = holdingRepository;
         this.platformStockRepository = platformStockRepository;
-        this.marketCandleRepository = marketCandleRepository;
+        this.hotCandleCache = hotCandleCache;
         this.loggingService = loggingService;
         this.holdingsSyncService = holdingsSyncService;
     }
@@ -117,11 +118,11 @@ public class TradingCapacityService implements TradingCapacityServiceInterface {
 
         // Get the latest market price for this stock
         BigDecimal currentPrice;
-        MarketCandle latestCandle = marketCandleRepository.findTopByPlatformStockAndTimeframeOrderByTimestampDesc(
-                stock, MarketCandle.Timeframe.M1);
+        Optional<CachedCandle> latestCandle = hotCandleCache.getLatest(
+                stock.getPlatformStockId(), MarketCandle.Timeframe.M1);
 
-        if (latestCandle != null) {
-            currentPrice = latestCandle.getClosePrice();
+        if (latestCandle.isPresent()) {
+            currentPrice = latestCandle.get().closePrice();
         } else {
             throw new PriceDataNotFoundException(stock.getStock().getStockSymbol());
         }
@@ -125,13 +125,13 @@ public class TradingService implements TradingServiceInterface {
         if (BINANCE_PLATFORM.equals(platformName)) {
             String binanceSymbol = toBinanceSymbol(stockSymbol);
             return binanceAccountService.placeMarketOrder(
-                    apiKeyValue, secretKey, binanceSymbol, action.toString(), "MARKET", quantity, quantityType);
+                    apiKeyValue, secretKey, binanceSymbol, action.toString(), "MARKET", quantity, quantityType).join();
         }
 
         if (ALPACA_PLATFORM.equals(platformName)) {
             String alpacaSymbol = toAlpacaSymbol(stockSymbol);
             return alpacaAccountService.placeMarketOrder(
-                    apiKeyValue, secretKey, alpacaSymbol, action.toString(), "market", quantity, quantityType);
+                    apiKeyValue, secretKey, alpacaSymbol, action.toString(), "market", quantity, quantityType).join();
         }
 
         throw new UnsupportedPlatformException(platformName);
@@ -0,0 +1,14 @@
+-- Staging area for COPY based bulk loads of minute candles.
+-- Unlogged: rows only live until the load is merged into market_candle.
+CREATE UNLOGGED TABLE IF NOT EXISTS market_candle_staging (
+    load_id     UUID           NOT NULL,
+    timestamp   TIMESTAMP      NOT NULL,
+    open_price  NUMERIC(18, 8) NOT NULL,
+    high_price  NUMERIC(18, 8) NOT NULL,
+    low_price   NUMERIC(18, 8) NOT NULL,
+    close_price NUMERIC(18, 8) NOT NULL,
+    volume      NUMERIC(18, 8) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_market_candle_staging_load
+    ON market_candle_staging (load_id, timestamp);
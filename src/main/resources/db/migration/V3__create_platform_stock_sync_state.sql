@@ -0,0 +1,6 @@
+-- Per platform stock facts learned while syncing, so they are not rediscovered on every start.
+CREATE TABLE IF NOT EXISTS platform_stock_sync_state (
+    platform_stock_id       INTEGER   PRIMARY KEY
+        REFERENCES platform_stock (platform_stock_id) ON DELETE CASCADE,
+    earliest_data_timestamp TIMESTAMP
+);
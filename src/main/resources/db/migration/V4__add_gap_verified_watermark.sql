@@ -0,0 +1,3 @@
+-- Minute candles up to this point have been checked for gaps, so the nightly scan resumes from here.
+ALTER TABLE platform_stock_sync_state
+    ADD COLUMN IF NOT EXISTS gap_verified_until TIMESTAMP;
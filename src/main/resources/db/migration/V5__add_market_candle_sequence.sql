@@ -0,0 +1,82 @@
+-- Position of a candle in the series of its stock and timeframe, starting at 1 with the oldest candle.
+-- Kept up to date by statement triggers, so lookups by sequence or timestamp are index range scans
+-- instead of numbering the whole series with ROW_NUMBER on every read.
+ALTER TABLE market_candle
+    ADD COLUMN IF NOT EXISTS sequence BIGINT;
+
+UPDATE market_candle mc
+SET sequence = numbered.sequence
+FROM (
+    SELECT market_candle_id,
+           ROW_NUMBER() OVER (PARTITION BY platform_stock_id, timeframe ORDER BY timestamp) AS sequence
+    FROM market_candle
+) numbered
+WHERE mc.market_candle_id = numbered.market_candle_id
+AND mc.sequence IS DISTINCT FROM numbered.sequence;
+
+CREATE INDEX IF NOT EXISTS idx_market_candle_sequence
+    ON market_candle (platform_stock_id, timeframe, sequence);
+
+-- Renumbers one series from the earliest changed timestamp on. Appends only touch the new rows,
+-- a late historical insert or a delete shifts the rows after it.
+CREATE OR REPLACE FUNCTION market_candle_renumber(p_stock_id INTEGER, p_timeframe VARCHAR, p_from TIMESTAMP)
+RETURNS VOID AS $$
+DECLARE
+    base BIGINT;
+BEGIN
+    -- Serializes writers of the same series, their renumbering would otherwise interleave
+    PERFORM pg_advisory_xact_lock(p_stock_id, hashtext(p_timeframe));
+
+    SELECT mc.sequence INTO base
+    FROM market_candle mc
+    WHERE mc.platform_stock_id = p_stock_id
+    AND mc.timeframe = p_timeframe
+    AND mc.timestamp < p_from
+    ORDER BY mc.timestamp DESC
+    LIMIT 1;
+
+    UPDATE market_candle mc
+    SET sequence = numbered.sequence
+    FROM (
+        SELECT market_candle_id,
+               COALESCE(base, 0) + ROW_NUMBER() OVER (ORDER BY timestamp) AS sequence
+        FROM market_candle
+        WHERE platform_stock_id = p_stock_id
+        AND timeframe = p_timeframe
+        AND timestamp >= p_from
+    ) numbered
+    WHERE mc.market_candle_id = numbered.market_candle_id
+    AND mc.sequence IS DISTINCT FROM numbered.sequence;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Series are renumbered in a fixed order, so concurrent statements take their locks in the same order
+CREATE OR REPLACE FUNCTION market_candle_sequence_changed()
+RETURNS TRIGGER AS $$
+DECLARE
+    changed RECORD;
+BEGIN
+    FOR changed IN
+        SELECT platform_stock_id, timeframe, MIN(timestamp) AS from_timestamp
+        FROM changed_rows
+        GROUP BY platform_stock_id, timeframe
+        ORDER BY platform_stock_id, timeframe
+    LOOP
+        PERFORM market_candle_renumber(changed.platform_stock_id, changed.timeframe, changed.from_timestamp);
+    END LOOP;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Upserts that only update a candle do not show up in the inserted rows, their sequence stays
+DROP TRIGGER IF EXISTS market_candle_sequence_insert ON market_candle;
+CREATE TRIGGER market_candle_sequence_insert
+    AFTER INSERT ON market_candle
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION market_candle_sequence_changed();
+
+DROP TRIGGER IF EXISTS market_candle_sequence_delete ON market_candle;
+CREATE TRIGGER market_candle_sequence_delete
+    AFTER DELETE ON market_candle
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION market_candle_sequence_changed();
@@ -0,0 +1,250 @@
+-- Declarative partitioning of market_candle: a list partition per timeframe, each split by time.
+-- Minute candles get monthly partitions, so old minutes can be dropped without a DELETE,
+-- the far smaller aggregated timeframes get yearly ones. Each timeframe keeps a default partition
+-- for rows that arrive before their partition exists, market_candle_ensure_partitions moves them out.
+
+ALTER TABLE market_candle RENAME TO market_candle_legacy;
+
+-- Index names are unique per schema, the new table reuses the usual ones
+DO $$
+DECLARE
+    legacy_index RECORD;
+BEGIN
+    FOR legacy_index IN
+        SELECT c.relname
+        FROM pg_index i
+        JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE i.indrelid = 'market_candle_legacy'::regclass
+    LOOP
+        EXECUTE format('ALTER INDEX %I RENAME TO %I', legacy_index.relname, legacy_index.relname || '_legacy');
+    END LOOP;
+END;
+$$;
+
+CREATE SEQUENCE market_candle_id_seq AS INTEGER;
+
+-- Unique keys of a partitioned table have to contain the partition keys
+CREATE TABLE market_candle (
+    market_candle_id  INTEGER        NOT NULL DEFAULT nextval('market_candle_id_seq'),
+    platform_stock_id INTEGER        NOT NULL
+        REFERENCES platform_stock (platform_stock_id) ON DELETE CASCADE,
+    timeframe         VARCHAR(50)    NOT NULL,
+    timestamp         TIMESTAMP      NOT NULL,
+    open_price        NUMERIC(18, 8) NOT NULL,
+    high_price        NUMERIC(18, 8) NOT NULL,
+    low_price         NUMERIC(18, 8) NOT NULL,
+    close_price       NUMERIC(18, 8) NOT NULL,
+    volume            NUMERIC(18, 8) NOT NULL,
+    sequence          BIGINT,
+    PRIMARY KEY (market_candle_id, timeframe, timestamp),
+    UNIQUE (platform_stock_id, timeframe, timestamp)
+) PARTITION BY LIST (timeframe);
+
+ALTER SEQUENCE market_candle_id_seq OWNED BY market_candle.market_candle_id;
+
+CREATE INDEX idx_market_candle_sequence
+    ON market_candle (platform_stock_id, timeframe, sequence);
+
+CREATE TABLE market_candle_1m PARTITION OF market_candle FOR VALUES IN ('1m') PARTITION BY RANGE (timestamp);
+CREATE TABLE market_candle_5m PARTITION OF market_candle FOR VALUES IN ('5m') PARTITION BY RANGE (timestamp);
+CREATE TABLE market_candle_15m PARTITION OF market_candle FOR VALUES IN ('15m') PARTITION BY RANGE (timestamp);
+CREATE TABLE market_candle_1h PARTITION OF market_candle FOR VALUES IN ('1h') PARTITION BY RANGE (timestamp);
+CREATE TABLE market_candle_4h PARTITION OF market_candle FOR VALUES IN ('4h') PARTITION BY RANGE (timestamp);
+CREATE TABLE market_candle_1d PARTITION OF market_candle FOR VALUES IN ('1d') PARTITION BY RANGE (timestamp);
+
+CREATE TABLE market_candle_1m_default PARTITION OF market_candle_1m DEFAULT;
+CREATE TABLE market_candle_5m_default PARTITION OF market_candle_5m DEFAULT;
+CREATE TABLE market_candle_15m_default PARTITION OF market_candle_15m DEFAULT;
+CREATE TABLE market_candle_1h_default PARTITION OF market_candle_1h DEFAULT;
+CREATE TABLE market_candle_4h_default PARTITION OF market_candle_4h DEFAULT;
+CREATE TABLE market_candle_1d_default PARTITION OF market_candle_1d DEFAULT;
+
+CREATE OR REPLACE FUNCTION market_candle_partition_interval(p_timeframe VARCHAR)
+RETURNS INTERVAL AS $$
+    SELECT CASE WHEN p_timeframe = '1m' THEN INTERVAL '1 month' ELSE INTERVAL '1 year' END;
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION market_candle_partition_start(p_timeframe VARCHAR, p_at TIMESTAMP)
+RETURNS TIMESTAMP AS $$
+    SELECT date_trunc(CASE WHEN p_timeframe = '1m' THEN 'month' ELSE 'year' END, p_at);
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Creates the partition that holds p_at unless it exists, rows already in the default partition move into it.
+-- Returns whether a partition was created.
+CREATE OR REPLACE FUNCTION market_candle_create_partition(p_timeframe VARCHAR, p_at TIMESTAMP)
+RETURNS BOOLEAN AS $$
+DECLARE
+    range_start    TIMESTAMP := market_candle_partition_start(p_timeframe, p_at);
+    range_end      TIMESTAMP := range_start + market_candle_partition_interval(p_timeframe);
+    parent_name    TEXT := 'market_candle_' || p_timeframe;
+    partition_name TEXT := parent_name || '_'
+        || to_char(range_start, CASE WHEN p_timeframe = '1m' THEN 'YYYY_MM' ELSE 'YYYY' END);
+BEGIN
+    -- Serializes maintenance runs of several instances
+    PERFORM pg_advisory_xact_lock(hashtext('market_candle_partitions'));
+
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS)', partition_name, parent_name);
+
+    -- Lets ATTACH skip scanning the new partition for rows outside its range
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (timeframe = %L AND timestamp >= %L AND timestamp < %L)',
+                   partition_name, partition_name || '_range', p_timeframe, range_start, range_end);
+
+    -- Deleting from a partition directly keeps the statement triggers of market_candle and the sequences as they are
+    EXECUTE format('WITH moved AS (DELETE FROM %I WHERE timestamp >= %L AND timestamp < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved',
+                   parent_name || '_default', range_start, range_end, partition_name);
+
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   parent_name, partition_name, range_start, range_end);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Creates every partition from the current one up to p_months_ahead months ahead, and the partitions
+-- of rows that landed in a default partition. Returns the number of partitions created.
+CREATE OR REPLACE FUNCTION market_candle_ensure_partitions(p_months_ahead INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    timeframe_value  TEXT;
+    partition_at     TIMESTAMP;
+    pending_starts   TIMESTAMP[];
+    created          INTEGER := 0;
+    utc_now          TIMESTAMP := now() AT TIME ZONE 'UTC';
+BEGIN
+    FOREACH timeframe_value IN ARRAY ARRAY['1m', '5m', '15m', '1h', '4h', '1d'] LOOP
+        partition_at := market_candle_partition_start(timeframe_value, utc_now);
+        WHILE partition_at <= utc_now + make_interval(months => GREATEST(p_months_ahead, 0)) LOOP
+            IF market_candle_create_partition(timeframe_value, partition_at) THEN
+                created := created + 1;
+            END IF;
+            partition_at := partition_at + market_candle_partition_interval(timeframe_value);
+        END LOOP;
+
+        -- Collected first, attaching needs the default partition to be free of open scans
+        EXECUTE format('SELECT array_agg(DISTINCT market_candle_partition_start(%L, timestamp)) FROM %I',
+                       timeframe_value, 'market_candle_' || timeframe_value || '_default')
+            INTO pending_starts;
+
+        IF pending_starts IS NOT NULL THEN
+            FOREACH partition_at IN ARRAY pending_starts LOOP
+                IF market_candle_create_partition(timeframe_value, partition_at) THEN
+                    created := created + 1;
+                END IF;
+            END LOOP;
+        END IF;
+    END LOOP;
+
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Drops the partitions of a timeframe that end at or before p_before. The sequences of the remaining
+-- candles stay as they are, a series then simply no longer starts at 1. Returns the number dropped.
+CREATE OR REPLACE FUNCTION market_candle_drop_partitions(p_timeframe VARCHAR, p_before TIMESTAMP)
+RETURNS INTEGER AS $$
+DECLARE
+    expired RECORD;
+    dropped INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('market_candle_partitions'));
+
+    FOR expired IN
+        SELECT bounds.name
+        FROM (
+            SELECT child.relname AS name,
+                   substring(pg_get_expr(child.relpartbound, child.oid) FROM 'TO \(''([^'']+)''\)') AS range_end
+            FROM pg_inherits inheritance
+            JOIN pg_class child ON child.oid = inheritance.inhrelid
+            WHERE inheritance.inhparent = to_regclass('market_candle_' || p_timeframe)
+        ) bounds
+        WHERE bounds.range_end IS NOT NULL
+        AND CAST(bounds.range_end AS TIMESTAMP) <= p_before
+        ORDER BY bounds.name
+    LOOP
+        EXECUTE format('DROP TABLE %I', expired.name);
+        dropped := dropped + 1;
+    END LOOP;
+
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for the stored history and the coming months, so the copy below routes straight into them
+DO $$
+DECLARE
+    stored RECORD;
+BEGIN
+    FOR stored IN
+        SELECT DISTINCT LOWER(timeframe) AS timeframe_value,
+                        market_candle_partition_start(LOWER(timeframe), timestamp) AS partition_at
+        FROM market_candle_legacy
+    LOOP
+        PERFORM market_candle_create_partition(stored.timeframe_value, stored.partition_at);
+    END LOOP;
+END;
+$$;
+
+SELECT market_candle_ensure_partitions(3);
+
+INSERT INTO market_candle (market_candle_id, platform_stock_id, timeframe, timestamp,
+                           open_price, high_price, low_price, close_price, volume, sequence)
+SELECT market_candle_id, platform_stock_id, LOWER(timeframe), timestamp,
+       open_price, high_price, low_price, close_price, volume, sequence
+FROM market_candle_legacy;
+
+SELECT setval('market_candle_id_seq', COALESCE((SELECT MAX(market_candle_id) FROM market_candle), 0) + 1, false);
+
+DROP TABLE market_candle_legacy;
+
+-- Same numbering as before, with predicates on every partition key so only the partitions
+-- of the series from p_from on are touched
+CREATE OR REPLACE FUNCTION market_candle_renumber(p_stock_id INTEGER, p_timeframe VARCHAR, p_from TIMESTAMP)
+RETURNS VOID AS $$
+DECLARE
+    base BIGINT;
+BEGIN
+    -- Serializes writers of the same series, their renumbering would otherwise interleave
+    PERFORM pg_advisory_xact_lock(p_stock_id, hashtext(p_timeframe));
+
+    SELECT mc.sequence INTO base
+    FROM market_candle mc
+    WHERE mc.platform_stock_id = p_stock_id
+    AND mc.timeframe = p_timeframe
+    AND mc.timestamp < p_from
+    ORDER BY mc.timestamp DESC
+    LIMIT 1;
+
+    UPDATE market_candle mc
+    SET sequence = numbered.sequence
+    FROM (
+        SELECT timestamp,
+               COALESCE(base, 0) + ROW_NUMBER() OVER (ORDER BY timestamp) AS sequence
+        FROM market_candle
+        WHERE platform_stock_id = p_stock_id
+        AND timeframe = p_timeframe
+        AND timestamp >= p_from
+    ) numbered
+    WHERE mc.platform_stock_id = p_stock_id
+    AND mc.timeframe = p_timeframe
+    AND mc.timestamp >= p_from
+    AND mc.timestamp = numbered.timestamp
+    AND mc.sequence IS DISTINCT FROM numbered.sequence;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Statement triggers on the partitioned table see the rows of every partition in their transition table
+CREATE TRIGGER market_candle_sequence_insert
+    AFTER INSERT ON market_candle
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION market_candle_sequence_changed();
+
+CREATE TRIGGER market_candle_sequence_delete
+    AFTER DELETE ON market_candle
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION market_candle_sequence_changed();
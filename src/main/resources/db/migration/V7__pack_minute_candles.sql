@@ -0,0 +1,210 @@
+-- Settled minute candles packed into one row per platform stock and UTC day. Prices and volumes are
+-- fixed point arrays scaled by 10^8 like FixedPoint, timestamps are seconds into the day, and the
+-- candles of a day keep their contiguous sequence numbers from first_sequence on.
+-- For every stock, all packed days lie before all minute rows still in market_candle: packing only
+-- moves whole days from the front of the rows, and a write before the packed boundary unpacks the
+-- days from the written one on first. The day of the newest minute is never packed.
+
+CREATE TABLE market_candle_minute_bucket (
+    platform_stock_id INTEGER   NOT NULL
+        REFERENCES platform_stock (platform_stock_id) ON DELETE CASCADE,
+    bucket_start      TIMESTAMP NOT NULL,
+    first_sequence    BIGINT,
+    candle_count      INTEGER   NOT NULL,
+    second_offsets    INTEGER[] NOT NULL,
+    open_prices       BIGINT[]  NOT NULL,
+    high_prices       BIGINT[]  NOT NULL,
+    low_prices        BIGINT[]  NOT NULL,
+    close_prices      BIGINT[]  NOT NULL,
+    volumes           BIGINT[]  NOT NULL,
+    PRIMARY KEY (platform_stock_id, bucket_start)
+);
+
+CREATE INDEX idx_market_candle_minute_bucket_sequence
+    ON market_candle_minute_bucket (platform_stock_id, first_sequence);
+
+-- Filters on the bucket columns reach the bucket scan, only the matching days are unnested
+CREATE VIEW market_candle_packed_minute AS
+SELECT b.platform_stock_id,
+       b.bucket_start,
+       b.first_sequence,
+       b.bucket_start + make_interval(secs => m.second_offset) AS timestamp,
+       CAST(m.open_price / 100000000.0 AS NUMERIC(18, 8)) AS open_price,
+       CAST(m.high_price / 100000000.0 AS NUMERIC(18, 8)) AS high_price,
+       CAST(m.low_price / 100000000.0 AS NUMERIC(18, 8)) AS low_price,
+       CAST(m.close_price / 100000000.0 AS NUMERIC(18, 8)) AS close_price,
+       CAST(m.volume / 100000000.0 AS NUMERIC(18, 8)) AS volume,
+       b.first_sequence + m.ordinal - 1 AS sequence
+FROM market_candle_minute_bucket b
+CROSS JOIN LATERAL unnest(b.second_offsets, b.open_prices, b.high_prices, b.low_prices,
+                          b.close_prices, b.volumes)
+    WITH ORDINALITY AS m(second_offset, open_price, high_price, low_price, close_price, volume, ordinal);
+
+-- Packing and unpacking move candles with their sequence numbers, the triggers stay out of it
+CREATE OR REPLACE FUNCTION market_candle_sequence_changed()
+RETURNS TRIGGER AS $$
+DECLARE
+    changed RECORD;
+BEGIN
+    IF current_setting('market_candle.skip_sequence', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+
+    FOR changed IN
+        SELECT platform_stock_id, timeframe, MIN(timestamp) AS from_timestamp
+        FROM changed_rows
+        GROUP BY platform_stock_id, timeframe
+        ORDER BY platform_stock_id, timeframe
+    LOOP
+        PERFORM market_candle_renumber(changed.platform_stock_id, changed.timeframe, changed.from_timestamp);
+    END LOOP;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- A minute series continues after its last packed day when no row comes before the change
+CREATE OR REPLACE FUNCTION market_candle_renumber(p_stock_id INTEGER, p_timeframe VARCHAR, p_from TIMESTAMP)
+RETURNS VOID AS $$
+DECLARE
+    base BIGINT;
+BEGIN
+    -- Serializes writers of the same series, their renumbering would otherwise interleave
+    PERFORM pg_advisory_xact_lock(p_stock_id, hashtext(p_timeframe));
+
+    SELECT mc.sequence INTO base
+    FROM market_candle mc
+    WHERE mc.platform_stock_id = p_stock_id
+    AND mc.timeframe = p_timeframe
+    AND mc.timestamp < p_from
+    ORDER BY mc.timestamp DESC
+    LIMIT 1;
+
+    IF base IS NULL AND p_timeframe = '1m' THEN
+        SELECT b.first_sequence + b.candle_count - 1 INTO base
+        FROM market_candle_minute_bucket b
+        WHERE b.platform_stock_id = p_stock_id
+        AND b.bucket_start < p_from
+        ORDER BY b.bucket_start DESC
+        LIMIT 1;
+    END IF;
+
+    UPDATE market_candle mc
+    SET sequence = numbered.sequence
+    FROM (
+        SELECT timestamp,
+               COALESCE(base, 0) + ROW_NUMBER() OVER (ORDER BY timestamp) AS sequence
+        FROM market_candle
+        WHERE platform_stock_id = p_stock_id
+        AND timeframe = p_timeframe
+        AND timestamp >= p_from
+    ) numbered
+    WHERE mc.platform_stock_id = p_stock_id
+    AND mc.timeframe = p_timeframe
+    AND mc.timestamp >= p_from
+    AND mc.timestamp = numbered.timestamp
+    AND mc.sequence IS DISTINCT FROM numbered.sequence;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Packs the whole minute days of a stock from its oldest row up to p_until, at most p_max_days
+-- of them. The day of the newest minute stays in market_candle. Returns the number of days packed.
+CREATE OR REPLACE FUNCTION market_candle_pack_minutes(p_stock_id INTEGER, p_until TIMESTAMP, p_max_days INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    latest_day TIMESTAMP;
+    pack_from  TIMESTAMP;
+    pack_until TIMESTAMP;
+    packed     INTEGER;
+BEGIN
+    -- The same lock as the renumbering, so no write of the series lands in the middle
+    PERFORM pg_advisory_xact_lock(p_stock_id, hashtext('1m'));
+
+    -- Every row lies after the packed days, packing continues at the oldest one
+    SELECT date_trunc('day', MIN(mc.timestamp)), date_trunc('day', MAX(mc.timestamp))
+    INTO pack_from, latest_day
+    FROM market_candle mc
+    WHERE mc.platform_stock_id = p_stock_id
+    AND mc.timeframe = '1m';
+
+    IF latest_day IS NULL THEN
+        RETURN 0;
+    END IF;
+
+    pack_until := LEAST(date_trunc('day', p_until), latest_day, pack_from + make_interval(days => p_max_days));
+    IF pack_from >= pack_until THEN
+        RETURN 0;
+    END IF;
+
+    INSERT INTO market_candle_minute_bucket
+        (platform_stock_id, bucket_start, first_sequence, candle_count, second_offsets,
+         open_prices, high_prices, low_prices, close_prices, volumes)
+    SELECT p_stock_id,
+           packed_day.bucket_start,
+           MIN(packed_day.sequence),
+           COUNT(*),
+           array_agg(CAST(EXTRACT(EPOCH FROM packed_day.timestamp - packed_day.bucket_start) AS INTEGER) ORDER BY packed_day.timestamp),
+           array_agg(CAST(packed_day.open_price * 100000000 AS BIGINT) ORDER BY packed_day.timestamp),
+           array_agg(CAST(packed_day.high_price * 100000000 AS BIGINT) ORDER BY packed_day.timestamp),
+           array_agg(CAST(packed_day.low_price * 100000000 AS BIGINT) ORDER BY packed_day.timestamp),
+           array_agg(CAST(packed_day.close_price * 100000000 AS BIGINT) ORDER BY packed_day.timestamp),
+           array_agg(CAST(packed_day.volume * 100000000 AS BIGINT) ORDER BY packed_day.timestamp)
+    FROM (
+        SELECT date_trunc('day', mc.timestamp) AS bucket_start, mc.*
+        FROM market_candle mc
+        WHERE mc.platform_stock_id = p_stock_id
+        AND mc.timeframe = '1m'
+        AND mc.timestamp >= pack_from
+        AND mc.timestamp < pack_until
+    ) packed_day
+    GROUP BY packed_day.bucket_start;
+
+    GET DIAGNOSTICS packed = ROW_COUNT;
+
+    PERFORM set_config('market_candle.skip_sequence', 'on', true);
+    DELETE FROM market_candle mc
+    WHERE mc.platform_stock_id = p_stock_id
+    AND mc.timeframe = '1m'
+    AND mc.timestamp >= pack_from
+    AND mc.timestamp < pack_until;
+    PERFORM set_config('market_candle.skip_sequence', 'off', true);
+
+    RETURN packed;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Moves the packed days from the day of p_from on back into market_candle, so a write at p_from
+-- lands among rows again. Returns the number of days unpacked, 0 without a packed day to move.
+CREATE OR REPLACE FUNCTION market_candle_unpack_minutes(p_stock_id INTEGER, p_from TIMESTAMP)
+RETURNS INTEGER AS $$
+DECLARE
+    unpacked INTEGER;
+BEGIN
+    PERFORM pg_advisory_xact_lock(p_stock_id, hashtext('1m'));
+
+    IF NOT EXISTS (
+        SELECT 1
+        FROM market_candle_minute_bucket b
+        WHERE b.platform_stock_id = p_stock_id
+        AND b.bucket_start >= date_trunc('day', p_from)
+    ) THEN
+        RETURN 0;
+    END IF;
+
+    PERFORM set_config('market_candle.skip_sequence', 'on', true);
+    INSERT INTO market_candle
+        (platform_stock_id, timeframe, timestamp, open_price, high_price, low_price, close_price, volume, sequence)
+    SELECT pm.platform_stock_id, '1m', pm.timestamp, pm.open_price, pm.high_price, pm.low_price,
+           pm.close_price, pm.volume, pm.sequence
+    FROM market_candle_packed_minute pm
+    WHERE pm.platform_stock_id = p_stock_id
+    AND pm.bucket_start >= date_trunc('day', p_from);
+    PERFORM set_config('market_candle.skip_sequence', 'off', true);
+
+    DELETE FROM market_candle_minute_bucket b
+    WHERE b.platform_stock_id = p_stock_id
+    AND b.bucket_start >= date_trunc('day', p_from);
+
+    GET DIAGNOSTICS unpacked = ROW_COUNT;
+    RETURN unpacked;
+END;
+$$ LANGUAGE plpgsql;
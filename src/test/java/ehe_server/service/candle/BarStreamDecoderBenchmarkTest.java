@@ -0,0 +1,188 @@
+package ehe_server.service.candle;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.Bar;
+import ehe_server.service.intf.candle.BarStreamDecoderInterface.BarPage;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the tree based bar decoding the candle services used before with BarStreamDecoder,
+ * per page of 10,000 bars. Allocation is measured per thread, CPU time is only printed.
+ */
+class BarStreamDecoderBenchmarkTest {
+
+    private static final int BARS_PER_PAGE = 10_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BarStreamDecoder decoder = new BarStreamDecoder(objectMapper);
+
+    @Test
+    void decodesAlpacaBarPageWithLessAllocation() throws IOException {
+        byte[] body = alpacaPage().getBytes(StandardCharsets.UTF_8);
+
+        List<Bar> treeBars = toBars(decodeAlpacaWithTree(body));
+        List<Bar> streamedBars = decoder.decodeAlpacaBarPage(new ByteArrayInputStream(body), "AAPL").bars();
+        assertEquals(treeBars, streamedBars);
+
+        Measurement tree = measure(() -> decodeAlpacaWithTree(body));
+        Measurement streamed = measure(() -> {
+            BarPage page = decoder.decodeAlpacaBarPage(new ByteArrayInputStream(body), "AAPL");
+            return page.bars();
+        });
+
+        report("Alpaca bars", tree, streamed);
+        assertTrue(streamed.allocatedBytes < tree.allocatedBytes);
+    }
+
+    @Test
+    void decodesBinanceKlinesWithLessAllocation() throws IOException {
+        byte[] body = binanceKlines().getBytes(StandardCharsets.UTF_8);
+
+        List<Bar> treeBars = toBars(decodeBinanceWithTree(body));
+        List<Bar> streamedBars = decoder.decodeBinanceKlines(new ByteArrayInputStream(body));
+        assertEquals(treeBars, streamedBars);
+
+        Measurement tree = measure(() -> decodeBinanceWithTree(body));
+        Measurement streamed = measure(() -> decoder.decodeBinanceKlines(new ByteArrayInputStream(body)));
+
+        report("Binance klines", tree, streamed);
+        assertTrue(streamed.allocatedBytes < tree.allocatedBytes);
+    }
+
+    // The previous path: response body as String, full tree, then asText -> BigDecimal -> setScale per field
+    private List<BigDecimal[]> decodeAlpacaWithTree(byte[] body) throws IOException {
+        JsonNode root = objectMapper.readTree(new String(body, StandardCharsets.UTF_8));
+        List<BigDecimal[]> rows = new ArrayList<>();
+        for (JsonNode bar : root.get("bars")) {
+            rows.add(new BigDecimal[]{
+                    BigDecimal.valueOf(Instant.parse(bar.get("t").asText()).toEpochMilli()),
+                    scale(bar.get("o").asText()),
+                    scale(bar.get("h").asText()),
+                    scale(bar.get("l").asText()),
+                    scale(bar.get("c").asText()),
+                    scale(bar.get("v").asText())
+            });
+        }
+        return rows;
+    }
+
+    private List<BigDecimal[]> decodeBinanceWithTree(byte[] body) throws IOException {
+        JsonNode root = objectMapper.readTree(new String(body, StandardCharsets.UTF_8));
+        List<BigDecimal[]> rows = new ArrayList<>();
+        for (JsonNode kline : root) {
+            rows.add(new BigDecimal[]{
+                    BigDecimal.valueOf(kline.get(0).asLong()),
+                    scale(kline.get(1).asText()),
+                    scale(kline.get(2).asText()),
+                    scale(kline.get(3).asText()),
+                    scale(kline.get(4).asText()),
+                    scale(kline.get(5).asText())
+            });
+        }
+        return rows;
+    }
+
+    private static BigDecimal scale(String value) {
+        return new BigDecimal(value).setScale(FixedPoint.SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static List<Bar> toBars(List<BigDecimal[]> rows) {
+        List<Bar> bars = new ArrayList<>(rows.size());
+        for (BigDecimal[] row : rows) {
+            bars.add(new Bar(row[0].longValueExact(),
+                    FixedPoint.fromBigDecimal(row[1]),
+                    FixedPoint.fromBigDecimal(row[2]),
+                    FixedPoint.fromBigDecimal(row[3]),
+                    FixedPoint.fromBigDecimal(row[4]),
+                    FixedPoint.fromBigDecimal(row[5])));
+        }
+        return bars;
+    }
+
+    private static String alpacaPage() {
+        StringBuilder json = new StringBuilder("{\"bars\":[");
+        long start = Instant.parse("2024-01-02T14:30:00Z").getEpochSecond();
+        for (int i = 0; i < BARS_PER_PAGE; i++) {
+            double open = 180 + (i % 500) * 0.01;
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT,
+                    "{\"t\":\"%s\",\"o\":%.2f,\"h\":%.3f,\"l\":%.2f,\"c\":%.4f,\"v\":%d,\"n\":%d,\"vw\":%.6f}",
+                    Instant.ofEpochSecond(start + i * 60L), open, open + 0.125, open - 0.05, open + 0.0125,
+                    1000 + i, 10 + i % 90, open + 0.031415));
+        }
+        return json.append("],\"symbol\":\"AAPL\",\"next_page_token\":null}").toString();
+    }
+
+    private static String binanceKlines() {
+        StringBuilder json = new StringBuilder("[");
+        long start = Instant.parse("2024-01-02T00:00:00Z").toEpochMilli();
+        for (int i = 0; i < BARS_PER_PAGE; i++) {
+            long openTime = start + i * 60_000L;
+            double open = 42_000 + (i % 1000) * 0.1;
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT,
+                    "[%d,\"%.8f\",\"%.8f\",\"%.8f\",\"%.8f\",\"%.8f\",%d,\"%.8f\",%d,\"%.8f\",\"%.8f\",\"0\"]",
+                    openTime, open, open + 12.5, open - 7.25, open + 3.1, 12.345 + i % 100 * 0.001,
+                    openTime + 59_999, open * 12.345, 100 + i % 50, 6.1725, open * 6.1725));
+        }
+        return json.append(']').toString();
+    }
+
+    private static Measurement measure(DecodeRound round) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run();
+        }
+
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        int decoded = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            decoded += round.run().size();
+        }
+        long cpuNanos = threads.getCurrentThreadCpuTime() - cpuBefore;
+        long allocatedBytes = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        assertEquals(BARS_PER_PAGE * MEASURED_ROUNDS, decoded);
+        return new Measurement(allocatedBytes / MEASURED_ROUNDS, cpuNanos / MEASURED_ROUNDS);
+    }
+
+    private static void report(String name, Measurement tree, Measurement streamed) {
+        System.out.printf(Locale.ROOT,
+                "%s per %d bars: tree %,d bytes / %.2f ms CPU, streaming %,d bytes / %.2f ms CPU (%.1fx less allocation)%n",
+                name, BARS_PER_PAGE,
+                tree.allocatedBytes, tree.cpuNanos / 1e6,
+                streamed.allocatedBytes, streamed.cpuNanos / 1e6,
+                (double) tree.allocatedBytes / Math.max(1, streamed.allocatedBytes));
+    }
+
+    @FunctionalInterface
+    private interface DecodeRound {
+        List<?> run() throws IOException;
+    }
+
+    private record Measurement(long allocatedBytes, long cpuNanos) {
+    }
+}